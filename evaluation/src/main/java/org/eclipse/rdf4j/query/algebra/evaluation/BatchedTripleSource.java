@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation;
+
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * A {@link TripleSource} that can look up the statements for a batch of statement patterns at once. This allows a
+ * bind join to look up the statements for many left binding sets with a single call, which the triple source can
+ * serve more efficiently than a series of separate lookups, for example by resolving all values at once and visiting
+ * its indexes in order.
+ */
+public interface BatchedTripleSource extends TripleSource {
+
+	/**
+	 * Gets all statements that match at least one of the specified patterns. Each pattern is an array of a subject,
+	 * predicate and object, in that order, where <tt>null</tt> is a wildcard. A pattern with a subject that is not a
+	 * {@link Resource} or a predicate that is not an {@link org.eclipse.rdf4j.model.IRI} does not match any statements.
+	 * The statements are returned in an arbitrary order; a statement that matches several patterns may be returned
+	 * once for each of them.
+	 *
+	 * @param patterns The subject, predicate and object of each pattern.
+	 * @param contexts The context(s) to get the statements from. Note that this parameter is a vararg and as such is
+	 *                 optional. If no contexts are supplied the method operates on the entire repository.
+	 * @return An iterator over the relevant statements.
+	 * @throws QueryEvaluationException If the triple source failed to get the statements.
+	 */
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatementsBatch(
+			List<Value[]> patterns, Resource... contexts) throws QueryEvaluationException;
+}
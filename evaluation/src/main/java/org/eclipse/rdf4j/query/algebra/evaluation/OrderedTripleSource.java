@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation;
+
+import java.util.Comparator;
+import java.util.Set;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * A {@link TripleSource} that can return statements sorted on one of their positions, typically because it reads them
+ * from an index that is sorted in that order. Joins between statement patterns can then be evaluated as a merge of two
+ * sorted streams of statements.
+ * <p>
+ * The order of the values is defined by the {@link #getComparator() comparator} of the triple source. It does not need
+ * to correspond to the order that is defined by SPARQL, but it must be consistent with {@link Value#equals(Object)}.
+ */
+public interface OrderedTripleSource extends TripleSource {
+
+	/**
+	 * Gets the orders in which the statements that match the specified pattern can be returned.
+	 * 
+	 * @param subj     A Resource specifying the subject, or <tt>null</tt> for a wildcard.
+	 * @param pred     A URI specifying the predicate, or <tt>null</tt> for a wildcard.
+	 * @param obj      A Value specifying the object, or <tt>null</tt> for a wildcard.
+	 * @param contexts The context(s) to get the statements from.
+	 * @return The supported orders, which is an empty set if the statements can not be returned in any order.
+	 * @throws QueryEvaluationException If the triple source failed to determine the supported orders.
+	 */
+	public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws QueryEvaluationException;
+
+	/**
+	 * Gets all statements that have a specific subject, predicate and/or object, sorted on the specified position.
+	 * Statements that have the same value at that position are returned in an arbitrary order.
+	 * 
+	 * @param order    The position to sort the statements on, which must be one of the
+	 *                 {@link #getSupportedOrders(Resource, IRI, Value, Resource...) supported orders} for the pattern.
+	 * @param subj     A Resource specifying the subject, or <tt>null</tt> for a wildcard.
+	 * @param pred     A URI specifying the predicate, or <tt>null</tt> for a wildcard.
+	 * @param obj      A Value specifying the object, or <tt>null</tt> for a wildcard.
+	 * @param contexts The context(s) to get the statements from. Note that this parameter is a vararg and as such is
+	 *                 optional. If no contexts are supplied the method operates on the entire repository.
+	 * @return An iterator over the relevant statements, in ascending order of the {@link #getComparator() comparator}.
+	 * @throws QueryEvaluationException If the triple source failed to get the statements.
+	 */
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(StatementOrder order,
+			Resource subj, IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException;
+
+	/**
+	 * Gets the comparator that defines the order of the values in sorted statements.
+	 * 
+	 * @return The comparator, or <tt>null</tt> if this triple source can not return sorted statements at all.
+	 */
+	public Comparator<Value> getComparator();
+}
@@ -40,6 +40,14 @@ public class QueryContext {
 		setAttribute(QUERY_PREPARER_ATTRIBUTE, qp);
 	}
 
+	/**
+	 * Creates a QueryContext with the attributes of the specified context, for use by another thread that evaluates
+	 * part of the same query.
+	 */
+	public QueryContext(QueryContext ctx) {
+		attributes.putAll(ctx.attributes);
+	}
+
 	public void begin() {
 		this.previous = queryContext.get();
 		queryContext.set(this);
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation;
+
+import java.util.Comparator;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+
+/**
+ * The positions of a statement on which an {@link OrderedTripleSource} can sort the statements that it returns.
+ */
+public enum StatementOrder {
+
+	SUBJECT,
+
+	PREDICATE,
+
+	OBJECT,
+
+	CONTEXT;
+
+	/**
+	 * Gets the value of the specified statement at this position.
+	 * 
+	 * @return The value, or <tt>null</tt> for the context of a statement in the default graph.
+	 */
+	public Value getValue(Statement st) {
+		switch (this) {
+		case SUBJECT:
+			return st.getSubject();
+		case PREDICATE:
+			return st.getPredicate();
+		case OBJECT:
+			return st.getObject();
+		default:
+			return st.getContext();
+		}
+	}
+
+	/**
+	 * Gets a comparator that orders statements on their value at this position. Statements in the default graph
+	 * precede all other statements when they are ordered on their context.
+	 * 
+	 * @param valueComparator The comparator that defines the order of the values.
+	 */
+	public Comparator<Statement> getStatementComparator(Comparator<Value> valueComparator) {
+		return (st1, st2) -> {
+			Value value1 = getValue(st1);
+			Value value2 = getValue(st2);
+			if (value1 == null || value2 == null) {
+				return value1 == null ? (value2 == null ? 0 : -1) : 1;
+			}
+			return valueComparator.compare(value1, value2);
+		};
+	}
+}
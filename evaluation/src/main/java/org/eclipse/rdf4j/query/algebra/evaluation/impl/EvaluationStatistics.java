@@ -8,6 +8,8 @@
 package org.eclipse.rdf4j.query.algebra.evaluation.impl;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.eclipse.rdf4j.query.algebra.ArbitraryLengthPath;
@@ -49,6 +51,23 @@ public class EvaluationStatistics {
 		return new CardinalityCalculator();
 	}
 
+	/**
+	 * Estimates the number of results that a join argument produces for each result of the join arguments that are
+	 * evaluated before it. Implementations that keep statistics about the correlation of values, such as the
+	 * combinations of predicates that are used with the same subjects, can use these to estimate the selectivity of
+	 * joins more accurately than what can be derived from the cardinalities of the individual join arguments.
+	 * 
+	 * @param expr          The join argument.
+	 * @param precedingArgs The join arguments that are evaluated before <tt>expr</tt>, in evaluation order.
+	 * @param boundVars     The names of the variables that are bound when <tt>expr</tt> is evaluated, including the
+	 *                      variables that are bound outside of the join.
+	 * @return The estimated number of results per binding set of the bound variables, or a negative value if no
+	 *         estimate is available.
+	 */
+	public double getJoinCardinality(TupleExpr expr, List<TupleExpr> precedingArgs, Set<String> boundVars) {
+		return -1;
+	}
+
 	/*-----------------------------------*
 	 * Inner class CardinalityCalculator *
 	 *-----------------------------------*/
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+/**
+ * The algorithms that an evaluation strategy can use to evaluate a {@link PlannedJoin} or {@link PlannedLeftJoin}.
+ * 
+ * @see JoinAlgorithmOptimizer
+ */
+public enum JoinAlgorithm {
+
+	/**
+	 * Evaluates the right argument once for every result of the left argument, with the bindings of that result. When
+	 * the right argument is a statement pattern this is an index nested loop join.
+	 */
+	NESTED_LOOP,
+
+	/**
+	 * Evaluates both arguments independently and joins their results through a hash table that is built over the
+	 * smaller of the two.
+	 */
+	HASH,
+
+	/**
+	 * Evaluates both arguments independently, with their results sorted on the value of a shared variable, and merges
+	 * the two sorted streams. Only applies to joins between two statement patterns that the triple source can return
+	 * in sorted order; other joins are evaluated as hash joins instead.
+	 * 
+	 * @see org.eclipse.rdf4j.query.algebra.evaluation.OrderedTripleSource
+	 */
+	MERGE
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.OrderedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
+
+/**
+ * A query optimizer that chooses a {@link JoinAlgorithm} for every {@link Join} and {@link LeftJoin}, based on the
+ * cardinalities that are estimated by {@link EvaluationStatistics}. The joins are replaced with a {@link PlannedJoin}
+ * or {@link PlannedLeftJoin} that records the choice. This optimizer should run after the {@link QueryJoinOptimizer},
+ * which determines the order of the join arguments.
+ * <p>
+ * A hash join is only chosen when the right argument is a basic graph pattern, i.e. a statement pattern or a join of
+ * statement patterns, which gives the same results whether or not it is evaluated with the bindings of the left
+ * argument, and when all variables that the arguments share are certain to be bound by the left argument. A hash join
+ * looks up the left results by the values of the shared variables, so a left result in which one of them is unbound,
+ * e.g. by an OPTIONAL, would not be joined with any right results. Left joins with a condition are always evaluated as
+ * nested loops.
+ * <p>
+ * If the triple source is an {@link OrderedTripleSource}, joins between two statement patterns that share a variable
+ * are planned as {@link JoinAlgorithm#MERGE merge joins} instead of hash joins. Whether the triple source can actually
+ * return the statements of both patterns in the required order is only known at evaluation time; if it can not, the
+ * join is evaluated as a hash join.
+ */
+public class JoinAlgorithmOptimizer implements QueryOptimizer {
+
+	/**
+	 * The estimated cost of an index lookup, relative to the cost of producing a single result.
+	 */
+	protected static final double LOOKUP_COST = 10;
+
+	/**
+	 * The factor by which a hash join needs to be cheaper than a nested loop join before it is chosen. Hash joins read
+	 * their complete right argument and keep part of the results in memory, so inaccurate estimates are more expensive
+	 * for hash joins than for nested loops.
+	 */
+	protected static final double HASH_JOIN_COST_FACTOR = 2;
+
+	protected final EvaluationStatistics statistics;
+
+	/**
+	 * Flag indicating whether the triple source can return sorted statements.
+	 */
+	protected final boolean mergeJoinSupported;
+
+	public JoinAlgorithmOptimizer() {
+		this(new EvaluationStatistics());
+	}
+
+	public JoinAlgorithmOptimizer(EvaluationStatistics statistics) {
+		this(statistics, null);
+	}
+
+	/**
+	 * @param statistics   The statistics that are used to estimate the cardinalities of the join arguments.
+	 * @param tripleSource The triple source that the query will be evaluated against, or <tt>null</tt> if unknown.
+	 */
+	public JoinAlgorithmOptimizer(EvaluationStatistics statistics, TripleSource tripleSource) {
+		this.statistics = statistics;
+		this.mergeJoinSupported = tripleSource instanceof OrderedTripleSource
+				&& ((OrderedTripleSource) tripleSource).getComparator() != null;
+	}
+
+	@Override
+	public void optimize(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings) {
+		tupleExpr.visit(new JoinAlgorithmVisitor());
+	}
+
+	/**
+	 * Chooses the algorithm for a join between the specified arguments.
+	 */
+	protected JoinAlgorithm getJoinAlgorithm(TupleExpr leftArg, TupleExpr rightArg) {
+		if (!isBasicGraphPattern(rightArg) || !hasAssuredJoinVariables(leftArg, rightArg)) {
+			return JoinAlgorithm.NESTED_LOOP;
+		}
+
+		double leftCardinality = statistics.getCardinality(leftArg);
+		double rightCardinality = statistics.getCardinality(rightArg);
+
+		double nestedLoopCost = leftCardinality * (LOOKUP_COST + getBoundCardinality(leftArg, rightArg));
+		// both arguments are read, the smaller one is stored in the hash table
+		double hashCost = leftCardinality + rightCardinality + Math.min(leftCardinality, rightCardinality);
+
+		if (hashCost * HASH_JOIN_COST_FACTOR < nestedLoopCost) {
+			// a merge join reads both arguments as well, without building a hash table
+			if (mergeJoinSupported && leftArg instanceof StatementPattern && rightArg instanceof StatementPattern
+					&& getMergeJoinVariable((StatementPattern) leftArg, (StatementPattern) rightArg) != null) {
+				return JoinAlgorithm.MERGE;
+			}
+			return JoinAlgorithm.HASH;
+		} else {
+			return JoinAlgorithm.NESTED_LOOP;
+		}
+	}
+
+	/**
+	 * Estimates the number of results of the right argument for a single result of the left argument.
+	 */
+	protected double getBoundCardinality(TupleExpr leftArg, TupleExpr rightArg) {
+		Set<String> boundVars = leftArg.getBindingNames();
+
+		double joinCardinality = statistics.getJoinCardinality(rightArg, Collections.singletonList(leftArg),
+				boundVars);
+		if (joinCardinality >= 0) {
+			return joinCardinality;
+		}
+
+		// compensate for the variables that are bound by the left argument, like the QueryJoinOptimizer does
+		int nonConstantVarCount = 0;
+		int unboundVarCount = 0;
+		for (StatementPattern sp : StatementPatternCollector.process(rightArg)) {
+			for (Var var : sp.getVarList()) {
+				if (!var.hasValue()) {
+					nonConstantVarCount++;
+					if (!boundVars.contains(var.getName())) {
+						unboundVarCount++;
+					}
+				}
+			}
+		}
+
+		double cardinality = statistics.getCardinality(rightArg);
+		if (nonConstantVarCount > 0) {
+			cardinality = Math.pow(cardinality, (double) unboundVarCount / nonConstantVarCount);
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Gets the variable on which two statement patterns can be merge joined: the first variable of the left pattern, in
+	 * subject, predicate, object and context order, that does not have a value and also occurs in the right pattern.
+	 * 
+	 * @return The name of the variable, or <tt>null</tt> if the patterns do not share a variable.
+	 */
+	static String getMergeJoinVariable(StatementPattern leftArg, StatementPattern rightArg) {
+		Set<String> rightVarNames = new HashSet<>();
+		for (Var var : rightArg.getVarList()) {
+			if (!var.hasValue()) {
+				rightVarNames.add(var.getName());
+			}
+		}
+
+		for (Var var : leftArg.getVarList()) {
+			if (!var.hasValue() && rightVarNames.contains(var.getName())) {
+				return var.getName();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Checks whether all variables that occur in both arguments are certain to be bound by the left argument.
+	 */
+	private boolean hasAssuredJoinVariables(TupleExpr leftArg, TupleExpr rightArg) {
+		Set<String> joinVars = new HashSet<>(leftArg.getBindingNames());
+		joinVars.retainAll(rightArg.getBindingNames());
+		return leftArg.getAssuredBindingNames().containsAll(joinVars);
+	}
+
+	private boolean isBasicGraphPattern(TupleExpr tupleExpr) {
+		if (tupleExpr instanceof StatementPattern) {
+			return true;
+		} else if (tupleExpr instanceof Join) {
+			Join join = (Join) tupleExpr;
+			return isBasicGraphPattern(join.getLeftArg()) && isBasicGraphPattern(join.getRightArg());
+		} else {
+			return false;
+		}
+	}
+
+	/*----------------------------------*
+	 * Inner class JoinAlgorithmVisitor *
+	 *----------------------------------*/
+
+	protected class JoinAlgorithmVisitor extends AbstractQueryModelVisitor<RuntimeException> {
+
+		@Override
+		public void meet(Join node) {
+			super.meet(node);
+
+			JoinAlgorithm algorithm = getJoinAlgorithm(node.getLeftArg(), node.getRightArg());
+			if (node instanceof PlannedJoin) {
+				((PlannedJoin) node).setAlgorithm(algorithm);
+			} else {
+				node.replaceWith(new PlannedJoin(node.getLeftArg(), node.getRightArg(), algorithm));
+			}
+		}
+
+		@Override
+		public void meet(LeftJoin node) {
+			super.meet(node);
+
+			JoinAlgorithm algorithm = JoinAlgorithm.NESTED_LOOP;
+			if (!node.hasCondition()) {
+				algorithm = getJoinAlgorithm(node.getLeftArg(), node.getRightArg());
+			}
+
+			if (node instanceof PlannedLeftJoin) {
+				((PlannedLeftJoin) node).setAlgorithm(algorithm);
+			} else {
+				node.replaceWith(
+						new PlannedLeftJoin(node.getLeftArg(), node.getRightArg(), node.getCondition(), algorithm));
+			}
+		}
+	} // end inner class JoinAlgorithmVisitor
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Union;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.HashJoinIteration;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.ParallelIteration;
+
+/**
+ * An evaluation strategy that evaluates independent parts of a query concurrently on a {@link ForkJoinPool}:
+ * <ul>
+ * <li>the arguments of a {@link Union}, including those of directly nested unions;</li>
+ * <li>the right argument of joins and left joins that are evaluated as hash joins, which is read into the hash table
+ * while the left argument is being evaluated. As left joins without a condition are planned as hash joins when that is
+ * cheaper, this includes consecutive OPTIONAL blocks that do not depend on each other.</li>
+ * </ul>
+ * The results of concurrently evaluated parts are passed through bounded queues, so that they are produced no faster
+ * than they are consumed. Closing a result iteration stops the evaluation of all parts that it depends on.
+ * <p>
+ * The {@link TripleSource} must support being read by multiple threads at the same time.
+ * 
+ * @see ParallelEvaluationStrategyFactory
+ */
+public class ParallelEvaluationStrategy extends StrictEvaluationStrategy {
+
+	private final ForkJoinPool pool;
+
+	private final int queueCapacity;
+
+	/**
+	 * @param pool          The pool on which the parts of the query are evaluated.
+	 * @param queueCapacity The number of results of a concurrently evaluated part that can be queued before its
+	 *                      evaluation waits for them to be consumed.
+	 */
+	public ParallelEvaluationStrategy(TripleSource tripleSource, Dataset dataset,
+			FederatedServiceResolver serviceResolver, long iterationCacheSyncThreshold, ForkJoinPool pool,
+			int queueCapacity) {
+		super(tripleSource, dataset, serviceResolver, iterationCacheSyncThreshold);
+		this.pool = pool;
+		this.queueCapacity = queueCapacity;
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Union union, BindingSet bindings)
+			throws QueryEvaluationException {
+		List<TupleExpr> args = new ArrayList<>();
+		addUnionArgs(union, args);
+
+		List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers = new ArrayList<>(
+				args.size());
+		for (TupleExpr arg : args) {
+			producers.add(() -> evaluate(arg, bindings));
+		}
+
+		return new ParallelIteration(pool, queueCapacity, producers);
+	}
+
+	/**
+	 * Collects the arguments of a union, replacing arguments that are unions themselves with their arguments.
+	 */
+	private void addUnionArgs(TupleExpr expr, List<TupleExpr> args) {
+		if (expr instanceof Union) {
+			addUnionArgs(((Union) expr).getLeftArg(), args);
+			addUnionArgs(((Union) expr).getRightArg(), args);
+		} else {
+			args.add(expr);
+		}
+	}
+
+	@Override
+	protected CloseableIteration<BindingSet, QueryEvaluationException> createHashJoinIteration(TupleExpr leftArg,
+			TupleExpr rightArg, BindingSet bindings, boolean leftJoin) throws QueryEvaluationException {
+		ParallelIteration rightIter = new ParallelIteration(pool, queueCapacity,
+				Collections.singletonList(() -> evaluate(rightArg, bindings)));
+		rightIter.start();
+
+		CloseableIteration<BindingSet, QueryEvaluationException> leftIter;
+		try {
+			leftIter = evaluate(leftArg, bindings);
+		} catch (RuntimeException | Error e) {
+			rightIter.close();
+			throw e;
+		}
+
+		return new HashJoinIteration(this, leftIter, leftArg.getBindingNames(), rightIter, rightArg.getBindingNames(),
+				leftJoin, getIterationCacheSyncThreshold());
+	}
+}
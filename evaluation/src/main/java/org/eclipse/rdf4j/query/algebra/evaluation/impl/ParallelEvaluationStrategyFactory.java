@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.ParallelIteration;
+
+/**
+ * Creates {@link ParallelEvaluationStrategy parallel evaluation strategies}. All strategies that are created by a
+ * factory share a single {@link ForkJoinPool}. Unless a pool is supplied to the constructor, the pool is created when
+ * the first strategy is created, runs at most {@link #getParallelism() parallelism} threads at a time that are not
+ * waiting on another thread, and is terminated by {@link #shutDown()}. The memory and native stores shut down their
+ * evaluation strategy factory when they are shut down.
+ * <p>
+ * Parallel evaluation is not enabled by default; a store can be configured to use it by setting its evaluation
+ * strategy factory to this class.
+ */
+public class ParallelEvaluationStrategyFactory extends StrictEvaluationStrategyFactory {
+
+	private static final long SHUTDOWN_TIMEOUT = 10;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private int queueCapacity = ParallelIteration.DEFAULT_QUEUE_CAPACITY;
+
+	private ForkJoinPool pool;
+
+	/**
+	 * Whether {@link #pool} has been supplied by the caller, who is responsible for shutting it down.
+	 */
+	private final boolean sharedPool;
+
+	public ParallelEvaluationStrategyFactory() {
+		this.sharedPool = false;
+	}
+
+	public ParallelEvaluationStrategyFactory(FederatedServiceResolver resolver) {
+		super(resolver);
+		this.sharedPool = false;
+	}
+
+	/**
+	 * Creates a factory whose strategies evaluate queries on the specified pool. The pool is not shut down by this
+	 * factory.
+	 */
+	public ParallelEvaluationStrategyFactory(FederatedServiceResolver resolver, ForkJoinPool pool) {
+		super(resolver);
+		if (pool == null) {
+			throw new IllegalArgumentException("pool must not be null");
+		}
+		this.pool = pool;
+		this.parallelism = pool.getParallelism();
+		this.sharedPool = true;
+	}
+
+	/**
+	 * Gets the number of threads that evaluate queries concurrently. Defaults to the number of available processors.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Sets the number of threads that evaluate queries concurrently.
+	 *
+	 * @throws IllegalStateException if the pool has already been created.
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		if (pool != null) {
+			throw new IllegalStateException("parallelism can not be changed after the pool has been created");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets the number of results of a concurrently evaluated part of a query that can be queued before its
+	 * evaluation waits for them to be consumed.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queue capacity must be positive: " + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Gets the pool on which the created strategies evaluate queries, creating it if needed.
+	 */
+	protected synchronized ForkJoinPool getForkJoinPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		}
+		return pool;
+	}
+
+	/**
+	 * Shuts down the pool that was created by this factory, waiting for the tasks that are still running to
+	 * terminate. A new pool is created if strategies are created afterwards. A pool that was supplied to the
+	 * constructor is not affected.
+	 */
+	public void shutDown() {
+		ForkJoinPool terminated;
+		synchronized (this) {
+			if (sharedPool || pool == null) {
+				return;
+			}
+			terminated = pool;
+			pool = null;
+		}
+		terminated.shutdownNow();
+		try {
+			terminated.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public EvaluationStrategy createEvaluationStrategy(Dataset dataset, TripleSource tripleSource) {
+		ParallelEvaluationStrategy strategy = new ParallelEvaluationStrategy(tripleSource, dataset,
+				getFederatedServiceResolver(), getQuerySolutionCacheThreshold(), getForkJoinPool(), queueCapacity);
+		strategy.setBindJoinBatchSize(getBindJoinBatchSize());
+		return strategy;
+	}
+}
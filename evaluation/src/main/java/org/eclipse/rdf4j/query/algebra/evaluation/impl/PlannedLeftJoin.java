@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+
+/**
+ * A {@link LeftJoin} that is annotated with the {@link JoinAlgorithm} that should be used to evaluate it. Visitors and
+ * evaluation strategies that are not aware of join algorithms treat it as a regular left join.
+ * 
+ * @see JoinAlgorithmOptimizer
+ */
+public class PlannedLeftJoin extends LeftJoin {
+
+	private static final long serialVersionUID = 5307184429874693261L;
+
+	private JoinAlgorithm algorithm;
+
+	public PlannedLeftJoin(TupleExpr leftArg, TupleExpr rightArg, ValueExpr condition, JoinAlgorithm algorithm) {
+		super(leftArg, rightArg, condition);
+		setAlgorithm(algorithm);
+	}
+
+	public JoinAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public void setAlgorithm(JoinAlgorithm algorithm) {
+		assert algorithm != null : "algorithm must not be null";
+		this.algorithm = algorithm;
+	}
+
+	@Override
+	public String getSignature() {
+		return super.getSignature() + " (" + algorithm + ")";
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof PlannedLeftJoin && algorithm == ((PlannedLeftJoin) other).algorithm
+				&& super.equals(other);
+	}
+
+	@Override
+	public int hashCode() {
+		return super.hashCode() ^ algorithm.hashCode();
+	}
+
+	@Override
+	public PlannedLeftJoin clone() {
+		return (PlannedLeftJoin) super.clone();
+	}
+}
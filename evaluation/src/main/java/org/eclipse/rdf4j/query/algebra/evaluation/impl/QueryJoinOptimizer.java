@@ -60,6 +60,11 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 
 		Set<String> boundVars = new HashSet<>();
 
+		/**
+		 * The join arguments that have been ordered so far for the join that is being optimized.
+		 */
+		List<TupleExpr> orderedJoinArgs = new ArrayList<>();
+
 		@Override
 		public void meet(LeftJoin leftJoin) {
 			leftJoin.getLeftArg().visit(this);
@@ -79,6 +84,7 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 		public void meet(Join node) {
 
 			Set<String> origBoundVars = boundVars;
+			List<TupleExpr> origOrderedJoinArgs = orderedJoinArgs;
 			try {
 				boundVars = new HashSet<>(boundVars);
 
@@ -87,6 +93,7 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 
 				// Reorder the (recursive) join arguments to a more optimal sequence
 				List<TupleExpr> orderedJoinArgs = new ArrayList<>(joinArgs.size());
+				this.orderedJoinArgs = orderedJoinArgs;
 
 				// Reorder the subselects and extensions to a more optimal sequence
 				List<TupleExpr> priorityArgs = new ArrayList<>(joinArgs.size());
@@ -170,6 +177,7 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 				}
 			} finally {
 				boundVars = origBoundVars;
+				orderedJoinArgs = origOrderedJoinArgs;
 			}
 		}
 
@@ -403,7 +411,11 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 			List<Var> unboundVars = getUnboundVars(vars);
 			List<Var> constantVars = getConstantVars(vars);
 			int nonConstantVarCount = vars.size() - constantVars.size();
-			if (nonConstantVarCount > 0) {
+			double joinCardinality = statistics.getJoinCardinality(tupleExpr, orderedJoinArgs, boundVars);
+			if (joinCardinality >= 0) {
+				// The statistics take the join arguments that bind these variables into account
+				cardinality = joinCardinality;
+			} else if (nonConstantVarCount > 0) {
 				double exp = (double) unboundVars.size() / nonConstantVarCount;
 				cardinality = Math.pow(cardinality, exp);
 			}
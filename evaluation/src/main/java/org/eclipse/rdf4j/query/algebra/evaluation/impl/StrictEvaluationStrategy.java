@@ -7,6 +7,8 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.query.algebra.evaluation.impl;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -108,8 +110,11 @@ import org.eclipse.rdf4j.query.algebra.ValueConstant;
 import org.eclipse.rdf4j.query.algebra.ValueExpr;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.ZeroLengthPath;
+import org.eclipse.rdf4j.query.algebra.evaluation.BatchedTripleSource;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.OrderedTripleSource;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
 import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
 import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedService;
@@ -120,6 +125,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.function.Function;
 import org.eclipse.rdf4j.query.algebra.evaluation.function.FunctionRegistry;
 import org.eclipse.rdf4j.query.algebra.evaluation.function.datetime.Now;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BadlyDesignedLeftJoinIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchedBindJoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.DescribeIteration;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.ExtensionIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.FilterIterator;
@@ -127,6 +133,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.iterator.GroupIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.HashJoinIteration;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.JoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.LeftJoinIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.MergeJoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.MultiProjectionIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.OrderIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.PathIteration;
@@ -176,6 +183,12 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 	private final UUID uuid;
 
+	/**
+	 * The number of left binding sets that a bind join with a statement pattern looks up at once, or <tt>0</tt> to
+	 * look them up one by one.
+	 */
+	private int bindJoinBatchSize;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -209,6 +222,31 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 		return uuid;
 	}
 
+	/**
+	 * Gets the number of left binding sets that a bind join with a statement pattern looks up at once.
+	 * 
+	 * @return The batch size, or <tt>0</tt> if batched bind joins are disabled.
+	 * @see #setBindJoinBatchSize(int)
+	 */
+	public int getBindJoinBatchSize() {
+		return bindJoinBatchSize;
+	}
+
+	/**
+	 * Sets the number of left binding sets that a bind join with a statement pattern looks up at once. If the triple
+	 * source is a {@link BatchedTripleSource}, such joins are evaluated with a {@link BatchedBindJoinIterator} that
+	 * looks up the statements for a whole batch of left binding sets with a single call. Batched bind joins do not
+	 * preserve the order of the left argument. Defaults to <tt>0</tt>, which disables batched bind joins.
+	 * 
+	 * @param bindJoinBatchSize The batch size, or <tt>0</tt> to disable batched bind joins.
+	 */
+	public void setBindJoinBatchSize(int bindJoinBatchSize) {
+		if (bindJoinBatchSize < 0) {
+			throw new IllegalArgumentException("batch size must not be negative: " + bindJoinBatchSize);
+		}
+		this.bindJoinBatchSize = bindJoinBatchSize;
+	}
+
 	@Override
 	public void setFederatedServiceResolver(FederatedServiceResolver resolver) {
 		serviceResolver = resolver;
@@ -410,6 +448,20 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern sp,
 			final BindingSet bindings) throws QueryEvaluationException {
+		return evaluate(sp, null, bindings);
+	}
+
+	/**
+	 * Evaluates a statement pattern, optionally with the results sorted on one of the positions of the matching
+	 * statements. Sorted results are read from the {@link OrderedTripleSource}, in the order of its
+	 * {@link OrderedTripleSource#getComparator() comparator}.
+	 * 
+	 * @param order The position to sort the results on, or <tt>null</tt> if the results do not need to be sorted.
+	 * @return The results, or <tt>null</tt> if the triple source can not return the matching statements in the
+	 *         specified order.
+	 */
+	protected CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern sp,
+			StatementOrder order, final BindingSet bindings) throws QueryEvaluationException {
 		final Var subjVar = sp.getSubjectVar();
 		final Var predVar = sp.getPredicateVar();
 		final Var objVar = sp.getObjectVar();
@@ -420,91 +472,189 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 		final Value objValue = getVarValue(objVar, bindings);
 		final Value contextValue = getVarValue(conVar, bindings);
 
-		CloseableIteration<? extends Statement, QueryEvaluationException> stIter1 = null;
-		CloseableIteration<? extends Statement, QueryEvaluationException> stIter2 = null;
-		CloseableIteration<? extends Statement, QueryEvaluationException> stIter3 = null;
-		ConvertingIteration<Statement, BindingSet, QueryEvaluationException> result = null;
-
 		if (isUnbound(subjVar, bindings) || isUnbound(predVar, bindings) || isUnbound(objVar, bindings)
 				|| isUnbound(conVar, bindings)) {
 			// the variable must remain unbound for this solution see https://www.w3.org/TR/sparql11-query/#assignment
 			return new EmptyIteration<>();
 		}
 
-		boolean allGood = false;
+		Resource[] contexts = getContexts(sp, contextValue);
+		if (contexts == null) {
+			return new EmptyIteration<>();
+		}
+
+		CloseableIteration<? extends Statement, QueryEvaluationException> stIter;
 		try {
-			try {
-				Resource[] contexts;
-
-				Set<IRI> graphs = null;
-				boolean emptyGraph = false;
-
-				if (dataset != null) {
-					if (sp.getScope() == Scope.DEFAULT_CONTEXTS) {
-						graphs = dataset.getDefaultGraphs();
-						emptyGraph = graphs.isEmpty() && !dataset.getNamedGraphs().isEmpty();
-					} else {
-						graphs = dataset.getNamedGraphs();
-						emptyGraph = graphs.isEmpty() && !dataset.getDefaultGraphs().isEmpty();
-					}
-				}
+			if (order == null) {
+				stIter = tripleSource.getStatements((Resource) subjValue, (IRI) predValue, objValue, contexts);
+			} else if (tripleSource instanceof OrderedTripleSource && ((OrderedTripleSource) tripleSource)
+					.getSupportedOrders((Resource) subjValue, (IRI) predValue, objValue, contexts)
+					.contains(order)) {
+				stIter = ((OrderedTripleSource) tripleSource).getStatements(order, (Resource) subjValue,
+						(IRI) predValue, objValue, contexts);
+			} else {
+				return null;
+			}
+		} catch (ClassCastException e) {
+			// Invalid value type for subject, predicate and/or context
+			return new EmptyIteration<>();
+		}
 
-				if (emptyGraph) {
-					// Search zero contexts
-					return new EmptyIteration<>();
-				} else if (graphs == null || graphs.isEmpty()) {
-					// store default behaivour
-					if (contextValue != null) {
-						contexts = new Resource[] { (Resource) contextValue };
-					}
-					/*
-					 * TODO activate this to have an exclusive (rather than inclusive) interpretation of the default
-					 * graph in SPARQL querying. else if (sp.getScope() == Scope.DEFAULT_CONTEXTS ) { contexts = new
-					 * Resource[] { (Resource)null }; }
-					 */
-					else {
-						contexts = new Resource[0];
-					}
-				} else if (contextValue != null) {
-					if (graphs.contains(contextValue)) {
-						contexts = new Resource[] { (Resource) contextValue };
-					} else {
-						// Statement pattern specifies a context that is not part of
-						// the dataset
-						return new EmptyIteration<>();
-					}
-				} else {
-					contexts = new Resource[graphs.size()];
-					int i = 0;
-					for (IRI graph : graphs) {
-						IRI context = null;
-						if (!SESAME.NIL.equals(graph)) {
-							context = graph;
-						}
-						contexts[i++] = context;
-					}
-				}
+		return createStatementPatternIteration(sp, stIter, contexts, subjValue == null, predValue == null,
+				objValue == null, bindings);
+	}
 
-				stIter1 = tripleSource.getStatements((Resource) subjValue, (IRI) predValue, objValue, contexts);
+	/**
+	 * Evaluates a statement pattern for a batch of binding sets with a single lookup on the
+	 * {@link BatchedTripleSource}. The binding sets must all bind the same variables of the statement pattern, and
+	 * they must not bind its context variable.
+	 * 
+	 * @param keyBindings The binding sets to evaluate the statement pattern for, each of which extends
+	 *                    <tt>bindings</tt>.
+	 * @param bindings    The bindings that all binding sets have in common.
+	 * @return The results for all binding sets in an arbitrary order, each of which extends <tt>bindings</tt> with the
+	 *         values of the variables of the statement pattern, or <tt>null</tt> if the batch can not be evaluated
+	 *         with a single lookup.
+	 */
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern sp,
+			List<BindingSet> keyBindings, final BindingSet bindings) throws QueryEvaluationException {
+		final Var subjVar = sp.getSubjectVar();
+		final Var predVar = sp.getPredicateVar();
+		final Var objVar = sp.getObjectVar();
+		final Var conVar = sp.getContextVar();
 
-				if (contexts.length == 0 && sp.getScope() == Scope.NAMED_CONTEXTS) {
-					// Named contexts are matched by retrieving all statements from
-					// the store and filtering out the statements that do not have a
-					// context.
-					stIter2 = new FilterIteration<Statement, QueryEvaluationException>(stIter1) {
+		if (!(tripleSource instanceof BatchedTripleSource) || keyBindings.isEmpty()) {
+			return null;
+		}
+		if (conVar != null && !conVar.hasValue() && !bindings.hasBinding(conVar.getName())
+				&& keyBindings.get(0).hasBinding(conVar.getName())) {
+			// the binding sets would have to be looked up in different contexts
+			return null;
+		}
 
-						@Override
-						protected boolean accept(Statement st) {
-							return st.getContext() != null;
-						}
+		if (isUnbound(subjVar, bindings) || isUnbound(predVar, bindings) || isUnbound(objVar, bindings)
+				|| isUnbound(conVar, bindings)) {
+			return new EmptyIteration<>();
+		}
 
-					}; // end anonymous class
-				} else {
-					stIter2 = stIter1;
+		Resource[] contexts = getContexts(sp, getVarValue(conVar, bindings));
+		if (contexts == null) {
+			return new EmptyIteration<>();
+		}
+
+		List<Value[]> patterns = new ArrayList<>(keyBindings.size());
+		for (BindingSet keyBinding : keyBindings) {
+			patterns.add(new Value[] {
+					getVarValue(subjVar, keyBinding),
+					getVarValue(predVar, keyBinding),
+					getVarValue(objVar, keyBinding) });
+		}
+
+		Value[] first = patterns.get(0);
+		CloseableIteration<? extends Statement, QueryEvaluationException> stIter;
+		stIter = ((BatchedTripleSource) tripleSource).getStatementsBatch(patterns, contexts);
+		return createStatementPatternIteration(sp, stIter, contexts, first[0] == null, first[1] == null,
+				first[2] == null, bindings);
+	}
+
+	/**
+	 * Gets the contexts in which a statement pattern is matched, taking the dataset into account.
+	 * 
+	 * @param contextValue The value of the context variable of the pattern, if any.
+	 * @return The contexts, which is an empty array for all contexts, or <tt>null</tt> if the pattern can not match
+	 *         any statements.
+	 */
+	private Resource[] getContexts(StatementPattern sp, Value contextValue) {
+		Set<IRI> graphs = null;
+		boolean emptyGraph = false;
+
+		if (dataset != null) {
+			if (sp.getScope() == Scope.DEFAULT_CONTEXTS) {
+				graphs = dataset.getDefaultGraphs();
+				emptyGraph = graphs.isEmpty() && !dataset.getNamedGraphs().isEmpty();
+			} else {
+				graphs = dataset.getNamedGraphs();
+				emptyGraph = graphs.isEmpty() && !dataset.getDefaultGraphs().isEmpty();
+			}
+		}
+
+		if (emptyGraph) {
+			// Search zero contexts
+			return null;
+		} else if (contextValue != null && !(contextValue instanceof Resource)) {
+			// Invalid value type for context
+			return null;
+		} else if (graphs == null || graphs.isEmpty()) {
+			// store default behaivour
+			if (contextValue != null) {
+				return new Resource[] { (Resource) contextValue };
+			}
+			/*
+			 * TODO activate this to have an exclusive (rather than inclusive) interpretation of the default graph in
+			 * SPARQL querying. else if (sp.getScope() == Scope.DEFAULT_CONTEXTS ) { contexts = new Resource[] {
+			 * (Resource)null }; }
+			 */
+			else {
+				return new Resource[0];
+			}
+		} else if (contextValue != null) {
+			if (graphs.contains(contextValue)) {
+				return new Resource[] { (Resource) contextValue };
+			} else {
+				// Statement pattern specifies a context that is not part of
+				// the dataset
+				return null;
+			}
+		} else {
+			Resource[] contexts = new Resource[graphs.size()];
+			int i = 0;
+			for (IRI graph : graphs) {
+				IRI context = null;
+				if (!SESAME.NIL.equals(graph)) {
+					context = graph;
 				}
-			} catch (ClassCastException e) {
-				// Invalid value type for subject, predicate and/or context
-				return new EmptyIteration<>();
+				contexts[i++] = context;
+			}
+			return contexts;
+		}
+	}
+
+	/**
+	 * Converts the statements that match a statement pattern to binding sets that extend the specified bindings.
+	 * 
+	 * @param stIter   The statements, which are closed when the returned iteration is closed.
+	 * @param subjFree Whether the subject of the pattern was unbound when the statements were looked up. The same
+	 *                 applies to <tt>predFree</tt> and <tt>objFree</tt>.
+	 */
+	private CloseableIteration<BindingSet, QueryEvaluationException> createStatementPatternIteration(
+			StatementPattern sp, CloseableIteration<? extends Statement, QueryEvaluationException> stIter,
+			Resource[] contexts, final boolean subjFree, final boolean predFree, final boolean objFree,
+			final BindingSet bindings) throws QueryEvaluationException {
+		final Var subjVar = sp.getSubjectVar();
+		final Var predVar = sp.getPredicateVar();
+		final Var objVar = sp.getObjectVar();
+		final Var conVar = sp.getContextVar();
+
+		CloseableIteration<? extends Statement, QueryEvaluationException> stIter2 = null;
+		CloseableIteration<? extends Statement, QueryEvaluationException> stIter3 = null;
+		ConvertingIteration<Statement, BindingSet, QueryEvaluationException> result = null;
+
+		boolean allGood = false;
+		try {
+			if (contexts.length == 0 && sp.getScope() == Scope.NAMED_CONTEXTS) {
+				// Named contexts are matched by retrieving all statements from
+				// the store and filtering out the statements that do not have a
+				// context.
+				stIter2 = new FilterIteration<Statement, QueryEvaluationException>(stIter) {
+
+					@Override
+					protected boolean accept(Statement st) {
+						return st.getContext() != null;
+					}
+
+				}; // end anonymous class
+			} else {
+				stIter2 = stIter;
 			}
 
 			// The same variable might have been used multiple times in this
@@ -519,7 +669,7 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 					Value obj = st.getObject();
 					Resource context = st.getContext();
 
-					if (subjVar != null && subjValue == null) {
+					if (subjVar != null && subjFree) {
 						if (subjVar.equals(predVar) && !subj.equals(pred)) {
 							return false;
 						}
@@ -531,7 +681,7 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 						}
 					}
 
-					if (predVar != null && predValue == null) {
+					if (predVar != null && predFree) {
 						if (predVar.equals(objVar) && !pred.equals(obj)) {
 							return false;
 						}
@@ -540,7 +690,7 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 						}
 					}
 
-					if (objVar != null && objValue == null) {
+					if (objVar != null && objFree) {
 						if (objVar.equals(conVar) && !obj.equals(context)) {
 							return false;
 						}
@@ -593,9 +743,7 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 								stIter2.close();
 							}
 						} finally {
-							if (stIter1 != null) {
-								stIter1.close();
-							}
+							stIter.close();
 						}
 					}
 				}
@@ -818,8 +966,21 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 			return new ServiceJoinIterator(leftIter, (Service) join.getRightArg(), bindings, this);
 		}
 
-		if (TupleExprs.containsSubquery(join.getRightArg())) {
-			return new HashJoinIteration(this, join, bindings);
+		JoinAlgorithm algorithm = getJoinAlgorithm(join);
+		if (algorithm == JoinAlgorithm.MERGE) {
+			CloseableIteration<BindingSet, QueryEvaluationException> result = evaluateMergeJoin(join, bindings);
+			if (result != null) {
+				return result;
+			}
+			// the statements can not be read in the required order
+			algorithm = JoinAlgorithm.HASH;
+		}
+
+		if (TupleExprs.containsSubquery(join.getRightArg()) || algorithm == JoinAlgorithm.HASH) {
+			return createHashJoinIteration(join.getLeftArg(), join.getRightArg(), bindings, false);
+		} else if (bindJoinBatchSize > 0 && join.getRightArg() instanceof StatementPattern
+				&& tripleSource instanceof BatchedTripleSource) {
+			return new BatchedBindJoinIterator(this, join, bindings, bindJoinBatchSize);
 		} else {
 			return new JoinIterator(this, join, bindings);
 		}
@@ -828,7 +989,7 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(LeftJoin leftJoin,
 			final BindingSet bindings) throws QueryEvaluationException {
 		if (TupleExprs.containsSubquery(leftJoin.getRightArg())) {
-			return new HashJoinIteration(this, leftJoin, bindings);
+			return createHashJoinIteration(leftJoin.getLeftArg(), leftJoin.getRightArg(), bindings, true);
 		}
 
 		// Check whether optional join is "well designed" as defined in section
@@ -845,12 +1006,116 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 		if (problemVars.isEmpty()) {
 			// left join is "well designed"
+			JoinAlgorithm algorithm = leftJoin.hasCondition() ? JoinAlgorithm.NESTED_LOOP : getJoinAlgorithm(leftJoin);
+			if (algorithm == JoinAlgorithm.MERGE) {
+				CloseableIteration<BindingSet, QueryEvaluationException> result = evaluateMergeJoin(leftJoin,
+						bindings);
+				if (result != null) {
+					return result;
+				}
+				algorithm = JoinAlgorithm.HASH;
+			}
+			if (algorithm == JoinAlgorithm.HASH) {
+				return createHashJoinIteration(leftJoin.getLeftArg(), leftJoin.getRightArg(), bindings, true);
+			}
 			return new LeftJoinIterator(this, leftJoin, bindings);
 		} else {
 			return new BadlyDesignedLeftJoinIterator(this, leftJoin, bindings, problemVars);
 		}
 	}
 
+	/**
+	 * Creates a hash join between the results of the specified arguments, with a hash table that is built over the
+	 * results of the right argument.
+	 * 
+	 * @param leftJoin Flag indicating whether the join is a left join.
+	 */
+	protected CloseableIteration<BindingSet, QueryEvaluationException> createHashJoinIteration(TupleExpr leftArg,
+			TupleExpr rightArg, BindingSet bindings, boolean leftJoin) throws QueryEvaluationException {
+		return new HashJoinIteration(this, leftArg, rightArg, bindings, leftJoin, iterationCacheSyncThreshold);
+	}
+
+	/**
+	 * Gets the number of results above which iterations keep their intermediate results on disk rather than in
+	 * memory.
+	 */
+	protected long getIterationCacheSyncThreshold() {
+		return iterationCacheSyncThreshold;
+	}
+
+	/**
+	 * Gets the algorithm that has been chosen for the specified join or left join by the
+	 * {@link JoinAlgorithmOptimizer}.
+	 * 
+	 * @return The chosen algorithm, or {@link JoinAlgorithm#NESTED_LOOP} if no algorithm has been chosen.
+	 */
+	protected JoinAlgorithm getJoinAlgorithm(BinaryTupleOperator join) {
+		if (join instanceof PlannedJoin) {
+			return ((PlannedJoin) join).getAlgorithm();
+		} else if (join instanceof PlannedLeftJoin) {
+			return ((PlannedLeftJoin) join).getAlgorithm();
+		} else {
+			return JoinAlgorithm.NESTED_LOOP;
+		}
+	}
+
+	/**
+	 * Evaluates a join or left join between two statement patterns as a merge of their results, which are both sorted
+	 * on the value of a shared variable.
+	 * 
+	 * @return The join results, or <tt>null</tt> if the join can not be evaluated as a merge join.
+	 */
+	protected CloseableIteration<BindingSet, QueryEvaluationException> evaluateMergeJoin(BinaryTupleOperator join,
+			BindingSet bindings) throws QueryEvaluationException {
+		if (!(tripleSource instanceof OrderedTripleSource) || !(join.getLeftArg() instanceof StatementPattern)
+				|| !(join.getRightArg() instanceof StatementPattern)) {
+			return null;
+		}
+
+		Comparator<Value> comparator = ((OrderedTripleSource) tripleSource).getComparator();
+		StatementPattern leftArg = (StatementPattern) join.getLeftArg();
+		StatementPattern rightArg = (StatementPattern) join.getRightArg();
+		String joinVariable = JoinAlgorithmOptimizer.getMergeJoinVariable(leftArg, rightArg);
+		if (comparator == null || joinVariable == null || bindings.hasBinding(joinVariable)) {
+			return null;
+		}
+
+		CloseableIteration<BindingSet, QueryEvaluationException> leftIter = evaluate(leftArg,
+				getStatementOrder(leftArg, joinVariable), bindings);
+		if (leftIter == null) {
+			return null;
+		}
+
+		CloseableIteration<BindingSet, QueryEvaluationException> rightIter = null;
+		try {
+			rightIter = evaluate(rightArg, getStatementOrder(rightArg, joinVariable), bindings);
+		} finally {
+			if (rightIter == null) {
+				leftIter.close();
+			}
+		}
+		if (rightIter == null) {
+			return null;
+		}
+
+		return new MergeJoinIterator(leftIter, rightIter, joinVariable, comparator, join instanceof LeftJoin);
+	}
+
+	/**
+	 * Gets the first position of the statement pattern at which the specified variable occurs.
+	 */
+	private StatementOrder getStatementOrder(StatementPattern sp, String varName) {
+		if (varName.equals(sp.getSubjectVar().getName())) {
+			return StatementOrder.SUBJECT;
+		} else if (varName.equals(sp.getPredicateVar().getName())) {
+			return StatementOrder.PREDICATE;
+		} else if (varName.equals(sp.getObjectVar().getName())) {
+			return StatementOrder.OBJECT;
+		} else {
+			return StatementOrder.CONTEXT;
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(final Union union,
 			final BindingSet bindings) throws QueryEvaluationException {
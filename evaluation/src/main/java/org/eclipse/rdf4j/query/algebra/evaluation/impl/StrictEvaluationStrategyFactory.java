@@ -19,6 +19,8 @@ public class StrictEvaluationStrategyFactory extends AbstractEvaluationStrategyF
 
 	private FederatedServiceResolver serviceResolver;
 
+	private int bindJoinBatchSize;
+
 	public StrictEvaluationStrategyFactory() {
 	}
 
@@ -35,8 +37,31 @@ public class StrictEvaluationStrategyFactory extends AbstractEvaluationStrategyF
 		return serviceResolver;
 	}
 
+	/**
+	 * @see StrictEvaluationStrategy#getBindJoinBatchSize()
+	 */
+	public int getBindJoinBatchSize() {
+		return bindJoinBatchSize;
+	}
+
+	/**
+	 * Sets the number of left binding sets that the created strategies look up at once in a bind join with a
+	 * statement pattern.
+	 * 
+	 * @see StrictEvaluationStrategy#setBindJoinBatchSize(int)
+	 */
+	public void setBindJoinBatchSize(int bindJoinBatchSize) {
+		if (bindJoinBatchSize < 0) {
+			throw new IllegalArgumentException("batch size must not be negative: " + bindJoinBatchSize);
+		}
+		this.bindJoinBatchSize = bindJoinBatchSize;
+	}
+
 	@Override
 	public EvaluationStrategy createEvaluationStrategy(Dataset dataset, TripleSource tripleSource) {
-		return new StrictEvaluationStrategy(tripleSource, dataset, serviceResolver, getQuerySolutionCacheThreshold());
+		StrictEvaluationStrategy strategy = new StrictEvaluationStrategy(tripleSource, dataset, serviceResolver,
+				getQuerySolutionCacheThreshold());
+		strategy.setBindJoinBatchSize(bindJoinBatchSize);
+		return strategy;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.BatchedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
+
+/**
+ * A bind join between an arbitrary left argument and a {@link StatementPattern}. Instead of evaluating the statement
+ * pattern once for every left binding set, as {@link JoinIterator} does, this iteration reads a batch of left binding
+ * sets, groups them on the values that they bind in the statement pattern, and evaluates the statement pattern once
+ * per distinct group. If the strategy is a {@link StrictEvaluationStrategy} whose triple source is a
+ * {@link BatchedTripleSource}, the groups of a batch are looked up with a single call on the triple source. Otherwise
+ * every group is looked up separately, in value order, so that consecutive lookups on the triple source hit
+ * neighbouring parts of its indexes.
+ * <p>
+ * The join results are produced batch by batch; within a batch they are not in the order of the left argument. The
+ * strategy uses this iteration if its {@link StrictEvaluationStrategy#setBindJoinBatchSize(int) bind join batch size}
+ * is set and its triple source is a {@link BatchedTripleSource}.
+ */
+public class BatchedBindJoinIterator extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	/**
+	 * The default number of left binding sets that are read in a single batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 128;
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final EvaluationStrategy strategy;
+
+	private final StatementPattern rightArg;
+
+	private final BindingSet bindings;
+
+	private final int batchSize;
+
+	/**
+	 * The names of the variables of the statement pattern that do not have a constant value.
+	 */
+	private final String[] keyNames;
+
+	private final CloseableIteration<BindingSet, QueryEvaluationException> leftIter;
+
+	private Iterator<Group> groupIter = Collections.emptyIterator();
+
+	private Group currentGroup;
+
+	/**
+	 * The names of the variables that the groups of the current batched lookup bind, or <tt>null</tt> if the current
+	 * right iteration is the lookup of {@link #currentGroup} alone.
+	 */
+	private String[] batchNames;
+
+	/**
+	 * The groups of the current batched lookup, by the values they bind for {@link #batchNames}.
+	 */
+	private Map<BindingSetHashKey, Group> batchGroups;
+
+	private volatile CloseableIteration<BindingSet, QueryEvaluationException> rightIter;
+
+	/**
+	 * The current result of the statement pattern, which is joined with all left binding sets of the current group.
+	 */
+	private BindingSet rightBindings;
+
+	private int leftIndex;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	public BatchedBindJoinIterator(EvaluationStrategy strategy, Join join, BindingSet bindings)
+			throws QueryEvaluationException {
+		this(strategy, join, bindings, DEFAULT_BATCH_SIZE);
+	}
+
+	public BatchedBindJoinIterator(EvaluationStrategy strategy, Join join, BindingSet bindings, int batchSize)
+			throws QueryEvaluationException {
+		if (!(join.getRightArg() instanceof StatementPattern)) {
+			throw new IllegalArgumentException("right argument of join must be a statement pattern");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+		}
+
+		this.strategy = strategy;
+		this.rightArg = (StatementPattern) join.getRightArg();
+		this.bindings = bindings;
+		this.batchSize = batchSize;
+
+		List<String> names = new ArrayList<>(4);
+		for (Var var : rightArg.getVarList()) {
+			if (!var.hasValue() && !names.contains(var.getName())) {
+				names.add(var.getName());
+			}
+		}
+		this.keyNames = names.toArray(new String[names.size()]);
+
+		leftIter = strategy.evaluate(join.getLeftArg(), bindings);
+
+		// Initialize with empty iteration so that var is never null
+		rightIter = new EmptyIteration<>();
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		try {
+			while (true) {
+				if (rightBindings != null) {
+					if (leftIndex < currentGroup.leftBindings.size()) {
+						return join(currentGroup.leftBindings.get(leftIndex++), rightBindings);
+					}
+					rightBindings = null;
+				}
+
+				if (rightIter.hasNext()) {
+					rightBindings = rightIter.next();
+					leftIndex = 0;
+					if (batchNames != null) {
+						currentGroup = batchGroups.get(BindingSetHashKey.create(batchNames, rightBindings));
+						if (currentGroup == null) {
+							rightBindings = null;
+						}
+					}
+				} else {
+					// Right iteration exhausted
+					rightIter.close();
+					batchNames = null;
+					batchGroups = null;
+
+					if (groupIter.hasNext()) {
+						currentGroup = groupIter.next();
+						rightIter = strategy.evaluate(rightArg, currentGroup.keyBindings);
+					} else if (!nextBatch()) {
+						return null;
+					}
+				}
+			}
+		} catch (NoSuchElementException ignore) {
+			// probably, one of the iterations has been closed concurrently in
+			// handleClose()
+		}
+
+		return null;
+	}
+
+	/**
+	 * Reads the next batch of left binding sets and groups them on the values they bind in the statement pattern.
+	 * 
+	 * @return <tt>false</tt> if the left argument is exhausted.
+	 */
+	private boolean nextBatch() throws QueryEvaluationException {
+		Map<BindingSetHashKey, Group> groupMap = new HashMap<>();
+		List<Group> groups = new ArrayList<>();
+
+		for (int i = 0; i < batchSize && leftIter.hasNext(); i++) {
+			BindingSet leftBindings = leftIter.next();
+
+			if (hasUnboundKey(leftBindings)) {
+				// the pattern is evaluated against a variable that must remain unbound, this is left to the
+				// strategy for every such binding set
+				Group group = new Group(getKeyValues(leftBindings), leftBindings);
+				group.hasUnboundKey = true;
+				group.leftBindings.add(leftBindings);
+				groups.add(group);
+				continue;
+			}
+
+			BindingSetHashKey key = BindingSetHashKey.create(keyNames, leftBindings);
+			Group group = groupMap.get(key);
+			if (group == null) {
+				group = new Group(getKeyValues(leftBindings), createKeyBindings(leftBindings));
+				groupMap.put(key, group);
+				groups.add(group);
+			}
+			group.leftBindings.add(leftBindings);
+		}
+
+		if (groups.isEmpty()) {
+			return false;
+		}
+
+		if (groups.size() > 1) {
+			ValueComparator cmp = new ValueComparator();
+			groups.sort((g1, g2) -> {
+				for (int i = 0; i < g1.keyValues.length && i < g2.keyValues.length; i++) {
+					int result = cmp.compare(g1.keyValues[i], g2.keyValues[i]);
+					if (result != 0) {
+						return result;
+					}
+				}
+				return 0;
+			});
+		}
+
+		groupIter = lookUpBatch(groups).iterator();
+		return true;
+	}
+
+	/**
+	 * Looks up the groups that bind the same variables as the first group of the batch with a single call on the
+	 * triple source, if the strategy supports it.
+	 * 
+	 * @return The groups that still have to be looked up one by one.
+	 */
+	private List<Group> lookUpBatch(List<Group> groups) throws QueryEvaluationException {
+		if (!(strategy instanceof StrictEvaluationStrategy)) {
+			return groups;
+		}
+
+		String[] names = null;
+		Map<BindingSetHashKey, Group> batch = new HashMap<>();
+		List<BindingSet> keyBindings = new ArrayList<>(groups.size());
+		List<Group> remaining = new ArrayList<>();
+		for (Group group : groups) {
+			if (group.hasUnboundKey) {
+				remaining.add(group);
+				continue;
+			}
+			if (names == null) {
+				names = getBoundNames(group.keyValues);
+			}
+			if (Arrays.equals(names, getBoundNames(group.keyValues))) {
+				batch.put(BindingSetHashKey.create(names, group.keyBindings), group);
+				keyBindings.add(group.keyBindings);
+			} else {
+				remaining.add(group);
+			}
+		}
+
+		if (keyBindings.size() < 2) {
+			return groups;
+		}
+
+		CloseableIteration<BindingSet, QueryEvaluationException> iter = ((StrictEvaluationStrategy) strategy)
+				.evaluate(rightArg, keyBindings, bindings);
+		if (iter == null) {
+			return groups;
+		}
+
+		rightIter = iter;
+		batchNames = names;
+		batchGroups = batch;
+		return remaining;
+	}
+
+	private String[] getBoundNames(Value[] keyValues) {
+		List<String> names = new ArrayList<>(keyNames.length);
+		for (int i = 0; i < keyNames.length; i++) {
+			if (keyValues[i] != null) {
+				names.add(keyNames[i]);
+			}
+		}
+		return names.toArray(new String[names.size()]);
+	}
+
+	private boolean hasUnboundKey(BindingSet leftBindings) {
+		for (String name : keyNames) {
+			if (leftBindings.hasBinding(name) && leftBindings.getValue(name) == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Value[] getKeyValues(BindingSet leftBindings) {
+		Value[] values = new Value[keyNames.length];
+		for (int i = 0; i < keyNames.length; i++) {
+			values[i] = leftBindings.getValue(keyNames[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * Creates the binding set that the statement pattern is evaluated against: the bindings of this join extended
+	 * with the values that the left binding set assigns to the variables of the statement pattern.
+	 */
+	private BindingSet createKeyBindings(BindingSet leftBindings) {
+		QueryBindingSet keyBindings = new QueryBindingSet(bindings);
+		for (String name : keyNames) {
+			Value value = leftBindings.getValue(name);
+			if (value != null) {
+				keyBindings.setBinding(name, value);
+			}
+		}
+		return keyBindings;
+	}
+
+	private BindingSet join(BindingSet leftBindings, BindingSet rightBindings) {
+		QueryBindingSet result = new QueryBindingSet(leftBindings);
+		for (Binding binding : rightBindings) {
+			if (!result.hasBinding(binding.getName())) {
+				result.addBinding(binding);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			try {
+				leftIter.close();
+			} finally {
+				rightIter.close();
+			}
+		}
+	}
+
+	/*-------------------*
+	 * Inner class Group *
+	 *-------------------*/
+
+	/**
+	 * Left binding sets that bind the same values in the statement pattern.
+	 */
+	private static final class Group {
+
+		final Value[] keyValues;
+
+		final BindingSet keyBindings;
+
+		final List<BindingSet> leftBindings = new ArrayList<>();
+
+		boolean hasUnboundKey;
+
+		Group(Value[] keyValues, BindingSet keyBindings) {
+			this.keyValues = keyValues;
+			this.keyBindings = keyBindings;
+		}
+	} // end inner class Group
+}
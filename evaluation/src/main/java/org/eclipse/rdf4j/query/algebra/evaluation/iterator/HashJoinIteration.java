@@ -7,6 +7,14 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -17,6 +25,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
 import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
 import org.eclipse.rdf4j.common.iterator.UnionIterator;
 import org.eclipse.rdf4j.model.Value;
@@ -32,11 +41,25 @@ import org.eclipse.rdf4j.util.iterators.EmptyIterator;
 
 /**
  * Generic hash join implementation suitable for use by Sail implementations.
+ * <p>
+ * If an iteration cache sync threshold is set and both arguments (or, for left joins, the right argument) produce more
+ * binding sets than the threshold, the arguments are partitioned on their join attributes into temporary files and
+ * are joined partition by partition, so that only a single partition of the right argument needs to be kept in memory
+ * at a time (a "grace" hash join).
  * 
  * @author MJAHale
  */
 public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
 
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	/**
+	 * The number of partitions that the arguments are split into when they do not fit in memory.
+	 */
+	private static final int PARTITION_COUNT = 64;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -59,30 +82,63 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 
 	private final boolean leftJoin;
 
+	/**
+	 * Number of binding sets of a single argument that are kept in memory before the arguments are partitioned to
+	 * disk. If set to 0, all binding sets are kept in memory.
+	 */
+	private final long iterationCacheSyncThreshold;
+
+	/**
+	 * The join results, if the arguments have been partitioned to disk.
+	 */
+	private volatile CloseableIteration<BindingSet, QueryEvaluationException> partitionedIter;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
 
 	public HashJoinIteration(EvaluationStrategy strategy, Join join, BindingSet bindings)
 			throws QueryEvaluationException {
-		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, false);
+		this(strategy, join, bindings, 0);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy, Join join, BindingSet bindings,
+			long iterationCacheSyncThreshold) throws QueryEvaluationException {
+		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, false, iterationCacheSyncThreshold);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy, LeftJoin join, BindingSet bindings)
 			throws QueryEvaluationException {
-		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, true);
+		this(strategy, join, bindings, 0);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy, LeftJoin join, BindingSet bindings,
+			long iterationCacheSyncThreshold) throws QueryEvaluationException {
+		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, true, iterationCacheSyncThreshold);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy, TupleExpr left, TupleExpr right, BindingSet bindings,
 			boolean leftJoin) throws QueryEvaluationException {
+		this(strategy, left, right, bindings, leftJoin, 0);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy, TupleExpr left, TupleExpr right, BindingSet bindings,
+			boolean leftJoin, long iterationCacheSyncThreshold) throws QueryEvaluationException {
 		this(strategy, strategy.evaluate(left, bindings), left.getBindingNames(), strategy.evaluate(right, bindings),
-				right.getBindingNames(), leftJoin);
+				right.getBindingNames(), leftJoin, iterationCacheSyncThreshold);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy,
 			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, Set<String> leftBindingNames,
 			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, Set<String> rightBindingNames,
 			boolean leftJoin) throws QueryEvaluationException {
+		this(strategy, leftIter, leftBindingNames, rightIter, rightBindingNames, leftJoin, 0);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy,
+			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, Set<String> leftBindingNames,
+			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, Set<String> rightBindingNames,
+			boolean leftJoin, long iterationCacheSyncThreshold) throws QueryEvaluationException {
 		this.leftIter = leftIter;
 		this.rightIter = rightIter;
 
@@ -91,6 +147,7 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		joinAttributes = joinAttributeNames.toArray(new String[joinAttributeNames.size()]);
 
 		this.leftJoin = leftJoin;
+		this.iterationCacheSyncThreshold = iterationCacheSyncThreshold;
 	}
 
 	/*---------*
@@ -108,6 +165,12 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 				}
 			}
 		}
+
+		CloseableIteration<BindingSet, QueryEvaluationException> nextPartitionedIter = partitionedIter;
+		if (nextPartitionedIter != null) {
+			return nextPartitionedIter.hasNext() ? nextPartitionedIter.next() : null;
+		}
+
 		Iterator<BindingSet> nextHashTableValues = hashTableValues;
 
 		while (currentScanElem == null) {
@@ -154,18 +217,7 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		}
 
 		if (nextHashTableValues != null) {
-			BindingSet nextHashTableValue = nextHashTableValues.next();
-
-			QueryBindingSet result = new QueryBindingSet(currentScanElem);
-
-			for (String name : nextHashTableValue.getBindingNames()) {
-				if (!result.hasBinding(name)) {
-					Value v = nextHashTableValue.getValue(name);
-					if (v != null) {
-						result.addBinding(name, v);
-					}
-				}
-			}
+			BindingSet result = join(currentScanElem, nextHashTableValues.next());
 
 			if (!nextHashTableValues.hasNext()) {
 				// we've exhausted the current scanlist entry
@@ -179,6 +231,20 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		return EmptyBindingSet.getInstance();
 	}
 
+	private BindingSet join(BindingSet scanElem, BindingSet hashTableValue) {
+		QueryBindingSet result = new QueryBindingSet(scanElem);
+
+		for (String name : hashTableValue.getBindingNames()) {
+			if (!result.hasBinding(name)) {
+				Value v = hashTableValue.getValue(name);
+				if (v != null) {
+					result.addBinding(name, v);
+				}
+			}
+		}
+		return result;
+	}
+
 	@Override
 	protected void handleClose() throws QueryEvaluationException {
 		try {
@@ -208,10 +274,18 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 								disposeCache(toCloseScanList);
 							}
 						} finally {
-							Map<BindingSetHashKey, List<BindingSet>> toCloseHashTable = hashTable;
-							hashTable = null;
-							if (toCloseHashTable != null) {
-								disposeHashTable(toCloseHashTable);
+							try {
+								Map<BindingSetHashKey, List<BindingSet>> toCloseHashTable = hashTable;
+								hashTable = null;
+								if (toCloseHashTable != null) {
+									disposeHashTable(toCloseHashTable);
+								}
+							} finally {
+								CloseableIteration<BindingSet, QueryEvaluationException> toCloseIter = partitionedIter;
+								partitionedIter = null;
+								if (toCloseIter != null) {
+									toCloseIter.close();
+								}
 							}
 						}
 					}
@@ -228,6 +302,11 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 			leftArgResults = makeIterationCache(leftIter);
 
 			while (leftIter.hasNext() && rightIter.hasNext()) {
+				if (isPartitioningRequired(rightArgResults.size())) {
+					// neither argument fits in memory
+					partitionedIter = partition(leftArgResults, rightArgResults);
+					return Collections.emptyMap();
+				}
 				add(leftArgResults, leftIter.next());
 				add(rightArgResults, rightIter.next());
 			}
@@ -235,6 +314,10 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 			leftArgResults = Collections.emptyList();
 
 			while (rightIter.hasNext()) {
+				if (isPartitioningRequired(rightArgResults.size())) {
+					partitionedIter = partition(leftArgResults, rightArgResults);
+					return Collections.emptyMap();
+				}
 				add(rightArgResults, rightIter.next());
 			}
 		}
@@ -277,6 +360,82 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		return resultHashTable;
 	}
 
+	private boolean isPartitioningRequired(int cachedSize) {
+		// without join attributes all binding sets would end up in the same partition
+		return iterationCacheSyncThreshold > 0 && joinAttributes.length > 0
+				&& cachedSize >= iterationCacheSyncThreshold;
+	}
+
+	/**
+	 * Writes the binding sets of both arguments to temporary files, partitioned on the hash of their join attributes.
+	 * The empty binding set, which is joined with all binding sets of the other argument, is written to every
+	 * partition of the left argument.
+	 * 
+	 * @param leftArgResults  The binding sets that have already been read from the left argument.
+	 * @param rightArgResults The binding sets that have already been read from the right argument.
+	 * @return An iteration over the join results of all partitions.
+	 */
+	private CloseableIteration<BindingSet, QueryEvaluationException> partition(Collection<BindingSet> leftArgResults,
+			Collection<BindingSet> rightArgResults) throws QueryEvaluationException {
+		List<Partition> leftPartitions = new ArrayList<>(PARTITION_COUNT);
+		List<Partition> rightPartitions = new ArrayList<>(PARTITION_COUNT);
+		boolean allGood = false;
+		try {
+			for (int i = 0; i < PARTITION_COUNT; i++) {
+				leftPartitions.add(new Partition());
+				rightPartitions.add(new Partition());
+			}
+
+			for (BindingSet b : rightArgResults) {
+				rightPartitions.get(getPartition(b)).add(b);
+			}
+			rightArgResults.clear();
+			while (rightIter.hasNext()) {
+				BindingSet b = rightIter.next();
+				rightPartitions.get(getPartition(b)).add(b);
+			}
+
+			for (BindingSet b : leftArgResults) {
+				addToPartition(leftPartitions, b);
+			}
+			leftArgResults.clear();
+			while (leftIter.hasNext()) {
+				addToPartition(leftPartitions, leftIter.next());
+			}
+
+			allGood = true;
+			return new PartitionedJoinIteration(leftPartitions, rightPartitions);
+		} catch (IOException e) {
+			throw new QueryEvaluationException("could not write hash join partition", e);
+		} finally {
+			if (!allGood) {
+				closePartitions(leftPartitions);
+				closePartitions(rightPartitions);
+			}
+		}
+	}
+
+	private void addToPartition(List<Partition> partitions, BindingSet b) throws IOException {
+		if (b instanceof EmptyBindingSet) {
+			for (Partition partition : partitions) {
+				partition.add(b);
+			}
+		} else {
+			partitions.get(getPartition(b)).add(b);
+		}
+	}
+
+	private int getPartition(BindingSet b) {
+		int hash = BindingSetHashKey.create(joinAttributes, b).hashCode();
+		return ((hash ^ (hash >>> 16)) & 0x7fffffff) % PARTITION_COUNT;
+	}
+
+	private static void closePartitions(List<Partition> partitions) {
+		for (Partition partition : partitions) {
+			partition.close();
+		}
+	}
+
 	protected void putHashTableEntry(Map<BindingSetHashKey, List<BindingSet>> nextHashTable, BindingSetHashKey hashKey,
 			List<BindingSet> hashValue, boolean newEntry) throws QueryEvaluationException {
 		// by default, we use a standard memory hash map
@@ -356,4 +515,193 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 	protected <E> void addAll(Collection<E> col, List<E> values) throws QueryEvaluationException {
 		col.addAll(values);
 	}
+
+	/*-----------------------*
+	 * Inner class Partition *
+	 *-----------------------*/
+
+	/**
+	 * A temporary file containing the binding sets of one argument that share the same partition of join attribute
+	 * hashes.
+	 */
+	private static class Partition {
+
+		/**
+		 * The number of binding sets after which the object stream is reset, so that it does not keep references to all
+		 * written objects.
+		 */
+		private static final int RESET_INTERVAL = 1024;
+
+		private final File file;
+
+		private ObjectOutputStream output;
+
+		private int size;
+
+		public Partition() throws IOException {
+			file = File.createTempFile("hashjoin", null);
+			output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		}
+
+		public void add(BindingSet bindingSet) throws IOException {
+			output.writeObject(bindingSet);
+			if (++size % RESET_INTERVAL == 0) {
+				output.reset();
+			}
+		}
+
+		public CloseableIteration<BindingSet, QueryEvaluationException> iterator() throws IOException {
+			output.close();
+			output = null;
+
+			final ObjectInputStream input = new ObjectInputStream(
+					new BufferedInputStream(new FileInputStream(file)));
+			return new LookAheadIteration<BindingSet, QueryEvaluationException>() {
+
+				private int remaining = size;
+
+				@Override
+				protected BindingSet getNextElement() throws QueryEvaluationException {
+					if (remaining <= 0) {
+						return null;
+					}
+					remaining--;
+					try {
+						return (BindingSet) input.readObject();
+					} catch (IOException | ClassNotFoundException e) {
+						throw new QueryEvaluationException("could not read hash join partition", e);
+					}
+				}
+
+				@Override
+				protected void handleClose() throws QueryEvaluationException {
+					try {
+						super.handleClose();
+					} finally {
+						try {
+							input.close();
+						} catch (IOException e) {
+							throw new QueryEvaluationException(e);
+						}
+					}
+				}
+			};
+		}
+
+		public void close() {
+			try {
+				if (output != null) {
+					output.close();
+					output = null;
+				}
+			} catch (IOException e) {
+				// ignore, the file is deleted anyway
+			} finally {
+				file.delete();
+			}
+		}
+	} // end inner class Partition
+
+	/*--------------------------------------*
+	 * Inner class PartitionedJoinIteration *
+	 *--------------------------------------*/
+
+	/**
+	 * Joins the partitions of both arguments one by one, using an in-memory hash table over each partition of the right
+	 * argument.
+	 */
+	private class PartitionedJoinIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+		private final List<Partition> leftPartitions;
+
+		private final List<Partition> rightPartitions;
+
+		private int partition = -1;
+
+		private Map<BindingSetHashKey, List<BindingSet>> partitionHashTable;
+
+		private CloseableIteration<BindingSet, QueryEvaluationException> scanIter = new EmptyIteration<>();
+
+		private BindingSet scanElem;
+
+		private Iterator<BindingSet> hashTableValues = new EmptyIterator<>();
+
+		public PartitionedJoinIteration(List<Partition> leftPartitions, List<Partition> rightPartitions) {
+			this.leftPartitions = leftPartitions;
+			this.rightPartitions = rightPartitions;
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			while (true) {
+				if (hashTableValues.hasNext()) {
+					return join(scanElem, hashTableValues.next());
+				}
+
+				if (scanIter.hasNext()) {
+					scanElem = scanIter.next();
+					if (scanElem instanceof EmptyBindingSet) {
+						// the empty bindingset should be merged with all bindingsets in the
+						// hash table
+						hashTableValues = new UnionIterator<>(partitionHashTable.values());
+					} else {
+						List<BindingSet> hashValue = partitionHashTable
+								.get(BindingSetHashKey.create(joinAttributes, scanElem));
+						if (hashValue != null && !hashValue.isEmpty()) {
+							hashTableValues = hashValue.iterator();
+						} else if (leftJoin) {
+							hashTableValues = Collections.singletonList(EmptyBindingSet.getInstance()).iterator();
+						}
+					}
+				} else {
+					scanIter.close();
+					if (!nextPartition()) {
+						return null;
+					}
+				}
+			}
+		}
+
+		private boolean nextPartition() throws QueryEvaluationException {
+			if (partition >= 0) {
+				// the previous partition has been joined
+				leftPartitions.get(partition).close();
+				rightPartitions.get(partition).close();
+			}
+			if (++partition >= PARTITION_COUNT) {
+				return false;
+			}
+
+			try {
+				partitionHashTable = new HashMap<>();
+				try (CloseableIteration<BindingSet, QueryEvaluationException> iter = rightPartitions.get(partition)
+						.iterator()) {
+					while (iter.hasNext()) {
+						BindingSet b = iter.next();
+						partitionHashTable.computeIfAbsent(BindingSetHashKey.create(joinAttributes, b),
+								k -> new ArrayList<>()).add(b);
+					}
+				}
+				scanIter = leftPartitions.get(partition).iterator();
+				return true;
+			} catch (IOException e) {
+				throw new QueryEvaluationException("could not read hash join partition", e);
+			}
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				super.handleClose();
+			} finally {
+				try {
+					scanIter.close();
+				} finally {
+					partitionHashTable = null;
+					closePartitions(leftPartitions);
+					closePartitions(rightPartitions);
+				}
+			}
+		}
+	} // end inner class PartitionedJoinIteration
 }
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.OrderedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+
+/**
+ * A join between two streams of binding sets that are both sorted on the value of a shared join variable, for example
+ * the results of two statement patterns that are read from an {@link OrderedTripleSource}. Both streams are read
+ * only once: for every distinct value of the join variable the matching right binding sets are collected and joined
+ * with the left binding sets that have the same value.
+ * <p>
+ * Besides on the join variable, the binding sets of the two streams need to agree on the values of all other variables
+ * that they have in common. Binding sets in which the join variable is unbound do not match any binding set of the
+ * other stream.
+ */
+public class MergeJoinIterator extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final CloseableIteration<BindingSet, QueryEvaluationException> leftIter;
+
+	private final CloseableIteration<BindingSet, QueryEvaluationException> rightIter;
+
+	private final String joinVariable;
+
+	private final Comparator<Value> comparator;
+
+	private final boolean leftJoin;
+
+	/**
+	 * The right binding sets that have the value of the current left binding set for the join variable.
+	 */
+	private final List<BindingSet> rightGroup = new ArrayList<>();
+
+	/**
+	 * The value of the join variable of the binding sets in {@link #rightGroup}, or <tt>null</tt> if no group has
+	 * been read yet.
+	 */
+	private Value groupValue;
+
+	/**
+	 * The first right binding set that is not part of {@link #rightGroup}, or <tt>null</tt> if it has not been read
+	 * yet.
+	 */
+	private BindingSet nextRight;
+
+	private BindingSet currentLeft;
+
+	private List<BindingSet> currentMatches = Collections.emptyList();
+
+	private int rightIndex;
+
+	private boolean matched;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	public MergeJoinIterator(CloseableIteration<BindingSet, QueryEvaluationException> leftIter,
+			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, String joinVariable,
+			Comparator<Value> comparator) {
+		this(leftIter, rightIter, joinVariable, comparator, false);
+	}
+
+	/**
+	 * @param leftIter     The left binding sets, sorted on the value of the join variable.
+	 * @param rightIter    The right binding sets, sorted on the value of the join variable.
+	 * @param joinVariable The name of the variable that both streams are sorted on.
+	 * @param comparator   The comparator that defines the order of both streams.
+	 * @param leftJoin     Flag indicating whether left binding sets without a matching right binding set are part of
+	 *                     the result.
+	 */
+	public MergeJoinIterator(CloseableIteration<BindingSet, QueryEvaluationException> leftIter,
+			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, String joinVariable,
+			Comparator<Value> comparator, boolean leftJoin) {
+		this.leftIter = leftIter;
+		this.rightIter = rightIter;
+		this.joinVariable = joinVariable;
+		this.comparator = comparator;
+		this.leftJoin = leftJoin;
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		try {
+			while (true) {
+				if (currentLeft != null) {
+					while (rightIndex < currentMatches.size()) {
+						BindingSet result = join(currentLeft, currentMatches.get(rightIndex++));
+						if (result != null) {
+							matched = true;
+							return result;
+						}
+					}
+
+					BindingSet left = currentLeft;
+					currentLeft = null;
+					if (leftJoin && !matched) {
+						return left;
+					}
+				}
+
+				if (!leftIter.hasNext()) {
+					return null;
+				}
+
+				currentLeft = leftIter.next();
+				rightIndex = 0;
+				matched = false;
+
+				Value value = currentLeft.getValue(joinVariable);
+				if (value == null) {
+					currentMatches = Collections.emptyList();
+				} else {
+					if (groupValue == null || comparator.compare(groupValue, value) != 0) {
+						readGroup(value);
+					}
+					currentMatches = rightGroup;
+				}
+			}
+		} catch (NoSuchElementException ignore) {
+			// probably, one of the iterations has been closed concurrently in
+			// handleClose()
+		}
+
+		return null;
+	}
+
+	/**
+	 * Advances the right argument to the binding sets that have the specified value for the join variable. As the left
+	 * binding sets are sorted, the right binding sets that are skipped can not match any later left binding set.
+	 */
+	private void readGroup(Value value) throws QueryEvaluationException {
+		rightGroup.clear();
+		groupValue = value;
+
+		while (nextRight != null || rightIter.hasNext()) {
+			BindingSet right = nextRight != null ? nextRight : rightIter.next();
+			nextRight = null;
+
+			Value rightValue = right.getValue(joinVariable);
+			if (rightValue == null) {
+				continue;
+			}
+
+			int diff = comparator.compare(rightValue, value);
+			if (diff == 0) {
+				rightGroup.add(right);
+			} else if (diff > 0) {
+				// first binding set of a later group
+				nextRight = right;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Joins a left and a right binding set.
+	 * 
+	 * @return The joined binding set, or <tt>null</tt> if the binding sets have different values for a shared
+	 *         variable.
+	 */
+	private BindingSet join(BindingSet left, BindingSet right) {
+		QueryBindingSet result = new QueryBindingSet(left);
+		for (Binding binding : right) {
+			Value leftValue = left.getValue(binding.getName());
+			if (leftValue == null) {
+				result.setBinding(binding.getName(), binding.getValue());
+			} else if (!leftValue.equals(binding.getValue())) {
+				return null;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			try {
+				leftIter.close();
+			} finally {
+				rightIter.close();
+			}
+		}
+	}
+}
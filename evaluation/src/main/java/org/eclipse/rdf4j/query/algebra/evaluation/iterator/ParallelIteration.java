@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryContext;
+
+/**
+ * An iteration that evaluates one or more producers concurrently on a {@link ForkJoinPool} and returns their results
+ * in the order in which they become available. The results are passed through a bounded queue: producers wait while
+ * the queue is full, which limits the number of results that are kept in memory when the consumer is slower than the
+ * producers.
+ * <p>
+ * The producers are started by {@link #start()}, or otherwise when the first result is requested. Closing this
+ * iteration cancels the producers that have not started yet and stops the others before their next result. The
+ * iterations of the producers are closed by the threads that evaluate them; {@link #close()} waits until they are.
+ * <p>
+ * Waiting on the queue is done through {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, so that the pool
+ * can compensate for threads that wait on each other, for example when a producer consumes the results of a nested
+ * parallel iteration.
+ */
+public class ParallelIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	/**
+	 * The default number of results that can be queued before the producers have to wait for the consumer.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * The number of milliseconds after which a waiting thread checks whether the iteration has been closed or has
+	 * failed.
+	 */
+	private static final long POLL_INTERVAL = 100;
+
+	/**
+	 * Marks the end of the results of a single producer.
+	 */
+	private static final BindingSet END_OF_PRODUCER = new QueryBindingSet();
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final ForkJoinPool pool;
+
+	private final List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers;
+
+	private final BlockingQueue<BindingSet> queue;
+
+	/**
+	 * The context of the query, which is made available to the threads that evaluate the producers.
+	 */
+	private final QueryContext queryContext;
+
+	/**
+	 * The first exception that was thrown by a producer.
+	 */
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * The tasks that evaluate the producers, or <tt>null</tt> if they have not been started yet.
+	 */
+	private List<ForkJoinTask<?>> tasks;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * The number of producers whose end has not been taken from the queue yet.
+	 */
+	private int remaining;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	public ParallelIteration(ForkJoinPool pool,
+			List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers) {
+		this(pool, DEFAULT_QUEUE_CAPACITY, producers);
+	}
+
+	/**
+	 * @param pool          The pool that evaluates the producers.
+	 * @param queueCapacity The number of results that can be queued before the producers have to wait.
+	 * @param producers     Evaluate the iterations of which the results are returned. The iterations are closed by
+	 *                      this iteration.
+	 */
+	public ParallelIteration(ForkJoinPool pool, int queueCapacity,
+			List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers) {
+		if (queueCapacity < 1) {
+			throw new IllegalArgumentException("queue capacity must be positive: " + queueCapacity);
+		}
+
+		this.pool = pool;
+		this.producers = new ArrayList<>(producers);
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.queryContext = QueryContext.getQueryContext();
+		this.remaining = producers.size();
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	/**
+	 * Starts evaluating the producers, unless they have already been started or this iteration has been closed.
+	 */
+	public synchronized void start() {
+		if (tasks != null || cancelled) {
+			return;
+		}
+
+		tasks = new ArrayList<>(producers.size());
+		for (Supplier<CloseableIteration<BindingSet, QueryEvaluationException>> producer : producers) {
+			tasks.add(pool.submit(() -> produce(producer)));
+		}
+	}
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		start();
+
+		while (remaining > 0 && !cancelled) {
+			checkFailure();
+
+			BindingSet next = take();
+			if (next == END_OF_PRODUCER) {
+				remaining--;
+			} else if (next != null) {
+				return next;
+			}
+		}
+
+		checkFailure();
+		return null;
+	}
+
+	/**
+	 * Evaluates a producer and puts its results on the queue, followed by {@link #END_OF_PRODUCER}.
+	 */
+	private void produce(Supplier<CloseableIteration<BindingSet, QueryEvaluationException>> producer) {
+		QueryContext ctx = null;
+		if (queryContext != null) {
+			ctx = new QueryContext(queryContext);
+			ctx.begin();
+		}
+
+		try {
+			if (!cancelled) {
+				try (CloseableIteration<BindingSet, QueryEvaluationException> iter = producer.get()) {
+					while (!cancelled && iter.hasNext()) {
+						put(iter.next());
+					}
+				}
+			}
+		} catch (RuntimeException | Error e) {
+			failure.compareAndSet(null, e);
+		} finally {
+			try {
+				put(END_OF_PRODUCER);
+			} catch (QueryInterruptedException e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				if (ctx != null) {
+					ctx.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts a result on the queue, waiting for space to become available unless this iteration has been closed.
+	 */
+	private void put(BindingSet bindings) throws QueryInterruptedException {
+		try {
+			ForkJoinPool.managedBlock(new Put(bindings));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryInterruptedException(e);
+		}
+	}
+
+	/**
+	 * Takes the next result from the queue.
+	 * 
+	 * @return The next result, or <tt>null</tt> if a producer has failed or this iteration has been closed.
+	 */
+	private BindingSet take() throws QueryInterruptedException {
+		Take take = new Take();
+		try {
+			ForkJoinPool.managedBlock(take);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryInterruptedException(e);
+		}
+		return take.next;
+	}
+
+	private void checkFailure() throws QueryEvaluationException {
+		Throwable e = failure.get();
+		if (e instanceof QueryEvaluationException) {
+			throw (QueryEvaluationException) e;
+		} else if (e instanceof Error) {
+			throw (Error) e;
+		} else if (e != null) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			List<ForkJoinTask<?>> startedTasks;
+			synchronized (this) {
+				cancelled = true;
+				startedTasks = tasks;
+			}
+
+			if (startedTasks != null) {
+				for (ForkJoinTask<?> task : startedTasks) {
+					task.cancel(false);
+				}
+
+				// make room for producers that are waiting, so that they notice the cancellation
+				queue.clear();
+
+				for (ForkJoinTask<?> task : startedTasks) {
+					task.quietlyJoin();
+				}
+			}
+		}
+	}
+
+	/*-----------------*
+	 * Inner class Put *
+	 *-----------------*/
+
+	private final class Put implements ForkJoinPool.ManagedBlocker {
+
+		private final BindingSet bindings;
+
+		Put(BindingSet bindings) {
+			this.bindings = bindings;
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return cancelled || queue.offer(bindings);
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			return cancelled || queue.offer(bindings, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+	} // end inner class Put
+
+	/*------------------*
+	 * Inner class Take *
+	 *------------------*/
+
+	private final class Take implements ForkJoinPool.ManagedBlocker {
+
+		BindingSet next;
+
+		@Override
+		public boolean isReleasable() {
+			return (next = queue.poll()) != null || failure.get() != null || cancelled;
+		}
+
+		@Override
+		public boolean block() throws InterruptedException {
+			next = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			return next != null || failure.get() != null || cancelled;
+		}
+	} // end inner class Take
+}
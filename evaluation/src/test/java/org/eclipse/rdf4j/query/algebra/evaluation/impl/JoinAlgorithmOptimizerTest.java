@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Compare.CompareOp;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
+import org.eclipse.rdf4j.query.algebra.QueryRoot;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.ZeroLengthPath;
+import org.junit.Test;
+
+public class JoinAlgorithmOptimizerTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final IRI selective = vf.createIRI(EX_NS, "selective");
+
+	private final IRI large = vf.createIRI(EX_NS, "large");
+
+	private final IRI other = vf.createIRI(EX_NS, "other");
+
+	private final JoinAlgorithmOptimizer optimizer = new JoinAlgorithmOptimizer(new PredicateStatistics());
+
+	@Test
+	public void testLargeJoinUsesHashJoin() {
+		// ?x ex:large ?y . ?y ex:other ?z
+		Join join = new Join(pattern("x", large, "y"), pattern("y", other, "z"));
+
+		assertEquals(JoinAlgorithm.HASH, optimize(join));
+	}
+
+	@Test
+	public void testSelectiveJoinUsesNestedLoop() {
+		// ?x ex:selective ?y . ?y ex:large ?z
+		Join join = new Join(pattern("x", selective, "y"), pattern("y", large, "z"));
+
+		assertEquals(JoinAlgorithm.NESTED_LOOP, optimize(join));
+	}
+
+	@Test
+	public void testComplexRightArgUsesNestedLoop() {
+		Join join = new Join(pattern("x", large, "y"),
+				new ZeroLengthPath(StatementPattern.Scope.DEFAULT_CONTEXTS, new Var("y"), new Var("z"), null));
+
+		assertEquals(JoinAlgorithm.NESTED_LOOP, optimize(join));
+	}
+
+	@Test
+	public void testLeftJoin() {
+		LeftJoin leftJoin = new LeftJoin(pattern("x", large, "y"), pattern("y", other, "z"));
+		assertEquals(JoinAlgorithm.HASH, optimize(leftJoin));
+
+		// conditions are evaluated on the combined bindings of both arguments
+		leftJoin = new LeftJoin(pattern("x", large, "y"), pattern("y", other, "z"),
+				new Compare(new Var("x"), new Var("z"), CompareOp.NE));
+		assertEquals(JoinAlgorithm.NESTED_LOOP, optimize(leftJoin));
+	}
+
+	@Test
+	public void testOptionalInLeftArgUsesNestedLoop() {
+		// { ?a ex:large ?b OPTIONAL { ?b ex:other ?c } } ?c ex:other ?d
+		Join join = new Join(new LeftJoin(pattern("a", large, "b"), pattern("b", other, "c")),
+				pattern("c", other, "d"));
+
+		// left results without a value for ?c are joined with all right results
+		assertEquals(JoinAlgorithm.NESTED_LOOP, optimize(join));
+	}
+
+	@Test
+	public void testNestedJoins() {
+		// ?x ex:selective ?y . ?y ex:large ?z . ?z ex:other ?w
+		QueryRoot root = new QueryRoot(new Join(pattern("x", selective, "y"),
+				new Join(pattern("y", large, "z"), pattern("z", other, "w"))));
+		optimizer.optimize(root, null, null);
+
+		PlannedJoin outer = (PlannedJoin) root.getArg();
+		assertEquals(JoinAlgorithm.NESTED_LOOP, outer.getAlgorithm());
+		assertTrue(outer.getRightArg() instanceof PlannedJoin);
+		assertEquals(JoinAlgorithm.HASH, ((PlannedJoin) outer.getRightArg()).getAlgorithm());
+	}
+
+	private JoinAlgorithm optimize(TupleExpr join) {
+		QueryRoot root = new QueryRoot(join);
+		optimizer.optimize(root, null, null);
+
+		if (root.getArg() instanceof PlannedJoin) {
+			return ((PlannedJoin) root.getArg()).getAlgorithm();
+		} else {
+			return ((PlannedLeftJoin) root.getArg()).getAlgorithm();
+		}
+	}
+
+	private StatementPattern pattern(String subj, IRI pred, String obj) {
+		Var predVar = new Var("const_" + pred.getLocalName(), pred);
+		predVar.setConstant(true);
+		return new StatementPattern(new Var(subj), predVar, new Var(obj));
+	}
+
+	/**
+	 * Statistics that estimate the cardinality of statement patterns from their predicate only.
+	 */
+	private class PredicateStatistics extends EvaluationStatistics {
+
+		private final Map<IRI, Double> cardinalities = new HashMap<>();
+
+		PredicateStatistics() {
+			cardinalities.put(selective, 1.0);
+			cardinalities.put(large, 1000000.0);
+			cardinalities.put(other, 1000000.0);
+		}
+
+		@Override
+		protected CardinalityCalculator createCardinalityCalculator() {
+			return new CardinalityCalculator() {
+
+				@Override
+				protected double getCardinality(StatementPattern sp) {
+					return cardinalities.get(sp.getPredicateVar().getValue());
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelEvaluationStrategyFactoryTest {
+
+	@Test
+	public void testSetParallelismBeforePoolIsCreated() {
+		ParallelEvaluationStrategyFactory factory = new ParallelEvaluationStrategyFactory();
+		factory.setParallelism(3);
+		try {
+			assertEquals(3, factory.getForkJoinPool().getParallelism());
+		} finally {
+			factory.shutDown();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSetParallelismAfterPoolIsCreated() {
+		ParallelEvaluationStrategyFactory factory = new ParallelEvaluationStrategyFactory();
+		factory.getForkJoinPool();
+		try {
+			factory.setParallelism(2);
+		} finally {
+			factory.shutDown();
+		}
+	}
+
+	@Test
+	public void testShutDownTerminatesPool() {
+		ParallelEvaluationStrategyFactory factory = new ParallelEvaluationStrategyFactory();
+		ForkJoinPool pool = factory.getForkJoinPool();
+		factory.shutDown();
+		assertTrue(pool.isTerminated());
+
+		ForkJoinPool newPool = factory.getForkJoinPool();
+		assertNotSame(pool, newPool);
+		factory.shutDown();
+		assertTrue(newPool.isTerminated());
+	}
+
+	@Test
+	public void testShutDownKeepsSuppliedPool() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ParallelEvaluationStrategyFactory factory = new ParallelEvaluationStrategyFactory(null, pool);
+			assertSame(pool, factory.getForkJoinPool());
+			assertEquals(2, factory.getParallelism());
+			factory.shutDown();
+			assertFalse(pool.isShutdown());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
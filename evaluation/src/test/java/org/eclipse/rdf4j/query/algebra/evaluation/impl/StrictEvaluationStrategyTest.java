@@ -17,8 +17,12 @@ import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.HashJoinIteration;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.QueryParserUtil;
 import org.junit.Before;
@@ -59,4 +63,19 @@ public class StrictEvaluationStrategyTest {
 		assertFalse(bs.hasBinding("y"));
 	}
 
+	@Test
+	public void testPlannedJoinAlgorithm() throws Exception {
+		StatementPattern left = new StatementPattern(new Var("x"), new Var("p"), new Var("y"));
+		StatementPattern right = new StatementPattern(new Var("y"), new Var("q"), new Var("z"));
+
+		CloseableIteration<BindingSet, QueryEvaluationException> result = strategy.evaluate(
+				new PlannedJoin(left.clone(), right.clone(), JoinAlgorithm.HASH), EmptyBindingSet.getInstance());
+		assertTrue(result instanceof HashJoinIteration);
+		result.close();
+
+		result = strategy.evaluate(new PlannedJoin(left.clone(), right.clone(), JoinAlgorithm.NESTED_LOOP),
+				EmptyBindingSet.getInstance());
+		assertFalse(result instanceof HashJoinIteration);
+		result.close();
+	}
 }
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.common.iteration.UnionIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.BatchedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchedBindJoinIteratorTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final Model model = new LinkedHashModel();
+
+	private EvaluationStrategy evaluator;
+
+	private int lookups;
+
+	private int batchLookups;
+
+	private StrictEvaluationStrategy batchedEvaluator;
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < 10; i++) {
+			model.add(vf.createIRI(EX_NS, "class" + i), RDFS.LABEL, vf.createLiteral("Class " + i));
+			model.add(vf.createIRI(EX_NS, "class" + i), RDFS.LABEL, vf.createLiteral("Klasse " + i, "de"));
+		}
+
+		TripleSource ts = new TripleSource() {
+
+			@Override
+			public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj,
+					IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+				lookups++;
+				return new CloseableIteratorIteration<>(model.filter(subj, pred, obj, contexts).iterator());
+			}
+
+			@Override
+			public ValueFactory getValueFactory() {
+				return vf;
+			}
+		};
+		evaluator = new StrictEvaluationStrategy(ts, null);
+
+		BatchedTripleSource bts = new BatchedTripleSource() {
+
+			@Override
+			public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj,
+					IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+				return ts.getStatements(subj, pred, obj, contexts);
+			}
+
+			@Override
+			public CloseableIteration<? extends Statement, QueryEvaluationException> getStatementsBatch(
+					List<Value[]> patterns, Resource... contexts) throws QueryEvaluationException {
+				batchLookups++;
+				List<CloseableIteration<Statement, QueryEvaluationException>> iters = new ArrayList<>();
+				for (Value[] pattern : patterns) {
+					iters.add(new CloseableIteratorIteration<>(
+							model.filter((Resource) pattern[0], (IRI) pattern[1], pattern[2], contexts).iterator()));
+				}
+				return new UnionIteration<>(iters);
+			}
+
+			@Override
+			public ValueFactory getValueFactory() {
+				return vf;
+			}
+		};
+		batchedEvaluator = new StrictEvaluationStrategy(bts, null);
+	}
+
+	@Test
+	public void testSharedKeysAreLookedUpOnce() throws QueryEvaluationException {
+		// 100 left binding sets that bind ?c to one of 10 classes
+		Join join = new Join(createInstances(100, 10), createLabelPattern());
+
+		Set<BindingSet> expected = Iterations.asSet(new JoinIterator(evaluator, join, EmptyBindingSet.getInstance()));
+		assertEquals(200, expected.size());
+		assertEquals(100, lookups);
+
+		lookups = 0;
+		Set<BindingSet> actual = Iterations
+				.asSet(new BatchedBindJoinIterator(evaluator, join, EmptyBindingSet.getInstance()));
+		assertEquals(expected, actual);
+		assertEquals(10, lookups);
+	}
+
+	@Test
+	public void testMultipleBatches() throws QueryEvaluationException {
+		Join join = new Join(createInstances(100, 10), createLabelPattern());
+
+		Set<BindingSet> expected = Iterations.asSet(new JoinIterator(evaluator, join, EmptyBindingSet.getInstance()));
+
+		lookups = 0;
+		Set<BindingSet> actual = Iterations
+				.asSet(new BatchedBindJoinIterator(evaluator, join, EmptyBindingSet.getInstance(), 7));
+		assertEquals(expected, actual);
+		// every batch of 7 left binding sets contains 7 distinct classes
+		assertEquals(100, lookups);
+	}
+
+	@Test
+	public void testBatchIsLookedUpWithSingleCall() throws QueryEvaluationException {
+		Join join = new Join(createInstances(100, 10), createLabelPattern());
+
+		Set<BindingSet> expected = Iterations.asSet(new JoinIterator(evaluator, join, EmptyBindingSet.getInstance()));
+
+		lookups = 0;
+		Set<BindingSet> actual = Iterations
+				.asSet(new BatchedBindJoinIterator(batchedEvaluator, join, EmptyBindingSet.getInstance()));
+		assertEquals(expected, actual);
+		assertEquals(1, batchLookups);
+		assertEquals(0, lookups);
+	}
+
+	@Test
+	public void testStrategyUsesBatchedBindJoin() throws QueryEvaluationException {
+		Join join = new Join(createInstances(100, 10), createLabelPattern());
+
+		Set<BindingSet> expected = Iterations.asSet(batchedEvaluator.evaluate(join, EmptyBindingSet.getInstance()));
+		assertEquals(0, batchLookups);
+
+		lookups = 0;
+		batchedEvaluator.setBindJoinBatchSize(BatchedBindJoinIterator.DEFAULT_BATCH_SIZE);
+		CloseableIteration<BindingSet, QueryEvaluationException> iter = batchedEvaluator.evaluate(join,
+				EmptyBindingSet.getInstance());
+		assertTrue(iter instanceof BatchedBindJoinIterator);
+		assertEquals(expected, Iterations.asSet(iter));
+		assertEquals(1, batchLookups);
+		assertEquals(0, lookups);
+	}
+
+	@Test
+	public void testRetainInputBindings() throws QueryEvaluationException {
+		QueryBindingSet bindings = new QueryBindingSet();
+		bindings.addBinding("a", RDF.FIRST);
+
+		Join join = new Join(createInstances(5, 5), createLabelPattern());
+		List<BindingSet> result = Iterations.asList(new BatchedBindJoinIterator(evaluator, join, bindings));
+
+		assertEquals(10, result.size());
+		for (BindingSet b : result) {
+			assertEquals(RDF.FIRST, b.getValue("a"));
+			assertEquals(4, b.size());
+		}
+	}
+
+	/**
+	 * Creates a {@link BindingSetAssignment} with binding sets that bind <tt>?x</tt> to an instance and <tt>?c</tt> to
+	 * one of the specified number of classes.
+	 */
+	private BindingSetAssignment createInstances(int instanceCount, int classCount) {
+		List<BindingSet> bindingSets = new ArrayList<>();
+		for (int i = 0; i < instanceCount; i++) {
+			QueryBindingSet b = new QueryBindingSet();
+			b.addBinding("x", vf.createIRI(EX_NS, "instance" + i));
+			b.addBinding("c", vf.createIRI(EX_NS, "class" + (i % classCount)));
+			bindingSets.add(b);
+		}
+		BindingSetAssignment bsa = new BindingSetAssignment();
+		bsa.setBindingSets(bindingSets);
+		return bsa;
+	}
+
+	/**
+	 * Creates the pattern <tt>?c rdfs:label ?label</tt>.
+	 */
+	private StatementPattern createLabelPattern() {
+		Var pred = new Var("const_label", RDFS.LABEL);
+		pred.setConstant(true);
+		return new StatementPattern(new Var("c"), pred, new Var("label"));
+	}
+}
@@ -10,8 +10,12 @@ package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
+import org.eclipse.rdf4j.common.iteration.Iterations;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
 import org.eclipse.rdf4j.query.BindingSet;
@@ -106,4 +110,51 @@ public class HashJoinIterationTest {
 		assertEquals("x", actual.getValue("i").stringValue());
 		assertFalse(actual.hasBinding("b"));
 	}
+
+	@Test
+	public void testPartitionedJoin() throws QueryEvaluationException {
+		// half of the left binding sets have three matches
+		BindingSetAssignment left = createBindingSets("a", 1000, 200);
+		BindingSetAssignment right = createBindingSets("b", 300, 100);
+
+		Set<BindingSet> expected = Iterations
+				.asSet(new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), false));
+		assertEquals(1500, expected.size());
+
+		Set<BindingSet> actual = Iterations
+				.asSet(new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), false, 10));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testPartitionedLeftJoin() throws QueryEvaluationException {
+		// half of the left binding sets have three matches
+		BindingSetAssignment left = createBindingSets("a", 1000, 200);
+		BindingSetAssignment right = createBindingSets("b", 300, 100);
+
+		Set<BindingSet> expected = Iterations
+				.asSet(new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), true));
+		assertEquals(2000, expected.size());
+
+		Set<BindingSet> actual = Iterations
+				.asSet(new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), true, 10));
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Creates binding sets that bind the specified variable to a unique value and <tt>?i</tt> to one of the specified
+	 * number of join values.
+	 */
+	private BindingSetAssignment createBindingSets(String name, int count, int joinValueCount) {
+		List<BindingSet> bindingSets = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			QueryBindingSet b = new QueryBindingSet();
+			b.addBinding(name, vf.createLiteral(i));
+			b.addBinding("i", vf.createLiteral(i % joinValueCount));
+			bindingSets.add(b);
+		}
+		BindingSetAssignment bsa = new BindingSetAssignment();
+		bsa.setBindingSets(bindingSets);
+		return bsa;
+	}
 }
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
+import org.junit.Test;
+
+public class MergeJoinIteratorTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testStarJoin() throws QueryEvaluationException {
+		// ?s ex:p1 ?a . ?s ex:p2 ?b, where every third subject has no ex:p2 and every even subject two values
+		List<BindingSet> left = new ArrayList<>();
+		List<BindingSet> right = new ArrayList<>();
+		int expected = 0;
+		for (int i = 0; i < 100; i++) {
+			left.add(bindings("s", subject(i), "a", vf.createLiteral(i)));
+			if (i % 3 != 0) {
+				right.add(bindings("s", subject(i), "b", vf.createLiteral("b" + i)));
+				expected++;
+				if (i % 2 == 0) {
+					right.add(bindings("s", subject(i), "b", vf.createLiteral("c" + i)));
+					expected++;
+				}
+			}
+		}
+
+		List<BindingSet> result = Iterations.asList(new MergeJoinIterator(iter(left), iter(right), "s",
+				new ValueComparator()));
+
+		assertEquals(expected, result.size());
+		for (BindingSet b : result) {
+			assertEquals(3, b.size());
+			assertEquals(subject(((Literal) b.getValue("a")).intValue()), b.getValue("s"));
+		}
+	}
+
+	@Test
+	public void testDuplicateValuesOnBothSides() throws QueryEvaluationException {
+		List<BindingSet> left = new ArrayList<>();
+		List<BindingSet> right = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			left.add(bindings("s", subject(1), "a", vf.createLiteral(i)));
+			right.add(bindings("s", subject(1), "b", vf.createLiteral(i)));
+		}
+		right.add(bindings("s", subject(2), "b", vf.createLiteral(0)));
+
+		assertEquals(9, Iterations.asList(new MergeJoinIterator(iter(left), iter(right), "s",
+				new ValueComparator())).size());
+	}
+
+	@Test
+	public void testOtherSharedVariables() throws QueryEvaluationException {
+		// ?s ex:p ?o . ?s ex:q ?o
+		List<BindingSet> left = new ArrayList<>();
+		left.add(bindings("s", subject(1), "o", vf.createLiteral(1)));
+		left.add(bindings("s", subject(1), "o", vf.createLiteral(2)));
+		List<BindingSet> right = new ArrayList<>();
+		right.add(bindings("s", subject(1), "o", vf.createLiteral(2)));
+
+		List<BindingSet> result = Iterations.asList(new MergeJoinIterator(iter(left), iter(right), "s",
+				new ValueComparator()));
+
+		assertEquals(1, result.size());
+		assertEquals(vf.createLiteral(2), result.get(0).getValue("o"));
+	}
+
+	@Test
+	public void testLeftJoin() throws QueryEvaluationException {
+		List<BindingSet> left = new ArrayList<>();
+		List<BindingSet> right = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			left.add(bindings("s", subject(i), "a", vf.createLiteral(i)));
+			if (i % 2 == 0) {
+				right.add(bindings("s", subject(i), "b", vf.createLiteral(i)));
+			}
+		}
+
+		List<BindingSet> result = Iterations.asList(new MergeJoinIterator(iter(left), iter(right), "s",
+				new ValueComparator(), true));
+
+		assertEquals(10, result.size());
+		for (BindingSet b : result) {
+			int i = ((Literal) b.getValue("a")).intValue();
+			assertEquals(i % 2 == 0, b.hasBinding("b"));
+		}
+	}
+
+	@Test
+	public void testCloseClosesArguments() throws QueryEvaluationException {
+		List<BindingSet> left = new ArrayList<>();
+		left.add(bindings("s", subject(1), "a", vf.createLiteral(1)));
+		CloseableIteration<BindingSet, QueryEvaluationException> leftIter = iter(left);
+		CloseableIteration<BindingSet, QueryEvaluationException> rightIter = iter(new ArrayList<>());
+
+		MergeJoinIterator iter = new MergeJoinIterator(leftIter, rightIter, "s", new ValueComparator());
+		assertFalse(iter.hasNext());
+		iter.close();
+
+		assertTrue(((CloseableIteratorIteration<BindingSet, QueryEvaluationException>) leftIter).isClosed());
+		assertTrue(((CloseableIteratorIteration<BindingSet, QueryEvaluationException>) rightIter).isClosed());
+	}
+
+	/**
+	 * Creates a subject whose IRI sorts in numeric order.
+	 */
+	private Value subject(int i) {
+		return vf.createIRI("http://example.org/s" + String.format("%05d", i));
+	}
+
+	private BindingSet bindings(String name1, Value value1, String name2, Value value2) {
+		QueryBindingSet bindings = new QueryBindingSet();
+		bindings.addBinding(name1, value1);
+		bindings.addBinding(name2, value2);
+		return bindings;
+	}
+
+	private CloseableIteration<BindingSet, QueryEvaluationException> iter(List<BindingSet> bindingSets) {
+		return new CloseableIteratorIteration<>(bindingSets.iterator());
+	}
+}
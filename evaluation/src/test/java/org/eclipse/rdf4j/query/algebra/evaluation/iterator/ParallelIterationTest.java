@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelIterationTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void testResultsOfAllProducers() throws QueryEvaluationException {
+		List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers = new ArrayList<>();
+		for (int p = 0; p < 5; p++) {
+			int offset = p * 1000;
+			producers.add(() -> iter(offset, 1000));
+		}
+
+		// a small queue makes the producers wait for the consumer
+		List<BindingSet> result = Iterations.asList(new ParallelIteration(pool, 4, producers));
+
+		assertEquals(5000, result.size());
+		Set<Integer> values = new HashSet<>();
+		for (BindingSet b : result) {
+			values.add(((Literal) b.getValue("x")).intValue());
+		}
+		assertEquals(5000, values.size());
+	}
+
+	@Test
+	public void testFailureIsPropagated() {
+		List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers = new ArrayList<>();
+		producers.add(() -> iter(0, 10));
+		producers.add(() -> {
+			throw new QueryEvaluationException("producer failed");
+		});
+
+		ParallelIteration iter = new ParallelIteration(pool, producers);
+		try {
+			Iterations.asList(iter);
+			fail("expected the failure of the producer to be rethrown");
+		} catch (QueryEvaluationException e) {
+			assertEquals("producer failed", e.getMessage());
+		} finally {
+			iter.close();
+		}
+	}
+
+	@Test
+	public void testCloseStopsProducers() throws QueryEvaluationException {
+		List<CloseableIteratorIteration<BindingSet, QueryEvaluationException>> iterations = new ArrayList<>();
+		List<Supplier<CloseableIteration<BindingSet, QueryEvaluationException>>> producers = new ArrayList<>();
+		for (int p = 0; p < 3; p++) {
+			int offset = p * 100000;
+			producers.add(() -> {
+				CloseableIteratorIteration<BindingSet, QueryEvaluationException> iter = iter(offset, 100000);
+				synchronized (iterations) {
+					iterations.add(iter);
+				}
+				return iter;
+			});
+		}
+
+		ParallelIteration iter = new ParallelIteration(pool, 4, producers);
+		assertTrue(iter.hasNext());
+		iter.next();
+		iter.close();
+
+		// close() waits until the producers have finished
+		synchronized (iterations) {
+			for (CloseableIteratorIteration<BindingSet, QueryEvaluationException> producer : iterations) {
+				assertTrue(producer.isClosed());
+			}
+		}
+		assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+	}
+
+	private CloseableIteratorIteration<BindingSet, QueryEvaluationException> iter(int offset, int size) {
+		List<BindingSet> bindingSets = new ArrayList<>(size);
+		for (int i = offset; i < offset + size; i++) {
+			QueryBindingSet bindings = new QueryBindingSet();
+			bindings.addBinding("x", vf.createLiteral(i));
+			bindingSets.add(bindings);
+		}
+		return new CloseableIteratorIteration<>(bindingSets.iterator());
+	}
+}
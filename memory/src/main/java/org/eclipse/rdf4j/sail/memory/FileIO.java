@@ -7,6 +7,10 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.memory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -21,7 +25,15 @@ import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -61,7 +73,12 @@ class FileIO {
 	// Version 1: initial version
 	// Version 2: don't use read/writeUTF() to remove 64k limit on strings,
 	// removed dummy "up-to-date status" boolean for namespace records
-	private static final int BMSF_VERSION = 2;
+	// Version 3: data is written in separately compressed blocks, each statement block is preceded by a value block
+	// with the values that it refers to by their position
+	private static final int BMSF_VERSION = 3;
+
+	/** The maximum number of statements in a statement block. */
+	private static final int STATEMENT_BLOCK_SIZE = 16 * 1024;
 
 	/* RECORD TYPES */
 	public static final int NAMESPACE_MARKER = 1;
@@ -84,6 +101,13 @@ class FileIO {
 
 	public static final int DATATYPE_LITERAL_MARKER = 10;
 
+	/* BLOCK TYPES */
+	public static final int NAMESPACE_BLOCK_MARKER = 11;
+
+	public static final int VALUE_BLOCK_MARKER = 12;
+
+	public static final int STATEMENT_BLOCK_MARKER = 13;
+
 	public static final int EOF_MARKER = 127;
 
 	/*-----------*
@@ -94,7 +118,11 @@ class FileIO {
 
 	private final CharsetEncoder charsetEncoder = Charset.forName("UTF-8").newEncoder();
 
-	private final CharsetDecoder charsetDecoder = Charset.forName("UTF-8").newDecoder();
+	/**
+	 * Decoders for the threads that read the blocks of a data file, as a CharsetDecoder is not thread-safe.
+	 */
+	private final ThreadLocal<CharsetDecoder> charsetDecoder = ThreadLocal
+			.withInitial(() -> Charset.forName("UTF-8").newDecoder());
 
 	private int formatVersion;
 
@@ -139,12 +167,13 @@ class FileIO {
 			out.write(MAGIC_NUMBER);
 			out.write(BMSF_VERSION);
 			out.flush();
-			// The rest of the data is GZIP-compressed
-			try (DataOutputStream dataOut = new DataOutputStream(new GZIPOutputStream(out));) {
+			// The rest of the data is written in blocks that are GZIP-compressed separately
+			try (DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));) {
+				BlockWriter blockWriter = new BlockWriter(dataOut);
 
-				writeNamespaces(explicit, dataOut);
+				writeNamespaces(explicit, blockWriter);
 
-				writeStatements(explicit, inferred, dataOut);
+				writeStatements(explicit, inferred, blockWriter);
 
 				dataOut.writeByte(EOF_MARKER);
 			}
@@ -164,6 +193,13 @@ class FileIO {
 				throw new IOException("Incompatible format version: " + formatVersion);
 			}
 
+			if (formatVersion >= 3) {
+				try (DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));) {
+					readBlocks(dataIn, explicit, inferred);
+				}
+				return;
+			}
+
 			// The rest of the data is GZIP-compressed
 			try (DataInputStream dataIn = new DataInputStream(new GZIPInputStream(in));) {
 				int recordTypeMarker;
@@ -192,15 +228,149 @@ class FileIO {
 		}
 	}
 
-	private void writeNamespaces(SailDataset store, DataOutputStream dataOut) throws IOException, SailException {
+	/**
+	 * Reads the blocks of a version 3 data file. Statement blocks are decoded in parallel, together with the value
+	 * block that precedes them, while the decoded statements are added to the sinks one block at a time, in the order
+	 * in which they were written.
+	 */
+	private void readBlocks(DataInputStream dataIn, SailSink explicit, SailSink inferred)
+			throws IOException, SailException {
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+			Thread thread = new Thread(r, "MemoryStore loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			byte[] valueBlock = null;
+			int valueCount = 0;
+			// limits the number of decoded blocks that are waiting to be added
+			Deque<Future<StatementBlock>> pending = new ArrayDeque<>();
+
+			int blockTypeMarker;
+			while ((blockTypeMarker = dataIn.readByte()) != EOF_MARKER) {
+				int count = dataIn.readInt();
+				byte[] block = new byte[dataIn.readInt()];
+				dataIn.readFully(block);
+
+				switch (blockTypeMarker) {
+				case NAMESPACE_BLOCK_MARKER:
+					readNamespaceBlock(block, count, explicit);
+					break;
+				case VALUE_BLOCK_MARKER:
+					valueBlock = block;
+					valueCount = count;
+					break;
+				case STATEMENT_BLOCK_MARKER:
+					byte[] values = valueBlock;
+					int size = valueCount;
+					pending.add(executor.submit(() -> readStatementBlock(block, count, values, size)));
+					valueBlock = null;
+					valueCount = 0;
+					if (pending.size() > 2 * threadCount) {
+						getResult(pending.remove()).approve(explicit, inferred);
+					}
+					break;
+				default:
+					throw new IOException("Invalid block type marker: " + blockTypeMarker);
+				}
+			}
+
+			while (!pending.isEmpty()) {
+				getResult(pending.remove()).approve(explicit, inferred);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void readNamespaceBlock(byte[] block, int count, SailSink store) throws IOException, SailException {
+		try (DataInputStream dataIn = openBlock(block);) {
+			for (int i = 0; i < count; i++) {
+				readNamespace(dataIn, store);
+			}
+		}
+	}
+
+	private Value[] readValueBlock(byte[] block, int count) throws IOException {
+		Value[] values = new Value[count];
+		if (block != null) {
+			try (DataInputStream dataIn = openBlock(block);) {
+				for (int i = 0; i < count; i++) {
+					values[i] = readValue(dataIn);
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Decodes a statement block.
+	 * 
+	 * @param valueBlock The value block that preceded the statement block, or <tt>null</tt>.
+	 * @param valueCount The number of values in the value block.
+	 */
+	private StatementBlock readStatementBlock(byte[] block, int count, byte[] valueBlock, int valueCount)
+			throws IOException {
+		Value[] values = readValueBlock(valueBlock, valueCount);
+		StatementBlock statements = new StatementBlock(count);
+		try (DataInputStream dataIn = openBlock(block);) {
+			for (int i = 0; i < count; i++) {
+				int recordTypeMarker = dataIn.readByte();
+				statements.explicit[i] = recordTypeMarker == EXPL_TRIPLE_MARKER
+						|| recordTypeMarker == EXPL_QUAD_MARKER;
+				statements.subjects[i] = (MemResource) getValue(values, dataIn.readInt());
+				statements.predicates[i] = (MemIRI) getValue(values, dataIn.readInt());
+				statements.objects[i] = (MemValue) getValue(values, dataIn.readInt());
+				if (recordTypeMarker == EXPL_QUAD_MARKER || recordTypeMarker == INF_QUAD_MARKER) {
+					statements.contexts[i] = (MemResource) getValue(values, dataIn.readInt());
+				}
+			}
+		}
+		return statements;
+	}
+
+	private static Value getValue(Value[] values, int id) throws IOException {
+		if (id < 0 || id >= values.length) {
+			throw new IOException("Invalid value id: " + id);
+		}
+		return values[id];
+	}
+
+	private DataInputStream openBlock(byte[] block) throws IOException {
+		return new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)));
+	}
+
+	private static <T> T getResult(Future<T> future) throws IOException, SailException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SailException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SailException) {
+				throw (SailException) cause;
+			} else if (cause instanceof ClassCastException) {
+				throw new IOException("Invalid value in statement block", cause);
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new SailException(cause);
+			}
+		}
+	}
+
+	private void writeNamespaces(SailDataset store, BlockWriter blockWriter) throws IOException, SailException {
 		try (CloseableIteration<? extends Namespace, SailException> iter = store.getNamespaces();) {
 			while (iter.hasNext()) {
 				Namespace ns = iter.next();
-				dataOut.writeByte(NAMESPACE_MARKER);
-				writeString(ns.getPrefix(), dataOut);
-				writeString(ns.getName(), dataOut);
+				blockWriter.writeNamespace(ns.getPrefix(), ns.getName());
 			}
 		}
+		blockWriter.flushNamespaces();
 	}
 
 	private void readNamespace(DataInputStream dataIn, SailSink store) throws IOException, SailException {
@@ -215,30 +385,25 @@ class FileIO {
 		store.setNamespace(prefix, name);
 	}
 
-	private void writeStatements(final SailDataset explicit, SailDataset inferred, DataOutputStream dataOut)
+	private void writeStatements(final SailDataset explicit, SailDataset inferred, BlockWriter blockWriter)
 			throws IOException, SailException {
 		// write explicit only statements
-		writeStatement(explicit.getStatements(null, null, null), EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER, dataOut);
+		writeStatement(explicit.getStatements(null, null, null), EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER, blockWriter);
 		// write inferred only statements
-		writeStatement(inferred.getStatements(null, null, null), INF_TRIPLE_MARKER, INF_QUAD_MARKER, dataOut);
+		writeStatement(inferred.getStatements(null, null, null), INF_TRIPLE_MARKER, INF_QUAD_MARKER, blockWriter);
+		blockWriter.flushStatements();
 	}
 
-	public void writeStatement(CloseableIteration<? extends Statement, SailException> stIter, int tripleMarker,
-			int quadMarker, DataOutputStream dataOut) throws IOException, SailException {
+	private void writeStatement(CloseableIteration<? extends Statement, SailException> stIter, int tripleMarker,
+			int quadMarker, BlockWriter blockWriter) throws IOException, SailException {
 		try {
 			while (stIter.hasNext()) {
 				Statement st = stIter.next();
 				Resource context = st.getContext();
 				if (context == null) {
-					dataOut.writeByte(tripleMarker);
+					blockWriter.writeStatement(tripleMarker, st.getSubject(), st.getPredicate(), st.getObject(), null);
 				} else {
-					dataOut.writeByte(quadMarker);
-				}
-				writeValue(st.getSubject(), dataOut);
-				writeValue(st.getPredicate(), dataOut);
-				writeValue(st.getObject(), dataOut);
-				if (context != null) {
-					writeValue(context, dataOut);
+					blockWriter.writeStatement(quadMarker, st.getSubject(), st.getPredicate(), st.getObject(), context);
 				}
 			}
 		} finally {
@@ -263,7 +428,7 @@ class FileIO {
 		}
 	}
 
-	private void writeValue(Value value, DataOutputStream dataOut) throws IOException {
+	void writeValue(Value value, DataOutputStream dataOut) throws IOException {
 		if (value instanceof IRI) {
 			dataOut.writeByte(URI_MARKER);
 			writeString(((IRI) value).toString(), dataOut);
@@ -290,7 +455,7 @@ class FileIO {
 		}
 	}
 
-	private Value readValue(DataInputStream dataIn) throws IOException, ClassCastException {
+	Value readValue(DataInputStream dataIn) throws IOException, ClassCastException {
 		int valueTypeMarker = dataIn.readByte();
 
 		if (valueTypeMarker == URI_MARKER) {
@@ -350,8 +515,141 @@ class FileIO {
 		}
 
 		ByteBuffer byteBuf = ByteBuffer.wrap(encodedString);
-		CharBuffer charBuf = charsetDecoder.decode(byteBuf);
+		CharBuffer charBuf = charsetDecoder.get().decode(byteBuf);
 
 		return charBuf.toString();
 	}
+
+	/*-------------------------*
+	 * Inner class BlockWriter *
+	 *-------------------------*/
+
+	/**
+	 * Writes namespaces and statements to separately compressed blocks. Each statement block is preceded by a value
+	 * block with the values that are used by its statements, which refer to these values by their position in the
+	 * value block. The values are only collected for the current block, so the memory use of the writer does not grow
+	 * with the number of distinct values in the store.
+	 */
+	private class BlockWriter {
+
+		private final DataOutputStream out;
+
+		private final Map<Value, Integer> valueIds = new HashMap<>();
+
+		private final ByteArrayOutputStream valueBuffer = new ByteArrayOutputStream();
+
+		private final DataOutputStream valueOut = new DataOutputStream(valueBuffer);
+
+		private int valueCount;
+
+		private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+
+		private final DataOutputStream recordOut = new DataOutputStream(recordBuffer);
+
+		private int recordCount;
+
+		public BlockWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		public void writeNamespace(String prefix, String name) throws IOException {
+			writeString(prefix, recordOut);
+			writeString(name, recordOut);
+			recordCount++;
+		}
+
+		public void flushNamespaces() throws IOException {
+			writeBlock(NAMESPACE_BLOCK_MARKER, recordCount, recordBuffer);
+			recordCount = 0;
+		}
+
+		public void writeStatement(int recordTypeMarker, Resource subj, IRI pred, Value obj, Resource context)
+				throws IOException {
+			int subjId = getValueId(subj);
+			int predId = getValueId(pred);
+			int objId = getValueId(obj);
+			recordOut.writeByte(recordTypeMarker);
+			recordOut.writeInt(subjId);
+			recordOut.writeInt(predId);
+			recordOut.writeInt(objId);
+			if (context != null) {
+				recordOut.writeInt(getValueId(context));
+			}
+
+			if (++recordCount == STATEMENT_BLOCK_SIZE) {
+				flushStatements();
+			}
+		}
+
+		public void flushStatements() throws IOException {
+			if (valueCount > 0) {
+				writeBlock(VALUE_BLOCK_MARKER, valueCount, valueBuffer);
+				valueCount = 0;
+				valueIds.clear();
+			}
+			if (recordCount > 0) {
+				writeBlock(STATEMENT_BLOCK_MARKER, recordCount, recordBuffer);
+				recordCount = 0;
+			}
+		}
+
+		private int getValueId(Value value) throws IOException {
+			Integer id = valueIds.get(value);
+			if (id == null) {
+				id = valueCount;
+				valueIds.put(value, id);
+				writeValue(value, valueOut);
+				valueCount++;
+			}
+			return id;
+		}
+
+		private void writeBlock(int blockTypeMarker, int count, ByteArrayOutputStream buffer) throws IOException {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.size() / 4 + 64);
+			try (GZIPOutputStream gzipOut = new GZIPOutputStream(compressed);) {
+				buffer.writeTo(gzipOut);
+			}
+			buffer.reset();
+
+			out.writeByte(blockTypeMarker);
+			out.writeInt(count);
+			out.writeInt(compressed.size());
+			compressed.writeTo(out);
+		}
+	} // end inner class BlockWriter
+
+	/*----------------------------*
+	 * Inner class StatementBlock *
+	 *----------------------------*/
+
+	/**
+	 * The decoded statements of a statement block.
+	 */
+	private static class StatementBlock {
+
+		final boolean[] explicit;
+
+		final MemResource[] subjects;
+
+		final MemIRI[] predicates;
+
+		final MemValue[] objects;
+
+		final MemResource[] contexts;
+
+		public StatementBlock(int count) {
+			explicit = new boolean[count];
+			subjects = new MemResource[count];
+			predicates = new MemIRI[count];
+			objects = new MemValue[count];
+			contexts = new MemResource[count];
+		}
+
+		public void approve(SailSink explicitSink, SailSink inferredSink) throws SailException {
+			for (int i = 0; i < explicit.length; i++) {
+				SailSink sink = explicit[i] ? explicitSink : inferredSink;
+				sink.approve(subjects[i], predicates[i], objects[i], contexts[i]);
+			}
+		}
+	} // end inner class StatementBlock
 }
@@ -14,6 +14,7 @@ import java.util.List;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.Join;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
@@ -23,8 +24,9 @@ import org.eclipse.rdf4j.sail.memory.model.MemValue;
 import org.eclipse.rdf4j.sail.memory.model.MemValueFactory;
 
 /**
- * Uses the MemoryStore's statement sizes to give cost estimates based on the size of the expected results. This process
- * could be improved with repository statistics about size and distribution of statements.
+ * Uses the MemoryStore's statement sizes to give cost estimates based on the size of the expected results. Patterns
+ * with a bound predicate use the exact number of current statements per subject and predicate, or per predicate and
+ * object. Joins of two patterns on a variable are estimated using the number of distinct values of that variable.
  * 
  * @author Arjohn Kampman
  * @author James Leigh
@@ -93,6 +95,12 @@ class MemEvaluationStatistics extends EvaluationStatistics {
 			if (memObj != null) {
 				listSizes.add(memObj.getObjectStatementCount());
 			}
+			if (memSubj != null && memPred != null) {
+				listSizes.add(memSubj.getSubjectStatementCount(memPred));
+			}
+			if (memPred != null && memObj != null) {
+				listSizes.add(memObj.getObjectStatementCount(memPred));
+			}
 			if (memContext != null) {
 				listSizes.add(memContext.getContextStatementCount());
 			}
@@ -119,6 +127,61 @@ class MemEvaluationStatistics extends EvaluationStatistics {
 			return cardinality;
 		}
 
+		@Override
+		public void meet(Join node) {
+			if (!(node.getLeftArg() instanceof StatementPattern) || !(node.getRightArg() instanceof StatementPattern)) {
+				super.meet(node);
+				return;
+			}
+
+			StatementPattern left = (StatementPattern) node.getLeftArg();
+			StatementPattern right = (StatementPattern) node.getRightArg();
+			double joinCardinality = getCardinality(left) * getCardinality(right);
+
+			// assume that the values of each shared variable are distributed uniformly, so that each value of the
+			// variable with the most distinct values matches one of the other side
+			for (Var leftVar : left.getVarList()) {
+				if (leftVar.hasValue()) {
+					continue;
+				}
+				for (Var rightVar : right.getVarList()) {
+					if (!rightVar.hasValue() && leftVar.getName().equals(rightVar.getName())) {
+						int distinctValues = Math.max(getDistinctValueCount(left, leftVar),
+								getDistinctValueCount(right, rightVar));
+						if (distinctValues > 0) {
+							joinCardinality /= distinctValues;
+						}
+					}
+				}
+			}
+
+			cardinality = joinCardinality;
+		}
+
+		/**
+		 * Gets the number of distinct values of the specified variable in the statements matching the specified
+		 * pattern, if known.
+		 * 
+		 * @return the number of distinct values, or <tt>-1</tt> if unknown.
+		 */
+		protected int getDistinctValueCount(StatementPattern sp, Var var) {
+			Value pred = getConstantValue(sp.getPredicateVar());
+			if (!(pred instanceof IRI)) {
+				return -1;
+			}
+
+			MemIRI memPred = valueFactory.getMemURI((IRI) pred);
+			if (memPred == null) {
+				return 0;
+			} else if (var == sp.getSubjectVar()) {
+				return memPred.getDistinctSubjectCount();
+			} else if (var == sp.getObjectVar()) {
+				return memPred.getDistinctObjectCount();
+			} else {
+				return -1;
+			}
+		}
+
 		protected Value getConstantValue(Var var) {
 			if (var != null) {
 				return var.getValue();
@@ -7,10 +7,15 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.memory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.rdf4j.IsolationLevel;
@@ -57,6 +62,17 @@ class MemorySailStore implements SailStore {
 
 	private final Logger logger = LoggerFactory.getLogger(MemorySailStore.class);
 
+	/**
+	 * The number of statements a value must have as subject or object before these statements are indexed by
+	 * predicate, when composite indexes are enabled. Smaller statement lists are cheap to scan.
+	 */
+	static final int COMPOSITE_INDEX_THRESHOLD = 64;
+
+	/**
+	 * The number of statements that the snapshot cleanup processes before yielding the write lock.
+	 */
+	private static final int CLEANUP_CHUNK_SIZE = 4096;
+
 	/**
 	 * Factory/cache for MemValue objects.
 	 */
@@ -83,23 +99,67 @@ class MemorySailStore implements SailStore {
 	private final ReadWriteLockManager statementListLockManager;
 
 	/**
-	 * Lock manager used to prevent concurrent writes.
+	 * Lock manager used to apply the staged changes of one sink at a time.
 	 */
 	private final ReentrantLock txnLockManager = new ReentrantLock();
 
+	/**
+	 * Statements that have been deprecated since the last snapshot cleanup. Guarded by {@link #txnLockManager}.
+	 */
+	private MemStatementList deprecatedStatements = new MemStatementList();
+
+	/**
+	 * The number of stale statements that have not yet been removed from {@link #statements}. Only accessed by the
+	 * cleanup thread.
+	 */
+	private int staleStatementCount;
+
 	/**
 	 * Cleanup thread that removes deprecated statements when no other threads are accessing this list. Seee
 	 * {@link #scheduleSnapshotCleanup()}.
 	 */
-	private volatile Thread snapshotCleanupThread;
+	private Thread snapshotCleanupThread;
+
+	/**
+	 * Flag indicating that statements have been deprecated since the cleanup thread last checked.
+	 */
+	private boolean snapshotCleanupRequested;
 
 	/**
-	 * Lock object used to synchronize concurrent access to {@link #snapshotCleanupThread}.
+	 * Lock object used to synchronize concurrent access to {@link #snapshotCleanupThread} and
+	 * {@link #snapshotCleanupRequested}.
 	 */
 	private final Object snapshotCleanupThreadLockObject = new Object();
 
+	private volatile long snapshotCleanupCount;
+
+	private volatile long reclaimedStatementCount;
+
+	private volatile long snapshotCleanupTime;
+
+	/**
+	 * Flag indicating whether the subject and object statements of frequently used values are indexed by predicate.
+	 */
+	private final boolean compositeIndexes;
+
+	/**
+	 * The log to which the changes of each flushed sink are appended, or <tt>null</tt> if changes are not logged.
+	 */
+	private volatile TransactionLog transactionLog;
+
+	/**
+	 * The commit of the transaction that is being committed by the current thread, if any. Sinks that are flushed
+	 * while a commit is pending hand their changes over to it instead of applying them.
+	 */
+	private final ThreadLocal<Commit> pendingCommit = new ThreadLocal<>();
+
 	public MemorySailStore(boolean debug) {
+		this(debug, false);
+	}
+
+	public MemorySailStore(boolean debug, boolean compositeIndexes) {
 		statementListLockManager = new ReadPrefReadWriteLockManager(debug);
+		this.compositeIndexes = compositeIndexes;
 	}
 
 	@Override
@@ -114,6 +174,7 @@ class MemorySailStore implements SailStore {
 			try {
 				valueFactory.clear();
 				statements.clear();
+				deprecatedStatements = new MemStatementList();
 			} finally {
 				stLock.release();
 			}
@@ -228,18 +289,44 @@ class MemorySailStore implements SailStore {
 			}
 		}
 
+		if (memSubj != null && memPred != null) {
+			MemStatementList l = memSubj.getSubjectStatementList(memPred);
+			if (l != null && l.size() < smallestList.size()) {
+				smallestList = l;
+			}
+		}
+
+		if (memPred != null && memObj != null) {
+			MemStatementList l = memObj.getObjectStatementList(memPred);
+			if (l != null && l.size() < smallestList.size()) {
+				smallestList = l;
+			}
+		}
+
 		return new MemStatementIterator<>(smallestList, memSubj, memPred, memObj, explicit, snapshot, memContexts);
 	}
 
 	/**
-	 * Removes statements from old snapshots from the main statement list and resets the snapshot to 1 for the rest of
-	 * the statements.
+	 * Removes the statements that have been deprecated since the previous cleanup from the statement lists of their
+	 * values, and removes stale statements from the main statement list once they make up a significant part of it.
+	 * The write lock is yielded after every {@link #CLEANUP_CHUNK_SIZE} statements, so that readers and writers are
+	 * only blocked briefly.
 	 * 
 	 * @throws InterruptedException
 	 */
 	protected void cleanSnapshots() throws InterruptedException {
-		// System.out.println("cleanSnapshots() starting...");
-		// long startTime = System.currentTimeMillis();
+		long startTime = System.nanoTime();
+
+		MemStatementList deprecated;
+		int nextSnapshot;
+		txnLockManager.lock();
+		try {
+			deprecated = deprecatedStatements;
+			deprecatedStatements = new MemStatementList();
+			nextSnapshot = currentSnapshot;
+		} finally {
+			txnLockManager.unlock();
+		}
 
 		// Sets used to keep track of which lists have already been processed
 		HashSet<MemValue> processedSubjects = new HashSet<>();
@@ -247,6 +334,75 @@ class MemorySailStore implements SailStore {
 		HashSet<MemValue> processedObjects = new HashSet<>();
 		HashSet<MemValue> processedContexts = new HashSet<>();
 
+		MemStatementList unpublished = new MemStatementList();
+		int reclaimed = 0;
+		for (int chunkStart = 0; chunkStart < deprecated.size(); chunkStart += CLEANUP_CHUNK_SIZE) {
+			// As we are running in the background, yield the write lock frequently to other readers and writers.
+			Lock stWriteLock = statementListLockManager.getWriteLock();
+			try {
+				int chunkEnd = Math.min(chunkStart + CLEANUP_CHUNK_SIZE, deprecated.size());
+				for (int i = chunkStart; i < chunkEnd; i++) {
+					MemStatement st = deprecated.get(i);
+
+					if (st.getTillSnapshot() > nextSnapshot) {
+						// deprecated by a transaction that failed before its snapshot was published
+						unpublished.add(st);
+						continue;
+					}
+
+					MemResource subj = st.getSubject();
+					if (processedSubjects.add(subj)) {
+						subj.cleanSnapshotsFromSubjectStatements(nextSnapshot);
+					}
+
+					MemIRI pred = st.getPredicate();
+					if (processedPredicates.add(pred)) {
+						pred.cleanSnapshotsFromPredicateStatements(nextSnapshot);
+					}
+
+					MemValue obj = st.getObject();
+					if (processedObjects.add(obj)) {
+						obj.cleanSnapshotsFromObjectStatements(nextSnapshot);
+					}
+
+					MemResource context = st.getContext();
+					if (context != null && processedContexts.add(context)) {
+						context.cleanSnapshotsFromContextStatements(nextSnapshot);
+					}
+
+					reclaimed++;
+				}
+			} finally {
+				stWriteLock.release();
+			}
+		}
+
+		if (!unpublished.isEmpty()) {
+			txnLockManager.lock();
+			try {
+				deprecatedStatements.addAll(unpublished);
+			} finally {
+				txnLockManager.unlock();
+			}
+		}
+
+		staleStatementCount += reclaimed;
+		if (staleStatementCount > statements.size() / 4) {
+			staleStatementCount -= compactStatements(nextSnapshot);
+		}
+
+		reclaimedStatementCount += reclaimed;
+		snapshotCleanupCount++;
+		snapshotCleanupTime += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Removes statements from old snapshots from the main statement list.
+	 * 
+	 * @return the number of statements that have been removed.
+	 * @throws InterruptedException
+	 */
+	private int compactStatements(int nextSnapshot) throws InterruptedException {
 		int lastStmtPos;
 		Lock stReadLock = statementListLockManager.getReadLock();
 		try {
@@ -261,75 +417,228 @@ class MemorySailStore implements SailStore {
 		 * removes statements, (3) this list is cleared on close.
 		 */
 
-		int nextSnapshot = currentSnapshot;
-		for (int i = lastStmtPos; i >= 0; i--) {
-			// As we are running in the background, yield the write lock frequently to other writers.
+		int removed = 0;
+		for (int i = lastStmtPos; i >= 0;) {
 			Lock stWriteLock = statementListLockManager.getWriteLock();
 			try {
 				// guard against shrinkage, e.g. clear() on close()
 				lastStmtPos = statements.size() - 1;
 				i = Math.min(i, lastStmtPos);
-				if (i >= 0) {
-					MemStatement st = statements.get(i);
-
-					if (st.getTillSnapshot() <= nextSnapshot) {
-						MemResource subj = st.getSubject();
-						if (processedSubjects.add(subj)) {
-							subj.cleanSnapshotsFromSubjectStatements(nextSnapshot);
-						}
-
-						MemIRI pred = st.getPredicate();
-						if (processedPredicates.add(pred)) {
-							pred.cleanSnapshotsFromPredicateStatements(nextSnapshot);
-						}
-
-						MemValue obj = st.getObject();
-						if (processedObjects.add(obj)) {
-							obj.cleanSnapshotsFromObjectStatements(nextSnapshot);
-						}
-
-						MemResource context = st.getContext();
-						if (context != null && processedContexts.add(context)) {
-							context.cleanSnapshotsFromContextStatements(nextSnapshot);
-						}
-
+				for (int chunkEnd = i - CLEANUP_CHUNK_SIZE; i >= 0 && i > chunkEnd; i--) {
+					if (statements.get(i).getTillSnapshot() <= nextSnapshot) {
 						// stale statement
 						statements.remove(i);
+						removed++;
 					}
 				}
 			} finally {
 				stWriteLock.release();
 			}
 		}
-
-		// long endTime = System.currentTimeMillis();
-		// System.out.println("cleanSnapshots() took " + (endTime - startTime) +
-		// " ms");
+		return removed;
 	}
 
 	protected void scheduleSnapshotCleanup() {
 		synchronized (snapshotCleanupThreadLockObject) {
-			Thread toCheckSnapshotCleanupThread = snapshotCleanupThread;
-			if (toCheckSnapshotCleanupThread == null || !toCheckSnapshotCleanupThread.isAlive()) {
+			snapshotCleanupRequested = true;
+			if (snapshotCleanupThread == null) {
 				Runnable runnable = new Runnable() {
 
 					@Override
 					public void run() {
 						try {
-							cleanSnapshots();
+							while (takeSnapshotCleanupRequest()) {
+								cleanSnapshots();
+							}
 						} catch (InterruptedException e) {
 							Thread.currentThread().interrupt();
 							logger.warn("snapshot cleanup interrupted");
+						} finally {
+							synchronized (snapshotCleanupThreadLockObject) {
+								if (snapshotCleanupThread == Thread.currentThread()) {
+									// stopped by an exception, let the next request start a new thread
+									snapshotCleanupThread = null;
+								}
+							}
 						}
 					}
 				};
 
-				toCheckSnapshotCleanupThread = snapshotCleanupThread = new Thread(runnable,
-						"MemoryStore snapshot cleanup");
-				toCheckSnapshotCleanupThread.setDaemon(true);
-				toCheckSnapshotCleanupThread.start();
+				snapshotCleanupThread = new Thread(runnable, "MemoryStore snapshot cleanup");
+				snapshotCleanupThread.setDaemon(true);
+				snapshotCleanupThread.start();
+			}
+		}
+	}
+
+	/**
+	 * Called by the cleanup thread to check whether another cleanup has been requested. If not, the thread is
+	 * unregistered so that the next request starts a new one.
+	 */
+	private boolean takeSnapshotCleanupRequest() {
+		synchronized (snapshotCleanupThreadLockObject) {
+			if (snapshotCleanupRequested) {
+				snapshotCleanupRequested = false;
+				return true;
+			} else {
+				snapshotCleanupThread = null;
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Gets the statistics of the snapshot cleanups that have been performed so far.
+	 */
+	public SnapshotCleanupStats getSnapshotCleanupStats() {
+		return new SnapshotCleanupStats(snapshotCleanupCount, reclaimedStatementCount, snapshotCleanupTime);
+	}
+
+	TransactionLog getTransactionLog() {
+		return transactionLog;
+	}
+
+	/**
+	 * Sets the log to which the changes of sinks are appended when they are flushed. Sinks that have already been
+	 * created are not affected.
+	 */
+	void setTransactionLog(TransactionLog transactionLog) {
+		this.transactionLog = transactionLog;
+	}
+
+	/**
+	 * Writes the current snapshot to the specified data file and deletes the generations of the transaction log that
+	 * precede it. Transactions can continue to commit while the data file is being written, their changes are appended
+	 * to a new generation of the log.
+	 */
+	void checkpoint(File syncFile, File dataFile) throws IOException, SailException {
+		TransactionLog log = transactionLog;
+		if (log == null) {
+			throw new IllegalStateException("Transaction log is not enabled");
+		}
+
+		SailDataset explicit = null;
+		SailDataset inferred = null;
+		try {
+			int generation;
+			txnLockManager.lock();
+			try {
+				// no sink can commit between taking the snapshot and starting the new generation
+				explicit = getExplicitSailSource().dataset(IsolationLevels.SNAPSHOT);
+				inferred = getInferredSailSource().dataset(IsolationLevels.SNAPSHOT);
+				generation = log.rotate();
+			} finally {
+				txnLockManager.unlock();
+			}
+
+			new FileIO(valueFactory).write(explicit, inferred, syncFile, dataFile);
+			log.deleteBefore(generation);
+		} finally {
+			if (explicit != null) {
+				explicit.close();
+			}
+			if (inferred != null) {
+				inferred.close();
+			}
+		}
+	}
+
+	/**
+	 * Starts a commit that collects the changes of all sinks that are flushed by the current thread, until it is
+	 * {@link Commit#apply() applied} or {@link Commit#close() closed}.
+	 */
+	Commit beginCommit() {
+		if (pendingCommit.get() != null) {
+			throw new IllegalStateException("A commit is already pending");
+		}
+		Commit commit = new Commit();
+		pendingCommit.set(commit);
+		return commit;
+	}
+
+	/**
+	 * The changes of all sinks of one transaction. They are validated, logged and applied together under a single
+	 * snapshot, so that neither readers nor other writers can observe a partially committed transaction, and a
+	 * conflict detected for one sink prevents the changes of all sinks from being applied.
+	 */
+	final class Commit implements AutoCloseable {
+
+		private final List<MemorySailSink> sinks = new ArrayList<>();
+
+		void add(MemorySailSink sink) {
+			if (!sinks.contains(sink)) {
+				sinks.add(sink);
+			}
+		}
+
+		/**
+		 * Validates the changes of all sinks that have been flushed since this commit was started and applies them
+		 * under a new snapshot.
+		 * 
+		 * @throws SailConflictException if the state observed by any of the sinks has changed.
+		 */
+		void apply() throws SailException {
+			pendingCommit.remove();
+			if (sinks.isEmpty()) {
+				return;
+			}
+
+			boolean requireCleanup = false;
+			Lock stLock = openStatementsReadLock();
+			try {
+				txnLockManager.lock();
+				try {
+					int snapshot = currentSnapshot + 1;
+					for (MemorySailSink sink : sinks) {
+						sink.validate(snapshot);
+					}
+
+					TransactionLog log = null;
+					List<TransactionLog.Batch> batches = new ArrayList<>(sinks.size());
+					for (MemorySailSink sink : sinks) {
+						if (sink.batch != null && !sink.batch.isEmpty()) {
+							log = sink.log;
+							batches.add(sink.batch);
+						}
+					}
+					if (log != null) {
+						// the changes are durable before they become visible
+						try {
+							log.append(batches);
+						} catch (IOException e) {
+							throw new SailException("Failed to append changes to transaction log", e);
+						}
+					}
+
+					for (MemorySailSink sink : sinks) {
+						requireCleanup |= sink.apply(snapshot);
+					}
+
+					// make all changes visible at once
+					currentSnapshot = snapshot;
+				} finally {
+					txnLockManager.unlock();
+				}
+			} finally {
+				stLock.release();
+			}
+
+			if (requireCleanup) {
+				scheduleSnapshotCleanup();
 			}
 		}
+
+		/**
+		 * Discards the changes that have not been applied.
+		 */
+		@Override
+		public void close() {
+			pendingCommit.remove();
+			for (MemorySailSink sink : sinks) {
+				sink.discard();
+			}
+			sinks.clear();
+		}
 	}
 
 	private final class MemorySailSource extends BackingSailSource {
@@ -355,6 +664,12 @@ class MemorySailStore implements SailStore {
 		}
 	}
 
+	/**
+	 * A {@link SailSink} that stages its changes privately, so that any number of sinks can be written to concurrently.
+	 * The changes are applied in {@link #flush()}, while holding the transaction lock only for as long as it takes to
+	 * validate the observed state against the snapshots committed in the meantime, apply the changes under a new
+	 * snapshot and publish that snapshot.
+	 */
 	private final class MemorySailSink implements SailSink {
 
 		private final boolean explicit;
@@ -363,16 +678,36 @@ class MemorySailStore implements SailStore {
 
 		private final Lock txnStLock;
 
+		/**
+		 * The staged changes, in the order in which they have been made.
+		 */
+		private final List<Runnable> changes = new ArrayList<>();
+
+		/**
+		 * The snapshot under which the staged changes are being applied, only valid during {@link #flush()}.
+		 */
 		private volatile int nextSnapshot;
 
 		private volatile Set<StatementPattern> observations;
 
-		private volatile boolean txnLock;
-
 		private boolean requireCleanup;
 
+		/**
+		 * Flag indicating that the staged changes have been handed over to the pending {@link Commit}.
+		 */
+		private boolean committing;
+
+		private final TransactionLog log;
+
+		/**
+		 * The staged changes in their logged form, <tt>null</tt> if changes are not logged.
+		 */
+		private final TransactionLog.Batch batch;
+
 		public MemorySailSink(boolean explicit, boolean serializable) throws SailException {
 			this.explicit = explicit;
+			this.log = transactionLog;
+			this.batch = (log == null) ? null : log.createBatch(explicit);
 			if (serializable) {
 				this.serializable = currentSnapshot;
 			} else {
@@ -389,8 +724,8 @@ class MemorySailStore implements SailStore {
 			} else {
 				sb.append("inferred ");
 			}
-			if (txnLock) {
-				sb.append("snapshot ").append(nextSnapshot);
+			if (serializable < Integer.MAX_VALUE) {
+				sb.append("snapshot ").append(serializable);
 			} else {
 				sb.append(super.toString());
 			}
@@ -399,52 +734,59 @@ class MemorySailStore implements SailStore {
 
 		@Override
 		public synchronized void prepare() throws SailException {
-			acquireExclusiveTransactionLock();
-			if (observations != null) {
-				for (StatementPattern p : observations) {
-					Resource subj = (Resource) p.getSubjectVar().getValue();
-					IRI pred = (IRI) p.getPredicateVar().getValue();
-					Value obj = p.getObjectVar().getValue();
-					Var ctxVar = p.getContextVar();
-					Resource[] contexts;
-					if (ctxVar == null) {
-						contexts = new Resource[0];
-					} else {
-						contexts = new Resource[] { (Resource) ctxVar.getValue() };
-					}
-					try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(subj, pred, obj,
-							null, -1, contexts);) {
-						while (iter.hasNext()) {
-							MemStatement st = iter.next();
-							int since = st.getSinceSnapshot();
-							int till = st.getTillSnapshot();
-							if (serializable < since && since < nextSnapshot
-									|| serializable < till && till < nextSnapshot) {
-								throw new SailConflictException("Observed State has Changed");
-							}
-						}
-					}
-				}
-			}
+			// optimistic validation against the snapshots committed so far, repeated by flush()
+			validate(currentSnapshot + 1);
 		}
 
 		@Override
 		public synchronized void flush() throws SailException {
-			if (txnLock) {
-				currentSnapshot = Math.max(currentSnapshot, nextSnapshot);
-				if (requireCleanup) {
-					scheduleSnapshotCleanup();
+			if (changes.isEmpty()) {
+				return;
+			}
+
+			Commit commit = pendingCommit.get();
+			if (commit != null) {
+				// validated and applied together with the other sinks of the transaction
+				committing = true;
+				commit.add(this);
+				return;
+			}
+
+			boolean cleanup;
+			txnLockManager.lock();
+			try {
+				int snapshot = currentSnapshot + 1;
+				validate(snapshot);
+
+				if (batch != null && !batch.isEmpty()) {
+					// the changes are durable before they become visible
+					try {
+						log.append(Collections.singletonList(batch));
+					} catch (IOException e) {
+						throw new SailException("Failed to append changes to transaction log", e);
+					}
 				}
+
+				cleanup = apply(snapshot);
+
+				// make all changes visible at once
+				currentSnapshot = snapshot;
+			} finally {
+				txnLockManager.unlock();
+			}
+
+			if (cleanup) {
+				scheduleSnapshotCleanup();
 			}
 		}
 
 		@Override
 		public void close() {
 			try {
-				boolean toCloseTxnLock = txnLock;
-				txnLock = false;
-				if (toCloseTxnLock) {
-					txnLockManager.unlock();
+				synchronized (this) {
+					if (!committing) {
+						discard();
+					}
 				}
 			} finally {
 				if (txnStLock != null) {
@@ -453,22 +795,67 @@ class MemorySailStore implements SailStore {
 			}
 		}
 
+		/**
+		 * Applies the staged changes under the specified snapshot. The caller must hold the transaction lock.
+		 * 
+		 * @return <tt>true</tt> if any statements may have been deprecated.
+		 */
+		synchronized boolean apply(int snapshot) throws SailException {
+			nextSnapshot = snapshot;
+			for (Runnable change : changes) {
+				change.run();
+			}
+			boolean cleanup = requireCleanup;
+			discard();
+			return cleanup;
+		}
+
+		/**
+		 * Discards the staged changes.
+		 */
+		synchronized void discard() {
+			changes.clear();
+			if (batch != null) {
+				batch.clear();
+			}
+			requireCleanup = false;
+			committing = false;
+		}
+
 		@Override
 		public synchronized void setNamespace(String prefix, String name) throws SailException {
-			acquireExclusiveTransactionLock();
-			namespaceStore.setNamespace(prefix, name);
+			if (batch != null) {
+				try {
+					batch.setNamespace(prefix, name);
+				} catch (IOException e) {
+					throw new SailException(e);
+				}
+			}
+			changes.add(() -> namespaceStore.setNamespace(prefix, name));
 		}
 
 		@Override
 		public synchronized void removeNamespace(String prefix) throws SailException {
-			acquireExclusiveTransactionLock();
-			namespaceStore.removeNamespace(prefix);
+			if (batch != null) {
+				try {
+					batch.removeNamespace(prefix);
+				} catch (IOException e) {
+					throw new SailException(e);
+				}
+			}
+			changes.add(() -> namespaceStore.removeNamespace(prefix));
 		}
 
 		@Override
 		public synchronized void clearNamespaces() throws SailException {
-			acquireExclusiveTransactionLock();
-			namespaceStore.clear();
+			if (batch != null) {
+				try {
+					batch.clearNamespaces();
+				} catch (IOException e) {
+					throw new SailException(e);
+				}
+			}
+			changes.add(() -> namespaceStore.clear());
 		}
 
 		@Override
@@ -492,52 +879,99 @@ class MemorySailStore implements SailStore {
 
 		@Override
 		public synchronized void clear(Resource... contexts) throws SailException {
-			acquireExclusiveTransactionLock();
-			requireCleanup = true;
-			try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(null, null, null,
-					explicit, nextSnapshot, contexts);) {
-				while (iter.hasNext()) {
-					MemStatement st = iter.next();
-					st.setTillSnapshot(nextSnapshot);
+			if (batch != null) {
+				try {
+					batch.clear(contexts);
+				} catch (IOException e) {
+					throw new SailException(e);
 				}
 			}
+			requireCleanup = true;
+			changes.add(() -> deprecateStatements(null, null, null, contexts));
 		}
 
 		@Override
 		public synchronized void approve(Resource subj, IRI pred, Value obj, Resource ctx) throws SailException {
-			acquireExclusiveTransactionLock();
-			addStatement(subj, pred, obj, ctx, explicit);
+			// Get or create MemValues for the operands, while other sinks can still commit
+			MemResource memSubj = valueFactory.getOrCreateMemResource(subj);
+			MemIRI memPred = valueFactory.getOrCreateMemURI(pred);
+			MemValue memObj = valueFactory.getOrCreateMemValue(obj);
+			MemResource memContext = (ctx == null) ? null : valueFactory.getOrCreateMemResource(ctx);
+
+			if (batch != null) {
+				try {
+					batch.approve(subj, pred, obj, ctx);
+				} catch (IOException e) {
+					throw new SailException(e);
+				}
+			}
+
+			changes.add(() -> addStatement(memSubj, memPred, memObj, memContext, explicit));
 		}
 
 		@Override
 		public synchronized void deprecate(Resource subj, IRI pred, Value obj, Resource ctx) throws SailException {
-			acquireExclusiveTransactionLock();
-			requireCleanup = true;
-			try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(subj, pred, obj,
-					explicit, nextSnapshot, ctx);) {
-				while (iter.hasNext()) {
-					MemStatement st = iter.next();
-					st.setTillSnapshot(nextSnapshot);
+			if (batch != null) {
+				try {
+					batch.deprecate(subj, pred, obj, ctx);
+				} catch (IOException e) {
+					throw new SailException(e);
 				}
 			}
+			requireCleanup = true;
+			changes.add(() -> deprecateStatements(subj, pred, obj, ctx));
 		}
 
-		private void acquireExclusiveTransactionLock() throws SailException {
-			if (!txnLock) {
-				txnLockManager.lock();
-				nextSnapshot = currentSnapshot + 1;
-				txnLock = true;
+		/**
+		 * Checks that none of the observed statements have been added or removed by a transaction that committed after
+		 * this sink was created and before the specified snapshot.
+		 * 
+		 * @throws SailConflictException if the observed state has changed.
+		 */
+		synchronized void validate(int nextSnapshot) throws SailException {
+			if (observations != null) {
+				for (StatementPattern p : observations) {
+					Resource subj = (Resource) p.getSubjectVar().getValue();
+					IRI pred = (IRI) p.getPredicateVar().getValue();
+					Value obj = p.getObjectVar().getValue();
+					Var ctxVar = p.getContextVar();
+					Resource[] contexts;
+					if (ctxVar == null) {
+						contexts = new Resource[0];
+					} else {
+						contexts = new Resource[] { (Resource) ctxVar.getValue() };
+					}
+					try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(subj, pred, obj,
+							null, -1, contexts);) {
+						while (iter.hasNext()) {
+							MemStatement st = iter.next();
+							int since = st.getSinceSnapshot();
+							int till = st.getTillSnapshot();
+							if (serializable < since && since < nextSnapshot
+									|| serializable < till && till < nextSnapshot) {
+								throw new SailConflictException("Observed State has Changed");
+							}
+						}
+					}
+				}
 			}
 		}
 
-		private MemStatement addStatement(Resource subj, IRI pred, Value obj, Resource context, boolean explicit)
+		private void deprecateStatements(Resource subj, IRI pred, Value obj, Resource... contexts)
 				throws SailException {
-			// Get or create MemValues for the operands
-			MemResource memSubj = valueFactory.getOrCreateMemResource(subj);
-			MemIRI memPred = valueFactory.getOrCreateMemURI(pred);
-			MemValue memObj = valueFactory.getOrCreateMemValue(obj);
-			MemResource memContext = (context == null) ? null : valueFactory.getOrCreateMemResource(context);
+			try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(subj, pred, obj,
+					explicit, nextSnapshot, contexts);) {
+				while (iter.hasNext()) {
+					MemStatement st = iter.next();
+					st.setTillSnapshot(nextSnapshot);
+					deprecatedStatements.add(st);
+					updateStatementCounts(st, -1);
+				}
+			}
+		}
 
+		private MemStatement addStatement(MemResource memSubj, MemIRI memPred, MemValue memObj,
+				MemResource memContext, boolean explicit) throws SailException {
 			if (memSubj.hasStatements() && memPred.hasStatements() && memObj.hasStatements()
 					&& (memContext == null || memContext.hasStatements())) {
 				// All values are used in at least one statement. Possibly, the
@@ -553,6 +987,8 @@ class MemorySailStore implements SailStore {
 						if (!st.isExplicit() && explicit) {
 							// Implicit statement is now added explicitly
 							st.setTillSnapshot(nextSnapshot);
+							deprecatedStatements.add(st);
+							updateStatementCounts(st, -1);
 						} else if (!st.isInSnapshot(nextSnapshot)) {
 							st.setSinceSnapshot(nextSnapshot);
 						} else {
@@ -567,8 +1003,35 @@ class MemorySailStore implements SailStore {
 			MemStatement st = new MemStatement(memSubj, memPred, memObj, memContext, explicit, nextSnapshot);
 			statements.add(st);
 			st.addToComponentLists();
+			updateStatementCounts(st, 1);
+
+			if (compositeIndexes) {
+				if (memSubj.getSubjectStatementCount() >= COMPOSITE_INDEX_THRESHOLD) {
+					memSubj.indexSubjectStatementsByPredicate();
+				}
+				if (memObj.getObjectStatementCount() >= COMPOSITE_INDEX_THRESHOLD) {
+					memObj.indexObjectStatementsByPredicate();
+				}
+			}
 			return st;
 		}
+
+		/**
+		 * Updates the counts of current statements by subject and predicate, and by predicate and object, for a
+		 * statement that has been added (<tt>delta</tt> is 1) or removed (<tt>delta</tt> is -1), as well as the
+		 * number of distinct subjects and objects of its predicate.
+		 */
+		private void updateStatementCounts(MemStatement st, int delta) {
+			MemIRI pred = st.getPredicate();
+			int subjCount = st.getSubject().updateSubjectStatementCount(pred, delta);
+			if (delta > 0 ? subjCount == 1 : subjCount == 0) {
+				pred.updateDistinctSubjectCount(delta);
+			}
+			int objCount = st.getObject().updateObjectStatementCount(pred, delta);
+			if (delta > 0 ? objCount == 1 : objCount == 0) {
+				pred.updateDistinctObjectCount(delta);
+			}
+		}
 	}
 
 	/**
@@ -630,29 +1093,25 @@ class MemorySailStore implements SailStore {
 
 		@Override
 		public CloseableIteration<? extends Resource, SailException> getContextIDs() throws SailException {
-			// Note: we can't do this in a streaming fashion due to concurrency
-			// issues; iterating over the set of IRIs or bnodes while another
-			// thread
-			// adds statements with new resources would result in
-			// ConcurrentModificationException's (issue SES-544).
+			// Note: we can't do this in a streaming fashion, as the statement
+			// lists of the resources must only be accessed while holding the
+			// statement read lock.
 
 			// Create a list of all resources that are used as contexts
 			ArrayList<MemResource> contextIDs = new ArrayList<>(32);
 
 			Lock stLock = openStatementsReadLock();
 			try {
-				synchronized (valueFactory) {
-					int snapshot = getCurrentSnapshot();
-					for (MemResource memResource : valueFactory.getMemURIs()) {
-						if (isContextResource(memResource, snapshot)) {
-							contextIDs.add(memResource);
-						}
+				int snapshot = getCurrentSnapshot();
+				for (MemResource memResource : valueFactory.getMemURIs()) {
+					if (isContextResource(memResource, snapshot)) {
+						contextIDs.add(memResource);
 					}
+				}
 
-					for (MemResource memResource : valueFactory.getMemBNodes()) {
-						if (isContextResource(memResource, snapshot)) {
-							contextIDs.add(memResource);
-						}
+				for (MemResource memResource : valueFactory.getMemBNodes()) {
+					if (isContextResource(memResource, snapshot)) {
+						contextIDs.add(memResource);
 					}
 				}
 			} finally {
@@ -19,6 +19,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategyFactory;
 import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
 import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolverClient;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.ParallelEvaluationStrategyFactory;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategyFactory;
 import org.eclipse.rdf4j.repository.sparql.federation.SPARQLServiceResolver;
 import org.eclipse.rdf4j.sail.NotifyingSailConnection;
@@ -26,7 +27,6 @@ import org.eclipse.rdf4j.sail.SailChangedEvent;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.base.SailDataset;
 import org.eclipse.rdf4j.sail.base.SailSink;
-import org.eclipse.rdf4j.sail.base.SailStore;
 import org.eclipse.rdf4j.sail.helpers.AbstractNotifyingSail;
 import org.eclipse.rdf4j.sail.helpers.DirectoryLockManager;
 
@@ -53,6 +53,12 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 
 	protected static final String SYNC_FILE_NAME = "memorystore.sync";
 
+	/**
+	 * The size in bytes that the transaction log needs to reach before a checkpoint is considered, see
+	 * {@link #setWriteAheadLog(boolean)}.
+	 */
+	private static final long MIN_CHECKPOINT_LOG_SIZE = 1024 * 1024;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -60,7 +66,7 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	/**
 	 * Factory/cache for MemValue objects.
 	 */
-	private SailStore store;
+	private MemorySailStore store;
 
 	private volatile boolean persist = false;
 
@@ -91,6 +97,16 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	 */
 	private volatile long syncDelay = 0L;
 
+	/**
+	 * Flag indicating whether statements of frequently used subjects and objects should also be indexed by predicate.
+	 */
+	private volatile boolean compositeIndexes = false;
+
+	/**
+	 * Flag indicating whether committed changes are appended to a transaction log instead of rewriting the data file.
+	 */
+	private volatile boolean writeAheadLog = false;
+
 	/**
 	 * Semaphore used to synchronize concurrent access to {@link #syncWithLock()} .
 	 */
@@ -106,6 +122,11 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	 */
 	private volatile TimerTask syncTimerTask;
 
+	/**
+	 * The currently scheduled or running checkpoint task, if any.
+	 */
+	private volatile TimerTask checkpointTask;
+
 	/**
 	 * Semaphore used to synchronize concurrent access to {@link #syncTimer} and {@link #syncTimerTask}.
 	 */
@@ -190,6 +211,51 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		return syncDelay;
 	}
 
+	/**
+	 * Sets whether the statements of subjects and objects that are used in many statements should also be indexed by
+	 * predicate. These composite indexes speed up look-ups of statements with a bound subject and predicate, or a bound
+	 * predicate and object, such as <tt>?s rdf:type ex:Person</tt>, at the cost of some extra memory per statement.
+	 * <p>
+	 * The default value for this parameter is <tt>false</tt>.
+	 * 
+	 * @param compositeIndexes <tt>true</tt> to enable the composite indexes.
+	 */
+	public void setCompositeIndexes(boolean compositeIndexes) {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been initialized");
+		}
+
+		this.compositeIndexes = compositeIndexes;
+	}
+
+	public boolean getCompositeIndexes() {
+		return compositeIndexes;
+	}
+
+	/**
+	 * Sets whether a persistent MemoryStore appends the changes of each committed transaction to a transaction log,
+	 * instead of rewriting the complete data file. This makes the cost of a commit proportional to the size of the
+	 * changes rather than to the size of the store. The data file is rewritten by a background checkpoint once the log
+	 * has grown larger than the data file, after which the log is truncated. On initialization, any changes in the log
+	 * are replayed on top of the data file. The sync delay does not apply to this mode, as each commit is durable once
+	 * it has been logged.
+	 * <p>
+	 * The default value for this parameter is <tt>false</tt>.
+	 * 
+	 * @param writeAheadLog <tt>true</tt> to enable the transaction log.
+	 */
+	public void setWriteAheadLog(boolean writeAheadLog) {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been initialized");
+		}
+
+		this.writeAheadLog = writeAheadLog;
+	}
+
+	public boolean getWriteAheadLog() {
+		return writeAheadLog;
+	}
+
 	/**
 	 * @return Returns the {@link EvaluationStrategy}.
 	 */
@@ -244,7 +310,9 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	protected void initializeInternal() throws SailException {
 		logger.debug("Initializing MemoryStore...");
 
-		this.store = new MemorySailStore(debugEnabled());
+		contentsChanged = false;
+
+		this.store = new MemorySailStore(debugEnabled(), compositeIndexes);
 
 		if (persist) {
 			File dataDir = getDataDir();
@@ -320,18 +388,51 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 					throw new SailException("Failed to initialize data file " + dataFile, e);
 				}
 			}
-		}
 
-		contentsChanged = false;
+			initializeTransactionLog(dataDir);
+		}
 
 		logger.debug("MemoryStore initialized");
 	}
 
+	/**
+	 * Replays the changes that have been logged since the data file was last written and, if enabled, opens the
+	 * transaction log for the changes that are still to come.
+	 */
+	private void initializeTransactionLog(File dataDir) throws SailException {
+		TransactionLog log = new TransactionLog(dataDir, store.getValueFactory());
+		try {
+			long replayed = log.replay(store);
+			if (replayed > 0) {
+				logger.info("Recovered {} transactions from the transaction log in {}", replayed, dataDir);
+			}
+
+			if (dirLock == null) {
+				// read-only
+				return;
+			}
+
+			contentsChanged = replayed > 0;
+			if (writeAheadLog) {
+				log.open();
+				store.setTransactionLog(log);
+			} else if (replayed > 0) {
+				// the recovered changes are no longer logged, write them to the data file instead
+				sync();
+				log.deleteBefore(Integer.MAX_VALUE);
+			}
+		} catch (IOException e) {
+			logger.error("Failed to read transaction log", e);
+			throw new SailException("Failed to read transaction log in " + dataDir, e);
+		}
+	}
+
 	@Override
 	protected void shutDownInternal() throws SailException {
 		try {
 			cancelSyncTimer();
 			sync();
+			closeTransactionLog();
 
 			store.close();
 			dataFile = null;
@@ -343,6 +444,9 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 			if (dependentServiceResolver != null) {
 				dependentServiceResolver.shutDown();
 			}
+			if (evalStratFactory instanceof ParallelEvaluationStrategyFactory) {
+				((ParallelEvaluationStrategyFactory) evalStratFactory).shutDown();
+			}
 		}
 	}
 
@@ -372,6 +476,13 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	@Override
 	public void notifySailChanged(SailChangedEvent event) {
 		super.notifySailChanged(event);
+		if (store.getTransactionLog() != null) {
+			// a checkpoint resets the flag before it starts, so there is no need to wait for it
+			if (event.statementsAdded() || event.statementsRemoved()) {
+				contentsChanged = true;
+			}
+			return;
+		}
 		synchronized (syncSemaphore) {
 			contentsChanged = contentsChanged || event.statementsAdded() || event.statementsRemoved();
 		}
@@ -382,6 +493,15 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 			return;
 		}
 
+		TransactionLog log = store.getTransactionLog();
+		if (log != null) {
+			// committed changes are already durable, rewrite the data file once the log has outgrown it
+			if (log.size() > Math.max(MIN_CHECKPOINT_LOG_SIZE, dataFile.length())) {
+				scheduleCheckpoint();
+			}
+			return;
+		}
+
 		if (syncDelay == 0L) {
 			// Sync immediately
 			sync();
@@ -416,6 +536,38 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		}
 	}
 
+	private void scheduleCheckpoint() {
+		synchronized (syncTimerSemaphore) {
+			if (checkpointTask != null) {
+				// checkpoint already pending
+				return;
+			}
+
+			if (syncTimer == null) {
+				// Create the syncTimer on a deamon thread
+				syncTimer = new Timer("MemoryStore synchronization", true);
+			}
+
+			checkpointTask = new TimerTask() {
+
+				@Override
+				public void run() {
+					try {
+						sync();
+					} catch (SailException e) {
+						logger.warn("Unable to checkpoint on timer", e);
+					} finally {
+						synchronized (syncTimerSemaphore) {
+							checkpointTask = null;
+						}
+					}
+				}
+			};
+
+			syncTimer.schedule(checkpointTask, 0L);
+		}
+	}
+
 	protected void cancelSyncTask() {
 		synchronized (syncTimerSemaphore) {
 			if (syncTimerTask != null) {
@@ -430,18 +582,32 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 			if (syncTimer != null) {
 				syncTimer.cancel();
 				syncTimer = null;
+				checkpointTask = null;
 			}
 		}
 	}
 
 	/**
 	 * Synchronizes the contents of this repository with the data that is stored on disk. Data will only be written when
-	 * the contents of the repository and data in the file are out of sync.
+	 * the contents of the repository and data in the file are out of sync. When the transaction log is enabled, the
+	 * data file is written as a checkpoint, after which the log entries that precede it are deleted.
 	 */
 	public void sync() throws SailException {
 		// syncSemaphore prevents concurrent file synchronizations
 		synchronized (syncSemaphore) {
-			if (persist && contentsChanged) {
+			TransactionLog log = store.getTransactionLog();
+			if (persist && contentsChanged && log != null) {
+				logger.debug("writing checkpoint to file...");
+				try {
+					contentsChanged = false;
+					store.checkpoint(syncFile, dataFile);
+					logger.debug("Checkpoint written to file");
+				} catch (IOException e) {
+					contentsChanged = true;
+					logger.error("Failed to write checkpoint to file", e);
+					throw new SailException(e);
+				}
+			} else if (persist && contentsChanged) {
 				logger.debug("syncing data to file...");
 				try {
 					IsolationLevels level = IsolationLevels.SNAPSHOT;
@@ -463,7 +629,32 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		}
 	}
 
-	SailStore getSailStore() {
+	private void closeTransactionLog() throws SailException {
+		synchronized (syncSemaphore) {
+			TransactionLog log = store.getTransactionLog();
+			if (log != null) {
+				store.setTransactionLog(null);
+				try {
+					log.close();
+				} catch (IOException e) {
+					logger.warn("Failed to close transaction log", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the statistics of the background cleanup of deprecated statements.
+	 */
+	public SnapshotCleanupStats getSnapshotCleanupStats() {
+		if (store == null) {
+			throw new IllegalStateException("sail not initialized.");
+		}
+
+		return store.getSnapshotCleanupStats();
+	}
+
+	MemorySailStore getSailStore() {
 		return store;
 	}
 }
@@ -57,7 +57,11 @@ public class MemoryStoreConnection extends SailSourceConnection {
 
 	@Override
 	protected void commitInternal() throws SailException {
-		super.commitInternal();
+		// the explicit and inferred changes are flushed separately, but applied as one
+		try (MemorySailStore.Commit commit = sail.getSailStore().beginCommit()) {
+			super.commitInternal();
+			commit.apply();
+		}
 
 		sail.notifySailChanged(sailChangedEvent);
 		sail.scheduleSyncTask();
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+/**
+ * An immutable snapshot of the statistics of the background cleanup that removes deprecated statements from a
+ * {@link MemoryStore}.
+ */
+public final class SnapshotCleanupStats {
+
+	private final long cleanupCount;
+
+	private final long reclaimedStatementCount;
+
+	private final long time;
+
+	SnapshotCleanupStats(long cleanupCount, long reclaimedStatementCount, long time) {
+		this.cleanupCount = cleanupCount;
+		this.reclaimedStatementCount = reclaimedStatementCount;
+		this.time = time;
+	}
+
+	/**
+	 * Gets the number of cleanups that have completed.
+	 */
+	public long getCleanupCount() {
+		return cleanupCount;
+	}
+
+	/**
+	 * Gets the number of deprecated statements that have been removed from the store.
+	 */
+	public long getReclaimedStatementCount() {
+		return reclaimedStatementCount;
+	}
+
+	/**
+	 * Gets the total time spent on cleanups, in milliseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return "[cleanups=" + cleanupCount + ", reclaimed=" + reclaimedStatementCount + ", time=" + time + "ms]";
+	}
+}
@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.io.IOUtil;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.eclipse.rdf4j.sail.base.SailStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of the changes that have been committed to a persistent {@link MemoryStore} since its data file
+ * was last written. Each commit appends one record with the batches of changes of its sinks, protected by a checksum
+ * so that a record that was only partially written before a crash is ignored on recovery.
+ * <p>
+ * The log is split in generations, one file per generation. A checkpoint starts a new generation, writes the data file
+ * and then deletes the older generations. As replaying a batch on a store that already contains its changes has no
+ * effect, all remaining generations are simply replayed on top of the data file when the store is initialized.
+ */
+class TransactionLog {
+
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	private static final Logger logger = LoggerFactory.getLogger(TransactionLog.class);
+
+	static final String FILE_PREFIX = "memorystore-";
+
+	static final String FILE_SUFFIX = ".log";
+
+	/** Magic number for Binary Memory Store Log files */
+	private static final byte[] MAGIC_NUMBER = new byte[] { 'B', 'M', 'S', 'L' };
+
+	/** The version number of the current format. */
+	private static final int LOG_VERSION = 1;
+
+	/* RECORD TYPES */
+	private static final int APPROVE_MARKER = 1;
+
+	private static final int DEPRECATE_MARKER = 2;
+
+	private static final int CLEAR_MARKER = 3;
+
+	private static final int SET_NAMESPACE_MARKER = 4;
+
+	private static final int REMOVE_NAMESPACE_MARKER = 5;
+
+	private static final int CLEAR_NAMESPACES_MARKER = 6;
+
+	private static final int NULL_MARKER = 0;
+
+	private static final int VALUE_MARKER = 1;
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final File dir;
+
+	private final ValueFactory vf;
+
+	private int generation;
+
+	private File file;
+
+	private FileOutputStream fileOut;
+
+	private DataOutputStream out;
+
+	private long batchCount;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	/**
+	 * Creates a new TransactionLog for the log files in the specified directory. The log needs to be {@link #open()
+	 * opened} before batches can be appended to it.
+	 */
+	public TransactionLog(File dir, ValueFactory vf) {
+		this.dir = dir;
+		this.vf = vf;
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	/**
+	 * Checks whether the specified directory contains any log files.
+	 */
+	public static boolean exists(File dir) {
+		return !getFiles(dir).isEmpty();
+	}
+
+	/**
+	 * Replays the records in the existing log files on the specified store, oldest first.
+	 *
+	 * @return the number of records that have been replayed.
+	 */
+	public long replay(SailStore store) throws IOException, SailException {
+		long replayed = 0;
+		FileIO fileIO = new FileIO(vf);
+		for (File logFile : getFiles(dir)) {
+			try (InputStream in = new BufferedInputStream(new FileInputStream(logFile));) {
+				byte[] magicNumber = IOUtil.readBytes(in, MAGIC_NUMBER.length);
+				if (!Arrays.equals(magicNumber, MAGIC_NUMBER)) {
+					throw new IOException("File is not a MemoryStore log file: " + logFile);
+				}
+
+				int formatVersion = in.read();
+				if (formatVersion != LOG_VERSION) {
+					throw new IOException("Incompatible format version: " + formatVersion);
+				}
+
+				DataInputStream dataIn = new DataInputStream(in);
+				byte[] record;
+				while ((record = readRecord(dataIn, logFile)) != null) {
+					DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record));
+					int size = recordIn.readInt();
+					for (int i = 0; i < size; i++) {
+						byte[] batch = new byte[recordIn.readInt()];
+						recordIn.readFully(batch);
+						replay(batch, store, fileIO);
+					}
+					replayed++;
+				}
+			}
+		}
+		return replayed;
+	}
+
+	/**
+	 * Starts a new generation of the log, to which subsequent batches are appended.
+	 *
+	 * @return the generation of the new log file.
+	 */
+	public synchronized int open() throws IOException {
+		List<File> files = getFiles(dir);
+		int nextGeneration = files.isEmpty() ? 1 : getGeneration(files.get(files.size() - 1)) + 1;
+		return startGeneration(nextGeneration);
+	}
+
+	/**
+	 * Closes the current log file and starts a new generation.
+	 *
+	 * @return the generation of the new log file.
+	 */
+	public synchronized int rotate() throws IOException {
+		closeFile();
+		return startGeneration(generation + 1);
+	}
+
+	/**
+	 * Deletes the log files of the generations before the specified one.
+	 */
+	public synchronized void deleteBefore(int generation) throws IOException {
+		for (File logFile : getFiles(dir)) {
+			if (getGeneration(logFile) < generation && !logFile.delete()) {
+				throw new IOException("Unable to delete log file: " + logFile);
+			}
+		}
+	}
+
+	/**
+	 * Gets the size of the current log file in bytes.
+	 */
+	public synchronized long size() {
+		return file == null ? 0L : file.length();
+	}
+
+	/**
+	 * Creates a new batch to record the changes of a sink in.
+	 *
+	 * @param explicit whether the changes are made to the explicit or the inferred statements.
+	 */
+	public Batch createBatch(boolean explicit) {
+		return new Batch(explicit);
+	}
+
+	/**
+	 * Appends the specified batches to the log as a single record and forces it to disk. On recovery, either all or
+	 * none of the batches are replayed.
+	 */
+	public synchronized void append(List<Batch> batches) throws IOException {
+		if (out == null) {
+			throw new IOException("Transaction log is closed");
+		}
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		DataOutputStream recordOut = new DataOutputStream(record);
+		recordOut.writeInt(batches.size());
+		for (Batch batch : batches) {
+			byte[] bytes = batch.toByteArray();
+			recordOut.writeInt(bytes.length);
+			recordOut.write(bytes);
+		}
+		recordOut.flush();
+
+		byte[] data = record.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeLong(crc.getValue());
+		out.flush();
+		fileOut.getChannel().force(false);
+		batchCount++;
+	}
+
+	/**
+	 * Closes the current log file, deleting it if no batches have been appended to it.
+	 */
+	public synchronized void close() throws IOException {
+		closeFile();
+		if (file != null && batchCount == 0) {
+			file.delete();
+		}
+	}
+
+	private int startGeneration(int nextGeneration) throws IOException {
+		generation = nextGeneration;
+		file = new File(dir, FILE_PREFIX + generation + FILE_SUFFIX);
+		batchCount = 0;
+		fileOut = new FileOutputStream(file);
+		out = new DataOutputStream(new BufferedOutputStream(fileOut));
+		out.write(MAGIC_NUMBER);
+		out.write(LOG_VERSION);
+		out.flush();
+		return generation;
+	}
+
+	private void closeFile() throws IOException {
+		if (out != null) {
+			try {
+				out.close();
+			} finally {
+				out = null;
+				fileOut = null;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next record from the log.
+	 *
+	 * @return the record, or <tt>null</tt> if the end of the log has been reached or the record is incomplete.
+	 */
+	private byte[] readRecord(DataInputStream dataIn, File logFile) throws IOException {
+		try {
+			int length = dataIn.readInt();
+			if (length < 0 || length > logFile.length()) {
+				logger.warn("Ignoring corrupt record at the end of log file {}", logFile);
+				return null;
+			}
+			byte[] data = new byte[length];
+			dataIn.readFully(data);
+			long checksum = dataIn.readLong();
+
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			if (crc.getValue() != checksum) {
+				logger.warn("Ignoring corrupt record at the end of log file {}", logFile);
+				return null;
+			}
+			return data;
+		} catch (EOFException e) {
+			// the end of the log, possibly with a batch that was interrupted while it was being written
+			return null;
+		}
+	}
+
+	private void replay(byte[] batch, SailStore store, FileIO fileIO) throws IOException, SailException {
+		DataInputStream dataIn = new DataInputStream(new ByteArrayInputStream(batch));
+		boolean explicit = dataIn.readBoolean();
+		SailSink sink;
+		if (explicit) {
+			sink = store.getExplicitSailSource().sink(IsolationLevels.NONE);
+		} else {
+			sink = store.getInferredSailSource().sink(IsolationLevels.NONE);
+		}
+		try {
+			while (dataIn.available() > 0) {
+				int recordTypeMarker = dataIn.readByte();
+				switch (recordTypeMarker) {
+				case APPROVE_MARKER:
+					sink.approve((Resource) readValue(dataIn, fileIO), (IRI) readValue(dataIn, fileIO),
+							readValue(dataIn, fileIO), (Resource) readValue(dataIn, fileIO));
+					break;
+				case DEPRECATE_MARKER:
+					sink.deprecate((Resource) readValue(dataIn, fileIO), (IRI) readValue(dataIn, fileIO),
+							readValue(dataIn, fileIO), (Resource) readValue(dataIn, fileIO));
+					break;
+				case CLEAR_MARKER:
+					Resource[] contexts = new Resource[dataIn.readInt()];
+					for (int i = 0; i < contexts.length; i++) {
+						contexts[i] = (Resource) readValue(dataIn, fileIO);
+					}
+					sink.clear(contexts);
+					break;
+				case SET_NAMESPACE_MARKER:
+					sink.setNamespace(dataIn.readUTF(), dataIn.readUTF());
+					break;
+				case REMOVE_NAMESPACE_MARKER:
+					sink.removeNamespace(dataIn.readUTF());
+					break;
+				case CLEAR_NAMESPACES_MARKER:
+					sink.clearNamespaces();
+					break;
+				default:
+					throw new IOException("Invalid record type marker: " + recordTypeMarker);
+				}
+			}
+			sink.prepare();
+			sink.flush();
+		} finally {
+			sink.close();
+		}
+	}
+
+	private Value readValue(DataInputStream dataIn, FileIO fileIO) throws IOException {
+		if (dataIn.readByte() == NULL_MARKER) {
+			return null;
+		} else {
+			return fileIO.readValue(dataIn);
+		}
+	}
+
+	private static List<File> getFiles(File dir) {
+		List<File> files = new ArrayList<>();
+		File[] children = dir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (getGeneration(child) > 0) {
+					files.add(child);
+				}
+			}
+		}
+		files.sort((a, b) -> Integer.compare(getGeneration(a), getGeneration(b)));
+		return files;
+	}
+
+	/**
+	 * Gets the generation of the specified log file, or <tt>-1</tt> if it is not a log file.
+	 */
+	private static int getGeneration(File file) {
+		String name = file.getName();
+		if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+			try {
+				return Integer.parseInt(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/*-------------------*
+	 * Inner class Batch *
+	 *-------------------*/
+
+	/**
+	 * The changes made by a single sink, in the order in which they have been made.
+	 */
+	class Batch {
+
+		private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		private final DataOutputStream dataOut = new DataOutputStream(buffer);
+
+		private final FileIO fileIO = new FileIO(vf);
+
+		private final boolean explicit;
+
+		private boolean empty;
+
+		Batch(boolean explicit) {
+			this.explicit = explicit;
+			clear();
+		}
+
+		public boolean isEmpty() {
+			return empty;
+		}
+
+		public void approve(Resource subj, IRI pred, Value obj, Resource ctx) throws IOException {
+			dataOut.writeByte(APPROVE_MARKER);
+			writeStatement(subj, pred, obj, ctx);
+		}
+
+		public void deprecate(Resource subj, IRI pred, Value obj, Resource ctx) throws IOException {
+			dataOut.writeByte(DEPRECATE_MARKER);
+			writeStatement(subj, pred, obj, ctx);
+		}
+
+		public void clear(Resource... contexts) throws IOException {
+			dataOut.writeByte(CLEAR_MARKER);
+			dataOut.writeInt(contexts.length);
+			for (Resource context : contexts) {
+				writeValue(context);
+			}
+			empty = false;
+		}
+
+		public void setNamespace(String prefix, String name) throws IOException {
+			dataOut.writeByte(SET_NAMESPACE_MARKER);
+			dataOut.writeUTF(prefix);
+			dataOut.writeUTF(name);
+			empty = false;
+		}
+
+		public void removeNamespace(String prefix) throws IOException {
+			dataOut.writeByte(REMOVE_NAMESPACE_MARKER);
+			dataOut.writeUTF(prefix);
+			empty = false;
+		}
+
+		public void clearNamespaces() throws IOException {
+			dataOut.writeByte(CLEAR_NAMESPACES_MARKER);
+			empty = false;
+		}
+
+		/**
+		 * Discards all changes that have been recorded in this batch.
+		 */
+		public void clear() {
+			buffer.reset();
+			try {
+				dataOut.writeBoolean(explicit);
+			} catch (IOException e) {
+				// a ByteArrayOutputStream does not throw IOExceptions
+				throw new AssertionError(e);
+			}
+			empty = true;
+		}
+
+		byte[] toByteArray() {
+			return buffer.toByteArray();
+		}
+
+		private void writeStatement(Resource subj, IRI pred, Value obj, Resource ctx) throws IOException {
+			writeValue(subj);
+			writeValue(pred);
+			writeValue(obj);
+			writeValue(ctx);
+			empty = false;
+		}
+
+		private void writeValue(Value value) throws IOException {
+			if (value == null) {
+				dataOut.writeByte(NULL_MARKER);
+			} else {
+				dataOut.writeByte(VALUE_MARKER);
+				fileIO.writeValue(value, dataOut);
+			}
+		}
+	} // end inner class Batch
+}
@@ -7,9 +7,11 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.memory.config;
 
+import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.COMPOSITE_INDEXES;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.NAMESPACE;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.PERSIST;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.SYNC_DELAY;
+import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.WRITE_AHEAD_LOG;
 
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.Resource;
@@ -29,6 +31,10 @@ public class MemoryStoreConfig extends BaseSailConfig {
 
 	private long syncDelay = 0L;
 
+	private boolean compositeIndexes = false;
+
+	private boolean writeAheadLog = false;
+
 	public MemoryStoreConfig() {
 		super(MemoryStoreFactory.SAIL_TYPE);
 	}
@@ -59,6 +65,22 @@ public class MemoryStoreConfig extends BaseSailConfig {
 		this.syncDelay = syncDelay;
 	}
 
+	public boolean getCompositeIndexes() {
+		return compositeIndexes;
+	}
+
+	public void setCompositeIndexes(boolean compositeIndexes) {
+		this.compositeIndexes = compositeIndexes;
+	}
+
+	public boolean getWriteAheadLog() {
+		return writeAheadLog;
+	}
+
+	public void setWriteAheadLog(boolean writeAheadLog) {
+		this.writeAheadLog = writeAheadLog;
+	}
+
 	@Override
 	public Resource export(Model graph) {
 		Resource implNode = super.export(graph);
@@ -72,6 +94,14 @@ public class MemoryStoreConfig extends BaseSailConfig {
 			graph.add(implNode, SYNC_DELAY, SimpleValueFactory.getInstance().createLiteral(syncDelay));
 		}
 
+		if (compositeIndexes) {
+			graph.add(implNode, COMPOSITE_INDEXES, BooleanLiteral.TRUE);
+		}
+
+		if (writeAheadLog) {
+			graph.add(implNode, WRITE_AHEAD_LOG, BooleanLiteral.TRUE);
+		}
+
 		return implNode;
 	}
 
@@ -98,6 +128,24 @@ public class MemoryStoreConfig extends BaseSailConfig {
 							"Long integer value required for " + SYNC_DELAY + " property, found " + syncDelayValue);
 				}
 			});
+
+			Models.objectLiteral(graph.filter(implNode, COMPOSITE_INDEXES, null)).ifPresent(compositeIndexesValue -> {
+				try {
+					setCompositeIndexes((compositeIndexesValue).booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException("Boolean value required for " + COMPOSITE_INDEXES
+							+ " property, found " + compositeIndexesValue);
+				}
+			});
+
+			Models.objectLiteral(graph.filter(implNode, WRITE_AHEAD_LOG, null)).ifPresent(writeAheadLogValue -> {
+				try {
+					setWriteAheadLog((writeAheadLogValue).booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException("Boolean value required for " + WRITE_AHEAD_LOG
+							+ " property, found " + writeAheadLogValue);
+				}
+			});
 		} catch (ModelException e) {
 			throw new SailConfigException(e.getMessage(), e);
 		}
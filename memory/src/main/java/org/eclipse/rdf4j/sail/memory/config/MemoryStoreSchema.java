@@ -29,9 +29,17 @@ public class MemoryStoreSchema {
 	/** <tt>http://www.openrdf.org/config/sail/memory#syncDelay</tt> */
 	public final static IRI SYNC_DELAY;
 
+	/** <tt>http://www.openrdf.org/config/sail/memory#compositeIndexes</tt> */
+	public final static IRI COMPOSITE_INDEXES;
+
+	/** <tt>http://www.openrdf.org/config/sail/memory#writeAheadLog</tt> */
+	public final static IRI WRITE_AHEAD_LOG;
+
 	static {
 		ValueFactory factory = SimpleValueFactory.getInstance();
 		PERSIST = factory.createIRI(NAMESPACE, "persist");
 		SYNC_DELAY = factory.createIRI(NAMESPACE, "syncDelay");
+		COMPOSITE_INDEXES = factory.createIRI(NAMESPACE, "compositeIndexes");
+		WRITE_AHEAD_LOG = factory.createIRI(NAMESPACE, "writeAheadLog");
 	}
 }
@@ -30,11 +30,33 @@ public class MemBNode extends SimpleBNode implements MemResource {
 	 */
 	transient private volatile MemStatementList subjectStatements;
 
+	/**
+	 * The index by predicate of the statements for which this MemBNode is the subject, <tt>null</tt> if these
+	 * statements are not indexed.
+	 */
+	transient private volatile MemPredicateIndex subjectPredicateIndex;
+
+	/**
+	 * The number of current statements for which this MemBNode is the subject, by predicate.
+	 */
+	transient private volatile MemPredicateCounts subjectPredicateCounts;
+
 	/**
 	 * The list of statements for which this MemBNode is the object.
 	 */
 	transient private volatile MemStatementList objectStatements;
 
+	/**
+	 * The index by predicate of the statements for which this MemBNode is the object, <tt>null</tt> if these
+	 * statements are not indexed.
+	 */
+	transient private volatile MemPredicateIndex objectPredicateIndex;
+
+	/**
+	 * The number of current statements for which this MemBNode is the object, by predicate.
+	 */
+	transient private volatile MemPredicateCounts objectPredicateCounts;
+
 	/**
 	 * The list of statements for which this MemBNode represents the context.
 	 */
@@ -94,14 +116,24 @@ public class MemBNode extends SimpleBNode implements MemResource {
 		}
 
 		subjectStatements.add(st);
+
+		if (subjectPredicateIndex != null) {
+			subjectPredicateIndex.add(st);
+		}
 	}
 
 	@Override
 	public void removeSubjectStatement(MemStatement st) {
 		subjectStatements.remove(st);
 
+		if (subjectPredicateIndex != null) {
+			subjectPredicateIndex.remove(st);
+		}
+
 		if (subjectStatements.isEmpty()) {
 			subjectStatements = null;
+			subjectPredicateIndex = null;
+			subjectPredicateCounts = null;
 		}
 	}
 
@@ -110,12 +142,54 @@ public class MemBNode extends SimpleBNode implements MemResource {
 		if (subjectStatements != null) {
 			subjectStatements.cleanSnapshots(currentSnapshot);
 
+			if (subjectPredicateIndex != null) {
+				subjectPredicateIndex.cleanSnapshots(currentSnapshot);
+			}
+
 			if (subjectStatements.isEmpty()) {
 				subjectStatements = null;
+				subjectPredicateIndex = null;
+				subjectPredicateCounts = null;
 			}
 		}
 	}
 
+	@Override
+	public MemStatementList getSubjectStatementList(MemIRI predicate) {
+		MemPredicateIndex index = subjectPredicateIndex;
+		if (index == null) {
+			return null;
+		} else {
+			return index.get(predicate);
+		}
+	}
+
+	@Override
+	public void indexSubjectStatementsByPredicate() {
+		if (subjectPredicateIndex == null && subjectStatements != null) {
+			subjectPredicateIndex = new MemPredicateIndex(subjectStatements);
+		}
+	}
+
+	@Override
+	public int getSubjectStatementCount(MemIRI predicate) {
+		MemPredicateCounts counts = subjectPredicateCounts;
+		if (counts == null) {
+			return 0;
+		} else {
+			return counts.get(predicate);
+		}
+	}
+
+	@Override
+	public int updateSubjectStatementCount(MemIRI predicate, int delta) {
+		if (subjectPredicateCounts == null) {
+			subjectPredicateCounts = new MemPredicateCounts();
+		}
+
+		return subjectPredicateCounts.update(predicate, delta);
+	}
+
 	@Override
 	public MemStatementList getObjectStatementList() {
 		if (objectStatements == null) {
@@ -141,14 +215,24 @@ public class MemBNode extends SimpleBNode implements MemResource {
 		}
 
 		objectStatements.add(st);
+
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.add(st);
+		}
 	}
 
 	@Override
 	public void removeObjectStatement(MemStatement st) {
 		objectStatements.remove(st);
 
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.remove(st);
+		}
+
 		if (objectStatements.isEmpty()) {
 			objectStatements = null;
+			objectPredicateIndex = null;
+			objectPredicateCounts = null;
 		}
 	}
 
@@ -157,12 +241,54 @@ public class MemBNode extends SimpleBNode implements MemResource {
 		if (objectStatements != null) {
 			objectStatements.cleanSnapshots(currentSnapshot);
 
+			if (objectPredicateIndex != null) {
+				objectPredicateIndex.cleanSnapshots(currentSnapshot);
+			}
+
 			if (objectStatements.isEmpty()) {
 				objectStatements = null;
+				objectPredicateIndex = null;
+				objectPredicateCounts = null;
 			}
 		}
 	}
 
+	@Override
+	public MemStatementList getObjectStatementList(MemIRI predicate) {
+		MemPredicateIndex index = objectPredicateIndex;
+		if (index == null) {
+			return null;
+		} else {
+			return index.get(predicate);
+		}
+	}
+
+	@Override
+	public void indexObjectStatementsByPredicate() {
+		if (objectPredicateIndex == null && objectStatements != null) {
+			objectPredicateIndex = new MemPredicateIndex(objectStatements);
+		}
+	}
+
+	@Override
+	public int getObjectStatementCount(MemIRI predicate) {
+		MemPredicateCounts counts = objectPredicateCounts;
+		if (counts == null) {
+			return 0;
+		} else {
+			return counts.get(predicate);
+		}
+	}
+
+	@Override
+	public int updateObjectStatementCount(MemIRI predicate, int delta) {
+		if (objectPredicateCounts == null) {
+			objectPredicateCounts = new MemPredicateCounts();
+		}
+
+		return objectPredicateCounts.update(predicate, delta);
+	}
+
 	@Override
 	public MemStatementList getContextStatementList() {
 		if (contextStatements == null) {
@@ -46,16 +46,48 @@ public class MemIRI implements IRI, MemResource {
 	 */
 	transient private volatile MemStatementList subjectStatements = null;
 
+	/**
+	 * The index by predicate of the statements for which this MemURI is the subject, <tt>null</tt> if these
+	 * statements are not indexed.
+	 */
+	transient private volatile MemPredicateIndex subjectPredicateIndex = null;
+
+	/**
+	 * The number of current statements for which this MemURI is the subject, by predicate.
+	 */
+	transient private volatile MemPredicateCounts subjectPredicateCounts = null;
+
 	/**
 	 * The list of statements for which this MemURI is the predicate.
 	 */
 	transient private volatile MemStatementList predicateStatements = null;
 
+	/**
+	 * The number of distinct subjects of the current statements for which this MemURI is the predicate.
+	 */
+	transient private volatile int distinctSubjectCount = 0;
+
+	/**
+	 * The number of distinct objects of the current statements for which this MemURI is the predicate.
+	 */
+	transient private volatile int distinctObjectCount = 0;
+
 	/**
 	 * The list of statements for which this MemURI is the object.
 	 */
 	transient private volatile MemStatementList objectStatements = null;
 
+	/**
+	 * The index by predicate of the statements for which this MemURI is the object, <tt>null</tt> if these
+	 * statements are not indexed.
+	 */
+	transient private volatile MemPredicateIndex objectPredicateIndex = null;
+
+	/**
+	 * The number of current statements for which this MemURI is the object, by predicate.
+	 */
+	transient private volatile MemPredicateCounts objectPredicateCounts = null;
+
 	/**
 	 * The list of statements for which this MemURI represents the context.
 	 */
@@ -166,14 +198,24 @@ public class MemIRI implements IRI, MemResource {
 		}
 
 		subjectStatements.add(st);
+
+		if (subjectPredicateIndex != null) {
+			subjectPredicateIndex.add(st);
+		}
 	}
 
 	@Override
 	public void removeSubjectStatement(MemStatement st) {
 		subjectStatements.remove(st);
 
+		if (subjectPredicateIndex != null) {
+			subjectPredicateIndex.remove(st);
+		}
+
 		if (subjectStatements.isEmpty()) {
 			subjectStatements = null;
+			subjectPredicateIndex = null;
+			subjectPredicateCounts = null;
 		}
 	}
 
@@ -182,12 +224,54 @@ public class MemIRI implements IRI, MemResource {
 		if (subjectStatements != null) {
 			subjectStatements.cleanSnapshots(currentSnapshot);
 
+			if (subjectPredicateIndex != null) {
+				subjectPredicateIndex.cleanSnapshots(currentSnapshot);
+			}
+
 			if (subjectStatements.isEmpty()) {
 				subjectStatements = null;
+				subjectPredicateIndex = null;
+				subjectPredicateCounts = null;
 			}
 		}
 	}
 
+	@Override
+	public MemStatementList getSubjectStatementList(MemIRI predicate) {
+		MemPredicateIndex index = subjectPredicateIndex;
+		if (index == null) {
+			return null;
+		} else {
+			return index.get(predicate);
+		}
+	}
+
+	@Override
+	public void indexSubjectStatementsByPredicate() {
+		if (subjectPredicateIndex == null && subjectStatements != null) {
+			subjectPredicateIndex = new MemPredicateIndex(subjectStatements);
+		}
+	}
+
+	@Override
+	public int getSubjectStatementCount(MemIRI predicate) {
+		MemPredicateCounts counts = subjectPredicateCounts;
+		if (counts == null) {
+			return 0;
+		} else {
+			return counts.get(predicate);
+		}
+	}
+
+	@Override
+	public int updateSubjectStatementCount(MemIRI predicate, int delta) {
+		if (subjectPredicateCounts == null) {
+			subjectPredicateCounts = new MemPredicateCounts();
+		}
+
+		return subjectPredicateCounts.update(predicate, delta);
+	}
+
 	/**
 	 * Gets the list of statements for which this MemURI is the predicate.
 	 * 
@@ -252,6 +336,40 @@ public class MemIRI implements IRI, MemResource {
 		}
 	}
 
+	/**
+	 * Gets the number of distinct subjects of the current statements for which this MemURI is the predicate.
+	 * 
+	 * @return An integer larger than or equal to 0.
+	 */
+	public int getDistinctSubjectCount() {
+		return distinctSubjectCount;
+	}
+
+	/**
+	 * Adds the specified delta to the number of distinct subjects of the current statements for which this MemURI is
+	 * the predicate. Should only be called by a single thread at a time.
+	 */
+	public void updateDistinctSubjectCount(int delta) {
+		distinctSubjectCount += delta;
+	}
+
+	/**
+	 * Gets the number of distinct objects of the current statements for which this MemURI is the predicate.
+	 * 
+	 * @return An integer larger than or equal to 0.
+	 */
+	public int getDistinctObjectCount() {
+		return distinctObjectCount;
+	}
+
+	/**
+	 * Adds the specified delta to the number of distinct objects of the current statements for which this MemURI is
+	 * the predicate. Should only be called by a single thread at a time.
+	 */
+	public void updateDistinctObjectCount(int delta) {
+		distinctObjectCount += delta;
+	}
+
 	@Override
 	public MemStatementList getObjectStatementList() {
 		if (objectStatements == null) {
@@ -276,13 +394,24 @@ public class MemIRI implements IRI, MemResource {
 			objectStatements = new MemStatementList(4);
 		}
 		objectStatements.add(st);
+
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.add(st);
+		}
 	}
 
 	@Override
 	public void removeObjectStatement(MemStatement st) {
 		objectStatements.remove(st);
+
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.remove(st);
+		}
+
 		if (objectStatements.isEmpty()) {
 			objectStatements = null;
+			objectPredicateIndex = null;
+			objectPredicateCounts = null;
 		}
 	}
 
@@ -291,12 +420,54 @@ public class MemIRI implements IRI, MemResource {
 		if (objectStatements != null) {
 			objectStatements.cleanSnapshots(currentSnapshot);
 
+			if (objectPredicateIndex != null) {
+				objectPredicateIndex.cleanSnapshots(currentSnapshot);
+			}
+
 			if (objectStatements.isEmpty()) {
 				objectStatements = null;
+				objectPredicateIndex = null;
+				objectPredicateCounts = null;
 			}
 		}
 	}
 
+	@Override
+	public MemStatementList getObjectStatementList(MemIRI predicate) {
+		MemPredicateIndex index = objectPredicateIndex;
+		if (index == null) {
+			return null;
+		} else {
+			return index.get(predicate);
+		}
+	}
+
+	@Override
+	public void indexObjectStatementsByPredicate() {
+		if (objectPredicateIndex == null && objectStatements != null) {
+			objectPredicateIndex = new MemPredicateIndex(objectStatements);
+		}
+	}
+
+	@Override
+	public int getObjectStatementCount(MemIRI predicate) {
+		MemPredicateCounts counts = objectPredicateCounts;
+		if (counts == null) {
+			return 0;
+		} else {
+			return counts.get(predicate);
+		}
+	}
+
+	@Override
+	public int updateObjectStatementCount(MemIRI predicate, int delta) {
+		if (objectPredicateCounts == null) {
+			objectPredicateCounts = new MemPredicateCounts();
+		}
+
+		return objectPredicateCounts.update(predicate, delta);
+	}
+
 	@Override
 	public MemStatementList getContextStatementList() {
 		if (contextStatements == null) {
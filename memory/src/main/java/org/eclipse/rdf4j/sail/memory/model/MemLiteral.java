@@ -34,6 +34,17 @@ public class MemLiteral extends SimpleLiteral implements MemValue {
 	 */
 	transient private volatile MemStatementList objectStatements;
 
+	/**
+	 * The index by predicate of the statements for which this MemLiteral is the object, <tt>null</tt> if these
+	 * statements are not indexed.
+	 */
+	transient private volatile MemPredicateIndex objectPredicateIndex;
+
+	/**
+	 * The number of current statements for which this MemLiteral is the object, by predicate.
+	 */
+	transient private volatile MemPredicateCounts objectPredicateCounts;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -112,14 +123,24 @@ public class MemLiteral extends SimpleLiteral implements MemValue {
 		}
 
 		objectStatements.add(st);
+
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.add(st);
+		}
 	}
 
 	@Override
 	public void removeObjectStatement(MemStatement st) {
 		objectStatements.remove(st);
 
+		if (objectPredicateIndex != null) {
+			objectPredicateIndex.remove(st);
+		}
+
 		if (objectStatements.isEmpty()) {
 			objectStatements = null;
+			objectPredicateIndex = null;
+			objectPredicateCounts = null;
 		}
 	}
 
@@ -128,9 +149,51 @@ public class MemLiteral extends SimpleLiteral implements MemValue {
 		if (objectStatements != null) {
 			objectStatements.cleanSnapshots(currentSnapshot);
 
+			if (objectPredicateIndex != null) {
+				objectPredicateIndex.cleanSnapshots(currentSnapshot);
+			}
+
 			if (objectStatements.isEmpty()) {
 				objectStatements = null;
+				objectPredicateIndex = null;
+				objectPredicateCounts = null;
 			}
 		}
 	}
+
+	@Override
+	public MemStatementList getObjectStatementList(MemIRI predicate) {
+		MemPredicateIndex index = objectPredicateIndex;
+		if (index == null) {
+			return null;
+		} else {
+			return index.get(predicate);
+		}
+	}
+
+	@Override
+	public void indexObjectStatementsByPredicate() {
+		if (objectPredicateIndex == null && objectStatements != null) {
+			objectPredicateIndex = new MemPredicateIndex(objectStatements);
+		}
+	}
+
+	@Override
+	public int getObjectStatementCount(MemIRI predicate) {
+		MemPredicateCounts counts = objectPredicateCounts;
+		if (counts == null) {
+			return 0;
+		} else {
+			return counts.get(predicate);
+		}
+	}
+
+	@Override
+	public int updateObjectStatementCount(MemIRI predicate, int delta) {
+		if (objectPredicateCounts == null) {
+			objectPredicateCounts = new MemPredicateCounts();
+		}
+
+		return objectPredicateCounts.update(predicate, delta);
+	}
 }
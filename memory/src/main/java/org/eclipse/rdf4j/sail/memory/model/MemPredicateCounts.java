@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory.model;
+
+/**
+ * Counts the current statements of a single {@link MemValue} (e.g. the statements for which it is the subject) by
+ * predicate. The counts are kept in a small open-addressing hash table that is keyed on predicate identity. Like
+ * {@link MemStatementList}, the counts can be read concurrently with a single thread updating them.
+ */
+public class MemPredicateCounts {
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private volatile Table table = new Table(2);
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	/**
+	 * Gets the number of statements that have the specified predicate.
+	 * 
+	 * @return An integer larger than or equal to 0.
+	 */
+	public int get(MemIRI predicate) {
+		Table t = table;
+		int i = t.indexOf(predicate);
+		if (t.predicates[i] == null) {
+			return 0;
+		} else {
+			return t.counts[i];
+		}
+	}
+
+	/**
+	 * Adds the specified delta to the number of statements that have the specified predicate.
+	 * 
+	 * @return The updated number of statements.
+	 */
+	public int update(MemIRI predicate, int delta) {
+		Table t = table;
+		int i = t.indexOf(predicate);
+		if (t.predicates[i] != null) {
+			return t.counts[i] += delta;
+		}
+
+		if ((t.used + 1) * 4 > t.predicates.length * 3) {
+			// predicates with a count of 0 are only dropped here, so that readers never miss an entry
+			t = t.rehash();
+			table = t;
+			i = t.indexOf(predicate);
+		}
+		t.counts[i] = delta;
+		t.predicates[i] = predicate;
+		t.used++;
+		return delta;
+	}
+
+	/*-------------------*
+	 * Inner class Table *
+	 *-------------------*/
+
+	private static final class Table {
+
+		final MemIRI[] predicates;
+
+		final int[] counts;
+
+		int used;
+
+		Table(int capacity) {
+			predicates = new MemIRI[capacity];
+			counts = new int[capacity];
+		}
+
+		/**
+		 * Gets the index of the slot for the specified predicate, which is empty if the predicate is not in the table.
+		 */
+		int indexOf(MemIRI predicate) {
+			int mask = predicates.length - 1;
+			int hash = System.identityHashCode(predicate);
+			int i = (hash ^ (hash >>> 16)) & mask;
+			while (predicates[i] != null && predicates[i] != predicate) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		Table rehash() {
+			int size = 0;
+			for (int i = 0; i < predicates.length; i++) {
+				if (predicates[i] != null && counts[i] != 0) {
+					size++;
+				}
+			}
+
+			int capacity = 2;
+			while ((size + 1) * 4 > capacity * 3) {
+				capacity *= 2;
+			}
+
+			Table t = new Table(capacity);
+			for (int i = 0; i < predicates.length; i++) {
+				if (predicates[i] != null && counts[i] != 0) {
+					int j = t.indexOf(predicates[i]);
+					t.predicates[j] = predicates[i];
+					t.counts[j] = counts[i];
+					t.used++;
+				}
+			}
+			return t;
+		}
+	} // end inner class Table
+}
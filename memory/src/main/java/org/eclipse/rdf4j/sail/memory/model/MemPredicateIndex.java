@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory.model;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index that groups the statements of a single {@link MemValue} (e.g. the statements for which it is the subject)
+ * by predicate, turning look-ups on a bound value and predicate into a single hash look-up. Like
+ * {@link MemStatementList}, the index can be read concurrently with a single thread adding statements to it.
+ */
+public class MemPredicateIndex {
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final ConcurrentMap<MemIRI, MemStatementList> statements;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	/**
+	 * Creates a new MemPredicateIndex containing the supplied statements.
+	 * 
+	 * @param statementList the statements to index.
+	 */
+	public MemPredicateIndex(MemStatementList statementList) {
+		statements = new ConcurrentHashMap<>();
+		for (int i = 0; i < statementList.size(); i++) {
+			add(statementList.get(i));
+		}
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	/**
+	 * Gets the indexed statements that have the specified predicate.
+	 * 
+	 * @return a MemStatementList containing the statements.
+	 */
+	public MemStatementList get(MemIRI predicate) {
+		MemStatementList list = statements.get(predicate);
+		if (list == null) {
+			return MemValue.EMPTY_LIST;
+		} else {
+			return list;
+		}
+	}
+
+	public void add(MemStatement st) {
+		MemIRI predicate = st.getPredicate();
+		MemStatementList list = statements.get(predicate);
+		if (list == null) {
+			list = new MemStatementList(4);
+			list.add(st);
+			statements.put(predicate, list);
+		} else {
+			list.add(st);
+		}
+	}
+
+	public void remove(MemStatement st) {
+		MemIRI predicate = st.getPredicate();
+		MemStatementList list = statements.get(predicate);
+		if (list != null) {
+			list.remove(st);
+			if (list.isEmpty()) {
+				statements.remove(predicate);
+			}
+		}
+	}
+
+	/**
+	 * Removes statements from old snapshots (those that have expired at or before the specified snapshot version) from
+	 * this index.
+	 * 
+	 * @param currentSnapshot The current snapshot version.
+	 */
+	public void cleanSnapshots(int currentSnapshot) {
+		Iterator<MemStatementList> iter = statements.values().iterator();
+		while (iter.hasNext()) {
+			MemStatementList list = iter.next();
+			list.cleanSnapshots(currentSnapshot);
+			if (list.isEmpty()) {
+				iter.remove();
+			}
+		}
+	}
+}
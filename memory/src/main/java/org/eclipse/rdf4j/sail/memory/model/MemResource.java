@@ -46,6 +46,38 @@ public interface MemResource extends MemValue, Resource {
 	 */
 	public void cleanSnapshotsFromSubjectStatements(int currentSnapshot);
 
+	/**
+	 * Gets the list of statements for which this MemResource is the subject and that have the specified predicate.
+	 * This list is only available once {@link #indexSubjectStatementsByPredicate()} has been called.
+	 * 
+	 * @return a MemStatementList containing the statements, or <tt>null</tt> if this MemResource's subject statements
+	 *         are not indexed by predicate.
+	 */
+	public MemStatementList getSubjectStatementList(MemIRI predicate);
+
+	/**
+	 * Indexes this MemResource's list of statements for which it is the subject by predicate. The index is maintained
+	 * as statements are added and removed, until this MemResource is no longer the subject of any statement.
+	 */
+	public void indexSubjectStatementsByPredicate();
+
+	/**
+	 * Gets the number of current statements for which this MemResource is the subject and that have the specified
+	 * predicate. Unlike the statement lists, these counts do not include statements that have been removed but that
+	 * have not been cleaned up yet.
+	 * 
+	 * @return An integer larger than or equal to 0.
+	 */
+	public int getSubjectStatementCount(MemIRI predicate);
+
+	/**
+	 * Adds the specified delta to the number of current statements for which this MemResource is the subject and that
+	 * have the specified predicate.
+	 * 
+	 * @return The updated number of statements.
+	 */
+	public int updateSubjectStatementCount(MemIRI predicate, int delta);
+
 	/**
 	 * Gets the list of statements for which this MemResource represents the context.
 	 * 
@@ -74,4 +74,36 @@ public interface MemValue extends Value {
 	 * @param currentSnapshot The current snapshot version.
 	 */
 	public void cleanSnapshotsFromObjectStatements(int currentSnapshot);
+
+	/**
+	 * Gets the list of statements for which this MemValue is the object and that have the specified predicate. This
+	 * list is only available once {@link #indexObjectStatementsByPredicate()} has been called.
+	 * 
+	 * @return A MemStatementList containing the statements, or <tt>null</tt> if this MemValue's object statements are
+	 *         not indexed by predicate.
+	 */
+	public MemStatementList getObjectStatementList(MemIRI predicate);
+
+	/**
+	 * Indexes this MemValue's list of statements for which it is the object by predicate. The index is maintained as
+	 * statements are added and removed, until this MemValue is no longer the object of any statement.
+	 */
+	public void indexObjectStatementsByPredicate();
+
+	/**
+	 * Gets the number of current statements for which this MemValue is the object and that have the specified
+	 * predicate. Unlike the statement lists, these counts do not include statements that have been removed but that
+	 * have not been cleaned up yet.
+	 * 
+	 * @return An integer larger than or equal to 0.
+	 */
+	public int getObjectStatementCount(MemIRI predicate);
+
+	/**
+	 * Adds the specified delta to the number of current statements for which this MemValue is the object and that
+	 * have the specified predicate.
+	 * 
+	 * @return The updated number of statements.
+	 */
+	public int updateObjectStatementCount(MemIRI predicate, int delta);
 }
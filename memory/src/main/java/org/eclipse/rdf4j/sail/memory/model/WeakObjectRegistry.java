@@ -9,9 +9,13 @@ package org.eclipse.rdf4j.sail.memory.model;
 
 import java.lang.ref.WeakReference;
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.WeakHashMap;
 
 /**
@@ -19,17 +23,31 @@ import java.util.WeakHashMap;
  * retrieve stored objects using another, equivalent object. As such, it can be used to prevent the use of duplicates in
  * another data structure, reducing memory usage. The objects that are being stored should properly implement the
  * {@link Object#equals} and {@link Object#hashCode} methods.
+ * <p>
+ * The registry is thread-safe. The objects are spread over a number of segments by their hash code, each of which is
+ * locked separately, so that threads accessing different objects rarely have to wait for each other. Iterators do not
+ * throw {@link java.util.ConcurrentModificationException}s, they return the objects of each segment as they were when
+ * the iterator reached it.
  */
 public class WeakObjectRegistry<E> extends AbstractSet<E> {
 
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	/**
+	 * The number of segments, a power of two.
+	 */
+	private static final int SEGMENT_COUNT = 64;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
 
 	/**
-	 * The hash map that is used to store the objects.
+	 * The hash maps that are used to store the objects, each guarded by its own monitor.
 	 */
-	private final Map<E, WeakReference<E>> objectMap = new WeakHashMap<>();
+	private final List<Map<E, WeakReference<E>>> segments;
 
 	/*--------------*
 	 * Constructors *
@@ -40,6 +58,10 @@ public class WeakObjectRegistry<E> extends AbstractSet<E> {
 	 */
 	public WeakObjectRegistry() {
 		super();
+		segments = new ArrayList<>(SEGMENT_COUNT);
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			segments.add(new WeakHashMap<>());
+		}
 	}
 
 	/**
@@ -64,7 +86,11 @@ public class WeakObjectRegistry<E> extends AbstractSet<E> {
 	 * @return A stored object that is equal to the supplied key, or <tt>null</tt> if no such object was found.
 	 */
 	public E get(Object key) {
-		WeakReference<E> weakRef = objectMap.get(key);
+		Map<E, WeakReference<E>> segment = getSegment(key);
+		WeakReference<E> weakRef;
+		synchronized (segment) {
+			weakRef = segment.get(key);
+		}
 
 		if (weakRef != null) {
 			return weakRef.get();
@@ -73,14 +99,65 @@ public class WeakObjectRegistry<E> extends AbstractSet<E> {
 		return null;
 	}
 
+	/**
+	 * Retrieves the stored object that is equal to the supplied object, storing the supplied object if there is no such
+	 * object yet. Concurrent calls with equal objects all return the same stored object.
+	 * 
+	 * @param object The object to store if no equal object has been stored yet.
+	 * @return The stored object that is equal to the supplied object, which is the supplied object itself if it has
+	 *         been added to this registry.
+	 */
+	public E getOrAdd(E object) {
+		Map<E, WeakReference<E>> segment = getSegment(object);
+		synchronized (segment) {
+			WeakReference<E> weakRef = segment.get(object);
+			E stored = (weakRef == null) ? null : weakRef.get();
+			if (stored == null) {
+				segment.put(object, new WeakReference<>(object));
+				stored = object;
+			}
+			return stored;
+		}
+	}
+
 	@Override
 	public Iterator<E> iterator() {
-		return objectMap.keySet().iterator();
+		return new Iterator<E>() {
+
+			private int segmentIndex = 0;
+
+			private Iterator<E> segmentIter = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!segmentIter.hasNext() && segmentIndex < SEGMENT_COUNT) {
+					Map<E, WeakReference<E>> segment = segments.get(segmentIndex++);
+					synchronized (segment) {
+						segmentIter = new ArrayList<>(segment.keySet()).iterator();
+					}
+				}
+				return segmentIter.hasNext();
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return segmentIter.next();
+			}
+		};
 	}
 
 	@Override
 	public int size() {
-		return objectMap.size();
+		int size = 0;
+		for (Map<E, WeakReference<E>> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
 	}
 
 	@Override
@@ -90,28 +167,46 @@ public class WeakObjectRegistry<E> extends AbstractSet<E> {
 
 	@Override
 	public boolean add(E object) {
-		WeakReference<E> ref = new WeakReference<>(object);
+		Map<E, WeakReference<E>> segment = getSegment(object);
+		synchronized (segment) {
+			WeakReference<E> ref = new WeakReference<>(object);
 
-		ref = objectMap.put(object, ref);
+			ref = segment.put(object, ref);
 
-		if (ref != null && ref.get() != null) {
-			// A duplicate was added which replaced the existing object. Undo this
-			// operation.
-			objectMap.put(ref.get(), ref);
-			return false;
-		}
+			if (ref != null && ref.get() != null) {
+				// A duplicate was added which replaced the existing object. Undo this
+				// operation.
+				segment.put(ref.get(), ref);
+				return false;
+			}
 
-		return true;
+			return true;
+		}
 	}
 
 	@Override
 	public boolean remove(Object o) {
-		WeakReference<E> ref = objectMap.remove(o);
+		Map<E, WeakReference<E>> segment = getSegment(o);
+		WeakReference<E> ref;
+		synchronized (segment) {
+			ref = segment.remove(o);
+		}
 		return ref != null && ref.get() != null;
 	}
 
 	@Override
 	public void clear() {
-		objectMap.clear();
+		for (Map<E, WeakReference<E>> segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	private Map<E, WeakReference<E>> getSegment(Object key) {
+		int hash = (key == null) ? 0 : key.hashCode();
+		// spread the higher bits, as only the lower bits select the segment
+		hash ^= (hash >>> 16);
+		return segments.get(hash & (SEGMENT_COUNT - 1));
 	}
 }
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Verifies that the contents of a persistent {@link MemoryStore} survive a restart, for data files that consist of
+ * many blocks.
+ */
+public class FileIOTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private static final int PERSON_COUNT = 50_000;
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void testWriteRead() throws Exception {
+		File dataDir = tempDir.newFolder();
+
+		MemoryStore store = new MemoryStore(dataDir);
+		store.initialize();
+		ValueFactory f = store.getValueFactory();
+		IRI person = f.createIRI(EX_NS, "Person");
+		IRI graph = f.createIRI(EX_NS, "graph");
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.setNamespace("ex", EX_NS);
+			for (int i = 0; i < PERSON_COUNT; i++) {
+				IRI subj = f.createIRI(EX_NS, "person" + i);
+				con.addStatement(subj, RDF.TYPE, person);
+				con.addStatement(subj, RDFS.LABEL, f.createLiteral("Person " + i, "en"), graph);
+				con.addStatement(subj, RDF.VALUE, f.createLiteral(i));
+			}
+			con.addStatement(f.createBNode("node"), RDF.TYPE, person);
+			con.commit();
+		}
+		store.shutDown();
+
+		store = new MemoryStore(dataDir);
+		store.initialize();
+		f = store.getValueFactory();
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(EX_NS, con.getNamespace("ex"));
+			assertEquals(3 * PERSON_COUNT + 1, con.size());
+			assertEquals(PERSON_COUNT, con.size(graph));
+			assertEquals(PERSON_COUNT + 1, Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+
+			IRI subj = f.createIRI(EX_NS, "person" + (PERSON_COUNT - 1));
+			Literal label = f.createLiteral("Person " + (PERSON_COUNT - 1), "en");
+			assertTrue(con.hasStatement(subj, RDFS.LABEL, label, false, graph));
+			assertTrue(con.hasStatement(subj, RDF.VALUE, f.createLiteral(PERSON_COUNT - 1), false));
+			assertTrue(con.hasStatement(f.createBNode("node"), RDF.TYPE, person, false));
+		} finally {
+			store.shutDown();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemEvaluationStatisticsTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private static final int PERSON_COUNT = 100;
+
+	private MemoryStore store;
+
+	private ValueFactory f;
+
+	private IRI person;
+
+	private IRI document;
+
+	private IRI knows;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new MemoryStore();
+		store.initialize();
+		f = store.getValueFactory();
+		person = f.createIRI(EX_NS, "Person");
+		document = f.createIRI(EX_NS, "Document");
+		knows = f.createIRI(EX_NS, "knows");
+
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i++) {
+				IRI subj = f.createIRI(EX_NS, "person" + i);
+				con.addStatement(subj, RDF.TYPE, person);
+				con.addStatement(f.createIRI(EX_NS, "document" + i), RDF.TYPE, document);
+				// everyone knows the first ten persons
+				for (int j = 0; j < 10; j++) {
+					con.addStatement(subj, knows, f.createIRI(EX_NS, "person" + j));
+				}
+			}
+			con.commit();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testBoundPairs() throws Exception {
+		IRI person0 = f.createIRI(EX_NS, "person0");
+
+		assertEquals(PERSON_COUNT, getCardinality(null, RDF.TYPE, person), 0.0);
+		assertEquals(10, getCardinality(person0, knows, null), 0.0);
+		assertEquals(PERSON_COUNT, getCardinality(null, knows, person0), 0.0);
+		// person0 has a single type
+		assertEquals(1, getCardinality(person0, RDF.TYPE, document), 0.0);
+	}
+
+	@Test
+	public void testRemovedStatements() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i += 2) {
+				con.removeStatements(f.createIRI(EX_NS, "person" + i), RDF.TYPE, person);
+			}
+			con.commit();
+		}
+
+		assertEquals(PERSON_COUNT / 2, getCardinality(null, RDF.TYPE, person), 0.0);
+	}
+
+	@Test
+	public void testJoin() throws Exception {
+		// ?x a ex:Person . ?x ex:knows ?y
+		StatementPattern left = new StatementPattern(new Var("x"), constant(RDF.TYPE), constant(person));
+		StatementPattern right = new StatementPattern(new Var("x"), constant(knows), new Var("y"));
+
+		// rdf:type has twice as many distinct subjects as there are persons
+		double expected = PERSON_COUNT * (PERSON_COUNT * 10) / (2 * PERSON_COUNT);
+		assertEquals(expected, getStatistics().getCardinality(new Join(left, right)), 0.0);
+	}
+
+	private double getCardinality(IRI subj, IRI pred, Value obj) {
+		StatementPattern sp = new StatementPattern(subj == null ? new Var("s") : constant(subj), constant(pred),
+				obj == null ? new Var("o") : constant(obj));
+		return getStatistics().getCardinality(sp);
+	}
+
+	private EvaluationStatistics getStatistics() {
+		return store.getSailStore().getEvaluationStatistics();
+	}
+
+	private Var constant(Value value) {
+		Var var = new Var("const_" + value.stringValue().hashCode(), value);
+		var.setConstant(true);
+		return var;
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that statement look-ups return the same results when answered by the composite indexes of the
+ * {@link MemoryStore}.
+ */
+public class MemoryStoreCompositeIndexTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private static final int PERSON_COUNT = 500;
+
+	private MemoryStore store;
+
+	private ValueFactory f;
+
+	private IRI person;
+
+	private IRI document;
+
+	private IRI knows;
+
+	private IRI hub;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new MemoryStore();
+		store.setCompositeIndexes(true);
+		store.initialize();
+		f = store.getValueFactory();
+
+		person = f.createIRI(EX_NS, "Person");
+		document = f.createIRI(EX_NS, "Document");
+		knows = f.createIRI(EX_NS, "knows");
+		hub = f.createIRI(EX_NS, "hub");
+
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i++) {
+				IRI subj = f.createIRI(EX_NS, "person" + i);
+				con.addStatement(subj, RDF.TYPE, person);
+				con.addStatement(subj, knows, hub);
+				con.addStatement(hub, knows, subj);
+				con.addStatement(f.createIRI(EX_NS, "document" + i), RDF.TYPE, document);
+			}
+			con.addStatement(hub, RDF.TYPE, person);
+			con.commit();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testBoundPairs() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(PERSON_COUNT + 1, count(con, null, RDF.TYPE, person));
+			assertEquals(PERSON_COUNT, count(con, null, RDF.TYPE, document));
+			assertEquals(PERSON_COUNT, count(con, null, knows, hub));
+			assertEquals(PERSON_COUNT, count(con, hub, knows, null));
+			assertEquals(1, count(con, hub, RDF.TYPE, null));
+			assertEquals(1, count(con, hub, RDF.TYPE, person));
+			assertEquals(0, count(con, hub, RDF.TYPE, document));
+			assertEquals(0, count(con, hub, RDF.VALUE, null));
+		}
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i += 2) {
+				IRI subj = f.createIRI(EX_NS, "person" + i);
+				con.removeStatements(subj, null, null);
+				con.removeStatements(hub, knows, subj);
+			}
+			con.commit();
+
+			assertEquals(PERSON_COUNT / 2 + 1, count(con, null, RDF.TYPE, person));
+			assertEquals(PERSON_COUNT / 2, count(con, null, knows, hub));
+			assertEquals(PERSON_COUNT / 2, count(con, hub, knows, null));
+
+			// statements added again after their removal are found as well
+			con.begin();
+			con.addStatement(f.createIRI(EX_NS, "person0"), RDF.TYPE, person);
+			con.addStatement(hub, knows, f.createIRI(EX_NS, "person0"));
+			con.commit();
+
+			assertEquals(PERSON_COUNT / 2 + 2, count(con, null, RDF.TYPE, person));
+			assertEquals(PERSON_COUNT / 2 + 1, count(con, hub, knows, null));
+		}
+	}
+
+	private int count(SailConnection con, Resource subj, IRI pred, Value obj) throws Exception {
+		List<Statement> statements = Iterations.asList(con.getStatements(subj, pred, obj, false));
+		for (Statement st : statements) {
+			assertEquals(pred, st.getPredicate());
+		}
+		return statements.size();
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.sail.SailConflictException;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryStoreConcurrentTransactionTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private MemoryStore store;
+
+	private ValueFactory f;
+
+	private IRI person;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new MemoryStore();
+		store.initialize();
+		f = store.getValueFactory();
+		person = f.createIRI(EX_NS, "Person");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testOpenTransactionsDoNotBlockWriters() throws Exception {
+		try (SailConnection con1 = store.getConnection(); SailConnection con2 = store.getConnection()) {
+			con1.begin(IsolationLevels.NONE);
+			con1.addStatement(f.createIRI(EX_NS, "alice"), RDF.TYPE, person);
+
+			// a second writer commits while the first transaction is still active
+			con2.begin(IsolationLevels.NONE);
+			con2.addStatement(f.createIRI(EX_NS, "bob"), RDF.TYPE, person);
+			con2.commit();
+
+			con1.commit();
+			assertEquals(2, Iterations.asList(con1.getStatements(null, RDF.TYPE, person, false)).size());
+		}
+	}
+
+	@Test
+	public void testConcurrentWriters() throws Exception {
+		int writerCount = 8;
+		int transactionCount = 50;
+		ExecutorService executor = Executors.newFixedThreadPool(writerCount);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> writers = new ArrayList<>();
+			for (int w = 0; w < writerCount; w++) {
+				int writer = w;
+				writers.add(executor.submit(() -> {
+					start.await();
+					try (SailConnection con = store.getConnection()) {
+						for (int i = 0; i < transactionCount; i++) {
+							con.begin();
+							con.addStatement(f.createIRI(EX_NS, "person" + writer + "-" + i), RDF.TYPE, person);
+							con.commit();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(writerCount * transactionCount,
+					Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+		}
+	}
+
+	@Test
+	public void testSerializableConflict() throws Exception {
+		IRI alice = f.createIRI(EX_NS, "alice");
+		IRI bob = f.createIRI(EX_NS, "bob");
+
+		try (SailConnection con1 = store.getConnection(); SailConnection con2 = store.getConnection()) {
+			con1.begin(IsolationLevels.SERIALIZABLE);
+			assertFalse(con1.hasStatement(null, RDF.TYPE, person, false));
+			con1.addStatement(alice, RDF.TYPE, person);
+
+			con2.begin(IsolationLevels.SERIALIZABLE);
+			assertFalse(con2.hasStatement(null, RDF.TYPE, person, false));
+			con2.addStatement(bob, RDF.TYPE, person);
+			con2.commit();
+
+			try {
+				con1.commit();
+				fail("the observed state has been changed by a concurrent transaction");
+			} catch (SailConflictException e) {
+				con1.rollback();
+			}
+
+			assertTrue(con1.hasStatement(bob, RDF.TYPE, person, false));
+			assertFalse(con1.hasStatement(alice, RDF.TYPE, person, false));
+		}
+	}
+
+	@Test
+	public void testConflictDiscardsExplicitAndInferredChanges() throws Exception {
+		IRI alice = f.createIRI(EX_NS, "alice");
+		IRI bob = f.createIRI(EX_NS, "bob");
+		IRI agent = f.createIRI(EX_NS, "Agent");
+
+		try (MemoryStoreConnection con1 = (MemoryStoreConnection) store.getConnection();
+				SailConnection con2 = store.getConnection()) {
+			con1.begin(IsolationLevels.SERIALIZABLE);
+			assertFalse(con1.hasStatement(null, RDF.TYPE, person, false));
+			con1.addStatement(alice, RDF.TYPE, person);
+			con1.addInferredStatement(alice, RDF.TYPE, agent);
+			con1.prepare();
+
+			// a second writer commits after the first transaction has been validated, but before it is flushed
+			con2.begin(IsolationLevels.SERIALIZABLE);
+			con2.addStatement(bob, RDF.TYPE, person);
+			con2.commit();
+
+			try {
+				con1.commit();
+				fail("the observed state has been changed by a concurrent transaction");
+			} catch (SailConflictException e) {
+				con1.rollback();
+			}
+
+			assertTrue(con1.hasStatement(bob, RDF.TYPE, person, true));
+			assertFalse(con1.hasStatement(alice, RDF.TYPE, person, true));
+			assertFalse(con1.hasStatement(alice, RDF.TYPE, agent, true));
+		}
+	}
+}
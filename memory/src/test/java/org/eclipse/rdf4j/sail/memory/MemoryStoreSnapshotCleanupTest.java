@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryStoreSnapshotCleanupTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private static final int PERSON_COUNT = 10_000;
+
+	private MemoryStore store;
+
+	private ValueFactory f;
+
+	private IRI person;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new MemoryStore();
+		store.initialize();
+		f = store.getValueFactory();
+		person = f.createIRI(EX_NS, "Person");
+
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i++) {
+				con.addStatement(f.createIRI(EX_NS, "person" + i), RDF.TYPE, person);
+			}
+			con.commit();
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testReclaimedStatements() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			for (int i = 0; i < PERSON_COUNT; i += 2) {
+				con.removeStatements(f.createIRI(EX_NS, "person" + i), RDF.TYPE, person);
+			}
+			con.commit();
+
+			waitForCleanup(PERSON_COUNT / 2);
+			assertEquals(PERSON_COUNT / 2, store.getSnapshotCleanupStats().getReclaimedStatementCount());
+			assertEquals(PERSON_COUNT / 2, Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+
+			// removed statements can be added again
+			con.begin();
+			con.addStatement(f.createIRI(EX_NS, "person0"), RDF.TYPE, person);
+			con.removeStatements(f.createIRI(EX_NS, "person1"), RDF.TYPE, person);
+			con.commit();
+
+			waitForCleanup(PERSON_COUNT / 2 + 1);
+			assertEquals(PERSON_COUNT / 2, Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+		}
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.clear();
+			con.commit();
+
+			waitForCleanup(PERSON_COUNT);
+			assertEquals(0, Iterations.asList(con.getStatements(null, null, null, false)).size());
+		}
+	}
+
+	private void waitForCleanup(long reclaimedStatementCount) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			if (store.getSnapshotCleanupStats().getReclaimedStatementCount() >= reclaimedStatementCount) {
+				return;
+			}
+			Thread.sleep(10);
+		}
+	}
+}
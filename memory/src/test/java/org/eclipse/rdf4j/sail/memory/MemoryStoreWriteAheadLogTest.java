@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MemoryStoreWriteAheadLogTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File dataDir;
+
+	private MemoryStore store;
+
+	private ValueFactory f;
+
+	private IRI person;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = tempDir.newFolder("data");
+		store = createStore(dataDir);
+		f = store.getValueFactory();
+		person = f.createIRI(EX_NS, "Person");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testRecoverAfterCrash() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			for (int i = 0; i < 10; i++) {
+				con.begin();
+				con.addStatement(f.createIRI(EX_NS, "person" + i), RDF.TYPE, person);
+				con.commit();
+			}
+			con.begin();
+			con.removeStatements(f.createIRI(EX_NS, "person0"), RDF.TYPE, person);
+			con.setNamespace("ex", EX_NS);
+			con.commit();
+		}
+
+		// the data file has not been rewritten, the changes are only in the log
+		assertTrue(TransactionLog.exists(dataDir));
+
+		MemoryStore recovered = createStore(copyOf(dataDir));
+		try (SailConnection con = recovered.getConnection()) {
+			assertEquals(9, Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+			assertFalse(con.hasStatement(f.createIRI(EX_NS, "person0"), RDF.TYPE, person, false));
+			assertEquals(EX_NS, con.getNamespace("ex"));
+		} finally {
+			recovered.shutDown();
+		}
+	}
+
+	@Test
+	public void testIncompleteBatchIsIgnored() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.addStatement(f.createIRI(EX_NS, "alice"), RDF.TYPE, person);
+			con.commit();
+		}
+
+		File copy = copyOf(dataDir);
+		File[] logFiles = copy.listFiles((dir, name) -> name.endsWith(TransactionLog.FILE_SUFFIX));
+		assertEquals(1, logFiles.length);
+		try (OutputStream out = new FileOutputStream(logFiles[0], true)) {
+			// a batch that was being appended when the process died
+			out.write(new byte[] { 0, 0, 1, 0, 1, 2, 3 });
+		}
+
+		MemoryStore recovered = createStore(copy);
+		try (SailConnection con = recovered.getConnection()) {
+			assertTrue(con.hasStatement(f.createIRI(EX_NS, "alice"), RDF.TYPE, person, false));
+		} finally {
+			recovered.shutDown();
+		}
+	}
+
+	@Test
+	public void testCheckpoint() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.addStatement(f.createIRI(EX_NS, "alice"), RDF.TYPE, person);
+			con.commit();
+		}
+
+		store.sync();
+
+		// the log has been truncated, the data file contains all changes
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.addStatement(f.createIRI(EX_NS, "bob"), RDF.TYPE, person);
+			con.commit();
+		}
+		store.shutDown();
+		assertFalse(TransactionLog.exists(dataDir));
+
+		store = createStore(dataDir);
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(2, Iterations.asList(con.getStatements(null, RDF.TYPE, person, false)).size());
+		}
+	}
+
+	private MemoryStore createStore(File dir) throws Exception {
+		MemoryStore memoryStore = new MemoryStore(dir);
+		memoryStore.setWriteAheadLog(true);
+		memoryStore.initialize();
+		return memoryStore;
+	}
+
+	private File copyOf(File dir) throws Exception {
+		File copy = tempDir.newFolder();
+		for (File file : dir.listFiles()) {
+			if (file.isFile()) {
+				Files.copy(file.toPath(), new File(copy, file.getName()).toPath());
+			}
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.junit.Test;
+
+/**
+ * Unit tests for class {@link MemValueFactory}.
+ */
+public class MemValueFactoryTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private static final int VALUE_COUNT = 1000;
+
+	@Test
+	public void testConcurrentCreation() throws Exception {
+		MemValueFactory vf = new MemValueFactory();
+		int threadCount = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<List<Object>>> results = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					List<Object> values = new ArrayList<>();
+					for (int i = 0; i < VALUE_COUNT; i++) {
+						values.add(vf.createIRI(EX_NS, "value" + i));
+						values.add(vf.createLiteral("value" + i));
+						values.add(vf.createBNode("value" + i));
+					}
+					return values;
+				}));
+			}
+			start.countDown();
+
+			// all threads got the same instances
+			List<Object> expected = results.get(0).get();
+			for (Future<List<Object>> result : results) {
+				List<Object> values = result.get();
+				for (int i = 0; i < values.size(); i++) {
+					assertSame(expected.get(i), values.get(i));
+				}
+			}
+
+			assertEquals(VALUE_COUNT, vf.getMemURIs().size());
+			assertEquals(VALUE_COUNT, vf.getMemLiterals().size());
+			assertEquals(VALUE_COUNT, vf.getMemBNodes().size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testLookup() throws Exception {
+		MemValueFactory vf = new MemValueFactory();
+		IRI iri = vf.createIRI(EX_NS, "value");
+		Literal literal = vf.createLiteral(42);
+
+		assertSame(iri, vf.getMemURI(iri));
+		assertSame(iri, vf.getMemURI(new MemIRI(null, EX_NS, "value")));
+		assertSame(literal, vf.getMemLiteral(vf.createLiteral(42)));
+		assertNull(vf.getMemURI(new MemIRI(null, EX_NS, "other")));
+	}
+}
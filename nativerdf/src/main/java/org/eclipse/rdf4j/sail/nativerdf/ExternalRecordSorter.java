@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordComparator;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+
+/**
+ * Sorts an arbitrary number of fixed-size records using a bounded amount of memory. Records are collected in memory,
+ * sorted and written to a temporary run file whenever the buffer is full. The resulting sorted runs are then merged
+ * into a single sorted, duplicate-free {@link RecordCache}. Unlike {@link SequentialRecordCache}, run files are read
+ * and written through buffered streams, as they are only ever accessed sequentially.
+ */
+final class ExternalRecordSorter {
+
+	private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+	private final File tmpDir;
+
+	private final int recordSize;
+
+	private final Comparator<byte[]> comparator;
+
+	private final byte[][] buffer;
+
+	private int bufferedCount = 0;
+
+	private final List<RecordCache> runs = new ArrayList<>();
+
+	/**
+	 * @param tmpDir     The directory to store the sorted runs in.
+	 * @param recordSize The size of the records in bytes.
+	 * @param comparator The comparator that determines the sort order.
+	 * @param bufferSize The maximum number of records to keep in memory.
+	 */
+	public ExternalRecordSorter(File tmpDir, int recordSize, RecordComparator comparator, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive");
+		}
+		this.tmpDir = tmpDir;
+		this.recordSize = recordSize;
+		this.comparator = (r1, r2) -> comparator.compareBTreeValues(r1, r2, 0, recordSize);
+		this.buffer = new byte[bufferSize][];
+	}
+
+	/**
+	 * Adds a record to be sorted. The supplied array is retained and must not be modified afterwards.
+	 */
+	public void add(byte[] record) throws IOException {
+		buffer[bufferedCount++] = record;
+
+		if (bufferedCount == buffer.length) {
+			runs.add(writeRun());
+		}
+	}
+
+	/**
+	 * Adds all records returned by the supplied iterator. The iterator is not closed by this method.
+	 */
+	public void addAll(RecordIterator records) throws IOException {
+		byte[] record;
+		while ((record = records.next()) != null) {
+			add(record);
+		}
+	}
+
+	/**
+	 * Sorts all records that have been added. Records that are equal according to the comparator are only returned
+	 * once; the first occurrence is retained. This sorter can not be used anymore after calling this method.
+	 *
+	 * @return A record cache containing the sorted records. The caller is responsible for
+	 *         {@link RecordCache#discard() discarding} it.
+	 */
+	public RecordCache sort() throws IOException {
+		try {
+			if (bufferedCount > 0 || runs.isEmpty()) {
+				runs.add(writeRun());
+			}
+
+			if (runs.size() == 1) {
+				return runs.remove(0);
+			}
+
+			return merge(runs);
+		} finally {
+			discard();
+		}
+	}
+
+	/**
+	 * Discards all records that have been added, deleting any temporary files.
+	 */
+	public void discard() throws IOException {
+		Arrays.fill(buffer, 0, bufferedCount, null);
+		bufferedCount = 0;
+
+		try {
+			for (RecordCache run : runs) {
+				run.discard();
+			}
+		} finally {
+			runs.clear();
+		}
+	}
+
+	private RecordCache writeRun() throws IOException {
+		int count = bufferedCount;
+		bufferedCount = 0;
+
+		Arrays.sort(buffer, 0, count, comparator);
+
+		RunFile run = new RunFile(tmpDir, recordSize);
+		boolean success = false;
+		try {
+			byte[] previous = null;
+			for (int i = 0; i < count; i++) {
+				if (previous == null || comparator.compare(previous, buffer[i]) != 0) {
+					run.storeRecord(buffer[i]);
+					previous = buffer[i];
+				}
+				buffer[i] = null;
+			}
+			run.finishWriting();
+			success = true;
+			return run;
+		} finally {
+			if (!success) {
+				run.discard();
+			}
+		}
+	}
+
+	private RecordCache merge(List<RecordCache> runs) throws IOException {
+		RunFile result = new RunFile(tmpDir, recordSize);
+		boolean success = false;
+
+		PriorityQueue<RunHead> queue = new PriorityQueue<>(runs.size(),
+				(h1, h2) -> comparator.compare(h1.record, h2.record));
+		try {
+			for (RecordCache run : runs) {
+				RecordIterator iter = run.getRecords();
+				byte[] record = iter.next();
+				if (record != null) {
+					queue.add(new RunHead(iter, record));
+				} else {
+					iter.close();
+				}
+			}
+
+			byte[] previous = null;
+			while (!queue.isEmpty()) {
+				RunHead head = queue.poll();
+
+				if (previous == null || comparator.compare(previous, head.record) != 0) {
+					result.storeRecord(head.record);
+					previous = head.record;
+				}
+
+				head.record = head.iter.next();
+				if (head.record != null) {
+					queue.add(head);
+				} else {
+					head.iter.close();
+				}
+			}
+
+			result.finishWriting();
+			success = true;
+			return result;
+		} finally {
+			for (RunHead head : queue) {
+				head.iter.close();
+			}
+			if (!success) {
+				result.discard();
+			}
+		}
+	}
+
+	private static class RunHead {
+
+		private final RecordIterator iter;
+
+		private byte[] record;
+
+		public RunHead(RecordIterator iter, byte[] record) {
+			this.iter = iter;
+			this.record = record;
+		}
+	}
+
+	/**
+	 * A {@link RecordCache} that stores its records in a temporary file that is written and read sequentially.
+	 * {@link #finishWriting()} must be called before the records are read.
+	 */
+	private static final class RunFile extends RecordCache {
+
+		private final File file;
+
+		private final int recordSize;
+
+		private OutputStream out;
+
+		public RunFile(File dir, int recordSize) throws IOException {
+			this.file = File.createTempFile("sortrun", ".dat", dir);
+			this.recordSize = recordSize;
+			this.out = new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE);
+		}
+
+		public void finishWriting() throws IOException {
+			if (out != null) {
+				out.close();
+				out = null;
+			}
+		}
+
+		@Override
+		protected void storeRecordInternal(byte[] data) throws IOException {
+			out.write(data, 0, recordSize);
+		}
+
+		@Override
+		protected void clearInternal() throws IOException {
+			finishWriting();
+			out = new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE);
+		}
+
+		@Override
+		protected RecordIterator getRecordsInternal() {
+			assert out == null : "records must not be read before writing has finished";
+			return new RecordIterator() {
+
+				private DataInputStream in;
+
+				@Override
+				public byte[] next() throws IOException {
+					if (in == null) {
+						in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE));
+					}
+
+					int firstByte = in.read();
+					if (firstByte < 0) {
+						return null;
+					}
+
+					byte[] record = new byte[recordSize];
+					record[0] = (byte) firstByte;
+					try {
+						in.readFully(record, 1, recordSize - 1);
+					} catch (EOFException e) {
+						throw new IOException("Truncated record in " + file, e);
+					}
+					return record;
+				}
+
+				@Override
+				public void set(byte[] record) {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public void close() throws IOException {
+					if (in != null) {
+						in.close();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void discard() throws IOException {
+			try {
+				finishWriting();
+			} finally {
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.rdf4j.common.io.NioFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves reads of a {@link NioFile} from read-only memory mappings of the file, avoiding a system call for every read.
+ * All writes still go through the {@link NioFile}; as both use the operating system's page cache, written data is
+ * immediately visible through the mappings.
+ * <p>
+ * The file is mapped in segments of a fixed size, as a single mapping is limited to 2GB. Only the part of the file
+ * that existed at mapping time is mapped. Reads beyond the mapped area are delegated to the {@link NioFile}, and the
+ * last segment is remapped once the file has grown by a sufficient amount, so that files that are being appended to
+ * don't cause a new mapping for every read.
+ * <p>
+ * Reading a mapped region beyond the end of a file crashes the JVM, so a file that is read through this class must
+ * only be truncated through {@link #truncate(long)}. Reads of the mapped segments hold a shared lock;
+ * {@link #truncate(long)} takes the exclusive lock, shrinks the mapping and only then truncates the file. Segments
+ * that are no longer part of the mapping are unmapped right away rather than when they are garbage collected.
+ */
+public class MappedFileReader implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedFileReader.class);
+
+	/**
+	 * The default size of a mapped segment: 256MB.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+	/**
+	 * The minimum number of unmapped bytes that warrants remapping the file. The actual threshold grows with the size of
+	 * the mapped area to limit the number of mappings that are created for files that are being appended to.
+	 */
+	private static final long MIN_REMAP_SIZE = 1024 * 1024;
+
+	private final NioFile nioFile;
+
+	private final FileChannel channel;
+
+	private final int segmentSize;
+
+	/**
+	 * Guards the use of the mapped segments: reads hold the read lock while they access a segment, changes to the
+	 * mapping and truncation of the file require the write lock.
+	 */
+	private final ReentrantReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+	private Mapping mapping = Mapping.EMPTY;
+
+	public MappedFileReader(NioFile nioFile) throws IOException {
+		this(nioFile, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public MappedFileReader(NioFile nioFile, int segmentSize) throws IOException {
+		if (segmentSize <= 0) {
+			throw new IllegalArgumentException("segmentSize must be positive");
+		}
+		this.nioFile = nioFile;
+		this.segmentSize = segmentSize;
+		this.channel = FileChannel.open(nioFile.getFile().toPath(), StandardOpenOption.READ);
+	}
+
+	/**
+	 * Reads a sequence of bytes into the supplied buffer, starting at the specified file position.
+	 *
+	 * @return The number of bytes read, which is smaller than the number of remaining bytes in the buffer only if the
+	 *         end of the file was reached.
+	 * @see NioFile#read(ByteBuffer, long)
+	 */
+	public int read(ByteBuffer buf, long offset) throws IOException {
+		int length = buf.remaining();
+		Mapping m = lockMapping(offset + length);
+		try {
+			if (offset + length > m.length) {
+				return nioFile.read(buf, offset);
+			}
+
+			while (buf.hasRemaining()) {
+				int segmentIdx = (int) (offset / segmentSize);
+				int segmentOffset = (int) (offset % segmentSize);
+				int chunkLength = Math.min(buf.remaining(), segmentSize - segmentOffset);
+
+				ByteBuffer segment = m.segments[segmentIdx].duplicate();
+				segment.position(segmentOffset).limit(segmentOffset + chunkLength);
+				buf.put(segment);
+				offset += chunkLength;
+			}
+
+			return length;
+		} finally {
+			mappingLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reads <tt>length</tt> bytes starting at the specified file position.
+	 *
+	 * @see NioFile#readBytes(long, int)
+	 */
+	public byte[] readBytes(long offset, int length) throws IOException {
+		byte[] result = new byte[length];
+		read(ByteBuffer.wrap(result), offset);
+		return result;
+	}
+
+	/**
+	 * Reads an integer value from the specified file position.
+	 *
+	 * @see NioFile#readInt(long)
+	 */
+	public int readInt(long offset) throws IOException {
+		Mapping m = lockMapping(offset + 4);
+		try {
+			int segmentOffset = (int) (offset % segmentSize);
+
+			if (offset + 4 > m.length || segmentOffset + 4 > segmentSize) {
+				return nioFile.readInt(offset);
+			}
+
+			return m.segments[(int) (offset / segmentSize)].getInt(segmentOffset);
+		} finally {
+			mappingLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Reads a long value from the specified file position.
+	 *
+	 * @see NioFile#readLong(long)
+	 */
+	public long readLong(long offset) throws IOException {
+		Mapping m = lockMapping(offset + 8);
+		try {
+			int segmentOffset = (int) (offset % segmentSize);
+
+			if (offset + 8 > m.length || segmentOffset + 8 > segmentSize) {
+				return nioFile.readLong(offset);
+			}
+
+			return m.segments[(int) (offset / segmentSize)].getLong(segmentOffset);
+		} finally {
+			mappingLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Truncates the file to the specified size. The mapping is shrunk before the file is truncated, while no read of
+	 * a mapped segment is in progress, and the segments that are dropped from the mapping are unmapped.
+	 *
+	 * @see NioFile#truncate(long)
+	 */
+	public void truncate(long fileSize) throws IOException {
+		mappingLock.writeLock().lock();
+		try {
+			Mapping m = mapping;
+			if (fileSize < m.length) {
+				// the last remaining segment is only partially covered by the new file size, drop it too
+				int segmentCount = (int) (fileSize / segmentSize);
+				for (int i = segmentCount; i < m.segments.length; i++) {
+					unmap(m.segments[i]);
+				}
+				mapping = new Mapping(Arrays.copyOf(m.segments, segmentCount), (long) segmentCount * segmentSize);
+			}
+			nioFile.truncate(fileSize);
+		} finally {
+			mappingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Unmaps all segments and closes the channel that is used for mapping the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		mappingLock.writeLock().lock();
+		try {
+			for (MappedByteBuffer segment : mapping.segments) {
+				unmap(segment);
+			}
+			mapping = Mapping.EMPTY;
+			channel.close();
+		} finally {
+			mappingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Acquires the read lock and gets the current mapping, remapping the file if the requested position is not mapped
+	 * and the file has grown sufficiently since it was last mapped. The caller must release the read lock after it
+	 * is done with the returned mapping.
+	 */
+	private Mapping lockMapping(long requiredLength) throws IOException {
+		mappingLock.readLock().lock();
+		Mapping m = mapping;
+		if (requiredLength <= m.length || !shouldRemap(m, requiredLength)) {
+			return m;
+		}
+
+		mappingLock.readLock().unlock();
+		mappingLock.writeLock().lock();
+		try {
+			m = mapping;
+			if (requiredLength > m.length && shouldRemap(m, requiredLength)) {
+				m = mapping = remap(m, channel.size());
+			}
+			// downgrade to the read lock
+			mappingLock.readLock().lock();
+		} finally {
+			mappingLock.writeLock().unlock();
+		}
+		return m;
+	}
+
+	private boolean shouldRemap(Mapping m, long requiredLength) throws IOException {
+		long fileSize = channel.size();
+		long remapThreshold = Math.min(segmentSize, Math.max(MIN_REMAP_SIZE, m.length / 8));
+		return fileSize >= requiredLength && (m.length == 0 || fileSize - m.length >= remapThreshold);
+	}
+
+	/**
+	 * Maps the file up to the specified size. Must be called while holding the write lock.
+	 */
+	private Mapping remap(Mapping m, long fileSize) throws IOException {
+		int segmentCount = (int) ((fileSize + segmentSize - 1) / segmentSize);
+		MappedByteBuffer[] segments = Arrays.copyOf(m.segments, segmentCount);
+
+		// all segments except the last one of the previous mapping are complete and can be reused
+		int firstSegmentIdx = m.segments.length == 0 ? 0 : m.segments.length - 1;
+		for (int i = firstSegmentIdx; i < segmentCount; i++) {
+			long position = (long) i * segmentSize;
+			long size = Math.min(segmentSize, fileSize - position);
+			segments[i] = channel.map(MapMode.READ_ONLY, position, size);
+		}
+		if (firstSegmentIdx < m.segments.length) {
+			// the replaced segment is no longer reachable through the mapping
+			unmap(m.segments[firstSegmentIdx]);
+		}
+
+		return new Mapping(segments, fileSize);
+	}
+
+	/*------------------*
+	 * Unmapping buffers *
+	 *------------------*/
+
+	private static final Object UNSAFE;
+
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			// Java 9+
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Java 8, buffers are unmapped through their cleaner
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	/**
+	 * Releases the mapping of the specified buffer. If the JVM does not allow this, the mapping is released when the
+	 * buffer is garbage collected. The buffer must not be accessed afterwards.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.debug("Unable to unmap buffer, leaving it to the garbage collector", e);
+		}
+	}
+
+	/**
+	 * An immutable set of mapped segments covering the first <tt>length</tt> bytes of the file.
+	 */
+	private static final class Mapping {
+
+		static final Mapping EMPTY = new Mapping(new MappedByteBuffer[0], 0L);
+
+		final MappedByteBuffer[] segments;
+
+		final long length;
+
+		Mapping(MappedByteBuffer[] segments, long length) {
+			this.segments = segments;
+			this.length = length;
+		}
+	}
+}
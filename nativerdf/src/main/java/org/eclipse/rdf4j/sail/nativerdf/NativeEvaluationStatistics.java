@@ -8,18 +8,27 @@
 package org.eclipse.rdf4j.sail.nativerdf;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Estimates cardinalities using the {@link TripleStatistics} of the triple store where possible, falling back to
+ * estimates from the triple indexes otherwise.
+ * 
  * @author Arjohn Kampman
  * @author Enrico Minack
  */
@@ -78,38 +87,143 @@ class NativeEvaluationStatistics extends EvaluationStatistics {
 	}
 
 	private double cardinality(Resource subj, IRI pred, Value obj, Resource context) throws IOException {
-		int subjID = NativeValue.UNKNOWN_ID;
-		if (subj != null) {
-			subjID = valueStore.getID(subj);
-			if (subjID == NativeValue.UNKNOWN_ID) {
+		// Resolve the IDs of all bound values in a single batch
+		Value[] values = new Value[] { subj, pred, obj, context };
+		int[] ids = valueStore.getIDs(values);
+
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && ids[i] == NativeValue.UNKNOWN_ID) {
 				return 0;
 			}
 		}
 
-		int predID = NativeValue.UNKNOWN_ID;
-		if (pred != null) {
-			predID = valueStore.getID(pred);
-			if (predID == NativeValue.UNKNOWN_ID) {
-				return 0;
+		int subjID = ids[0];
+		int predID = ids[1];
+		int objID = ids[2];
+		int contextID = ids[3];
+
+		TripleStatistics statistics = tripleStore.getStatistics();
+		if (statistics != null && contextID == NativeValue.UNKNOWN_ID && subjID == NativeValue.UNKNOWN_ID) {
+			if (predID == NativeValue.UNKNOWN_ID && objID == NativeValue.UNKNOWN_ID) {
+				return statistics.getTripleCount();
+			} else if (objID == NativeValue.UNKNOWN_ID) {
+				return statistics.getPredicateCount(predID);
+			} else if (predID != NativeValue.UNKNOWN_ID) {
+				long objectCount = statistics.getObjectCount(predID, objID);
+				if (objectCount >= 0) {
+					return objectCount;
+				}
 			}
 		}
 
-		int objID = NativeValue.UNKNOWN_ID;
-		if (obj != null) {
-			objID = valueStore.getID(obj);
-			if (objID == NativeValue.UNKNOWN_ID) {
+		return tripleStore.cardinality(subjID, predID, objID, contextID);
+	}
+
+	/**
+	 * Estimates the number of results of a statement pattern with a constant predicate per binding set of the
+	 * variables that are bound by the preceding join arguments. The number of triples per subject is estimated from
+	 * the characteristic sets of the subjects if the subject variable is also the subject of preceding statement
+	 * patterns; these capture the correlation between the predicates that are used with the same subjects.
+	 */
+	@Override
+	public double getJoinCardinality(TupleExpr expr, List<TupleExpr> precedingArgs, Set<String> boundVars) {
+		TripleStatistics statistics = tripleStore.getStatistics();
+		if (statistics == null || !(expr instanceof StatementPattern)) {
+			return -1;
+		}
+
+		StatementPattern sp = (StatementPattern) expr;
+		Var subjVar = sp.getSubjectVar();
+		Var objVar = sp.getObjectVar();
+		Value pred = sp.getPredicateVar().getValue();
+		if (!(pred instanceof IRI) || sp.getContextVar() != null && sp.getContextVar().hasValue()) {
+			return -1;
+		}
+
+		boolean subjJoined = !subjVar.hasValue() && boundVars.contains(subjVar.getName());
+		boolean objJoined = !objVar.hasValue() && boundVars.contains(objVar.getName());
+		if (!subjJoined && !objJoined) {
+			// The cardinality does not depend on the preceding join arguments
+			return -1;
+		}
+
+		try {
+			int[] ids = valueStore.getIDs(new Value[] { subjVar.getValue(), pred, objVar.getValue() });
+			if (ids[1] == NativeValue.UNKNOWN_ID || subjVar.hasValue() && ids[0] == NativeValue.UNKNOWN_ID
+					|| objVar.hasValue() && ids[2] == NativeValue.UNKNOWN_ID) {
 				return 0;
 			}
-		}
+			int predID = ids[1];
 
-		int contextID = NativeValue.UNKNOWN_ID;
-		if (context != null) {
-			contextID = valueStore.getID(context);
-			if (contextID == NativeValue.UNKNOWN_ID) {
+			double predCount = statistics.getPredicateCount(predID);
+			if (predCount == 0) {
 				return 0;
 			}
+
+			// The number of triples per subject and the selectivity of the object
+			double subjFanout;
+			double objSelectivity;
+
+			if (subjJoined) {
+				subjFanout = -1;
+				int[] subjectPreds = getSubjectPredicates(subjVar.getName(), precedingArgs);
+				if (subjectPreds.length > 0) {
+					subjFanout = statistics.getSubjectFanout(subjectPreds, predID);
+				}
+				if (subjFanout < 0) {
+					subjFanout = predCount / statistics.getDistinctSubjectCount(predID);
+				}
+			} else if (subjVar.hasValue()) {
+				subjFanout = tripleStore.cardinality(ids[0], predID, NativeValue.UNKNOWN_ID, NativeValue.UNKNOWN_ID);
+			} else {
+				subjFanout = predCount;
+			}
+
+			if (objJoined) {
+				objSelectivity = 1 / statistics.getDistinctObjectCount(predID);
+			} else if (objVar.hasValue()) {
+				long objectCount = statistics.getObjectCount(predID, ids[2]);
+				if (objectCount < 0) {
+					objSelectivity = tripleStore.cardinality(NativeValue.UNKNOWN_ID, predID, ids[2],
+							NativeValue.UNKNOWN_ID) / predCount;
+				} else {
+					objSelectivity = objectCount / predCount;
+				}
+			} else {
+				objSelectivity = 1;
+			}
+
+			return subjFanout * Math.min(objSelectivity, 1);
+		} catch (IOException e) {
+			log.error("Failed to estimate join cardinality, falling back to generic implementation", e);
+			return -1;
 		}
+	}
 
-		return tripleStore.cardinality(subjID, predID, objID, contextID);
+	/**
+	 * Gets the IDs of the constant predicates of the statement patterns in the supplied join arguments that have the
+	 * specified variable as their subject.
+	 */
+	private int[] getSubjectPredicates(String subjVarName, List<TupleExpr> joinArgs) throws IOException {
+		List<Value> preds = new ArrayList<>();
+		for (TupleExpr joinArg : joinArgs) {
+			for (StatementPattern sp : StatementPatternCollector.process(joinArg)) {
+				Var subjVar = sp.getSubjectVar();
+				Value pred = sp.getPredicateVar().getValue();
+				if (!subjVar.hasValue() && subjVar.getName().equals(subjVarName) && pred instanceof IRI) {
+					preds.add(pred);
+				}
+			}
+		}
+
+		int[] ids = valueStore.getIDs(preds.toArray(new Value[preds.size()]));
+		int[] predIDs = new int[ids.length];
+		int predCount = 0;
+		for (int id : ids) {
+			if (id != NativeValue.UNKNOWN_ID) {
+				predIDs[predCount++] = id;
+			}
+		}
+		return Arrays.copyOf(predIDs, predCount);
 	}
 }
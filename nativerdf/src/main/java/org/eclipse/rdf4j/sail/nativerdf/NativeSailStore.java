@@ -11,9 +11,15 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.rdf4j.IsolationLevel;
@@ -21,10 +27,12 @@ import org.eclipse.rdf4j.OpenRDFUtil;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
 import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
+import org.eclipse.rdf4j.common.iteration.DelayedIteration;
 import org.eclipse.rdf4j.common.iteration.DistinctIteration;
 import org.eclipse.rdf4j.common.iteration.EmptyIteration;
 import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
 import org.eclipse.rdf4j.common.iteration.FilterIteration;
+import org.eclipse.rdf4j.common.iteration.Iteration;
 import org.eclipse.rdf4j.common.iteration.ReducedIteration;
 import org.eclipse.rdf4j.common.iteration.UnionIteration;
 import org.eclipse.rdf4j.model.IRI;
@@ -33,7 +41,9 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.base.BackingSailSource;
 import org.eclipse.rdf4j.sail.base.SailDataset;
@@ -72,6 +82,56 @@ class NativeSailStore implements SailStore {
 	 */
 	private final AtomicBoolean storeTxnStarted = new AtomicBoolean(false);
 
+	/**
+	 * Flag indicating whether statements should be returned with lazy values.
+	 */
+	private volatile boolean lazyValues = false;
+
+	/**
+	 * The number of connections that are flushing the changes of a transaction as part of a group commit, guarded by
+	 * {@link #sinkStoreAccessLock}. Sinks don't commit their changes while this number is positive.
+	 */
+	private int groupCommitCount = 0;
+
+	/**
+	 * The number of sinks that have written changes to the stores that they have not flushed yet, guarded by
+	 * {@link #sinkStoreAccessLock}. The stores are only committed when this number is zero, so that a commit never
+	 * includes part of the changes of a transaction.
+	 */
+	private int activeSinkCount = 0;
+
+	/**
+	 * The number of threads that are waiting to commit the stores, guarded by {@link #sinkStoreAccessLock}. Sinks don't
+	 * start writing changes while this number is positive, so that a commit is not postponed indefinitely.
+	 */
+	private int waitingCommitCount = 0;
+
+	/**
+	 * Flag indicating whether a thread is committing the stores, guarded by {@link #sinkStoreAccessLock}. The lock is
+	 * released while the stores are synced to disk; sinks don't access the stores while this flag is set.
+	 */
+	private boolean committing = false;
+
+	/**
+	 * The number of sink flushes, guarded by {@link #sinkStoreAccessLock}.
+	 */
+	private long flushCount = 0;
+
+	/**
+	 * The number of sink flushes of which the changes have been committed, guarded by {@link #sinkStoreAccessLock}.
+	 */
+	private long committedFlushCount = 0;
+
+	/**
+	 * The number of times the stores have been committed, guarded by {@link #sinkStoreAccessLock}.
+	 */
+	private long commitCount = 0;
+
+	/**
+	 * Signalled when a sink has flushed its changes or when a commit has finished.
+	 */
+	private final Condition sinkStoreChanged = sinkStoreAccessLock.newCondition();
+
 	/**
 	 * Creates a new {@link NativeSailStore} with the default cache sizes.
 	 */
@@ -85,12 +145,32 @@ class NativeSailStore implements SailStore {
 	 */
 	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, int valueCacheSize,
 			int valueIDCacheSize, int namespaceCacheSize, int namespaceIDCacheSize) throws IOException, SailException {
+		this(dataDir, tripleIndexes, forceSync, false, valueCacheSize, valueIDCacheSize, namespaceCacheSize,
+				namespaceIDCacheSize);
+	}
+
+	/**
+	 * Creates a new {@link NativeSailStore}, optionally applying transaction changes to the triple indexes in parallel.
+	 */
+	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, boolean parallelCommit,
+			int valueCacheSize, int valueIDCacheSize, int namespaceCacheSize, int namespaceIDCacheSize)
+			throws IOException, SailException {
+		this(dataDir, tripleIndexes, forceSync, parallelCommit, false, valueCacheSize, valueIDCacheSize,
+				namespaceCacheSize, namespaceIDCacheSize);
+	}
+
+	/**
+	 * Creates a new {@link NativeSailStore}, optionally reading the value and index files using memory mappings.
+	 */
+	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, boolean parallelCommit,
+			boolean memoryMapped, int valueCacheSize, int valueIDCacheSize, int namespaceCacheSize,
+			int namespaceIDCacheSize) throws IOException, SailException {
 		boolean initialized = false;
 		try {
 			namespaceStore = new NamespaceStore(dataDir);
-			valueStore = new ValueStore(dataDir, forceSync, valueCacheSize, valueIDCacheSize, namespaceCacheSize,
-					namespaceIDCacheSize);
-			tripleStore = new TripleStore(dataDir, tripleIndexes, forceSync);
+			valueStore = new ValueStore(dataDir, forceSync, memoryMapped, valueCacheSize, valueIDCacheSize,
+					namespaceCacheSize, namespaceIDCacheSize);
+			tripleStore = new TripleStore(dataDir, tripleIndexes, forceSync, parallelCommit, memoryMapped);
 			initialized = true;
 		} finally {
 			if (!initialized) {
@@ -99,6 +179,142 @@ class NativeSailStore implements SailStore {
 		}
 	}
 
+	/**
+	 * Specifies whether the statements that are returned by this store should contain lazy values, of which the
+	 * contents are only loaded from the value store when they are accessed.
+	 * 
+	 * @see ValueStore#getLazyValue(int)
+	 */
+	void setLazyValues(boolean lazyValues) {
+		this.lazyValues = lazyValues;
+	}
+
+	/**
+	 * Registers a connection that is about to flush the changes of a transaction. Until the connection calls
+	 * {@link #finishGroupCommit()}, the sinks of all connections leave their changes uncommitted in the stores.
+	 */
+	void startGroupCommit() {
+		sinkStoreAccessLock.lock();
+		try {
+			groupCommitCount++;
+		} finally {
+			sinkStoreAccessLock.unlock();
+		}
+	}
+
+	/**
+	 * Unregisters a connection that has flushed the changes of a transaction and waits until these changes have been
+	 * committed. If no other connection is committing, this connection commits all changes that have been flushed so
+	 * far, including those of other connections. Otherwise it waits for that commit to finish, after which the
+	 * changes that were flushed in the meantime are committed together by one of the waiting connections.
+	 */
+	void finishGroupCommit() throws SailException {
+		sinkStoreAccessLock.lock();
+		try {
+			groupCommitCount--;
+			commitFlushedChanges(flushCount);
+		} finally {
+			sinkStoreAccessLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of times the changes of the sinks have been committed to disk.
+	 */
+	long getCommitCount() {
+		sinkStoreAccessLock.lock();
+		try {
+			return commitCount;
+		} finally {
+			sinkStoreAccessLock.unlock();
+		}
+	}
+
+	/**
+	 * Acquires {@link #sinkStoreAccessLock} to let the specified sink write changes to the stores. If the sink has no
+	 * unflushed changes yet, this waits until no commit is running or waiting.
+	 */
+	private void lockStores(NativeSailSink sink) {
+		sinkStoreAccessLock.lock();
+		if (!sink.active) {
+			while (committing || waitingCommitCount > 0) {
+				sinkStoreChanged.awaitUninterruptibly();
+			}
+			sink.active = true;
+			activeSinkCount++;
+		}
+	}
+
+	/**
+	 * Marks the unflushed changes of the specified sink, if any, as complete. Must be called while holding
+	 * {@link #sinkStoreAccessLock}.
+	 */
+	private void releaseStores(NativeSailSink sink) {
+		if (sink.active) {
+			sink.active = false;
+			activeSinkCount--;
+			sinkStoreChanged.signalAll();
+		}
+	}
+
+	/**
+	 * Commits the changes of the specified number of sink flushes, unless they have been committed already. The commit
+	 * waits until all sinks have flushed the changes that they have written, so that it only includes complete
+	 * transactions. The value and namespace stores are synced and the triple store is committed without holding
+	 * {@link #sinkStoreAccessLock}. Must be called while holding that lock.
+	 */
+	private void commitFlushedChanges(long flushed) throws SailException {
+		waitingCommitCount++;
+		try {
+			while (committedFlushCount < flushed && (committing || activeSinkCount > 0)) {
+				sinkStoreChanged.awaitUninterruptibly();
+			}
+		} finally {
+			waitingCommitCount--;
+			if (waitingCommitCount == 0) {
+				sinkStoreChanged.signalAll();
+			}
+		}
+		if (committedFlushCount >= flushed) {
+			return;
+		}
+
+		long committed = flushCount;
+		boolean success = false;
+		committing = true;
+		sinkStoreAccessLock.unlock();
+		try {
+			try {
+				valueStore.sync();
+			} finally {
+				try {
+					namespaceStore.sync();
+				} finally {
+					if (storeTxnStarted.get()) {
+						tripleStore.commit();
+						// do not set flag to false until _after_ commit is succesfully completed.
+						storeTxnStarted.set(false);
+					}
+				}
+			}
+			success = true;
+		} catch (IOException e) {
+			logger.error("Encountered an unexpected problem while trying to commit", e);
+			throw new SailException(e);
+		} catch (RuntimeException e) {
+			logger.error("Encountered an unexpected problem while trying to commit", e);
+			throw e;
+		} finally {
+			sinkStoreAccessLock.lock();
+			committing = false;
+			if (success) {
+				committedFlushCount = committed;
+				commitCount++;
+			}
+			sinkStoreChanged.signalAll();
+		}
+	}
+
 	@Override
 	public ValueFactory getValueFactory() {
 		return valueStore;
@@ -178,39 +394,139 @@ class NativeSailStore implements SailStore {
 	 */
 	CloseableIteration<? extends Statement, SailException> createStatementIterator(Resource subj, IRI pred, Value obj,
 			boolean explicit, Resource... contexts) throws IOException {
-		int subjID = NativeValue.UNKNOWN_ID;
-		if (subj != null) {
-			subjID = valueStore.getID(subj);
-			if (subjID == NativeValue.UNKNOWN_ID) {
+		// Resolve the IDs of all bound values in a single batch
+		Value[] values = new Value[3 + contexts.length];
+		values[0] = subj;
+		values[1] = pred;
+		values[2] = obj;
+		System.arraycopy(contexts, 0, values, 3, contexts.length);
+		int[] ids = valueStore.getIDs(values);
+
+		for (int i = 0; i < 3; i++) {
+			if (values[i] != null && ids[i] == NativeValue.UNKNOWN_ID) {
 				return new EmptyIteration<>();
 			}
 		}
 
-		int predID = NativeValue.UNKNOWN_ID;
-		if (pred != null) {
-			predID = valueStore.getID(pred);
-			if (predID == NativeValue.UNKNOWN_ID) {
-				return new EmptyIteration<>();
+		int subjID = ids[0];
+		int predID = ids[1];
+		int objID = ids[2];
+
+		List<Integer> contextIDList = getContextIDs(contexts, ids, 3);
+
+		ArrayList<NativeStatementIterator> perContextIterList = new ArrayList<>(contextIDList.size());
+
+		for (int contextID : contextIDList) {
+			RecordIterator btreeIter = tripleStore.getTriples(subjID, predID, objID, contextID, explicit, false);
+
+			perContextIterList.add(new NativeStatementIterator(btreeIter, valueStore, lazyValues));
+		}
+
+		if (perContextIterList.size() == 1) {
+			return perContextIterList.get(0);
+		} else {
+			return new UnionIteration<>(perContextIterList);
+		}
+	}
+
+	/**
+	 * Creates a statement iterator over the statements that match any of the supplied patterns. The values of all
+	 * patterns are resolved in a single batch and patterns with values that are not stored are skipped. The remaining
+	 * patterns are looked up in the order of the triple index that serves them, so that consecutive lookups read
+	 * neighbouring parts of the index.
+	 * 
+	 * @param patterns The subject, predicate and object of each pattern, where <tt>null</tt> indicates a wildcard.
+	 * @param contexts The context(s) of the patterns.
+	 * @see #createStatementIterator(Resource, IRI, Value, boolean, Resource...)
+	 */
+	CloseableIteration<? extends Statement, SailException> createStatementIterator(List<Value[]> patterns,
+			boolean explicit, Resource... contexts) throws IOException {
+		// Resolve the IDs of the values of all patterns in a single batch
+		Value[] values = new Value[3 * patterns.size() + contexts.length];
+		for (int i = 0; i < patterns.size(); i++) {
+			System.arraycopy(patterns.get(i), 0, values, 3 * i, 3);
+		}
+		System.arraycopy(contexts, 0, values, 3 * patterns.size(), contexts.length);
+		int[] ids = valueStore.getIDs(values);
+
+		List<Integer> contextIDList = getContextIDs(contexts, ids, 3 * patterns.size());
+
+		List<int[]> lookups = new ArrayList<>(patterns.size() * contextIDList.size());
+		for (int i = 0; i < patterns.size(); i++) {
+			Value[] pattern = patterns.get(i);
+			if (pattern[0] != null && !(pattern[0] instanceof Resource)
+					|| pattern[1] != null && !(pattern[1] instanceof IRI) || hasUnknownID(values, ids, 3 * i)) {
+				continue;
+			}
+			for (int contextID : contextIDList) {
+				lookups.add(new int[] { ids[3 * i], ids[3 * i + 1], ids[3 * i + 2], contextID });
 			}
 		}
 
-		int objID = NativeValue.UNKNOWN_ID;
-		if (obj != null) {
-			objID = valueStore.getID(obj);
-			if (objID == NativeValue.UNKNOWN_ID) {
-				return new EmptyIteration<>();
+		if (lookups.isEmpty()) {
+			return new EmptyIteration<>();
+		}
+
+		// all patterns have wildcards at the same positions and are served by the same index
+		int[] first = lookups.get(0);
+		char[] fieldSeq = tripleStore.getIndexFieldSeq(first[0], first[1], first[2], first[3]);
+		lookups.sort((lookup1, lookup2) -> {
+			for (char field : fieldSeq) {
+				int idx = "spoc".indexOf(field);
+				int result = Integer.compare(lookup1[idx], lookup2[idx]);
+				if (result != 0) {
+					return result;
+				}
 			}
+			return 0;
+		});
+
+		List<DelayedIteration<Statement, SailException>> iterList = new ArrayList<>(lookups.size());
+		for (int[] lookup : lookups) {
+			iterList.add(new DelayedIteration<Statement, SailException>() {
+
+				@Override
+				protected Iteration<? extends Statement, ? extends SailException> createIteration()
+						throws SailException {
+					try {
+						RecordIterator btreeIter = tripleStore.getTriples(lookup[0], lookup[1], lookup[2], lookup[3],
+								explicit, false);
+						return new NativeStatementIterator(btreeIter, valueStore, lazyValues);
+					} catch (IOException e) {
+						throw new SailException("Unable to get statements", e);
+					}
+				}
+			});
 		}
+		return new UnionIteration<>(iterList);
+	}
 
+	private boolean hasUnknownID(Value[] values, int[] ids, int offset) {
+		for (int i = offset; i < offset + 3; i++) {
+			if (values[i] != null && ids[i] == NativeValue.UNKNOWN_ID) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the IDs of the contexts of a pattern from the IDs that have been resolved for them, skipping contexts that
+	 * are not stored.
+	 * 
+	 * @param offset The position of the ID of the first context in <tt>ids</tt>.
+	 * @return The context IDs, which is a single wildcard if no contexts are specified.
+	 */
+	private List<Integer> getContextIDs(Resource[] contexts, int[] ids, int offset) {
 		List<Integer> contextIDList = new ArrayList<>(contexts.length);
 		if (contexts.length == 0) {
 			contextIDList.add(NativeValue.UNKNOWN_ID);
 		} else {
-			for (Resource context : contexts) {
-				if (context == null) {
+			for (int i = 0; i < contexts.length; i++) {
+				if (contexts[i] == null) {
 					contextIDList.add(0);
 				} else {
-					int contextID = valueStore.getID(context);
+					int contextID = ids[offset + i];
 
 					if (contextID != NativeValue.UNKNOWN_ID) {
 						contextIDList.add(contextID);
@@ -218,55 +534,113 @@ class NativeSailStore implements SailStore {
 				}
 			}
 		}
+		return contextIDList;
+	}
 
-		ArrayList<NativeStatementIterator> perContextIterList = new ArrayList<>(contextIDList.size());
-
-		for (int contextID : contextIDList) {
-			RecordIterator btreeIter = tripleStore.getTriples(subjID, predID, objID, contextID, explicit, false);
+	/**
+	 * Creates a statement iterator that returns the statements sorted on the internal IDs of the values at the
+	 * specified position.
+	 * 
+	 * @return The sorted statements, or <tt>null</tt> if none of the triple indexes returns the statements in that
+	 *         order.
+	 */
+	CloseableIteration<? extends Statement, SailException> createSortedStatementIterator(StatementOrder order,
+			Resource subj, IRI pred, Value obj, boolean explicit, Resource... contexts) throws IOException {
+		if (contexts.length > 1) {
+			// the statements of the different contexts would have to be merged
+			return null;
+		}
 
-			perContextIterList.add(new NativeStatementIterator(btreeIter, valueStore));
+		int[] ids = getPatternIDs(subj, pred, obj, contexts);
+		if (ids == null) {
+			return new EmptyIteration<>();
 		}
 
-		if (perContextIterList.size() == 1) {
-			return perContextIterList.get(0);
-		} else {
-			return new UnionIteration<>(perContextIterList);
+		RecordIterator btreeIter = tripleStore.getTriplesSortedBy(getSortField(order), ids[0], ids[1], ids[2], ids[3],
+				explicit);
+		if (btreeIter == null) {
+			return null;
 		}
+		return new NativeStatementIterator(btreeIter, valueStore, lazyValues);
 	}
 
-	double cardinality(Resource subj, IRI pred, Value obj, Resource context) throws IOException {
-		int subjID = NativeValue.UNKNOWN_ID;
-		if (subj != null) {
-			subjID = valueStore.getID(subj);
-			if (subjID == NativeValue.UNKNOWN_ID) {
-				return 0;
-			}
+	/**
+	 * Gets the orders in which {@link #createSortedStatementIterator} can return the statements that match the
+	 * specified pattern.
+	 */
+	Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws IOException {
+		if (contexts.length > 1) {
+			return Collections.emptySet();
 		}
 
-		int predID = NativeValue.UNKNOWN_ID;
-		if (pred != null) {
-			predID = valueStore.getID(pred);
-			if (predID == NativeValue.UNKNOWN_ID) {
-				return 0;
+		int[] ids = getPatternIDs(subj, pred, obj, contexts);
+		if (ids == null) {
+			// no statements match, which is true in any order
+			return EnumSet.allOf(StatementOrder.class);
+		}
+
+		Set<StatementOrder> orders = EnumSet.noneOf(StatementOrder.class);
+		for (StatementOrder order : StatementOrder.values()) {
+			if (tripleStore.isSortable(getSortField(order), ids[0], ids[1], ids[2], ids[3])) {
+				orders.add(order);
 			}
 		}
+		return orders;
+	}
 
-		int objID = NativeValue.UNKNOWN_ID;
-		if (obj != null) {
-			objID = valueStore.getID(obj);
-			if (objID == NativeValue.UNKNOWN_ID) {
-				return 0;
+	/**
+	 * Resolves the IDs of the values of a pattern with at most one context.
+	 * 
+	 * @return The IDs of the subject, predicate, object and context, or <tt>null</tt> if one of the values is not
+	 *         stored.
+	 */
+	private int[] getPatternIDs(Resource subj, IRI pred, Value obj, Resource... contexts) throws IOException {
+		Value[] values = new Value[] { subj, pred, obj, contexts.length == 0 ? null : contexts[0] };
+		int[] ids = valueStore.getIDs(values);
+
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && ids[i] == NativeValue.UNKNOWN_ID) {
+				return null;
 			}
 		}
 
-		int contextID = NativeValue.UNKNOWN_ID;
-		if (context != null) {
-			contextID = valueStore.getID(context);
-			if (contextID == NativeValue.UNKNOWN_ID) {
+		if (contexts.length == 1 && contexts[0] == null) {
+			// the default graph
+			ids[3] = 0;
+		}
+		return ids;
+	}
+
+	private char getSortField(StatementOrder order) {
+		switch (order) {
+		case SUBJECT:
+			return 's';
+		case PREDICATE:
+			return 'p';
+		case OBJECT:
+			return 'o';
+		default:
+			return 'c';
+		}
+	}
+
+	double cardinality(Resource subj, IRI pred, Value obj, Resource context) throws IOException {
+		// Resolve the IDs of all bound values in a single batch
+		Value[] values = new Value[] { subj, pred, obj, context };
+		int[] ids = valueStore.getIDs(values);
+
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && ids[i] == NativeValue.UNKNOWN_ID) {
 				return 0;
 			}
 		}
 
+		int subjID = ids[0];
+		int predID = ids[1];
+		int objID = ids[2];
+		int contextID = ids[3];
+
 		return tripleStore.cardinality(subjID, predID, objID, contextID);
 	}
 
@@ -299,13 +673,24 @@ class NativeSailStore implements SailStore {
 
 		private final boolean explicit;
 
+		/**
+		 * Flag indicating whether this sink has written changes to the stores that it has not flushed yet, guarded
+		 * by {@link NativeSailStore#sinkStoreAccessLock}.
+		 */
+		boolean active = false;
+
 		public NativeSailSink(boolean explicit) throws SailException {
 			this.explicit = explicit;
 		}
 
 		@Override
 		public void close() {
-			// no-op
+			sinkStoreAccessLock.lock();
+			try {
+				releaseStores(this);
+			} finally {
+				sinkStoreAccessLock.unlock();
+			}
 		}
 
 		@Override
@@ -317,25 +702,12 @@ class NativeSailStore implements SailStore {
 		public synchronized void flush() throws SailException {
 			sinkStoreAccessLock.lock();
 			try {
-				try {
-					valueStore.sync();
-				} finally {
-					try {
-						namespaceStore.sync();
-					} finally {
-						if (storeTxnStarted.get()) {
-							tripleStore.commit();
-							// do not set flag to false until _after_ commit is succesfully completed.
-							storeTxnStarted.set(false);
-						}
-					}
+				long flushed = ++flushCount;
+				releaseStores(this);
+				if (groupCommitCount == 0) {
+					commitFlushedChanges(flushed);
 				}
-			} catch (IOException e) {
-				logger.error("Encountered an unexpected problem while trying to commit", e);
-				throw new SailException(e);
-			} catch (RuntimeException e) {
-				logger.error("Encountered an unexpected problem while trying to commit", e);
-				throw e;
+				// otherwise the changes are committed by a connection that finishes its group commit later on
 			} finally {
 				sinkStoreAccessLock.unlock();
 			}
@@ -343,7 +715,7 @@ class NativeSailStore implements SailStore {
 
 		@Override
 		public void setNamespace(String prefix, String name) throws SailException {
-			sinkStoreAccessLock.lock();
+			lockStores(this);
 			try {
 				startTriplestoreTransaction();
 				namespaceStore.setNamespace(prefix, name);
@@ -354,7 +726,7 @@ class NativeSailStore implements SailStore {
 
 		@Override
 		public void removeNamespace(String prefix) throws SailException {
-			sinkStoreAccessLock.lock();
+			lockStores(this);
 			try {
 				startTriplestoreTransaction();
 				namespaceStore.removeNamespace(prefix);
@@ -365,7 +737,7 @@ class NativeSailStore implements SailStore {
 
 		@Override
 		public void clearNamespaces() throws SailException {
-			sinkStoreAccessLock.lock();
+			lockStores(this);
 			try {
 				startTriplestoreTransaction();
 				namespaceStore.clear();
@@ -415,7 +787,7 @@ class NativeSailStore implements SailStore {
 				throws SailException {
 			OpenRDFUtil.verifyContextNotNull(contexts);
 			boolean result = false;
-			sinkStoreAccessLock.lock();
+			lockStores(this);
 			try {
 				startTriplestoreTransaction();
 				int subjID = valueStore.storeValue(subj);
@@ -436,9 +808,12 @@ class NativeSailStore implements SailStore {
 					result |= wasNew;
 				}
 			} catch (IOException e) {
+				// don't let the incomplete changes hold up commits
+				releaseStores(this);
 				throw new SailException(e);
 			} catch (RuntimeException e) {
 				logger.error("Encountered an unexpected problem while trying to add a statement", e);
+				releaseStores(this);
 				throw e;
 			} finally {
 				sinkStoreAccessLock.unlock();
@@ -451,7 +826,7 @@ class NativeSailStore implements SailStore {
 				throws SailException {
 			OpenRDFUtil.verifyContextNotNull(contexts);
 
-			sinkStoreAccessLock.lock();
+			lockStores(this);
 			try {
 				startTriplestoreTransaction();
 				int subjID = NativeValue.UNKNOWN_ID;
@@ -502,9 +877,12 @@ class NativeSailStore implements SailStore {
 
 				return removeCount;
 			} catch (IOException e) {
+				// don't let the incomplete changes hold up commits
+				releaseStores(this);
 				throw new SailException(e);
 			} catch (RuntimeException e) {
 				logger.error("Encountered an unexpected problem while trying to remove statements", e);
+				releaseStores(this);
 				throw e;
 			} finally {
 				sinkStoreAccessLock.unlock();
@@ -519,6 +897,8 @@ class NativeSailStore implements SailStore {
 
 		private final boolean explicit;
 
+		private final Comparator<Value> comparator = new ValueIDComparator();
+
 		public NativeSailDataset(boolean explicit) throws SailException {
 			this.explicit = explicit;
 		}
@@ -555,7 +935,7 @@ class NativeSailStore implements SailStore {
 					// Iterator over all statements
 					stIter1 = createStatementIterator(null, null, null, explicit);
 				} else {
-					stIter1 = new NativeStatementIterator(btreeIter, valueStore);
+					stIter1 = new NativeStatementIterator(btreeIter, valueStore, lazyValues);
 				}
 				// Filter statements without context resource
 				stIter2 = new FilterIteration<Statement, SailException>(stIter1) {
@@ -653,5 +1033,114 @@ class NativeSailStore implements SailStore {
 				throw new SailException("Unable to get statements", e);
 			}
 		}
+
+		@Override
+		public CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+				Resource... contexts) throws SailException {
+			try {
+				return createStatementIterator(patterns, explicit, contexts);
+			} catch (IOException e) {
+				throw new SailException("Unable to get statements", e);
+			}
+		}
+
+		@Override
+		public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+				throws SailException {
+			try {
+				return NativeSailStore.this.getSupportedOrders(subj, pred, obj, contexts);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order,
+				Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
+			try {
+				CloseableIteration<? extends Statement, SailException> iter = createSortedStatementIterator(order,
+						subj, pred, obj, explicit, contexts);
+				if (iter == null) {
+					// none of the triple indexes returns the statements in this order
+					return SailDataset.super.getStatements(order, subj, pred, obj, contexts);
+				}
+				return iter;
+			} catch (IOException e) {
+				throw new SailException("Unable to get statements", e);
+			}
+		}
+
+		@Override
+		public Comparator<Value> getComparator() {
+			return comparator;
+		}
+	}
+
+	/**
+	 * Orders values on their internal IDs, which is the order in which the triple indexes return them. Values that
+	 * are not stored sort after all stored values, in the order of {@link ValueComparator}. The ID of a value that is
+	 * not a {@link NativeValue} is looked up only once per comparator, so a comparator is not shared beyond the
+	 * dataset that created it. All comparators of a store define the same order and are equal to each other.
+	 */
+	private final class ValueIDComparator implements Comparator<Value> {
+
+		private final ConcurrentMap<Value, Integer> ids = new ConcurrentHashMap<>();
+
+		private final ValueComparator unknownValueComparator = new ValueComparator();
+
+		@Override
+		public int compare(Value value1, Value value2) {
+			if (value1 == value2) {
+				return 0;
+			}
+
+			int id1 = getID(value1);
+			int id2 = getID(value2);
+			if (id1 != NativeValue.UNKNOWN_ID && id2 != NativeValue.UNKNOWN_ID) {
+				return Integer.compare(id1, id2);
+			} else if (id1 != NativeValue.UNKNOWN_ID) {
+				return -1;
+			} else if (id2 != NativeValue.UNKNOWN_ID) {
+				return 1;
+			}
+
+			// distinct values that are not stored must not compare as equal
+			int result = unknownValueComparator.compare(value1, value2);
+			if (result == 0 && !value1.equals(value2)) {
+				result = value1.toString().compareTo(value2.toString());
+			}
+			return result;
+		}
+
+		private int getID(Value value) {
+			try {
+				if (value instanceof NativeValue) {
+					// values that were read from this store carry their ID
+					return valueStore.getID(value);
+				}
+				Integer id = ids.get(value);
+				if (id == null) {
+					id = valueStore.getID(value);
+					ids.put(value, id);
+				}
+				return id;
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		private NativeSailStore getStore() {
+			return NativeSailStore.this;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof ValueIDComparator && ((ValueIDComparator) other).getStore() == getStore();
+		}
+
+		@Override
+		public int hashCode() {
+			return getStore().hashCode();
+		}
 	}
 }
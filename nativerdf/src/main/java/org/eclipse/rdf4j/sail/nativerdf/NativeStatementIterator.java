@@ -8,6 +8,7 @@
 package org.eclipse.rdf4j.sail.nativerdf;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
@@ -17,13 +18,25 @@ import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+import org.eclipse.rdf4j.sail.nativerdf.model.NativeValue;
 
 /**
  * A statement iterator that wraps a RecordIterator containing statement records and translates these records to
- * {@link Statement} objects.
+ * {@link Statement} objects. The values of the statements are resolved in batches of records, which allows the
+ * {@link ValueStore} to read the values that are not cached in file order. The batch size starts small, so that
+ * iterations of which only the first few statements are consumed don't read ahead needlessly, and grows as more
+ * statements are consumed.
  */
 class NativeStatementIterator extends LookAheadIteration<Statement, SailException> {
 
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	private static final int MIN_BATCH_SIZE = 4;
+
+	private static final int MAX_BATCH_SIZE = 256;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -32,6 +45,19 @@ class NativeStatementIterator extends LookAheadIteration<Statement, SailExceptio
 
 	private final ValueStore valueStore;
 
+	/**
+	 * Flag indicating whether the values of the statements should only be loaded when their contents are accessed.
+	 */
+	private final boolean lazyValues;
+
+	private final Statement[] batch = new Statement[MAX_BATCH_SIZE];
+
+	private int batchSize = MIN_BATCH_SIZE / 2;
+
+	private int batchCount = 0;
+
+	private int batchIdx = 0;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -40,8 +66,19 @@ class NativeStatementIterator extends LookAheadIteration<Statement, SailExceptio
 	 * Creates a new NativeStatementIterator.
 	 */
 	public NativeStatementIterator(RecordIterator btreeIter, ValueStore valueStore) throws IOException {
+		this(btreeIter, valueStore, false);
+	}
+
+	/**
+	 * Creates a new NativeStatementIterator, optionally returning statements with lazy values.
+	 * 
+	 * @see ValueStore#getLazyValue(int)
+	 */
+	public NativeStatementIterator(RecordIterator btreeIter, ValueStore valueStore, boolean lazyValues)
+			throws IOException {
 		this.btreeIter = btreeIter;
 		this.valueStore = valueStore;
+		this.lazyValues = lazyValues;
 	}
 
 	/*---------*
@@ -50,31 +87,72 @@ class NativeStatementIterator extends LookAheadIteration<Statement, SailExceptio
 
 	@Override
 	public Statement getNextElement() throws SailException {
-		try {
-			byte[] nextValue = btreeIter.next();
-
-			if (nextValue == null) {
-				return null;
+		if (batchIdx == batchCount) {
+			try {
+				fillBatch();
+			} catch (IOException e) {
+				throw causeIOException(e);
 			}
+		}
+
+		if (batchIdx == batchCount) {
+			return null;
+		}
 
-			int subjID = ByteArrayUtil.getInt(nextValue, TripleStore.SUBJ_IDX);
-			Resource subj = (Resource) valueStore.getValue(subjID);
+		Statement st = batch[batchIdx];
+		batch[batchIdx++] = null;
+		return st;
+	}
 
-			int predID = ByteArrayUtil.getInt(nextValue, TripleStore.PRED_IDX);
-			IRI pred = (IRI) valueStore.getValue(predID);
+	/**
+	 * Reads the next batch of records and resolves the values of all of them at once.
+	 */
+	private void fillBatch() throws IOException {
+		batchSize = Math.min(batchSize * 2, MAX_BATCH_SIZE);
+		batchIdx = 0;
+		batchCount = 0;
+
+		// The IDs of the subject, predicate, object and context of each record. The ID 0 of the default context is
+		// replaced with the subject ID, as it does not refer to a value.
+		int[] ids = new int[batchSize * 4];
+		boolean[] defaultContext = new boolean[batchSize];
+
+		byte[] nextValue;
+		while (batchCount < batchSize && (nextValue = btreeIter.next()) != null) {
+			int offset = batchCount * 4;
+			ids[offset] = ByteArrayUtil.getInt(nextValue, TripleStore.SUBJ_IDX);
+			ids[offset + 1] = ByteArrayUtil.getInt(nextValue, TripleStore.PRED_IDX);
+			ids[offset + 2] = ByteArrayUtil.getInt(nextValue, TripleStore.OBJ_IDX);
+			ids[offset + 3] = ByteArrayUtil.getInt(nextValue, TripleStore.CONTEXT_IDX);
+			if (ids[offset + 3] == 0) {
+				ids[offset + 3] = ids[offset];
+				defaultContext[batchCount] = true;
+			}
+			batchCount++;
+		}
 
-			int objID = ByteArrayUtil.getInt(nextValue, TripleStore.OBJ_IDX);
-			Value obj = valueStore.getValue(objID);
+		if (batchCount == 0) {
+			return;
+		}
 
-			Resource context = null;
-			int contextID = ByteArrayUtil.getInt(nextValue, TripleStore.CONTEXT_IDX);
-			if (contextID != 0) {
-				context = (Resource) valueStore.getValue(contextID);
+		NativeValue[] values;
+		if (lazyValues) {
+			values = new NativeValue[batchCount * 4];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = valueStore.getLazyValue(ids[i]);
 			}
+		} else {
+			values = valueStore.getValues(Arrays.copyOf(ids, batchCount * 4));
+		}
+
+		for (int i = 0; i < batchCount; i++) {
+			int offset = i * 4;
+			Resource subj = (Resource) values[offset];
+			IRI pred = (IRI) values[offset + 1];
+			Value obj = values[offset + 2];
+			Resource context = defaultContext[i] ? null : (Resource) values[offset + 3];
 
-			return valueStore.createStatement(subj, pred, obj, context);
-		} catch (IOException e) {
-			throw causeIOException(e);
+			batch[i] = valueStore.createStatement(subj, pred, obj, context);
 		}
 	}
 
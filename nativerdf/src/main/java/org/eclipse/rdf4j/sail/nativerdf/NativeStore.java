@@ -9,6 +9,7 @@ package org.eclipse.rdf4j.sail.nativerdf;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.FileUtils;
@@ -24,6 +25,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategyFactory;
 import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
 import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolverClient;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.ParallelEvaluationStrategyFactory;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategyFactory;
 import org.eclipse.rdf4j.repository.sparql.federation.SPARQLServiceResolver;
 import org.eclipse.rdf4j.sail.NotifyingSailConnection;
@@ -63,6 +65,30 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 	 */
 	private volatile boolean forceSync = false;
 
+	/**
+	 * Flag indicating whether the changes of a transaction should be applied to the triple indexes concurrently. By
+	 * default, this feature is disabled.
+	 */
+	private volatile boolean parallelCommit = false;
+
+	/**
+	 * Flag indicating whether the data files should be read using memory mappings. By default, this feature is
+	 * disabled.
+	 */
+	private volatile boolean memoryMapped = false;
+
+	/**
+	 * Flag indicating whether statements should be returned with values of which the contents are loaded on demand. By
+	 * default, this feature is disabled.
+	 */
+	private volatile boolean lazyValues = false;
+
+	/**
+	 * Flag indicating whether the commits of concurrent transactions should be synced to disk together. By default,
+	 * this feature is disabled.
+	 */
+	private volatile boolean groupCommit = false;
+
 	private volatile int valueCacheSize = ValueStore.VALUE_CACHE_SIZE;
 
 	private volatile int valueIDCacheSize = ValueStore.VALUE_ID_CACHE_SIZE;
@@ -73,6 +99,11 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 
 	private SailStore store;
 
+	/**
+	 * The store that is wrapped by {@link #store}.
+	 */
+	private NativeSailStore nativeSailStore;
+
 	/**
 	 * Data directory lock.
 	 */
@@ -146,6 +177,40 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		return tripleIndexes;
 	}
 
+	/**
+	 * Adds a triple index to the initialized native store without blocking its users. The index is built in the
+	 * background and is used for queries once it has caught up with the updates that were committed in the meantime.
+	 * The indexes of the store are recorded in its data directory, but a store that is configured with explicit
+	 * {@link #setTripleIndexes(String) triple indexes} reverts to those when it is restarted, so the configuration
+	 * should be updated as well. An index that has been {@link #removeTripleIndex(String) removed} can only be added
+	 * again after the store has been restarted.
+	 * 
+	 * @param fieldSeq The field sequence of the index, e.g. <tt>opsc</tt>.
+	 * @return A future that completes when the index is in use.
+	 */
+	public Future<Void> addTripleIndex(String fieldSeq) throws SailException {
+		try {
+			return getInitializedSailStore().tripleStore.addIndex(fieldSeq);
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+
+	/**
+	 * Removes a triple index from the initialized native store without blocking its users. The files of the index are
+	 * deleted when the store is shut down.
+	 * 
+	 * @param fieldSeq The field sequence of the index, e.g. <tt>opsc</tt>.
+	 * @see #addTripleIndex(String)
+	 */
+	public void removeTripleIndex(String fieldSeq) throws SailException {
+		try {
+			getInitializedSailStore().tripleStore.removeIndex(fieldSeq);
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+
 	/**
 	 * Specifiec whether updates should be synced to disk forcefully, must be called before initialization. Enabling
 	 * this feature may prevent corruption in case of events like power loss, but can have a severe impact on write
@@ -159,6 +224,65 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		return forceSync;
 	}
 
+	/**
+	 * Specifies whether the changes of a transaction should be applied to the triple indexes concurrently, must be
+	 * called before initialization. Each index is stored in its own file, so enabling this feature reduces commit
+	 * latency for stores with multiple triple indexes at the cost of additional threads. By default, this feature is
+	 * disabled.
+	 */
+	public void setParallelCommit(boolean parallelCommit) {
+		this.parallelCommit = parallelCommit;
+	}
+
+	public boolean getParallelCommit() {
+		return parallelCommit;
+	}
+
+	/**
+	 * Specifies whether the value and index files should be read using memory mappings, must be called before
+	 * initialization. This avoids a system call for every node and value that is read from disk, which considerably
+	 * reduces the latency of lookups on stores that fit in the operating system's page cache. Writes are not affected.
+	 * By default, this feature is disabled.
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public boolean getMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * Specifies whether the statements that are returned by the store should contain values of which only the internal
+	 * ID is known initially, must be called before initialization. The contents of such a value are loaded from disk
+	 * when they are first accessed. Values are compared and joined on their IDs, so queries that join many statement
+	 * patterns only need to load the values that are actually used in their results. By default, this feature is
+	 * disabled.
+	 */
+	public void setLazyValues(boolean lazyValues) {
+		this.lazyValues = lazyValues;
+	}
+
+	public boolean getLazyValues() {
+		return lazyValues;
+	}
+
+	/**
+	 * Specifies whether transactions that commit concurrently should be committed together, must be called before
+	 * initialization. Transactions that finish while a commit is being synced to disk are flushed once it completes,
+	 * and are then committed by a single commit that waits until all of them have been flushed completely, so that
+	 * they share a single round of disk syncs; a transaction still only completes when its changes have been
+	 * committed. This mainly improves the throughput of small concurrent
+	 * transactions when {@link #setForceSync(boolean) forceSync} is enabled. By default, this feature is disabled.
+	 */
+	public void setGroupCommit(boolean groupCommit) {
+		this.groupCommit = groupCommit;
+	}
+
+	public boolean getGroupCommit() {
+		return groupCommit;
+	}
+
 	public void setValueCacheSize(int valueCacheSize) {
 		this.valueCacheSize = valueCacheSize;
 	}
@@ -256,8 +380,10 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 			if (!VERSION.equals(version) && upgradeStore(dataDir, version)) {
 				FileUtils.writeStringToFile(versionFile, VERSION);
 			}
-			final NativeSailStore master = new NativeSailStore(dataDir, tripleIndexes, forceSync, valueCacheSize,
-					valueIDCacheSize, namespaceCacheSize, namespaceIDCacheSize);
+			final NativeSailStore master = new NativeSailStore(dataDir, tripleIndexes, forceSync, parallelCommit,
+					memoryMapped, valueCacheSize, valueIDCacheSize, namespaceCacheSize, namespaceIDCacheSize);
+			master.setLazyValues(lazyValues);
+			this.nativeSailStore = master;
 			this.store = new SnapshotSailStore(master, new ModelFactory() {
 
 				@Override
@@ -316,6 +442,9 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 			if (dependentServiceResolver != null) {
 				dependentServiceResolver.shutDown();
 			}
+			if (evalStratFactory instanceof ParallelEvaluationStrategyFactory) {
+				((ParallelEvaluationStrategyFactory) evalStratFactory).shutDown();
+			}
 			logger.debug("NativeStore shut down");
 		}
 	}
@@ -385,6 +514,18 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		return store;
 	}
 
+	NativeSailStore getNativeSailStore() {
+		return nativeSailStore;
+	}
+
+	private NativeSailStore getInitializedSailStore() {
+		NativeSailStore sailStore = nativeSailStore;
+		if (sailStore == null || !isInitialized()) {
+			throw new IllegalStateException("sail has not been initialized");
+		}
+		return sailStore;
+	}
+
 	private boolean upgradeStore(File dataDir, String version) throws IOException, SailException {
 		if (version == null) {
 			// either a new store or a pre-2.8.2 store
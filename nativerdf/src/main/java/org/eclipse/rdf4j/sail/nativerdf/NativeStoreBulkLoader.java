@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rdf4j.OpenRDFUtil;
+import org.eclipse.rdf4j.common.concurrent.locks.Lock;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.helpers.DirectoryLockManager;
+import org.eclipse.rdf4j.sail.nativerdf.model.NativeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads statements into an empty {@link NativeStore} data directory, bypassing the regular transaction handling. The
+ * values of the statements are resolved to IDs in batches and the resulting triples are sorted externally for each
+ * triple index, after which the index files are written bottom-up with fully packed nodes. This is considerably
+ * faster than adding the statements through a repository connection and results in smaller index files.
+ * <p>
+ * The data directory is locked while the loader is open, so the loader can not be used on a data directory of an
+ * initialized {@link NativeStore}. The loaded statements only become available after {@link #finish()} has been
+ * called; closing the loader without calling {@link #finish()} discards all added statements. Example:
+ *
+ * <pre>
+ * try (NativeStoreBulkLoader loader = new NativeStoreBulkLoader(dataDir, "spoc,posc")) {
+ * 	for (Statement st : statements) {
+ * 		loader.add(st);
+ * 	}
+ * 	loader.finish();
+ * }
+ * </pre>
+ */
+public class NativeStoreBulkLoader implements AutoCloseable {
+
+	/**
+	 * The number of statements for which the value IDs are resolved at once.
+	 */
+	private static final int BATCH_SIZE = 64 * 1024;
+
+	private static final Logger logger = LoggerFactory.getLogger(NativeStoreBulkLoader.class);
+
+	private final Lock dirLock;
+
+	private final NamespaceStore namespaceStore;
+
+	private final ValueStore valueStore;
+
+	private final TripleStore tripleStore;
+
+	private final List<Statement> batch = new ArrayList<>(BATCH_SIZE);
+
+	private boolean finished = false;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a new bulk loader for the specified data directory, using the default triple indexes.
+	 */
+	public NativeStoreBulkLoader(File dataDir) throws SailException {
+		this(dataDir, null);
+	}
+
+	/**
+	 * Creates a new bulk loader for the specified data directory.
+	 *
+	 * @param dataDir       The data directory of the native store, which must not contain any statements.
+	 * @param tripleIndexes The triple indexes to create, e.g. "spoc,posc", or <tt>null</tt> to use the default
+	 *                      indexes.
+	 */
+	public NativeStoreBulkLoader(File dataDir, String tripleIndexes) throws SailException {
+		if (!dataDir.exists() && !dataDir.mkdirs()) {
+			throw new SailException("Unable to create data directory: " + dataDir);
+		} else if (!dataDir.isDirectory()) {
+			throw new SailException("The specified path does not denote a directory: " + dataDir);
+		}
+
+		dirLock = new DirectoryLockManager(dataDir).lockOrFail();
+
+		NamespaceStore namespaceStore = null;
+		ValueStore valueStore = null;
+		TripleStore tripleStore = null;
+		boolean initialized = false;
+		try {
+			namespaceStore = new NamespaceStore(dataDir);
+			valueStore = new ValueStore(dataDir);
+			tripleStore = new TripleStore(dataDir, tripleIndexes);
+			tripleStore.startBulkLoad();
+			initialized = true;
+		} catch (IOException | IllegalStateException e) {
+			throw new SailException(e);
+		} finally {
+			if (!initialized) {
+				try {
+					closeStores(namespaceStore, valueStore, tripleStore);
+				} catch (IOException e) {
+					logger.warn("Failed to close stores", e);
+				} finally {
+					dirLock.release();
+				}
+			}
+		}
+
+		this.namespaceStore = namespaceStore;
+		this.valueStore = valueStore;
+		this.tripleStore = tripleStore;
+	}
+
+	/**
+	 * Sets the namespace for the specified prefix, overwriting any existing namespace for the prefix.
+	 */
+	public void setNamespace(String prefix, String name) throws SailException {
+		checkActive();
+		namespaceStore.setNamespace(prefix, name);
+	}
+
+	/**
+	 * Adds a statement to the store. If the statement does not have a context, it is added to the default context.
+	 */
+	public void add(Statement st) throws SailException {
+		checkActive();
+		batch.add(st);
+
+		if (batch.size() == BATCH_SIZE) {
+			flushBatch();
+		}
+	}
+
+	/**
+	 * Adds a statement to each of the specified contexts, or to the default context if no contexts are specified.
+	 */
+	public void add(Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
+		OpenRDFUtil.verifyContextNotNull(contexts);
+
+		if (contexts.length == 0) {
+			add(valueStore.createStatement(subj, pred, obj));
+		} else {
+			for (Resource context : contexts) {
+				add(valueStore.createStatement(subj, pred, obj, context));
+			}
+		}
+	}
+
+	/**
+	 * Builds the triple indexes from all added statements and syncs all data to disk.
+	 *
+	 * @return The number of unique statements that have been loaded.
+	 */
+	public long finish() throws SailException {
+		checkActive();
+		finished = true;
+
+		try {
+			flushBatch();
+
+			// the values must be on disk before the triples referring to them
+			valueStore.sync();
+			namespaceStore.sync();
+
+			long statementCount = tripleStore.commitBulkLoad();
+			logger.debug("Bulk loaded {} statements", statementCount);
+			return statementCount;
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+
+	/**
+	 * Closes this loader, discarding all added statements if {@link #finish()} has not been called.
+	 */
+	@Override
+	public void close() throws SailException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			if (!finished) {
+				batch.clear();
+				tripleStore.abortBulkLoad();
+			}
+			closeStores(namespaceStore, valueStore, tripleStore);
+		} catch (IOException e) {
+			throw new SailException(e);
+		} finally {
+			dirLock.release();
+		}
+	}
+
+	private void checkActive() {
+		if (closed || finished) {
+			throw new IllegalStateException("Bulk loader has already been finished or closed");
+		}
+	}
+
+	/**
+	 * Resolves the IDs of all values in the current batch and passes the resulting triples to the triple store. Values
+	 * that occur several times in the batch, which is typical for predicates and classes, are only looked up once. The
+	 * IDs of the values that are already known are looked up in a single batch; only the remaining values are stored
+	 * one by one.
+	 */
+	private void flushBatch() throws SailException {
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			Map<Value, Integer> valueIndexes = new HashMap<>();
+			List<Value> values = new ArrayList<>();
+			for (Statement st : batch) {
+				addValue(st.getSubject(), valueIndexes, values);
+				addValue(st.getPredicate(), valueIndexes, values);
+				addValue(st.getObject(), valueIndexes, values);
+				if (st.getContext() != null) {
+					addValue(st.getContext(), valueIndexes, values);
+				}
+			}
+
+			int[] ids = valueStore.getIDs(values.toArray(new Value[values.size()]));
+			for (int i = 0; i < ids.length; i++) {
+				if (ids[i] == NativeValue.UNKNOWN_ID) {
+					ids[i] = valueStore.storeValue(values.get(i));
+				}
+			}
+
+			for (Statement st : batch) {
+				int subjID = ids[valueIndexes.get(st.getSubject())];
+				int predID = ids[valueIndexes.get(st.getPredicate())];
+				int objID = ids[valueIndexes.get(st.getObject())];
+				int contextID = st.getContext() == null ? 0 : ids[valueIndexes.get(st.getContext())];
+
+				tripleStore.bulkLoadTriple(subjID, predID, objID, contextID);
+			}
+		} catch (IOException e) {
+			throw new SailException(e);
+		} finally {
+			batch.clear();
+		}
+	}
+
+	private static void addValue(Value value, Map<Value, Integer> valueIndexes, List<Value> values) {
+		if (!valueIndexes.containsKey(value)) {
+			valueIndexes.put(value, values.size());
+			values.add(value);
+		}
+	}
+
+	private static void closeStores(NamespaceStore namespaceStore, ValueStore valueStore, TripleStore tripleStore)
+			throws IOException {
+		try {
+			if (namespaceStore != null) {
+				namespaceStore.close();
+			}
+		} finally {
+			try {
+				if (valueStore != null) {
+					valueStore.close();
+				}
+			} finally {
+				if (tripleStore != null) {
+					tripleStore.close();
+				}
+			}
+		}
+	}
+}
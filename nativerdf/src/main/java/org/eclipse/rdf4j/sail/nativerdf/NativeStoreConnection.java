@@ -75,7 +75,18 @@ public class NativeStoreConnection extends SailSourceConnection {
 	@Override
 	protected void commitInternal() throws SailException {
 		try {
-			super.commitInternal();
+			if (nativeStore.getGroupCommit()) {
+				NativeSailStore sailStore = nativeStore.getNativeSailStore();
+				sailStore.startGroupCommit();
+				try {
+					super.commitInternal();
+				} finally {
+					// wait until the flushed changes have been committed, possibly together with those of others
+					sailStore.finishGroupCommit();
+				}
+			} else {
+				super.commitInternal();
+			}
 		} finally {
 			if (txnLock != null) {
 				txnLock.release();
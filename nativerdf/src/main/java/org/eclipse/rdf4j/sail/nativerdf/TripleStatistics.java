@@ -0,0 +1,767 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+
+/**
+ * Statistics about the triples in a {@link TripleStore}, used to estimate the cardinality of statement patterns and
+ * joins without accessing the indexes. The statistics consist of:
+ * <ul>
+ * <li>the number of triples per predicate,</li>
+ * <li>the number of distinct subjects and objects per predicate,</li>
+ * <li>the most frequent objects per predicate, and</li>
+ * <li>the characteristic sets of the subjects: the combinations of predicates that are used together with the same
+ * subject, with the number of subjects and the number of triples per predicate for each combination.</li>
+ * </ul>
+ * The number of triples per predicate and the counts of the most frequent objects are updated whenever a transaction
+ * is committed. The other statistics are collected by a scan of an index and are scaled to the current number of
+ * triples of the predicates; the index should be scanned again once {@link #isRescanRequired()} returns
+ * <tt>true</tt>. Characteristic sets are only collected from indexes that start with the subject field.
+ * <p>
+ * The statistics are only updated by a single thread at a time, but can be read concurrently.
+ */
+class TripleStatistics {
+
+	/*-----------*
+	 * Constants *
+	 *-----------*/
+
+	/**
+	 * The name of the file that the statistics are stored in while the triple store is closed.
+	 */
+	static final String FILE_NAME = "statistics.dat";
+
+	/**
+	 * Magic number "Native Statistics File" to detect whether the file is actually a statistics file. The first three
+	 * bytes of the file should be equal to this magic number.
+	 */
+	private static final byte[] MAGIC_NUMBER = new byte[] { 'n', 's', 'f' };
+
+	/**
+	 * File format version, stored as the fourth byte in statistics files.
+	 */
+	private static final byte FILE_FORMAT_VERSION = 1;
+
+	/**
+	 * The number of most frequent objects that are collected for each predicate.
+	 */
+	private static final int FREQUENT_OBJECT_COUNT = 16;
+
+	/**
+	 * The maximum number of characteristic sets that is kept. The characteristic sets with the fewest subjects are
+	 * dropped when there are more.
+	 */
+	private static final int MAX_CHARACTERISTIC_SETS = 10_000;
+
+	/**
+	 * The minimum number of triples that must have changed since the last scan before a new scan is required.
+	 */
+	private static final long MIN_RESCAN_CHANGES = 10_000;
+
+	/**
+	 * The fraction of the scanned triples that must have changed since the last scan before a new scan is required.
+	 */
+	private static final double RESCAN_CHANGE_RATIO = 0.2;
+
+	/**
+	 * The number of bits of the hash codes that determines the register of a {@link DistinctCounter}.
+	 */
+	private static final int DISTINCT_COUNTER_PRECISION = 8;
+
+	/*-----------*
+	 * Variables *
+	 *-----------*/
+
+	private final ConcurrentMap<Integer, PredicateStatistics> predicates;
+
+	private final List<CharacteristicSet> characteristicSets;
+
+	/**
+	 * The number of triples that was scanned.
+	 */
+	private final long scannedTripleCount;
+
+	private volatile long tripleCount;
+
+	/**
+	 * The number of triples that has been added or removed since the scan.
+	 */
+	private volatile long changeCount;
+
+	/*--------------*
+	 * Constructors *
+	 *--------------*/
+
+	/**
+	 * Creates statistics for an empty triple store.
+	 */
+	public TripleStatistics() {
+		this(new ConcurrentHashMap<>(), Collections.emptyList(), 0, 0, 0);
+	}
+
+	private TripleStatistics(ConcurrentMap<Integer, PredicateStatistics> predicates,
+			List<CharacteristicSet> characteristicSets, long scannedTripleCount, long tripleCount, long changeCount) {
+		this.predicates = predicates;
+		this.characteristicSets = characteristicSets;
+		this.scannedTripleCount = scannedTripleCount;
+		this.tripleCount = tripleCount;
+		this.changeCount = changeCount;
+	}
+
+	/*---------*
+	 * Methods *
+	 *---------*/
+
+	public long getTripleCount() {
+		return Math.max(tripleCount, 0);
+	}
+
+	public long getPredicateCount(int pred) {
+		PredicateStatistics predStats = predicates.get(pred);
+		return predStats == null ? 0 : predStats.getCount();
+	}
+
+	public double getDistinctSubjectCount(int pred) {
+		PredicateStatistics predStats = predicates.get(pred);
+		return predStats == null ? 0 : predStats.scale(predStats.scannedSubjectCount);
+	}
+
+	public double getDistinctObjectCount(int pred) {
+		PredicateStatistics predStats = predicates.get(pred);
+		return predStats == null ? 0 : predStats.scale(predStats.scannedObjectCount);
+	}
+
+	/**
+	 * Gets the number of triples with the specified predicate and object, if known.
+	 * 
+	 * @return The number of triples, or <tt>-1</tt> if the object is not one of the most frequent objects of the
+	 *         predicate.
+	 */
+	public long getObjectCount(int pred, int obj) {
+		PredicateStatistics predStats = predicates.get(pred);
+		if (predStats == null) {
+			return 0;
+		}
+
+		Long count = predStats.frequentObjects.get(obj);
+		if (count != null) {
+			return Math.max(count, 0);
+		} else if (predStats.allObjectsFrequent) {
+			// All objects of the predicate are known
+			return 0;
+		}
+		return -1;
+	}
+
+	/**
+	 * Estimates the number of triples with the specified predicate per subject that is used with all of the supplied
+	 * predicates, based on the characteristic sets of the subjects.
+	 * 
+	 * @param subjectPreds The predicates that are used with the subjects.
+	 * @return The average number of triples per subject, or <tt>-1</tt> if there are no characteristic sets that
+	 *         contain all of the supplied predicates.
+	 */
+	public double getSubjectFanout(int[] subjectPreds, int pred) {
+		long subjectCount = 0;
+		long predTripleCount = 0;
+
+		for (CharacteristicSet charSet : characteristicSets) {
+			if (charSet.containsAll(subjectPreds)) {
+				subjectCount += charSet.subjectCount;
+
+				int idx = Arrays.binarySearch(charSet.predicates, pred);
+				if (idx >= 0) {
+					predTripleCount += charSet.tripleCounts[idx];
+				}
+			}
+		}
+
+		return subjectCount == 0 ? -1 : (double) predTripleCount / subjectCount;
+	}
+
+	/**
+	 * Checks whether so many triples have been added or removed since the last scan that the statistics that are
+	 * collected by the scan have probably become inaccurate.
+	 */
+	public boolean isRescanRequired() {
+		return changeCount > Math.max(MIN_RESCAN_CHANGES, scannedTripleCount * RESCAN_CHANGE_RATIO);
+	}
+
+	/**
+	 * Updates the statistics for a committed triple.
+	 * 
+	 * @param data  The record of the triple.
+	 * @param added <tt>true</tt> if the triple was added, <tt>false</tt> if it was removed.
+	 */
+	public void update(byte[] data, boolean added) {
+		int pred = ByteArrayUtil.getInt(data, TripleStore.PRED_IDX);
+		int obj = ByteArrayUtil.getInt(data, TripleStore.OBJ_IDX);
+		int delta = added ? 1 : -1;
+
+		PredicateStatistics predStats = predicates.computeIfAbsent(pred, p -> new PredicateStatistics());
+		predStats.update(obj, delta);
+
+		tripleCount += delta;
+		changeCount++;
+	}
+
+	/**
+	 * Stores the statistics in the specified file.
+	 */
+	public void store(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.write(MAGIC_NUMBER);
+			out.writeByte(FILE_FORMAT_VERSION);
+
+			out.writeLong(scannedTripleCount);
+			out.writeLong(tripleCount);
+			out.writeLong(changeCount);
+
+			out.writeInt(predicates.size());
+			for (Map.Entry<Integer, PredicateStatistics> entry : predicates.entrySet()) {
+				PredicateStatistics predStats = entry.getValue();
+				out.writeInt(entry.getKey());
+				out.writeLong(predStats.scannedCount);
+				out.writeLong(predStats.scannedSubjectCount);
+				out.writeLong(predStats.scannedObjectCount);
+				out.writeLong(predStats.count);
+				out.writeBoolean(predStats.allObjectsFrequent);
+
+				// Copy the map, it might be modified concurrently
+				Map<Integer, Long> frequentObjects = new HashMap<>(predStats.frequentObjects);
+				out.writeInt(frequentObjects.size());
+				for (Map.Entry<Integer, Long> objEntry : frequentObjects.entrySet()) {
+					out.writeInt(objEntry.getKey());
+					out.writeLong(objEntry.getValue());
+				}
+			}
+
+			out.writeInt(characteristicSets.size());
+			for (CharacteristicSet charSet : characteristicSets) {
+				out.writeLong(charSet.subjectCount);
+				out.writeInt(charSet.predicates.length);
+				for (int i = 0; i < charSet.predicates.length; i++) {
+					out.writeInt(charSet.predicates[i]);
+					out.writeLong(charSet.tripleCounts[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads statistics that have been stored in the specified file.
+	 * 
+	 * @throws IOException If the file could not be read or does not contain statistics.
+	 */
+	public static TripleStatistics load(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			byte[] magicNumber = new byte[MAGIC_NUMBER.length];
+			in.readFully(magicNumber);
+			if (!Arrays.equals(MAGIC_NUMBER, magicNumber)) {
+				throw new IOException("File doesn't contain compatible statistics: " + file);
+			}
+			byte version = in.readByte();
+			if (version != FILE_FORMAT_VERSION) {
+				throw new IOException("Unable to read statistics file; it uses an unsupported format: " + file);
+			}
+
+			long scannedTripleCount = in.readLong();
+			long tripleCount = in.readLong();
+			long changeCount = in.readLong();
+
+			int predCount = in.readInt();
+			ConcurrentMap<Integer, PredicateStatistics> predicates = new ConcurrentHashMap<>(predCount * 2);
+			for (int p = 0; p < predCount; p++) {
+				int pred = in.readInt();
+				PredicateStatistics predStats = new PredicateStatistics(in.readLong(), in.readLong(), in.readLong(),
+						in.readLong(), in.readBoolean());
+
+				int objCount = in.readInt();
+				for (int o = 0; o < objCount; o++) {
+					predStats.frequentObjects.put(in.readInt(), in.readLong());
+				}
+				predicates.put(pred, predStats);
+			}
+
+			int charSetCount = in.readInt();
+			List<CharacteristicSet> characteristicSets = new ArrayList<>(charSetCount);
+			for (int c = 0; c < charSetCount; c++) {
+				long subjectCount = in.readLong();
+				int length = in.readInt();
+				int[] preds = new int[length];
+				long[] tripleCounts = new long[length];
+				for (int i = 0; i < length; i++) {
+					preds[i] = in.readInt();
+					tripleCounts[i] = in.readLong();
+				}
+				characteristicSets.add(new CharacteristicSet(preds, subjectCount, tripleCounts));
+			}
+
+			return new TripleStatistics(predicates, characteristicSets, scannedTripleCount, tripleCount, changeCount);
+		}
+	}
+
+	/*---------------------------------*
+	 * Inner class PredicateStatistics *
+	 *---------------------------------*/
+
+	private static class PredicateStatistics {
+
+		private final long scannedCount;
+
+		private final long scannedSubjectCount;
+
+		private final long scannedObjectCount;
+
+		/**
+		 * The number of triples of the most frequent objects.
+		 */
+		private final ConcurrentMap<Integer, Long> frequentObjects = new ConcurrentHashMap<>();
+
+		/**
+		 * Flag indicating that {@link #frequentObjects} contains all objects of the predicate.
+		 */
+		private volatile boolean allObjectsFrequent;
+
+		private volatile long count;
+
+		/**
+		 * Creates statistics for a predicate that did not exist when the index was scanned.
+		 */
+		public PredicateStatistics() {
+			this(0, 0, 0, 0, true);
+		}
+
+		public PredicateStatistics(long scannedCount, long scannedSubjectCount, long scannedObjectCount, long count,
+				boolean allObjectsFrequent) {
+			this.scannedCount = scannedCount;
+			this.scannedSubjectCount = scannedSubjectCount;
+			this.scannedObjectCount = scannedObjectCount;
+			this.count = count;
+			this.allObjectsFrequent = allObjectsFrequent;
+		}
+
+		public long getCount() {
+			return Math.max(count, 0);
+		}
+
+		/**
+		 * Scales a number of distinct values that was determined by the scan to the current number of triples,
+		 * assuming that the average number of triples per value has not changed.
+		 */
+		public double scale(long scannedValueCount) {
+			long count = getCount();
+			if (count == 0) {
+				return 0;
+			} else if (scannedCount == 0 || scannedValueCount == 0) {
+				// Predicate was added after the scan, assume that the values are distinct
+				return count;
+			}
+
+			double valueCount = (double) scannedValueCount * count / scannedCount;
+			return Math.max(1, Math.min(valueCount, count));
+		}
+
+		public void update(int obj, int delta) {
+			count += delta;
+
+			if (frequentObjects.containsKey(obj)) {
+				frequentObjects.merge(obj, (long) delta, Long::sum);
+			} else if (allObjectsFrequent && delta > 0) {
+				if (frequentObjects.size() < FREQUENT_OBJECT_COUNT * 2) {
+					frequentObjects.put(obj, (long) delta);
+				} else {
+					allObjectsFrequent = false;
+				}
+			}
+		}
+	} // end inner class PredicateStatistics
+
+	/*-------------------------------*
+	 * Inner class CharacteristicSet *
+	 *-------------------------------*/
+
+	private static class CharacteristicSet {
+
+		/**
+		 * The predicates of the set, in ascending order.
+		 */
+		private final int[] predicates;
+
+		private final long subjectCount;
+
+		/**
+		 * The number of triples for each of the {@link #predicates}.
+		 */
+		private final long[] tripleCounts;
+
+		public CharacteristicSet(int[] predicates, long subjectCount, long[] tripleCounts) {
+			this.predicates = predicates;
+			this.subjectCount = subjectCount;
+			this.tripleCounts = tripleCounts;
+		}
+
+		public boolean containsAll(int[] preds) {
+			for (int pred : preds) {
+				if (Arrays.binarySearch(predicates, pred) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	} // end inner class CharacteristicSet
+
+	/*---------------------*
+	 * Inner class Builder *
+	 *---------------------*/
+
+	/**
+	 * Collects statistics from a scan of an index.
+	 */
+	static class Builder {
+
+		/**
+		 * Flag indicating that the triples are supplied grouped by subject.
+		 */
+		private final boolean subjectOrder;
+
+		private final Map<Integer, PredicateBuilder> predicates = new HashMap<>();
+
+		private final Map<PredicateSet, CharacteristicSetBuilder> characteristicSets = new HashMap<>();
+
+		private long tripleCount;
+
+		private int subject;
+
+		/**
+		 * The predicates of the current subject in ascending order, with their number of triples.
+		 */
+		private int[] subjectPreds = new int[8];
+
+		private long[] subjectPredCounts = new long[8];
+
+		private int subjectPredCount;
+
+		public Builder(boolean subjectOrder) {
+			this.subjectOrder = subjectOrder;
+		}
+
+		public void add(byte[] data) {
+			int subj = ByteArrayUtil.getInt(data, TripleStore.SUBJ_IDX);
+			int pred = ByteArrayUtil.getInt(data, TripleStore.PRED_IDX);
+			int obj = ByteArrayUtil.getInt(data, TripleStore.OBJ_IDX);
+
+			tripleCount++;
+
+			PredicateBuilder predBuilder = predicates.computeIfAbsent(pred, p -> new PredicateBuilder());
+			predBuilder.count++;
+			predBuilder.objects.add(obj);
+			predBuilder.frequentObjects.add(obj);
+
+			if (subjectOrder) {
+				if (subj != subject) {
+					finishSubject();
+					subject = subj;
+				}
+				addSubjectPredicate(pred);
+			} else {
+				predBuilder.subjects.add(subj);
+			}
+		}
+
+		public TripleStatistics build() {
+			finishSubject();
+
+			ConcurrentMap<Integer, PredicateStatistics> predicateStats = new ConcurrentHashMap<>(
+					predicates.size() * 2);
+			for (Map.Entry<Integer, PredicateBuilder> entry : predicates.entrySet()) {
+				predicateStats.put(entry.getKey(), entry.getValue().build());
+			}
+
+			pruneCharacteristicSets();
+			List<CharacteristicSet> charSets = new ArrayList<>(characteristicSets.size());
+			for (Map.Entry<PredicateSet, CharacteristicSetBuilder> entry : characteristicSets.entrySet()) {
+				CharacteristicSetBuilder charSetBuilder = entry.getValue();
+				charSets.add(new CharacteristicSet(entry.getKey().predicates, charSetBuilder.subjectCount,
+						charSetBuilder.tripleCounts));
+			}
+
+			return new TripleStatistics(predicateStats, charSets, tripleCount, tripleCount, 0);
+		}
+
+		private void addSubjectPredicate(int pred) {
+			int idx = Arrays.binarySearch(subjectPreds, 0, subjectPredCount, pred);
+			if (idx >= 0) {
+				subjectPredCounts[idx]++;
+				return;
+			}
+
+			if (subjectPredCount == subjectPreds.length) {
+				subjectPreds = Arrays.copyOf(subjectPreds, subjectPredCount * 2);
+				subjectPredCounts = Arrays.copyOf(subjectPredCounts, subjectPredCount * 2);
+			}
+
+			idx = -idx - 1;
+			System.arraycopy(subjectPreds, idx, subjectPreds, idx + 1, subjectPredCount - idx);
+			System.arraycopy(subjectPredCounts, idx, subjectPredCounts, idx + 1, subjectPredCount - idx);
+			subjectPreds[idx] = pred;
+			subjectPredCounts[idx] = 1;
+			subjectPredCount++;
+		}
+
+		private void finishSubject() {
+			if (subjectPredCount == 0) {
+				return;
+			}
+
+			for (int i = 0; i < subjectPredCount; i++) {
+				predicates.get(subjectPreds[i]).subjectCount++;
+			}
+
+			PredicateSet predSet = new PredicateSet(Arrays.copyOf(subjectPreds, subjectPredCount));
+			CharacteristicSetBuilder charSetBuilder = characteristicSets.computeIfAbsent(predSet,
+					s -> new CharacteristicSetBuilder(subjectPredCount));
+			charSetBuilder.subjectCount++;
+			for (int i = 0; i < subjectPredCount; i++) {
+				charSetBuilder.tripleCounts[i] += subjectPredCounts[i];
+			}
+
+			if (characteristicSets.size() > MAX_CHARACTERISTIC_SETS * 2) {
+				pruneCharacteristicSets();
+			}
+
+			subjectPredCount = 0;
+		}
+
+		/**
+		 * Drops the characteristic sets with the fewest subjects, keeping at most {@link #MAX_CHARACTERISTIC_SETS}
+		 * sets.
+		 */
+		private void pruneCharacteristicSets() {
+			if (characteristicSets.size() <= MAX_CHARACTERISTIC_SETS) {
+				return;
+			}
+
+			List<Map.Entry<PredicateSet, CharacteristicSetBuilder>> entries = new ArrayList<>(
+					characteristicSets.entrySet());
+			entries.sort((e1, e2) -> Long.compare(e2.getValue().subjectCount, e1.getValue().subjectCount));
+
+			characteristicSets.clear();
+			for (Map.Entry<PredicateSet, CharacteristicSetBuilder> entry : entries.subList(0,
+					MAX_CHARACTERISTIC_SETS)) {
+				characteristicSets.put(entry.getKey(), entry.getValue());
+			}
+		}
+	} // end inner class Builder
+
+	private static class PredicateBuilder {
+
+		private long count;
+
+		/**
+		 * The number of distinct subjects, counted if the triples are grouped by subject.
+		 */
+		private long subjectCount;
+
+		/**
+		 * Estimates the number of distinct subjects if the triples are not grouped by subject.
+		 */
+		private final DistinctCounter subjects = new DistinctCounter();
+
+		private final DistinctCounter objects = new DistinctCounter();
+
+		private final FrequencyCounter frequentObjects = new FrequencyCounter(FREQUENT_OBJECT_COUNT * 2);
+
+		public PredicateStatistics build() {
+			long distinctSubjects = subjectCount > 0 ? subjectCount : subjects.estimate();
+			long distinctObjects = frequentObjects.isComplete() ? frequentObjects.size() : objects.estimate();
+
+			PredicateStatistics predStats = new PredicateStatistics(count, Math.min(distinctSubjects, count),
+					Math.min(distinctObjects, count), count, frequentObjects.isComplete());
+			frequentObjects.copyTo(predStats.frequentObjects, FREQUENT_OBJECT_COUNT);
+			return predStats;
+		}
+	}
+
+	private static class CharacteristicSetBuilder {
+
+		private long subjectCount;
+
+		private final long[] tripleCounts;
+
+		public CharacteristicSetBuilder(int predCount) {
+			this.tripleCounts = new long[predCount];
+		}
+	}
+
+	private static class PredicateSet {
+
+		private final int[] predicates;
+
+		private final int hashCode;
+
+		public PredicateSet(int[] predicates) {
+			this.predicates = predicates;
+			this.hashCode = Arrays.hashCode(predicates);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof PredicateSet && Arrays.equals(predicates, ((PredicateSet) o).predicates);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/*-----------------------------*
+	 * Inner class DistinctCounter *
+	 *-----------------------------*/
+
+	/**
+	 * Estimates the number of distinct values using the HyperLogLog algorithm.
+	 */
+	private static class DistinctCounter {
+
+		private final byte[] registers = new byte[1 << DISTINCT_COUNTER_PRECISION];
+
+		public void add(int value) {
+			long hash = hash(value);
+			int idx = (int) (hash >>> (Long.SIZE - DISTINCT_COUNTER_PRECISION));
+			int rank = Long.numberOfLeadingZeros((hash << DISTINCT_COUNTER_PRECISION) | 1L) + 1;
+			if (rank > registers[idx]) {
+				registers[idx] = (byte) rank;
+			}
+		}
+
+		public long estimate() {
+			int registerCount = registers.length;
+			double sum = 0;
+			int emptyCount = 0;
+			for (byte register : registers) {
+				sum += 1.0 / (1L << register);
+				if (register == 0) {
+					emptyCount++;
+				}
+			}
+
+			double estimate = 0.7213 / (1 + 1.079 / registerCount) * registerCount * registerCount / sum;
+			if (estimate <= 2.5 * registerCount && emptyCount > 0) {
+				// Use linear counting for small cardinalities
+				estimate = registerCount * Math.log((double) registerCount / emptyCount);
+			}
+			return Math.round(estimate);
+		}
+
+		private static long hash(int value) {
+			// Finalization mix of MurmurHash3
+			long h = value;
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			h *= 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			return h;
+		}
+	} // end inner class DistinctCounter
+
+	/*------------------------------*
+	 * Inner class FrequencyCounter *
+	 *------------------------------*/
+
+	/**
+	 * Determines the most frequent values using the Space-Saving algorithm: when a value that is not counted yet is
+	 * added while all counters are in use, the value with the lowest count is replaced by it. The counts are
+	 * overestimated by at most the lowest count.
+	 */
+	private static class FrequencyCounter {
+
+		private final int[] values;
+
+		private final long[] counts;
+
+		private int size;
+
+		/**
+		 * Flag indicating that a value has been replaced, the counter does not contain all values anymore.
+		 */
+		private boolean replaced;
+
+		public FrequencyCounter(int capacity) {
+			this.values = new int[capacity];
+			this.counts = new long[capacity];
+		}
+
+		public void add(int value) {
+			int minIdx = 0;
+			for (int i = 0; i < size; i++) {
+				if (values[i] == value) {
+					counts[i]++;
+					return;
+				} else if (counts[i] < counts[minIdx]) {
+					minIdx = i;
+				}
+			}
+
+			if (size < values.length) {
+				values[size] = value;
+				counts[size] = 1;
+				size++;
+			} else {
+				values[minIdx] = value;
+				counts[minIdx]++;
+				replaced = true;
+			}
+		}
+
+		public boolean isComplete() {
+			return !replaced;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Copies the specified number of values with the highest counts to the supplied map, or all values if the
+		 * counter is complete.
+		 */
+		public void copyTo(Map<Integer, Long> map, int maxSize) {
+			Integer[] idxs = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				idxs[i] = i;
+			}
+			Arrays.sort(idxs, (i1, i2) -> Long.compare(counts[i2], counts[i1]));
+
+			int copyCount = isComplete() ? size : Math.min(size, maxSize);
+			for (int i = 0; i < copyCount; i++) {
+				map.put(values[idxs[i]], counts[idxs[i]]);
+			}
+		}
+	} // end inner class FrequencyCounter
+}
@@ -13,7 +13,10 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -23,6 +26,13 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.sail.SailException;
@@ -74,9 +84,11 @@ class TripleStore implements Closeable {
 	 * <li>version 1: Introduces configurable triple indexes and the properties file.
 	 * <li>version 10: Introduces a context field, essentially making this a quad store.
 	 * <li>version 10a: Introduces transaction flags, this is backwards compatible with version 10.
+	 * <li>version 11: Stores the leaf nodes of the triple indexes in compressed form. Indexes of version 10 stores are
+	 * rewritten when the store is opened.
 	 * </ul>
 	 */
-	private static final int SCHEME_VERSION = 10;
+	private static final int SCHEME_VERSION = 11;
 
 	// 17 bytes are used to represent a triple:
 	// byte 0-3 : subject
@@ -117,6 +129,23 @@ class TripleStore implements Closeable {
 	 */
 	static final byte TOGGLE_EXPLICIT_FLAG = (byte) 0x8; // 0000 1000
 
+	/**
+	 * The maximum number of records that are sorted in memory per index during a bulk load.
+	 */
+	private static final int BULK_LOAD_BUFFER_SIZE = 512 * 1024;
+
+	/**
+	 * The number of changed triples below which an index that is being built catches up with the other indexes while
+	 * updates are blocked.
+	 */
+	private static final int INDEX_BUILD_CATCH_UP_THRESHOLD = 1024;
+
+	/**
+	 * The maximum number of times an index that is being built tries to catch up with the other indexes without
+	 * blocking updates.
+	 */
+	private static final int INDEX_BUILD_MAX_CATCH_UP_ROUNDS = 10;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -134,9 +163,10 @@ class TripleStore implements Closeable {
 	private final Properties properties;
 
 	/**
-	 * The list of triple indexes that are used to store and retrieve triples.
+	 * The list of triple indexes that are used to store and retrieve triples. Indexes can be added and removed while
+	 * the store is in use, readers iterate over a snapshot of the list.
 	 */
-	private final List<TripleIndex> indexes = new ArrayList<>();
+	private final List<TripleIndex> indexes = new CopyOnWriteArrayList<>();
 
 	private final boolean forceSync;
 
@@ -144,6 +174,54 @@ class TripleStore implements Closeable {
 
 	private volatile RecordCache updatedTriplesCache;
 
+	/**
+	 * Flag indicating whether the changes of a transaction should be applied to the different indexes concurrently upon
+	 * commit and rollback.
+	 */
+	private final boolean parallelCommit;
+
+	/**
+	 * Flag indicating whether the index files should be read using memory mappings.
+	 */
+	private final boolean memoryMapped;
+
+	/**
+	 * Executor used to apply the changes of a transaction to the indexes concurrently. Lazily created when
+	 * {@link #parallelCommit} is enabled.
+	 */
+	private ExecutorService indexUpdateExecutor;
+
+	/**
+	 * Collects the triples of a bulk load in the order of the first index, <tt>null</tt> if no bulk load is active.
+	 */
+	private ExternalRecordSorter bulkLoadSorter;
+
+	/**
+	 * Lock that is held while the indexes are updated, preventing that an index is added or removed in the meantime.
+	 */
+	private final ReentrantLock updateLock = new ReentrantLock();
+
+	/**
+	 * The index that is being built in the background, <tt>null</tt> if no index is being built.
+	 */
+	private volatile IndexBuild indexBuild;
+
+	/**
+	 * Indexes that have been removed while the store was in use. Their files are deleted when the store is closed, as
+	 * readers might still be using them until then.
+	 */
+	private final List<TripleIndex> removedIndexes = new ArrayList<>();
+
+	/**
+	 * Statistics about the committed triples, <tt>null</tt> while they are being collected for the first time.
+	 */
+	private volatile TripleStatistics statistics;
+
+	/**
+	 * The scan that collects statistics in the background, <tt>null</tt> if no scan is running.
+	 */
+	private volatile StatisticsScan statisticsScan;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -153,8 +231,39 @@ class TripleStore implements Closeable {
 	}
 
 	public TripleStore(File dir, String indexSpecStr, boolean forceSync) throws IOException, SailException {
+		this(dir, indexSpecStr, forceSync, false);
+	}
+
+	/**
+	 * Creates a new TripleStore.
+	 * 
+	 * @param dir            The directory that is used to store the index files.
+	 * @param indexSpecStr   A comma/whitespace-separated list of index specifications, e.g. "spoc,posc".
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully.
+	 * @param parallelCommit Flag indicating whether the changes of a transaction should be applied to the indexes
+	 *                       concurrently, using one thread per index (bounded by the number of available processors).
+	 */
+	public TripleStore(File dir, String indexSpecStr, boolean forceSync, boolean parallelCommit)
+			throws IOException, SailException {
+		this(dir, indexSpecStr, forceSync, parallelCommit, false);
+	}
+
+	/**
+	 * Creates a new TripleStore.
+	 * 
+	 * @param dir            The directory that is used to store the index files.
+	 * @param indexSpecStr   A comma/whitespace-separated list of index specifications, e.g. "spoc,posc".
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully.
+	 * @param parallelCommit Flag indicating whether the changes of a transaction should be applied to the indexes
+	 *                       concurrently, using one thread per index (bounded by the number of available processors).
+	 * @param memoryMapped   Flag indicating whether the index files should be read using memory mappings.
+	 */
+	public TripleStore(File dir, String indexSpecStr, boolean forceSync, boolean parallelCommit, boolean memoryMapped)
+			throws IOException, SailException {
 		this.dir = dir;
 		this.forceSync = forceSync;
+		this.parallelCommit = parallelCommit;
+		this.memoryMapped = memoryMapped;
 		this.txnStatusFile = new TxnStatusFile(dir);
 
 		File propFile = new File(dir, PROPERTIES_FILE);
@@ -172,6 +281,7 @@ class TripleStore implements Closeable {
 			}
 
 			initIndexes(indexSpecs);
+			statistics = new TripleStatistics();
 		} else {
 			// Read triple properties file and check format version number
 			properties = loadProperties(propFile);
@@ -189,6 +299,13 @@ class TripleStore implements Closeable {
 				processUncompletedTransaction(txnStatus);
 			}
 
+			// Rewrite indexes that were created before leaf nodes were compressed
+			for (int i = 0; i < indexes.size(); i++) {
+				if (!indexes.get(i).getBTree().isCompressed()) {
+					indexes.set(i, compressIndex(indexes.get(i)));
+				}
+			}
+
 			// Compare the existing indexes with the requested indexes
 			Set<String> reqIndexSpecs = parseIndexSpecList(indexSpecStr);
 
@@ -199,6 +316,8 @@ class TripleStore implements Closeable {
 				// Set of indexes needs to be changed
 				reindex(indexSpecs, reqIndexSpecs);
 			}
+
+			loadStatistics();
 		}
 
 		if (!String.valueOf(SCHEME_VERSION).equals(properties.getProperty(VERSION_KEY))
@@ -214,6 +333,31 @@ class TripleStore implements Closeable {
 	 * Methods *
 	 *---------*/
 
+	/**
+	 * Loads the statistics that were stored when the store was last closed. The file is deleted afterwards, so that
+	 * the statistics are collected again if the store is not closed properly. Otherwise, the statistics would not
+	 * reflect the commits since they were loaded.
+	 */
+	private void loadStatistics() {
+		File statisticsFile = new File(dir, TripleStatistics.FILE_NAME);
+		if (statisticsFile.exists()) {
+			try {
+				statistics = TripleStatistics.load(statisticsFile);
+			} catch (IOException e) {
+				logger.warn("Failed to load triple statistics, collecting them again", e);
+			}
+
+			if (!statisticsFile.delete()) {
+				logger.warn("Unable to delete file {}, collecting triple statistics again", statisticsFile);
+				statistics = null;
+			}
+		}
+
+		if (statistics == null) {
+			startStatisticsScan();
+		}
+	}
+
 	private void checkVersion() throws SailException {
 		// Check version number
 		String versionStr = properties.getProperty(VERSION_KEY);
@@ -316,6 +460,17 @@ class TripleStore implements Closeable {
 				throw e;
 			}
 			break;
+		case BULK_LOADING:
+			logger.info("Detected unfinished bulk load, trying to clear the store");
+			try {
+				clear();
+				txnStatusFile.setTxnStatus(TxnStatus.NONE);
+				logger.info("Unfinished bulk load cleared successfully");
+			} catch (IOException e) {
+				logger.error("Failed to clear unfinished bulk load", e);
+				throw e;
+			}
+			break;
 		case UNKNOWN:
 			logger.info("Read invalid or unknown transaction status, trying to roll back");
 			try {
@@ -329,6 +484,57 @@ class TripleStore implements Closeable {
 		}
 	}
 
+	/**
+	 * Rewrites the supplied index to a B-tree with compressed leaf nodes. The new B-tree is bulk loaded into temporary
+	 * files, which then replace the files of the existing index.
+	 */
+	private TripleIndex compressIndex(TripleIndex index) throws IOException {
+		String fieldSeq = new String(index.getFieldSeq());
+		logger.info("Compressing {} index...", fieldSeq);
+
+		String filenamePrefix = getFilenamePrefix(fieldSeq);
+		String tmpFilenamePrefix = filenamePrefix + "-compressed";
+		File dataFile = new File(dir, filenamePrefix + ".dat");
+		File allocFile = new File(dir, filenamePrefix + ".alloc");
+		File tmpDataFile = new File(dir, tmpFilenamePrefix + ".dat");
+		File tmpAllocFile = new File(dir, tmpFilenamePrefix + ".alloc");
+
+		// Remove the remains of an interrupted earlier attempt
+		Files.deleteIfExists(tmpDataFile.toPath());
+		Files.deleteIfExists(tmpAllocFile.toPath());
+
+		BTree btree = index.getBTree();
+
+		long valueCount = 0;
+		try (RecordIterator iter = btree.iterateAll()) {
+			while (iter.next() != null) {
+				valueCount++;
+			}
+		}
+
+		TripleIndex tmpIndex = new TripleIndex(fieldSeq, tmpFilenamePrefix);
+		try (RecordIterator iter = btree.iterateAll()) {
+			tmpIndex.getBTree().bulkLoad(iter, valueCount);
+		} finally {
+			tmpIndex.getBTree().close();
+		}
+
+		btree.close();
+
+		// The allocated nodes file is removed first; a missing file is rebuilt from the B-tree when it is opened
+		Files.deleteIfExists(allocFile.toPath());
+		Files.move(tmpDataFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		Files.move(tmpAllocFile.toPath(), allocFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		logger.info("Compressed {} index", fieldSeq);
+		return new TripleIndex(fieldSeq);
+	}
+
+	private static String getFilenamePrefix(String fieldSeq) {
+		return "triples-" + fieldSeq;
+	}
+
 	private void reindex(Set<String> currentIndexSpecs, Set<String> newIndexSpecs) throws IOException, SailException {
 		Map<String, TripleIndex> currentIndexes = new HashMap<>();
 		for (TripleIndex index : indexes) {
@@ -411,10 +617,211 @@ class TripleStore implements Closeable {
 		return properties.getProperty(INDEXES_KEY);
 	}
 
+	/**
+	 * Adds an index while the store is in use. The index is built in the background from a scan of an existing index;
+	 * triples that are updated in the meantime are recorded and applied to the new index afterwards. The new index is
+	 * only used for retrieving triples once it has caught up with the other indexes. Only one index can be built at a
+	 * time. An index that has been removed cannot be added again until the store has been closed, as its files are
+	 * still in use.
+	 * 
+	 * @param fieldSeq The field sequence of the index, e.g. <tt>opsc</tt>.
+	 * @return A future that completes when the index has been added to the store.
+	 */
+	public Future<Void> addIndex(String fieldSeq) throws IOException, SailException {
+		Set<String> indexSpecs = parseIndexSpecList(fieldSeq);
+		if (indexSpecs.size() != 1) {
+			throw new SailException("invalid index specification: " + fieldSeq);
+		}
+		fieldSeq = indexSpecs.iterator().next();
+
+		IndexBuild build;
+		updateLock.lock();
+		try {
+			if (indexBuild != null) {
+				throw new IllegalStateException("Index " + indexBuild.index + " is being built");
+			} else if (bulkLoadSorter != null) {
+				throw new IllegalStateException("Unable to add an index during a bulk load");
+			}
+			for (TripleIndex index : indexes) {
+				if (fieldSeq.equals(new String(index.getFieldSeq()))) {
+					throw new IllegalStateException("Index " + fieldSeq + " already exists");
+				}
+			}
+			for (TripleIndex index : removedIndexes) {
+				if (fieldSeq.equals(new String(index.getFieldSeq()))) {
+					// Its files are deleted when the store is closed
+					throw new IllegalStateException("Index " + fieldSeq + " has been removed and is still in use");
+				}
+			}
+
+			TripleIndex index = new TripleIndex(fieldSeq);
+			try {
+				// The files might remain from an index that was removed earlier
+				index.getBTree().clear();
+				build = new IndexBuild(index, indexes.get(0));
+			} catch (IOException | RuntimeException e) {
+				index.getBTree().delete();
+				throw e;
+			}
+
+			// Updates are recorded from now on
+			indexBuild = build;
+		} finally {
+			updateLock.unlock();
+		}
+
+		Thread thread = new Thread(build.task, "rdf4j-native-index-" + fieldSeq);
+		thread.setDaemon(true);
+		thread.start();
+
+		return build.task;
+	}
+
+	/**
+	 * Removes an index while the store is in use. The index is no longer used for retrieving triples immediately, its
+	 * files are deleted when the store is closed.
+	 * 
+	 * @param fieldSeq The field sequence of the index, e.g. <tt>opsc</tt>.
+	 */
+	public void removeIndex(String fieldSeq) throws IOException {
+		updateLock.lock();
+		try {
+			TripleIndex removedIndex = null;
+			for (TripleIndex index : indexes) {
+				if (new String(index.getFieldSeq()).equals(fieldSeq)) {
+					removedIndex = index;
+				}
+			}
+
+			if (removedIndex == null) {
+				throw new IllegalArgumentException("No such index: " + fieldSeq);
+			} else if (indexes.size() == 1) {
+				throw new IllegalStateException("Unable to remove the last index");
+			} else if (bulkLoadSorter != null) {
+				throw new IllegalStateException("Unable to remove an index during a bulk load");
+			} else if (indexBuild != null && indexBuild.sourceIndex == removedIndex) {
+				throw new IllegalStateException("Index " + fieldSeq + " is being used to build another index");
+			}
+
+			indexes.remove(removedIndex);
+			removedIndexes.add(removedIndex);
+			storeIndexSpecs();
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the field sequences of the indexes that are currently used, in the order in which they are used.
+	 */
+	public List<String> getIndexFieldSeqs() {
+		List<String> indexSpecs = new ArrayList<>(indexes.size());
+		for (TripleIndex index : indexes) {
+			indexSpecs.add(new String(index.getFieldSeq()));
+		}
+		return indexSpecs;
+	}
+
+	private void storeIndexSpecs() throws IOException {
+		properties.setProperty(INDEXES_KEY, String.join(",", getIndexFieldSeqs()));
+		storeProperties(new File(dir, PROPERTIES_FILE));
+	}
+
+	/**
+	 * Builds the index of the supplied build, first from a scan of the source index and then by applying the triples
+	 * that have been updated since. The scan is repeated when the updates cannot be determined.
+	 */
+	private void buildIndex(IndexBuild build) throws IOException {
+		String fieldSeq = new String(build.index.getFieldSeq());
+		logger.info("Building {} index...", fieldSeq);
+
+		while (true) {
+			build.startScan();
+			loadIndex(build);
+
+			for (int round = 0; round < INDEX_BUILD_MAX_CATCH_UP_ROUNDS && !build.isRescanRequired(); round++) {
+				long changeCount = build.applyChanges();
+				if (changeCount < INDEX_BUILD_CATCH_UP_THRESHOLD) {
+					break;
+				}
+			}
+
+			updateLock.lock();
+			try {
+				build.checkCancelled();
+
+				if (build.isRescanRequired()) {
+					logger.debug("Rescanning {} index for {} index", build.sourceIndex, fieldSeq);
+					continue;
+				}
+
+				// Apply the remaining changes while updates are blocked and start using the index
+				build.applyChanges();
+				build.index.getBTree().sync();
+				indexes.add(build.index);
+				try {
+					storeIndexSpecs();
+				} catch (IOException | RuntimeException e) {
+					indexes.remove(build.index);
+					throw e;
+				}
+				indexBuild = null;
+			} finally {
+				updateLock.unlock();
+			}
+
+			logger.info("Built {} index", fieldSeq);
+			return;
+		}
+	}
+
+	/**
+	 * Bulk loads the (empty) index of the supplied build with the triples of the source index.
+	 */
+	private void loadIndex(IndexBuild build) throws IOException {
+		ExternalRecordSorter sorter = new ExternalRecordSorter(dir, RECORD_LENGTH, build.index.tripleComparator,
+				BULK_LOAD_BUFFER_SIZE);
+
+		RecordCache sortedTriples;
+		try {
+			// Scan without blocking concurrent updates of the source index
+			try (RecordIterator iter = build.sourceIndex.getBTree().iterateValues(null, null, true)) {
+				byte[] data;
+				while ((data = iter.next()) != null) {
+					sorter.add(data);
+					build.checkCancelled();
+				}
+			}
+			sortedTriples = sorter.sort();
+		} catch (IOException | RuntimeException e) {
+			sorter.discard();
+			throw e;
+		}
+
+		try {
+			if (sortedTriples.getRecordCount() > 0) {
+				try (RecordIterator iter = sortedTriples.getRecords()) {
+					build.index.getBTree().bulkLoad(iter, sortedTriples.getRecordCount());
+				}
+			}
+		} finally {
+			sortedTriples.discard();
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		try {
 			List<Throwable> caughtExceptions = new ArrayList<>();
+			IndexBuild toCancelIndexBuild = indexBuild;
+			if (toCancelIndexBuild != null) {
+				// The index is built from scratch when it is added again
+				toCancelIndexBuild.cancel();
+			}
+			StatisticsScan toCancelStatisticsScan = statisticsScan;
+			if (toCancelStatisticsScan != null) {
+				toCancelStatisticsScan.cancel();
+			}
 			for (TripleIndex index : indexes) {
 				try {
 					index.getBTree().close();
@@ -423,36 +830,71 @@ class TripleStore implements Closeable {
 					caughtExceptions.add(e);
 				}
 			}
+			for (TripleIndex index : removedIndexes) {
+				try {
+					if (!index.getBTree().delete()) {
+						logger.warn("Unable to delete file(s) for removed {} index", new String(index.getFieldSeq()));
+					}
+				} catch (Throwable e) {
+					logger.warn("Failed to delete file(s) for removed {} index", new String(index.getFieldSeq()));
+					caughtExceptions.add(e);
+				}
+			}
+			removedIndexes.clear();
 			if (!caughtExceptions.isEmpty()) {
 				throw new IOException(caughtExceptions.get(0));
 			}
+
+			TripleStatistics toStoreStatistics = statistics;
+			if (toStoreStatistics != null) {
+				try {
+					toStoreStatistics.store(new File(dir, TripleStatistics.FILE_NAME));
+				} catch (IOException e) {
+					// The statistics are collected again upon restart
+					logger.warn("Failed to store triple statistics", e);
+				}
+			}
 		} finally {
 			try {
 				txnStatusFile.close();
 			} finally {
+				synchronized (this) {
+					if (indexUpdateExecutor != null) {
+						indexUpdateExecutor.shutdown();
+						indexUpdateExecutor = null;
+					}
+				}
+
 				// Should have been removed upon commit() or rollback(), but just to be sure
 				RecordCache toCloseUpdatedTriplesCache = updatedTriplesCache;
 				updatedTriplesCache = null;
 				if (toCloseUpdatedTriplesCache != null) {
 					toCloseUpdatedTriplesCache.discard();
 				}
+
+				// Discard the temporary files of an unfinished bulk load
+				ExternalRecordSorter toCloseBulkLoadSorter = bulkLoadSorter;
+				bulkLoadSorter = null;
+				if (toCloseBulkLoadSorter != null) {
+					toCloseBulkLoadSorter.discard();
+				}
 			}
 		}
 	}
 
 	public RecordIterator getTriples(int subj, int pred, int obj, int context) throws IOException {
 		// Return all triples except those that were added but not yet committed
-		return getTriples(subj, pred, obj, context, 0, ADDED_FLAG);
+		return getTriples(subj, pred, obj, context, 0, ADDED_FLAG, true);
 	}
 
 	public RecordIterator getTriples(int subj, int pred, int obj, int context, boolean readTransaction)
 			throws IOException {
 		if (readTransaction) {
 			// Don't read removed statements
-			return getTriples(subj, pred, obj, context, 0, TripleStore.REMOVED_FLAG);
+			return getTriples(subj, pred, obj, context, 0, TripleStore.REMOVED_FLAG, true);
 		} else {
 			// Don't read added statements
-			return getTriples(subj, pred, obj, context, 0, TripleStore.ADDED_FLAG);
+			return getTriples(subj, pred, obj, context, 0, TripleStore.ADDED_FLAG, true);
 		}
 	}
 
@@ -490,7 +932,7 @@ class TripleStore implements Closeable {
 			}
 		}
 
-		RecordIterator btreeIter = getTriples(subj, pred, obj, context, flags, flagsMask);
+		RecordIterator btreeIter = getTriples(subj, pred, obj, context, flags, flagsMask, true);
 
 		if (readTransaction && explicit) {
 			// Filter implicit statements from the result
@@ -503,6 +945,44 @@ class TripleStore implements Closeable {
 		return btreeIter;
 	}
 
+	/**
+	 * Gets the field sequence of the index from which {@link #getTriples(int, int, int, int, boolean, boolean)} reads
+	 * the triples that match the specified pattern. Callers that look up many patterns with the same wildcards can
+	 * visit them in this order, so that consecutive lookups read neighbouring parts of the index.
+	 */
+	public char[] getIndexFieldSeq(int subj, int pred, int obj, int context) {
+		return getBestIndex(subj, pred, obj, context).getFieldSeq();
+	}
+
+	/**
+	 * Gets the explicit or implicit triples that were present upon the last commit, sorted on the IDs of the specified
+	 * field. The triples are read from an index in which all fields that are specified by the pattern precede the sort
+	 * field, so that they are read from a single range of the index.
+	 * 
+	 * @param sortField The field to sort the triples on: <tt>'s'</tt>, <tt>'p'</tt>, <tt>'o'</tt> or <tt>'c'</tt>.
+	 * @return The sorted triples, or <tt>null</tt> if none of the indexes can return the triples in that order.
+	 */
+	public RecordIterator getTriplesSortedBy(char sortField, int subj, int pred, int obj, int context,
+			boolean explicit) throws IOException {
+		TripleIndex index = getSortedIndex(sortField, subj, pred, obj, context);
+		if (index == null) {
+			return null;
+		}
+
+		int flags = explicit ? TripleStore.EXPLICIT_FLAG : 0;
+		int flagsMask = TripleStore.ADDED_FLAG | TripleStore.EXPLICIT_FLAG;
+		boolean doRangeSearch = index.getPatternScore(subj, pred, obj, context) > 0;
+		return getTriplesUsingIndex(subj, pred, obj, context, flags, flagsMask, index, doRangeSearch, true);
+	}
+
+	/**
+	 * Checks whether {@link #getTriplesSortedBy(char, int, int, int, int, boolean)} can return the triples that match
+	 * the specified pattern sorted on the specified field.
+	 */
+	public boolean isSortable(char sortField, int subj, int pred, int obj, int context) {
+		return getSortedIndex(sortField, subj, pred, obj, context) != null;
+	}
+
 	/*-------------------------------------*
 	 * Inner class ExplicitStatementFilter *
 	 *-------------------------------------*/
@@ -583,16 +1063,25 @@ class TripleStore implements Closeable {
 
 	private RecordIterator getTriples(int subj, int pred, int obj, int context, int flags, int flagsMask)
 			throws IOException {
+		return getTriples(subj, pred, obj, context, flags, flagsMask, false);
+	}
+
+	/**
+	 * @param readOnly Flag indicating whether the returned iterator is only used for reading. Read-only iterators don't
+	 *                 block concurrent updates of the index, but don't support {@link RecordIterator#set(byte[])}.
+	 */
+	private RecordIterator getTriples(int subj, int pred, int obj, int context, int flags, int flagsMask,
+			boolean readOnly) throws IOException {
 		TripleIndex index = getBestIndex(subj, pred, obj, context);
 		boolean doRangeSearch = index.getPatternScore(subj, pred, obj, context) > 0;
-		return getTriplesUsingIndex(subj, pred, obj, context, flags, flagsMask, index, doRangeSearch);
+		return getTriplesUsingIndex(subj, pred, obj, context, flags, flagsMask, index, doRangeSearch, readOnly);
 	}
 
 	private RecordIterator getAllTriplesSortedByContext(int flags, int flagsMask) throws IOException {
 		for (TripleIndex index : indexes) {
 			if (index.getFieldSeq()[0] == 'c') {
 				// found a context-first index
-				return getTriplesUsingIndex(-1, -1, -1, -1, flags, flagsMask, index, false);
+				return getTriplesUsingIndex(-1, -1, -1, -1, flags, flagsMask, index, false, true);
 			}
 		}
 
@@ -600,7 +1089,7 @@ class TripleStore implements Closeable {
 	}
 
 	private RecordIterator getTriplesUsingIndex(int subj, int pred, int obj, int context, int flags, int flagsMask,
-			TripleIndex index, boolean rangeSearch) {
+			TripleIndex index, boolean rangeSearch, boolean readOnly) {
 		byte[] searchKey = getSearchKey(subj, pred, obj, context, flags);
 		byte[] searchMask = getSearchMask(subj, pred, obj, context, flagsMask);
 
@@ -609,10 +1098,10 @@ class TripleStore implements Closeable {
 			byte[] minValue = getMinValue(subj, pred, obj, context);
 			byte[] maxValue = getMaxValue(subj, pred, obj, context);
 
-			return index.getBTree().iterateRangedValues(searchKey, searchMask, minValue, maxValue);
+			return index.getBTree().iterateRangedValues(searchKey, searchMask, minValue, maxValue, readOnly);
 		} else {
 			// Use sequential scan
-			return index.getBTree().iterateValues(searchKey, searchMask);
+			return index.getBTree().iterateValues(searchKey, searchMask, readOnly);
 		}
 	}
 
@@ -633,6 +1122,61 @@ class TripleStore implements Closeable {
 		return rangeSize;
 	}
 
+	/**
+	 * Gets the statistics about the committed triples.
+	 * 
+	 * @return The statistics, or <tt>null</tt> if they are still being collected.
+	 */
+	public TripleStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Starts collecting statistics in the background, unless a scan is already running. The current statistics remain
+	 * in use until the scan has finished.
+	 */
+	private void startStatisticsScan() {
+		if (statisticsScan != null) {
+			return;
+		}
+
+		StatisticsScan scan = new StatisticsScan();
+		statisticsScan = scan;
+
+		Thread thread = new Thread(scan.task, "rdf4j-native-statistics");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Collects statistics from a scan of an index, preferably one that groups the triples by subject. Triples that have
+	 * been added by an uncommitted transaction are skipped; they are accounted for when the transaction commits.
+	 */
+	private TripleStatistics collectStatistics(StatisticsScan scan) throws IOException {
+		TripleIndex index = indexes.get(0);
+		for (TripleIndex candidate : indexes) {
+			if (candidate.getFieldSeq()[0] == 's') {
+				index = candidate;
+				break;
+			}
+		}
+
+		TripleStatistics.Builder builder = new TripleStatistics.Builder(index.getFieldSeq()[0] == 's');
+
+		// Scan without blocking concurrent updates of the index
+		try (RecordIterator iter = index.getBTree().iterateValues(null, null, true)) {
+			byte[] data;
+			while ((data = iter.next()) != null) {
+				if ((data[FLAG_IDX] & ADDED_FLAG) == 0) {
+					builder.add(data);
+				}
+				scan.checkCancelled();
+			}
+		}
+
+		return builder.build();
+	}
+
 	protected TripleIndex getBestIndex(int subj, int pred, int obj, int context) {
 		int bestScore = -1;
 		TripleIndex bestIndex = null;
@@ -648,9 +1192,41 @@ class TripleStore implements Closeable {
 		return bestIndex;
 	}
 
-	public void clear() throws IOException {
+	/**
+	 * Gets the index that returns the triples that match the specified pattern sorted on the specified field, or
+	 * <tt>null</tt> if there is no such index.
+	 */
+	private TripleIndex getSortedIndex(char sortField, int subj, int pred, int obj, int context) {
 		for (TripleIndex index : indexes) {
-			index.getBTree().clear();
+			if (index.isSortedOn(sortField, subj, pred, obj, context)) {
+				return index;
+			}
+		}
+
+		return null;
+	}
+
+	public void clear() throws IOException {
+		updateLock.lock();
+		try {
+			for (TripleIndex index : indexes) {
+				index.getBTree().clear();
+			}
+
+			IndexBuild build = indexBuild;
+			if (build != null) {
+				build.recordChanges(null);
+			}
+
+			// The store is empty, any running scan is outdated
+			StatisticsScan scan = statisticsScan;
+			if (scan != null) {
+				scan.cancelled = true;
+				statisticsScan = null;
+			}
+			statistics = new TripleStatistics();
+		} finally {
+			updateLock.unlock();
 		}
 	}
 
@@ -659,6 +1235,16 @@ class TripleStore implements Closeable {
 	}
 
 	public boolean storeTriple(int subj, int pred, int obj, int context, boolean explicit) throws IOException {
+		updateLock.lock();
+		try {
+			return storeTripleInternal(subj, pred, obj, context, explicit);
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	private boolean storeTripleInternal(int subj, int pred, int obj, int context, boolean explicit)
+			throws IOException {
 		boolean stAdded = false;
 
 		byte[] data = getData(subj, pred, obj, context, 0);
@@ -721,6 +1307,11 @@ class TripleStore implements Closeable {
 			}
 
 			updatedTriplesCache.storeRecord(data);
+
+			IndexBuild build = indexBuild;
+			if (build != null) {
+				build.recordChange(data);
+			}
 		}
 
 		return stAdded;
@@ -749,10 +1340,19 @@ class TripleStore implements Closeable {
 	}
 
 	private int removeTriples(RecordIterator iter) throws IOException {
-		byte[] data = iter.next();
-
-		if (data == null) {
-			// no triples to remove
+		updateLock.lock();
+		try {
+			return removeTriplesInternal(iter);
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	private int removeTriplesInternal(RecordIterator iter) throws IOException {
+		byte[] data = iter.next();
+
+		if (data == null) {
+			// no triples to remove
 			return 0;
 		}
 
@@ -784,6 +1384,11 @@ class TripleStore implements Closeable {
 					}
 				}
 			}
+
+			IndexBuild build = indexBuild;
+			if (build != null) {
+				build.recordChanges(removedTriplesCache);
+			}
 		} finally {
 			removedTriplesCache.discard();
 		}
@@ -812,58 +1417,96 @@ class TripleStore implements Closeable {
 		// updatedTriplesCache will be null when recovering from a crashed commit
 		boolean validCache = updatedTriplesCache != null && updatedTriplesCache.isValid();
 
-		for (TripleIndex index : indexes) {
-			BTree btree = index.getBTree();
+		updateLock.lock();
+		try {
+			TripleStatistics stats = statistics;
+			TripleIndex firstIndex = indexes.get(0);
+			updateIndexes(index -> commitIndex(index, validCache, index == firstIndex ? stats : null));
+			recordTransactionChanges(validCache);
 
-			RecordIterator iter;
-			if (validCache) {
-				// Use the cached set of updated triples
-				iter = updatedTriplesCache.getRecords();
-			} else {
-				// Cache is invalid; too much updates(?). Iterate over all triples
-				iter = btree.iterateAll();
+			if (stats != null && stats.isRescanRequired()) {
+				startStatisticsScan();
 			}
 
-			try {
-				byte[] data;
-				while ((data = iter.next()) != null) {
-					byte flags = data[FLAG_IDX];
-					boolean wasAdded = (flags & ADDED_FLAG) != 0;
-					boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
-					boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+			if (updatedTriplesCache != null) {
+				updatedTriplesCache.clear();
+			}
 
-					if (wasRemoved) {
-						btree.remove(data);
-					} else if (wasAdded || wasToggled) {
-						if (wasToggled) {
-							data[FLAG_IDX] ^= EXPLICIT_FLAG;
-						}
-						if (wasAdded) {
-							data[FLAG_IDX] ^= ADDED_FLAG;
-						}
+			sync();
 
-						if (validCache) {
-							// We're iterating the cache
-							btree.insert(data);
-						} else {
-							// We're iterating the BTree itself
-							iter.set(data);
-						}
-					}
-				}
-			} finally {
-				iter.close();
-			}
+			txnStatusFile.setTxnStatus(TxnStatus.NONE);
+			// checkAllCommitted();
+		} finally {
+			updateLock.unlock();
 		}
+	}
 
-		if (updatedTriplesCache != null) {
-			updatedTriplesCache.clear();
+	/**
+	 * Records the triples that were updated by committing or rolling back a transaction for the index that is being
+	 * built, if any. The triples can only be determined when the updated triples cache is valid.
+	 */
+	private void recordTransactionChanges(boolean validCache) throws IOException {
+		IndexBuild build = indexBuild;
+		if (build != null) {
+			build.recordChanges(validCache ? updatedTriplesCache : null);
 		}
+	}
 
-		sync();
+	/**
+	 * Clears the transaction flags of the triples in the supplied index.
+	 * 
+	 * @param statistics The statistics that should be updated with the added and removed triples, or <tt>null</tt>.
+	 */
+	private void commitIndex(TripleIndex index, boolean validCache, TripleStatistics statistics)
+			throws IOException {
+		BTree btree = index.getBTree();
 
-		txnStatusFile.setTxnStatus(TxnStatus.NONE);
-		// checkAllCommitted();
+		RecordIterator iter;
+		if (validCache) {
+			// Use the cached set of updated triples
+			iter = updatedTriplesCache.getRecords();
+		} else {
+			// Cache is invalid; too much updates(?). Iterate over all triples
+			iter = btree.iterateAll();
+		}
+
+		try {
+			byte[] data;
+			while ((data = iter.next()) != null) {
+				byte flags = data[FLAG_IDX];
+				boolean wasAdded = (flags & ADDED_FLAG) != 0;
+				boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
+				boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+
+				if (wasRemoved) {
+					btree.remove(data);
+
+					if (statistics != null && !wasAdded) {
+						statistics.update(data, false);
+					}
+				} else if (wasAdded || wasToggled) {
+					if (statistics != null && wasAdded) {
+						statistics.update(data, true);
+					}
+					if (wasToggled) {
+						data[FLAG_IDX] ^= EXPLICIT_FLAG;
+					}
+					if (wasAdded) {
+						data[FLAG_IDX] ^= ADDED_FLAG;
+					}
+
+					if (validCache) {
+						// We're iterating the cache
+						btree.insert(data);
+					} else {
+						// We're iterating the BTree itself
+						iter.set(data);
+					}
+				}
+			}
+		} finally {
+			iter.close();
+		}
 	}
 
 	private void checkAllCommitted() throws IOException {
@@ -885,61 +1528,308 @@ class TripleStore implements Closeable {
 	}
 
 	public void rollback() throws IOException {
-		txnStatusFile.setTxnStatus(TxnStatus.ROLLING_BACK);
+		updateLock.lock();
+		try {
+			txnStatusFile.setTxnStatus(TxnStatus.ROLLING_BACK);
 
-		// updatedTriplesCache will be null when recovering from a crash
-		boolean validCache = updatedTriplesCache != null && updatedTriplesCache.isValid();
+			// updatedTriplesCache will be null when recovering from a crash
+			boolean validCache = updatedTriplesCache != null && updatedTriplesCache.isValid();
+
+			updateIndexes(index -> rollbackIndex(index, validCache));
+			recordTransactionChanges(validCache);
+
+			if (updatedTriplesCache != null) {
+				updatedTriplesCache.clear();
+			}
+
+			sync();
+
+			txnStatusFile.setTxnStatus(TxnStatus.NONE);
+		} finally {
+			updateLock.unlock();
+		}
+	}
 
+	private void rollbackIndex(TripleIndex index, boolean validCache) throws IOException {
 		byte txnFlagsMask = ~(ADDED_FLAG | REMOVED_FLAG | TOGGLE_EXPLICIT_FLAG);
 
+		BTree btree = index.getBTree();
+
+		RecordIterator iter;
+		if (validCache) {
+			// Use the cached set of updated triples
+			iter = updatedTriplesCache.getRecords();
+		} else {
+			// Cache is invalid; too much updates(?). Iterate over all triples
+			iter = btree.iterateAll();
+		}
+
+		try {
+			byte[] data = null;
+			while ((data = iter.next()) != null) {
+				byte flags = data[FLAG_IDX];
+				boolean wasAdded = (flags & ADDED_FLAG) != 0;
+				boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
+				boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+
+				if (wasAdded) {
+					btree.remove(data);
+				} else {
+					if (wasRemoved || wasToggled) {
+						data[FLAG_IDX] &= txnFlagsMask;
+
+						if (validCache) {
+							// We're iterating the cache
+							btree.insert(data);
+						} else {
+							// We're iterating the BTree itself
+							iter.set(data);
+						}
+					}
+				}
+			}
+		} finally {
+			iter.close();
+		}
+	}
+
+	/**
+	 * Starts a bulk load into this triple store, which must be empty. Triples that are added using
+	 * {@link #bulkLoadTriple(int, int, int, int)} are not inserted into the indexes one by one, but are sorted
+	 * externally for each index and written to the index files bottom-up upon {@link #commitBulkLoad()}. This is much
+	 * faster than storing the triples using {@link #storeTriple(int, int, int, int)} and produces fully packed index
+	 * files. The triples are not visible until the bulk load has been committed.
+	 * <p>
+	 * The loaded triples are written without transaction flags, so that the indexes don't have to be rewritten to
+	 * commit them. Instead, the transaction status is {@link TxnStatus#BULK_LOADING} until the bulk load has been
+	 * committed completely; an interrupted bulk load is undone upon restart by clearing the store, which was empty when
+	 * the bulk load started.
+	 */
+	public void startBulkLoad() throws IOException {
+		if (bulkLoadSorter != null) {
+			throw new IllegalStateException("Bulk load already started");
+		} else if (indexBuild != null) {
+			throw new IllegalStateException("Unable to bulk load while an index is being built");
+		}
 		for (TripleIndex index : indexes) {
-			BTree btree = index.getBTree();
+			if (!index.getBTree().isEmpty()) {
+				throw new IllegalStateException("Bulk loading requires an empty triple store");
+			}
+		}
 
-			RecordIterator iter;
-			if (validCache) {
-				// Use the cached set of updated triples
-				iter = updatedTriplesCache.getRecords();
-			} else {
-				// Cache is invalid; too much updates(?). Iterate over all triples
-				iter = btree.iterateAll();
+		txnStatusFile.setTxnStatus(TxnStatus.BULK_LOADING);
+		bulkLoadSorter = new ExternalRecordSorter(dir, RECORD_LENGTH, indexes.get(0).tripleComparator,
+				BULK_LOAD_BUFFER_SIZE);
+	}
+
+	/**
+	 * Adds an explicit triple to the active bulk load. Duplicate triples are ignored.
+	 */
+	public void bulkLoadTriple(int subj, int pred, int obj, int context) throws IOException {
+		if (bulkLoadSorter == null) {
+			throw new IllegalStateException("No active bulk load");
+		}
+		bulkLoadSorter.add(getData(subj, pred, obj, context, EXPLICIT_FLAG));
+	}
+
+	/**
+	 * Sorts the triples of the active bulk load for every index and builds the index files from them. If building the
+	 * indexes fails, the triple store is cleared again.
+	 * 
+	 * @return The number of unique triples that have been loaded.
+	 */
+	public long commitBulkLoad() throws IOException {
+		if (bulkLoadSorter == null) {
+			throw new IllegalStateException("No active bulk load");
+		}
+
+		RecordCache sortedTriples;
+		try {
+			sortedTriples = bulkLoadSorter.sort();
+		} finally {
+			bulkLoadSorter = null;
+		}
+
+		long tripleCount = sortedTriples.getRecordCount();
+		boolean success = false;
+		updateLock.lock();
+		try {
+			TripleStatistics stats = statistics;
+			TripleIndex firstIndex = indexes.get(0);
+			updateIndexes(index -> {
+				if (index == firstIndex) {
+					bulkLoadIndex(index, sortedTriples, stats);
+				} else {
+					ExternalRecordSorter sorter = new ExternalRecordSorter(dir, RECORD_LENGTH, index.tripleComparator,
+							BULK_LOAD_BUFFER_SIZE);
+					try (RecordIterator iter = sortedTriples.getRecords()) {
+						sorter.addAll(iter);
+					} catch (IOException | RuntimeException e) {
+						sorter.discard();
+						throw e;
+					}
+
+					RecordCache indexTriples = sorter.sort();
+					try {
+						bulkLoadIndex(index, indexTriples, null);
+					} finally {
+						indexTriples.discard();
+					}
+				}
+			});
+
+			if (stats != null && stats.isRescanRequired()) {
+				startStatisticsScan();
 			}
 
+			sync();
+			success = true;
+		} finally {
 			try {
-				byte[] data = null;
-				while ((data = iter.next()) != null) {
-					byte flags = data[FLAG_IDX];
-					boolean wasAdded = (flags & ADDED_FLAG) != 0;
-					boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
-					boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+				sortedTriples.discard();
+				if (!success) {
+					// the store was empty when the bulk load started
+					clear();
+					txnStatusFile.setTxnStatus(TxnStatus.NONE);
+				}
+			} finally {
+				updateLock.unlock();
+			}
+		}
 
-					if (wasAdded) {
-						btree.remove(data);
-					} else {
-						if (wasRemoved || wasToggled) {
-							data[FLAG_IDX] &= txnFlagsMask;
-
-							if (validCache) {
-								// We're iterating the cache
-								btree.insert(data);
-							} else {
-								// We're iterating the BTree itself
-								iter.set(data);
-							}
+		// all indexes are complete and on disk
+		txnStatusFile.setTxnStatus(TxnStatus.NONE);
+
+		return tripleCount;
+	}
+
+	/**
+	 * Aborts the active bulk load, if any, discarding all triples that have been added to it.
+	 */
+	public void abortBulkLoad() throws IOException {
+		if (bulkLoadSorter != null) {
+			try {
+				bulkLoadSorter.discard();
+			} finally {
+				bulkLoadSorter = null;
+				txnStatusFile.setTxnStatus(TxnStatus.NONE);
+			}
+		}
+	}
+
+	/**
+	 * Writes the supplied triples to the file of an empty index.
+	 * 
+	 * @param statistics The statistics that should be updated with the loaded triples, or <tt>null</tt>.
+	 */
+	private void bulkLoadIndex(TripleIndex index, RecordCache sortedTriples, TripleStatistics statistics)
+			throws IOException {
+		logger.debug("Bulk loading {} triples into index '{}'", sortedTriples.getRecordCount(), index);
+		try (RecordIterator iter = sortedTriples.getRecords()) {
+			RecordIterator records = iter;
+			if (statistics != null) {
+				records = new RecordIterator() {
+
+					@Override
+					public byte[] next() throws IOException {
+						byte[] data = iter.next();
+						if (data != null) {
+							statistics.update(data, true);
 						}
+						return data;
+					}
+
+					@Override
+					public void set(byte[] record) throws IOException {
+						iter.set(record);
+					}
+
+					@Override
+					public void close() throws IOException {
+						iter.close();
 					}
+				};
+			}
+			index.getBTree().bulkLoad(records, sortedTriples.getRecordCount());
+		}
+	}
+
+	/**
+	 * Applies the supplied update to all indexes. If {@link #parallelCommit} is enabled, the indexes are updated
+	 * concurrently. Each index is backed by its own {@link BTree} file and node cache, so the updates are independent
+	 * of each other. This method always waits for all updates to finish, even if one of them fails, so that no index is
+	 * modified after this method returns. The transaction status is not touched here; if an update fails, the status
+	 * file still reflects the unfinished commit or rollback and will be completed upon restart.
+	 */
+	private void updateIndexes(IndexUpdate update) throws IOException {
+		if (!parallelCommit || indexes.size() < 2) {
+			for (TripleIndex index : indexes) {
+				update.apply(index);
+			}
+			return;
+		}
+
+		ExecutorService executor = getIndexUpdateExecutor();
+
+		List<Future<Void>> futures = new ArrayList<>(indexes.size());
+		for (TripleIndex index : indexes) {
+			futures.add(executor.submit(() -> {
+				update.apply(index);
+				return null;
+			}));
+		}
+
+		List<Throwable> exceptions = new ArrayList<>();
+		boolean interrupted = false;
+		for (Future<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					// keep waiting, the index must not be modified after we return
+					interrupted = true;
+				} catch (ExecutionException e) {
+					logger.warn("Failed to update index", e.getCause());
+					exceptions.add(e.getCause());
+					break;
 				}
-			} finally {
-				iter.close();
 			}
 		}
 
-		if (updatedTriplesCache != null) {
-			updatedTriplesCache.clear();
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (!exceptions.isEmpty()) {
+			Throwable e = exceptions.get(0);
+			if (e instanceof IOException) {
+				throw (IOException) e;
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else if (e instanceof Error) {
+				throw (Error) e;
+			}
+			throw new IOException(e);
+		}
+	}
+
+	private synchronized ExecutorService getIndexUpdateExecutor() {
+		if (indexUpdateExecutor == null) {
+			int threadCount = Math.min(indexes.size(), Runtime.getRuntime().availableProcessors());
+			indexUpdateExecutor = Executors.newFixedThreadPool(Math.max(threadCount, 1), runnable -> {
+				Thread thread = new Thread(runnable, "NativeStore index update " + dir.getName());
+				thread.setDaemon(true);
+				return thread;
+			});
 		}
+		return indexUpdateExecutor;
+	}
 
-		sync();
+	@FunctionalInterface
+	private interface IndexUpdate {
 
-		txnStatusFile.setTxnStatus(TxnStatus.NONE);
+		void apply(TripleIndex index) throws IOException;
 	}
 
 	protected void sync() throws IOException {
@@ -1030,6 +1920,246 @@ class TripleStore implements Closeable {
 		}
 	}
 
+	/*------------------------*
+	 * Inner class IndexBuild *
+	 *------------------------*/
+
+	/**
+	 * The state of an index that is being built in the background. Triples that are updated while the index is being
+	 * built are recorded; the recorded triples are looked up in the source index afterwards and their current state is
+	 * copied to the new index.
+	 */
+	private class IndexBuild {
+
+		private final TripleIndex index;
+
+		private final TripleIndex sourceIndex;
+
+		private final FutureTask<Void> task;
+
+		/**
+		 * The triples that have been updated since the last scan or since the last time the changes were applied.
+		 */
+		private RecordCache changedTriples;
+
+		/**
+		 * Flag indicating that the updated triples could not be recorded, the index must be built from scratch.
+		 */
+		private boolean rescanRequired;
+
+		private volatile boolean cancelled;
+
+		public IndexBuild(TripleIndex index, TripleIndex sourceIndex) throws IOException {
+			this.index = index;
+			this.sourceIndex = sourceIndex;
+			this.changedTriples = new SequentialRecordCache(dir, RECORD_LENGTH);
+			this.task = new FutureTask<>(() -> {
+				run();
+				return null;
+			});
+		}
+
+		private void run() throws IOException {
+			try {
+				buildIndex(this);
+			} catch (IOException | RuntimeException | Error e) {
+				if (!cancelled) {
+					logger.error("Failed to build " + index + " index", e);
+				}
+
+				updateLock.lock();
+				try {
+					indexBuild = null;
+				} finally {
+					updateLock.unlock();
+				}
+				index.getBTree().delete();
+				throw e;
+			} finally {
+				synchronized (this) {
+					changedTriples.discard();
+				}
+			}
+		}
+
+		/**
+		 * Clears the index and the recorded changes before a scan of the source index.
+		 */
+		public void startScan() throws IOException {
+			index.getBTree().clear();
+
+			synchronized (this) {
+				rescanRequired = false;
+				changedTriples.clear();
+			}
+		}
+
+		public synchronized boolean isRescanRequired() {
+			return rescanRequired;
+		}
+
+		public synchronized void recordChange(byte[] data) throws IOException {
+			if (!rescanRequired) {
+				changedTriples.storeRecord(data);
+			}
+		}
+
+		/**
+		 * Records the triples of the supplied cache as changed, or requests a new scan if the cache is <tt>null</tt>.
+		 */
+		public synchronized void recordChanges(RecordCache triples) throws IOException {
+			if (triples == null) {
+				rescanRequired = true;
+				changedTriples.clear();
+			} else if (!rescanRequired) {
+				changedTriples.storeRecords(triples);
+			}
+		}
+
+		/**
+		 * Copies the current state of the triples that have been recorded so far from the source index to the new
+		 * index.
+		 * 
+		 * @return The number of recorded triples.
+		 */
+		public long applyChanges() throws IOException {
+			RecordCache changes;
+			synchronized (this) {
+				if (rescanRequired) {
+					return 0;
+				}
+				changes = changedTriples;
+				changedTriples = new SequentialRecordCache(dir, RECORD_LENGTH);
+			}
+
+			try (RecordIterator iter = changes.getRecords()) {
+				BTree sourceBTree = sourceIndex.getBTree();
+				BTree btree = index.getBTree();
+
+				byte[] data;
+				while ((data = iter.next()) != null) {
+					checkCancelled();
+
+					byte[] currentData = sourceBTree.get(data);
+					if (currentData != null) {
+						btree.insert(currentData);
+					} else {
+						btree.remove(data);
+					}
+				}
+
+				return changes.getRecordCount();
+			} finally {
+				changes.discard();
+			}
+		}
+
+		public void checkCancelled() throws InterruptedIOException {
+			if (cancelled) {
+				throw new InterruptedIOException("Building " + index + " index was cancelled");
+			}
+		}
+
+		/**
+		 * Cancels the build and waits until the files of the index have been deleted.
+		 */
+		public void cancel() {
+			cancelled = true;
+
+			boolean interrupted = false;
+			while (true) {
+				try {
+					task.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	} // end inner class IndexBuild
+
+	/*----------------------------*
+	 * Inner class StatisticsScan *
+	 *----------------------------*/
+
+	/**
+	 * A scan that collects statistics in the background. The collected statistics replace the current statistics,
+	 * the commits that are applied during the scan are only partially reflected by them.
+	 */
+	private class StatisticsScan {
+
+		private final FutureTask<Void> task;
+
+		private volatile boolean cancelled;
+
+		public StatisticsScan() {
+			this.task = new FutureTask<>(() -> {
+				run();
+				return null;
+			});
+		}
+
+		private void run() throws IOException {
+			TripleStatistics scannedStatistics = null;
+			try {
+				scannedStatistics = collectStatistics(this);
+			} catch (IOException | RuntimeException | Error e) {
+				if (!cancelled) {
+					logger.error("Failed to collect triple statistics", e);
+				}
+				throw e;
+			} finally {
+				updateLock.lock();
+				try {
+					// The scan is no longer current if the store has been cleared in the meantime
+					if (statisticsScan == this) {
+						if (scannedStatistics != null) {
+							statistics = scannedStatistics;
+						}
+						statisticsScan = null;
+					}
+				} finally {
+					updateLock.unlock();
+				}
+			}
+		}
+
+		public void checkCancelled() throws InterruptedIOException {
+			if (cancelled) {
+				throw new InterruptedIOException("Collecting triple statistics was cancelled");
+			}
+		}
+
+		/**
+		 * Cancels the scan and waits until it has stopped.
+		 */
+		public void cancel() {
+			cancelled = true;
+
+			boolean interrupted = false;
+			while (true) {
+				try {
+					task.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	} // end inner class StatisticsScan
+
 	/*-------------------------*
 	 * Inner class TripleIndex *
 	 *-------------------------*/
@@ -1041,12 +2171,13 @@ class TripleStore implements Closeable {
 		private final BTree btree;
 
 		public TripleIndex(String fieldSeq) throws IOException {
-			tripleComparator = new TripleComparator(fieldSeq);
-			btree = new BTree(dir, getFilenamePrefix(fieldSeq), 2048, RECORD_LENGTH, tripleComparator, forceSync);
+			this(fieldSeq, getFilenamePrefix(fieldSeq));
 		}
 
-		private String getFilenamePrefix(String fieldSeq) {
-			return "triples-" + fieldSeq;
+		private TripleIndex(String fieldSeq, String filenamePrefix) throws IOException {
+			tripleComparator = new TripleComparator(fieldSeq);
+			btree = new BTree(dir, filenamePrefix, 2048, RECORD_LENGTH, tripleComparator, forceSync, memoryMapped,
+					true);
 		}
 
 		public char[] getFieldSeq() {
@@ -1104,6 +2235,47 @@ class TripleStore implements Closeable {
 			return score;
 		}
 
+		/**
+		 * Checks whether this index returns the triples that match the supplied pattern sorted on the specified field,
+		 * from a single range of the index. This is the case if all fields that precede the sort field in this index
+		 * are bound by the pattern, and all fields that follow it are not.
+		 */
+		public boolean isSortedOn(char sortField, int subj, int pred, int obj, int context) {
+			boolean afterSortField = false;
+
+			for (char field : tripleComparator.getFieldSeq()) {
+				if (field == sortField) {
+					afterSortField = true;
+					continue;
+				}
+
+				boolean bound;
+				switch (field) {
+				case 's':
+					bound = subj >= 0;
+					break;
+				case 'p':
+					bound = pred >= 0;
+					break;
+				case 'o':
+					bound = obj >= 0;
+					break;
+				case 'c':
+					bound = context >= 0;
+					break;
+				default:
+					throw new RuntimeException("invalid character '" + field + "' in field sequence: "
+							+ new String(tripleComparator.getFieldSeq()));
+				}
+
+				if (afterSortField ? bound : !bound) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
 		@Override
 		public String toString() {
 			return new String(getFieldSeq());
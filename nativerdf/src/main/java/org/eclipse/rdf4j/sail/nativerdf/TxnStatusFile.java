@@ -41,6 +41,12 @@ class TxnStatusFile {
 		 */
 		ROLLING_BACK,
 
+		/**
+		 * A bulk load into the empty store has been started, but was not yet completed. The loaded triples are not
+		 * marked as added, so the store is cleared to undo the bulk load.
+		 */
+		BULK_LOADING,
+
 		/**
 		 * The transaction status is unknown.
 		 */
@@ -10,6 +10,7 @@ package org.eclipse.rdf4j.sail.nativerdf;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.Optional;
 
 import org.eclipse.rdf4j.common.concurrent.locks.Lock;
@@ -27,6 +28,9 @@ import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.nativerdf.datastore.DataStore;
+import org.eclipse.rdf4j.sail.nativerdf.model.LazyNativeBNode;
+import org.eclipse.rdf4j.sail.nativerdf.model.LazyNativeIRI;
+import org.eclipse.rdf4j.sail.nativerdf.model.LazyNativeLiteral;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeBNode;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeIRI;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeLiteral;
@@ -45,24 +49,41 @@ public class ValueStore extends AbstractValueFactory {
 	 *-----------*/
 
 	/**
-	 * The default value cache size.
+	 * The default value cache size. Cache sizes are expressed in entries of {@link #AVERAGE_CACHE_ENTRY_SIZE average
+	 * size}; the caches are bounded by the estimated memory footprint of their entries.
 	 */
-	public static final int VALUE_CACHE_SIZE = 512;
+	public static final int VALUE_CACHE_SIZE = 4096;
 
 	/**
 	 * The default value id cache size.
 	 */
-	public static final int VALUE_ID_CACHE_SIZE = 128;
+	public static final int VALUE_ID_CACHE_SIZE = 2048;
 
 	/**
 	 * The default namespace cache size.
 	 */
-	public static final int NAMESPACE_CACHE_SIZE = 64;
+	public static final int NAMESPACE_CACHE_SIZE = 256;
 
 	/**
 	 * The default namespace id cache size.
 	 */
-	public static final int NAMESPACE_ID_CACHE_SIZE = 32;
+	public static final int NAMESPACE_ID_CACHE_SIZE = 128;
+
+	/**
+	 * The estimated memory footprint in bytes of an average cache entry, used to translate the configured cache sizes
+	 * to memory budgets.
+	 */
+	public static final int AVERAGE_CACHE_ENTRY_SIZE = 256;
+
+	/**
+	 * The estimated memory overhead in bytes of a cache entry, excluding its key and value.
+	 */
+	private static final int CACHE_ENTRY_OVERHEAD = 80;
+
+	/**
+	 * The estimated memory footprint in bytes of a boxed integer.
+	 */
+	private static final int INTEGER_SIZE = 16;
 
 	private static final String FILENAME_PREFIX = "values";
 
@@ -94,25 +115,24 @@ public class ValueStore extends AbstractValueFactory {
 	private volatile ValueStoreRevision revision;
 
 	/**
-	 * A simple cache containing the [VALUE_CACHE_SIZE] most-recently used values stored by their ID.
+	 * A cache containing frequently used values stored by their ID.
 	 */
-	private final ConcurrentCache<Integer, NativeValue> valueCache;
+	private final WTinyLfuCache<Integer, NativeValue> valueCache;
 
 	/**
-	 * A simple cache containing the [ID_CACHE_SIZE] most-recently used value-IDs stored by their value.
+	 * A cache containing frequently used value-IDs stored by their value.
 	 */
-	private final ConcurrentCache<NativeValue, Integer> valueIDCache;
+	private final WTinyLfuCache<NativeValue, Integer> valueIDCache;
 
 	/**
-	 * A simple cache containing the [NAMESPACE_CACHE_SIZE] most-recently used namespaces stored by their ID.
+	 * A cache containing frequently used namespaces stored by their ID.
 	 */
-	private final ConcurrentCache<Integer, String> namespaceCache;
+	private final WTinyLfuCache<Integer, String> namespaceCache;
 
 	/**
-	 * A simple cache containing the [NAMESPACE_ID_CACHE_SIZE] most-recently used namespace-IDs stored by their
-	 * namespace.
+	 * A cache containing frequently used namespace-IDs stored by their namespace.
 	 */
-	private final ConcurrentCache<String, Integer> namespaceIDCache;
+	private final WTinyLfuCache<String, Integer> namespaceIDCache;
 
 	/*--------------*
 	 * Constructors *
@@ -128,13 +148,22 @@ public class ValueStore extends AbstractValueFactory {
 
 	public ValueStore(File dataDir, boolean forceSync, int valueCacheSize, int valueIDCacheSize, int namespaceCacheSize,
 			int namespaceIDCacheSize) throws IOException {
+		this(dataDir, forceSync, false, valueCacheSize, valueIDCacheSize, namespaceCacheSize, namespaceIDCacheSize);
+	}
+
+	public ValueStore(File dataDir, boolean forceSync, boolean memoryMapped, int valueCacheSize, int valueIDCacheSize,
+			int namespaceCacheSize, int namespaceIDCacheSize) throws IOException {
 		super();
-		dataStore = new DataStore(dataDir, FILENAME_PREFIX, forceSync);
+		dataStore = new DataStore(dataDir, FILENAME_PREFIX, forceSync, memoryMapped);
 
-		valueCache = new ConcurrentCache<>(valueCacheSize);
-		valueIDCache = new ConcurrentCache<>(valueIDCacheSize);
-		namespaceCache = new ConcurrentCache<>(namespaceCacheSize);
-		namespaceIDCache = new ConcurrentCache<>(namespaceIDCacheSize);
+		valueCache = new WTinyLfuCache<>((long) valueCacheSize * AVERAGE_CACHE_ENTRY_SIZE,
+				(id, value) -> CACHE_ENTRY_OVERHEAD + INTEGER_SIZE + estimateSize(value));
+		valueIDCache = new WTinyLfuCache<>((long) valueIDCacheSize * AVERAGE_CACHE_ENTRY_SIZE,
+				(value, id) -> CACHE_ENTRY_OVERHEAD + INTEGER_SIZE + estimateSize(value));
+		namespaceCache = new WTinyLfuCache<>((long) namespaceCacheSize * AVERAGE_CACHE_ENTRY_SIZE,
+				(id, namespace) -> CACHE_ENTRY_OVERHEAD + INTEGER_SIZE + estimateSize(namespace));
+		namespaceIDCache = new WTinyLfuCache<>((long) namespaceIDCacheSize * AVERAGE_CACHE_ENTRY_SIZE,
+				(namespace, id) -> CACHE_ENTRY_OVERHEAD + INTEGER_SIZE + estimateSize(namespace));
 
 		setNewRevision();
 	}
@@ -190,6 +219,63 @@ public class ValueStore extends AbstractValueFactory {
 		return resultValue;
 	}
 
+	/**
+	 * Gets the value for an ID that was obtained from the specified revision of this value store. This is used to load
+	 * the contents of lazy values.
+	 * 
+	 * @param id         A value ID.
+	 * @param idRevision The revision of this value store that the ID was obtained from.
+	 * @return The value for the ID.
+	 * @exception SailException If the value store has been cleared since the ID was obtained, or if the value could
+	 *                          not be read.
+	 */
+	public NativeValue getValue(int id, ValueStoreRevision idRevision) throws SailException {
+		if (!revision.equals(idRevision)) {
+			throw new SailException("Value store has been cleared, unable to load value with ID " + id);
+		}
+
+		try {
+			NativeValue value = getValue(id);
+			if (value == null) {
+				throw new SailException("Unknown value ID: " + id);
+			}
+			return value;
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+
+	/**
+	 * Gets a lazy value for the specified ID. If the value is not cached, only its type is read and a value is returned
+	 * of which the contents are loaded on first use. Comparing such a value to other values from this value store, or
+	 * looking up its ID, does not require its contents to be loaded.
+	 * 
+	 * @param id A value ID.
+	 * @return The value for the ID, or <tt>null</tt> no such value could be found.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public NativeValue getLazyValue(int id) throws IOException {
+		NativeValue cachedValue = valueCache.get(id);
+		if (cachedValue != null) {
+			return cachedValue;
+		}
+
+		int type = dataStore.getFirstByte(id);
+
+		switch (type) {
+		case -1:
+			return null;
+		case URI_VALUE:
+			return new LazyNativeIRI(revision, id);
+		case BNODE_VALUE:
+			return new LazyNativeBNode(revision, id);
+		case LITERAL_VALUE:
+			return new LazyNativeLiteral(revision, id);
+		default:
+			throw new IllegalArgumentException("Namespaces cannot be converted into values: " + getNamespace(id));
+		}
+	}
+
 	/**
 	 * Gets the ID for the specified value.
 	 * 
@@ -198,6 +284,41 @@ public class ValueStore extends AbstractValueFactory {
 	 * @exception IOException If an I/O error occurred.
 	 */
 	public int getID(Value value) throws IOException {
+		int id = getCachedID(value);
+		if (id != NativeValue.UNKNOWN_ID) {
+			return id;
+		}
+
+		// ID not cached, search in file
+		byte[] data = value2data(value, false);
+
+		if (data == null && value instanceof Literal) {
+			data = literal2legacy((Literal) value);
+		}
+
+		if (data != null) {
+			id = dataStore.getID(data);
+
+			if (id == NativeValue.UNKNOWN_ID && value instanceof Literal) {
+				id = dataStore.getID(literal2legacy((Literal) value));
+			}
+
+			if (id != NativeValue.UNKNOWN_ID) {
+				cacheID(value, id);
+			}
+
+			return id;
+		}
+
+		return NativeValue.UNKNOWN_ID;
+	}
+
+	/**
+	 * Gets the ID for the specified value from the value itself or from the value ID cache.
+	 * 
+	 * @return The ID for the specified value, or {@link NativeValue#UNKNOWN_ID} if the ID is not known in memory.
+	 */
+	private int getCachedID(Value value) {
 		// Try to get the internal ID from the value itself
 		boolean isOwnValue = isOwnValue(value);
 
@@ -227,36 +348,140 @@ public class ValueStore extends AbstractValueFactory {
 			return id;
 		}
 
-		// ID not cached, search in file
-		byte[] data = value2data(value, false);
+		return NativeValue.UNKNOWN_ID;
+	}
 
-		if (data == null && value instanceof Literal) {
-			data = literal2legacy((Literal) value);
+	/**
+	 * Remembers the ID of a value that has been looked up in file, either in the value itself or in the value ID cache.
+	 */
+	private void cacheID(Value value, int id) {
+		if (isOwnValue(value)) {
+			// Store id in value for fast access in any consecutive calls
+			((NativeValue) value).setInternalID(id, revision);
+		} else {
+			// Store id in cache
+			NativeValue nv = getNativeValue(value);
+			nv.setInternalID(id, revision);
+			valueIDCache.put(nv, new Integer(id));
 		}
+	}
 
-		if (data != null) {
-			int id = dataStore.getID(data);
+	/**
+	 * Gets the values for the specified IDs. Values that are not cached are fetched from file in a single batch, which
+	 * is considerably more efficient than fetching them one by one when many values need to be resolved.
+	 * 
+	 * @param ids Value IDs.
+	 * @return The values for the IDs, in the order of the supplied IDs. Entries for IDs for which no value could be
+	 *         found are <tt>null</tt>.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public NativeValue[] getValues(int[] ids) throws IOException {
+		NativeValue[] result = new NativeValue[ids.length];
+
+		int[] missingIdxs = new int[ids.length];
+		int missingCount = 0;
+		for (int i = 0; i < ids.length; i++) {
+			result[i] = valueCache.get(ids[i]);
+			if (result[i] == null) {
+				missingIdxs[missingCount++] = i;
+			}
+		}
 
-			if (id == NativeValue.UNKNOWN_ID && value instanceof Literal) {
-				id = dataStore.getID(literal2legacy((Literal) value));
+		if (missingCount > 0) {
+			int[] missingIDs = new int[missingCount];
+			for (int m = 0; m < missingCount; m++) {
+				missingIDs[m] = ids[missingIdxs[m]];
+			}
+
+			byte[][] data = dataStore.getData(missingIDs);
+
+			for (int m = 0; m < missingCount; m++) {
+				if (data[m] != null) {
+					int i = missingIdxs[m];
+					result[i] = data2value(ids[i], data[m]);
+					valueCache.put(ids[i], result[i]);
+				}
 			}
+		}
 
+		return result;
+	}
+
+	/**
+	 * Gets the IDs for the specified values. Values for which the ID is not known in memory are looked up in file in a
+	 * single batch, which is considerably more efficient than looking them up one by one when many values need to be
+	 * resolved.
+	 * 
+	 * @param values Values, entries may be <tt>null</tt>.
+	 * @return The IDs for the specified values, in the order of the supplied values. Entries for <tt>null</tt> values
+	 *         and for values for which no ID could be found are {@link NativeValue#UNKNOWN_ID}.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public int[] getIDs(Value[] values) throws IOException {
+		int[] result = new int[values.length];
+		Arrays.fill(result, NativeValue.UNKNOWN_ID);
+
+		int[] missingIdxs = new int[values.length];
+		byte[][] missingData = new byte[values.length][];
+		int missingCount = 0;
+
+		for (int i = 0; i < values.length; i++) {
+			Value value = values[i];
+			if (value == null) {
+				continue;
+			}
+
+			int id = getCachedID(value);
 			if (id != NativeValue.UNKNOWN_ID) {
-				if (isOwnValue) {
-					// Store id in value for fast access in any consecutive calls
-					((NativeValue) value).setInternalID(id, revision);
-				} else {
-					// Store id in cache
-					NativeValue nv = getNativeValue(value);
-					nv.setInternalID(id, revision);
-					valueIDCache.put(nv, new Integer(id));
+				result[i] = id;
+				continue;
+			}
+
+			byte[] data = value2data(value, false);
+			if (data == null && value instanceof Literal) {
+				data = literal2legacy((Literal) value);
+			}
+			if (data != null) {
+				missingIdxs[missingCount] = i;
+				missingData[missingCount] = data;
+				missingCount++;
+			}
+		}
+
+		if (missingCount > 0) {
+			int[] ids = dataStore.getIDs(Arrays.copyOf(missingData, missingCount));
+
+			// Retry unknown literals with their legacy encoding
+			int[] legacyIdxs = new int[missingCount];
+			byte[][] legacyData = new byte[missingCount][];
+			int legacyCount = 0;
+
+			for (int m = 0; m < missingCount; m++) {
+				int i = missingIdxs[m];
+				if (ids[m] != NativeValue.UNKNOWN_ID) {
+					result[i] = ids[m];
+					cacheID(values[i], ids[m]);
+				} else if (values[i] instanceof Literal) {
+					legacyIdxs[legacyCount] = i;
+					legacyData[legacyCount] = literal2legacy((Literal) values[i]);
+					legacyCount++;
 				}
 			}
 
-			return id;
+			if (legacyCount > 0) {
+				ids = dataStore.getIDs(Arrays.copyOf(legacyData, legacyCount));
+
+				for (int l = 0; l < legacyCount; l++) {
+					if (ids[l] != NativeValue.UNKNOWN_ID) {
+						int i = legacyIdxs[l];
+						result[i] = ids[l];
+						cacheID(values[i], ids[l]);
+					}
+				}
+			}
 		}
 
-		return NativeValue.UNKNOWN_ID;
+		return result;
 	}
 
 	/**
@@ -344,6 +569,34 @@ public class ValueStore extends AbstractValueFactory {
 		}
 	}
 
+	/**
+	 * Gets the statistics of the cache that maps IDs to values.
+	 */
+	public WTinyLfuCache.Stats getValueCacheStats() {
+		return valueCache.getStats();
+	}
+
+	/**
+	 * Gets the statistics of the cache that maps values to IDs.
+	 */
+	public WTinyLfuCache.Stats getValueIDCacheStats() {
+		return valueIDCache.getStats();
+	}
+
+	/**
+	 * Gets the statistics of the cache that maps IDs to namespaces.
+	 */
+	public WTinyLfuCache.Stats getNamespaceCacheStats() {
+		return namespaceCache.getStats();
+	}
+
+	/**
+	 * Gets the statistics of the cache that maps namespaces to IDs.
+	 */
+	public WTinyLfuCache.Stats getNamespaceIDCacheStats() {
+		return namespaceIDCache.getStats();
+	}
+
 	/**
 	 * Synchronizes any changes that are cached in memory to disk.
 	 * 
@@ -613,6 +866,26 @@ public class ValueStore extends AbstractValueFactory {
 		return namespace;
 	}
 
+	/**
+	 * Estimates the memory footprint of a value in bytes, for the purpose of bounding the value caches.
+	 */
+	private static int estimateSize(Value value) {
+		if (value instanceof IRI) {
+			return 32 + estimateSize(value.stringValue());
+		} else if (value instanceof Literal) {
+			Literal literal = (Literal) value;
+			// the datatype is typically shared between literals
+			int languageSize = literal.getLanguage().map(ValueStore::estimateSize).orElse(0);
+			return 40 + estimateSize(literal.getLabel()) + languageSize;
+		} else {
+			return 24 + estimateSize(value.stringValue());
+		}
+	}
+
+	private static int estimateSize(String s) {
+		return 40 + 2 * s.length();
+	}
+
 	/*-------------------------------------*
 	 * Methods from interface ValueFactory *
 	 *-------------------------------------*/
@@ -0,0 +1,519 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache that is bounded by the estimated memory footprint of its entries and that uses the W-TinyLFU
+ * policy to decide which entries to keep. New entries enter a small LRU <em>window</em>. Entries that are evicted from
+ * the window are only admitted to the <em>main</em> area if they have been accessed more frequently than the entry
+ * that would have to make room for them, as estimated by a compact frequency sketch. The main area is a segmented LRU
+ * that protects entries that have been accessed more than once. This keeps frequently used entries cached, even in
+ * the presence of scans over large numbers of entries that are used only once.
+ * <p>
+ * The cache is divided into independently locked stripes to reduce contention. Hit, miss and eviction counts are
+ * recorded for monitoring purposes.
+ */
+public class WTinyLfuCache<K, V> {
+
+	/**
+	 * The minimum weight budget of a stripe; smaller caches use fewer stripes.
+	 */
+	private static final long MIN_STRIPE_WEIGHT = 64 * 1024;
+
+	private static final int MAX_STRIPES = 16;
+
+	/**
+	 * The weight that is assumed for an average entry when sizing the frequency sketch.
+	 */
+	private static final int AVERAGE_ENTRY_WEIGHT = 64;
+
+	private final long maximumWeight;
+
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+
+	private final Stripe<K, V>[] stripes;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param maximumWeight The maximum total weight of the cached entries, typically in (estimated) bytes.
+	 * @param weigher       Function that estimates the weight of an entry. Weights must be positive.
+	 */
+	@SuppressWarnings("unchecked")
+	public WTinyLfuCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("maximumWeight must not be negative");
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+
+		int stripeCount = 1;
+		while (stripeCount < MAX_STRIPES && maximumWeight / (stripeCount * 2) >= MIN_STRIPE_WEIGHT) {
+			stripeCount *= 2;
+		}
+
+		stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe<>(maximumWeight / stripeCount, this);
+		}
+	}
+
+	public V get(Object key) {
+		int hash = spread(key.hashCode());
+		V value = getStripe(hash).get(key, hash);
+
+		if (value != null) {
+			hitCount.increment();
+		} else {
+			missCount.increment();
+		}
+
+		return value;
+	}
+
+	public void put(K key, V value) {
+		int hash = spread(key.hashCode());
+		int weight = Math.max(1, weigher.applyAsInt(key, value));
+		getStripe(hash).put(key, value, hash, weight);
+	}
+
+	public void clear() {
+		for (Stripe<K, V> stripe : stripes) {
+			stripe.clear();
+		}
+	}
+
+	/**
+	 * Gets a snapshot of the statistics of this cache.
+	 */
+	public Stats getStats() {
+		long weight = 0L;
+		int size = 0;
+		for (Stripe<K, V> stripe : stripes) {
+			synchronized (stripe) {
+				weight += stripe.getWeight();
+				size += stripe.size();
+			}
+		}
+		return new Stats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size, weight, maximumWeight);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + getStats();
+	}
+
+	private Stripe<K, V> getStripe(int hash) {
+		return stripes[(hash >>> 16) & (stripes.length - 1)];
+	}
+
+	private static int spread(int hashCode) {
+		int h = hashCode * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/*-------------------*
+	 * Inner class Stats *
+	 *-------------------*/
+
+	/**
+	 * An immutable snapshot of the statistics of a cache.
+	 */
+	public static final class Stats {
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private final int size;
+
+		private final long weight;
+
+		private final long maximumWeight;
+
+		Stats(long hitCount, long missCount, long evictionCount, int size, long weight, long maximumWeight) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.size = size;
+			this.weight = weight;
+			this.maximumWeight = maximumWeight;
+		}
+
+		/**
+		 * Gets the number of lookups that returned a cached value.
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * Gets the number of lookups that did not return a cached value.
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * Gets the ratio of lookups that returned a cached value, or <tt>1.0</tt> if there were no lookups.
+		 */
+		public double getHitRate() {
+			long requestCount = hitCount + missCount;
+			return requestCount == 0L ? 1.0 : (double) hitCount / requestCount;
+		}
+
+		/**
+		 * Gets the number of entries that were evicted or not admitted to the cache.
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * Gets the number of cached entries.
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Gets the total weight of the cached entries.
+		 */
+		public long getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Gets the maximum total weight of the cached entries.
+		 */
+		public long getMaximumWeight() {
+			return maximumWeight;
+		}
+
+		@Override
+		public String toString() {
+			return "[size=" + size + ", weight=" + weight + "/" + maximumWeight + ", hits=" + hitCount + ", misses="
+					+ missCount + ", evictions=" + evictionCount + "]";
+		}
+	}
+
+	/*--------------------*
+	 * Inner class Stripe *
+	 *--------------------*/
+
+	private static final class Stripe<K, V> {
+
+		private final WTinyLfuCache<K, V> owner;
+
+		private final Map<Object, Entry<K, V>> entries = new HashMap<>();
+
+		private final FrequencySketch sketch;
+
+		private final long maximumWeight;
+
+		private final long maximumWindowWeight;
+
+		private final long maximumProtectedWeight;
+
+		private final Queue<K, V> window = new Queue<>();
+
+		private final Queue<K, V> probation = new Queue<>();
+
+		private final Queue<K, V> protectedQueue = new Queue<>();
+
+		Stripe(long maximumWeight, WTinyLfuCache<K, V> owner) {
+			this.owner = owner;
+			this.maximumWeight = maximumWeight;
+			// 1% window, the main area is split into 20% probation and 80% protected
+			this.maximumWindowWeight = Math.max(1L, maximumWeight / 100);
+			this.maximumProtectedWeight = (maximumWeight - maximumWindowWeight) * 8 / 10;
+			this.sketch = new FrequencySketch(maximumWeight / AVERAGE_ENTRY_WEIGHT);
+		}
+
+		synchronized V get(Object key, int hash) {
+			sketch.increment(hash);
+
+			Entry<K, V> entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+
+			onAccess(entry);
+			return entry.value;
+		}
+
+		synchronized void put(K key, V value, int hash, int weight) {
+			sketch.increment(hash);
+
+			Entry<K, V> entry = entries.get(key);
+			if (entry != null) {
+				entry.queue.setWeight(entry, weight);
+				entry.value = value;
+				onAccess(entry);
+			} else if (weight <= maximumWeight - maximumWindowWeight) {
+				entry = new Entry<>(key, value, hash, weight);
+				entries.put(key, entry);
+				window.addLast(entry);
+			}
+
+			evictEntries();
+		}
+
+		synchronized void clear() {
+			entries.clear();
+			window.clear();
+			probation.clear();
+			protectedQueue.clear();
+		}
+
+		synchronized long getWeight() {
+			return window.weight + probation.weight + protectedQueue.weight;
+		}
+
+		synchronized int size() {
+			return entries.size();
+		}
+
+		private void onAccess(Entry<K, V> entry) {
+			if (entry.queue == window) {
+				window.moveToLast(entry);
+			} else if (entry.queue == probation) {
+				// promote to the protected segment
+				probation.remove(entry);
+				protectedQueue.addLast(entry);
+
+				// demote least recently used protected entries if needed
+				while (protectedQueue.weight > maximumProtectedWeight && protectedQueue.first() != entry) {
+					Entry<K, V> demoted = protectedQueue.first();
+					protectedQueue.remove(demoted);
+					probation.addLast(demoted);
+				}
+			} else {
+				protectedQueue.moveToLast(entry);
+			}
+		}
+
+		private void evictEntries() {
+			long maximumMainWeight = maximumWeight - maximumWindowWeight;
+
+			// move entries that overflow the window to the main area if they are more valuable than its victims
+			while (window.weight > maximumWindowWeight) {
+				Entry<K, V> candidate = window.first();
+				window.remove(candidate);
+				admit(candidate, maximumMainWeight);
+			}
+
+			// the main area may have grown because of updated entries
+			while (probation.weight + protectedQueue.weight > maximumMainWeight) {
+				evict(probation.first() != null ? probation.first() : protectedQueue.first());
+			}
+		}
+
+		private void admit(Entry<K, V> candidate, long maximumMainWeight) {
+			while (probation.weight + protectedQueue.weight + candidate.weight > maximumMainWeight) {
+				Entry<K, V> victim = probation.first() != null ? probation.first() : protectedQueue.first();
+
+				if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+					evict(victim);
+				} else {
+					entries.remove(candidate.key);
+					owner.evictionCount.increment();
+					return;
+				}
+			}
+
+			probation.addLast(candidate);
+		}
+
+		private void evict(Entry<K, V> entry) {
+			entry.queue.remove(entry);
+			entries.remove(entry.key);
+			owner.evictionCount.increment();
+		}
+	}
+
+	/*-------------------------------*
+	 * Inner classes Entry and Queue *
+	 *-------------------------------*/
+
+	private static final class Entry<K, V> {
+
+		final K key;
+
+		V value;
+
+		final int hash;
+
+		int weight;
+
+		Queue<K, V> queue;
+
+		Entry<K, V> prev;
+
+		Entry<K, V> next;
+
+		Entry(K key, V value, int hash, int weight) {
+			this.key = key;
+			this.value = value;
+			this.hash = hash;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * A doubly linked LRU list of entries that keeps track of their total weight.
+	 */
+	private static final class Queue<K, V> {
+
+		private Entry<K, V> head;
+
+		private Entry<K, V> tail;
+
+		long weight;
+
+		Entry<K, V> first() {
+			return head;
+		}
+
+		void addLast(Entry<K, V> entry) {
+			entry.queue = this;
+			entry.prev = tail;
+			entry.next = null;
+			if (tail == null) {
+				head = entry;
+			} else {
+				tail.next = entry;
+			}
+			tail = entry;
+			weight += entry.weight;
+		}
+
+		void remove(Entry<K, V> entry) {
+			if (entry.prev == null) {
+				head = entry.next;
+			} else {
+				entry.prev.next = entry.next;
+			}
+			if (entry.next == null) {
+				tail = entry.prev;
+			} else {
+				entry.next.prev = entry.prev;
+			}
+			entry.prev = entry.next = null;
+			entry.queue = null;
+			weight -= entry.weight;
+		}
+
+		void moveToLast(Entry<K, V> entry) {
+			if (entry != tail) {
+				remove(entry);
+				addLast(entry);
+			}
+		}
+
+		void setWeight(Entry<K, V> entry, int newWeight) {
+			weight += newWeight - entry.weight;
+			entry.weight = newWeight;
+		}
+
+		void clear() {
+			head = tail = null;
+			weight = 0L;
+		}
+	}
+
+	/*-----------------------------*
+	 * Inner class FrequencySketch *
+	 *-----------------------------*/
+
+	/**
+	 * A count-min sketch with 4-bit counters that estimates how often a key was accessed recently. All counters are
+	 * halved periodically so that the sketch adapts to changing access patterns.
+	 */
+	static final class FrequencySketch {
+
+		private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+				0xcbf29ce484222325L };
+
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+
+		private final int tableMask;
+
+		private final int sampleSize;
+
+		private int additions;
+
+		FrequencySketch(long expectedEntries) {
+			int size = Integer.highestOneBit((int) Math.max(16, Math.min(expectedEntries, 1 << 24)) - 1) << 1;
+			table = new long[size];
+			tableMask = size - 1;
+			sampleSize = 10 * size;
+		}
+
+		int frequency(int hash) {
+			int start = (hash & 3) << 2;
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+				frequency = Math.min(frequency, count);
+			}
+			return frequency;
+		}
+
+		void increment(int hash) {
+			int start = (hash & 3) << 2;
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				added |= incrementAt(indexOf(hash, i), start + i);
+			}
+
+			if (added && ++additions >= sampleSize) {
+				reset();
+			}
+		}
+
+		private boolean incrementAt(int index, int counter) {
+			int offset = counter << 2;
+			long mask = 0xfL << offset;
+			if ((table[index] & mask) != mask) {
+				table[index] += 1L << offset;
+				return true;
+			}
+			return false;
+		}
+
+		private int indexOf(int hash, int i) {
+			long h = (hash + SEEDS[i]) * SEEDS[i];
+			h += h >>> 32;
+			return ((int) h) & tableMask;
+		}
+
+		private void reset() {
+			for (int i = 0; i < table.length; i++) {
+				table[i] = (table[i] >>> 1) & RESET_MASK;
+			}
+			additions /= 2;
+		}
+	}
+}
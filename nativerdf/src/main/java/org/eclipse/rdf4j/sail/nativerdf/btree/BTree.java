@@ -22,6 +22,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.common.io.NioFile;
 import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.nativerdf.MappedFileReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +60,11 @@ public class BTree implements Closeable {
 	 */
 	static final byte FILE_FORMAT_VERSION = 1;
 
+	/**
+	 * The file format version number of BTree files that store their leaf nodes in compressed form.
+	 */
+	static final byte COMPRESSED_FILE_FORMAT_VERSION = 2;
+
 	/**
 	 * The length of the header field.
 	 */
@@ -75,6 +81,11 @@ public class BTree implements Closeable {
 	 */
 	final NioFile nioFile;
 
+	/**
+	 * Reader used to read nodes from a memory mapping of the BTree file, <tt>null</tt> if memory mapping is disabled.
+	 */
+	private final MappedFileReader mappedReader;
+
 	/**
 	 * Flag indicating whether file writes should be forced to disk using {@link FileChannel#force(boolean)}.
 	 */
@@ -92,6 +103,18 @@ public class BTree implements Closeable {
 	 */
 	final ReentrantReadWriteLock btreeLock = new ReentrantReadWriteLock();
 
+	/**
+	 * The nodes that have been modified by the running B-tree operation. These nodes stay locked for optimistic
+	 * readers until the operation has completed, so that readers never observe a partially applied operation.
+	 */
+	private final List<Node> modifiedNodes = new ArrayList<>();
+
+	/**
+	 * Flag indicating that a bulk load is in progress. The nodes created by a bulk load are not reachable by readers
+	 * until it has completed, so they are not locked.
+	 */
+	private boolean bulkLoading = false;
+
 	private final ConcurrentNodeCache nodeCache = new ConcurrentNodeCache(id -> {
 		Node node = new Node(id, this);
 		try {
@@ -146,6 +169,23 @@ public class BTree implements Closeable {
 	 */
 	final int nodeSize;
 
+	/**
+	 * The codec used for storing leaf nodes in compressed form, <tt>null</tt> if leaf nodes are stored uncompressed.
+	 */
+	final LeafNodeCodec leafCodec;
+
+	/**
+	 * The number of bytes that are available for the encoded values of a compressed leaf node. Value derived from
+	 * blockSize.
+	 */
+	final int leafCapacity;
+
+	/**
+	 * The minimum size of the encoded values of a compressed leaf node (except for the root). Value derived from
+	 * leafCapacity.
+	 */
+	final int minLeafSize;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -238,6 +278,54 @@ public class BTree implements Closeable {
 	 */
 	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
 			boolean forceSync) throws IOException {
+		this(dataDir, filenamePrefix, blockSize, valueSize, comparator, forceSync, false);
+	}
+
+	/**
+	 * Creates a new BTree that uses the supplied <tt>RecordComparator</tt> to compare the values that are or will be
+	 * stored in the B-Tree.
+	 * 
+	 * @param dataDir        The directory for the BTree data.
+	 * @param filenamePrefix The prefix for all files used by this BTree.
+	 * @param blockSize      The size (in bytes) of a file block for a single node. Ideally, the size specified is the
+	 *                       size of a block in the used file system.
+	 * @param valueSize      The size (in bytes) of the fixed-length values that are or will be stored in the B-Tree.
+	 * @param comparator     The <tt>RecordComparator</tt> to use for determining whether one value is smaller, larger
+	 *                       or equal to another.
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully by calling
+	 *                       {@link FileChannel#force(boolean)}. This may have a severe impact on write performance.
+	 * @param memoryMapped   Flag indicating whether nodes should be read from a memory mapping of the BTree file
+	 *                       instead of using a positional read for every node.
+	 * @throws IOException In case the initialization of the B-Tree file failed.
+	 */
+	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
+			boolean forceSync, boolean memoryMapped) throws IOException {
+		this(dataDir, filenamePrefix, blockSize, valueSize, comparator, forceSync, memoryMapped, false);
+	}
+
+	/**
+	 * Creates a new BTree that uses the supplied <tt>RecordComparator</tt> to compare the values that are or will be
+	 * stored in the B-Tree.
+	 * 
+	 * @param dataDir        The directory for the BTree data.
+	 * @param filenamePrefix The prefix for all files used by this BTree.
+	 * @param blockSize      The size (in bytes) of a file block for a single node. Ideally, the size specified is the
+	 *                       size of a block in the used file system.
+	 * @param valueSize      The size (in bytes) of the fixed-length values that are or will be stored in the B-Tree.
+	 * @param comparator     The <tt>RecordComparator</tt> to use for determining whether one value is smaller, larger
+	 *                       or equal to another.
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully by calling
+	 *                       {@link FileChannel#force(boolean)}. This may have a severe impact on write performance.
+	 * @param memoryMapped   Flag indicating whether nodes should be read from a memory mapping of the BTree file
+	 *                       instead of using a positional read for every node.
+	 * @param compressed     Flag indicating whether leaf nodes should be stored in compressed form, encoding each
+	 *                       value relative to its predecessor. This only applies to newly created B-tree files,
+	 *                       existing files keep the format they were created with.
+	 * @throws IOException In case the initialization of the B-Tree file failed.
+	 * @see #isCompressed()
+	 */
+	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
+			boolean forceSync, boolean memoryMapped, boolean compressed) throws IOException {
 		if (dataDir == null) {
 			throw new IllegalArgumentException("dataDir must not be null");
 		}
@@ -253,6 +341,10 @@ public class BTree implements Closeable {
 		if (blockSize < 3 * valueSize + 20) {
 			throw new IllegalArgumentException("block size to small; must at least be able to store three values");
 		}
+		if (compressed && blockSize - 8 < 16 * LeafNodeCodec.getMaxEncodedLength(valueSize)) {
+			throw new IllegalArgumentException(
+					"block size to small; must at least be able to store 16 values in a compressed leaf node");
+		}
 		if (comparator == null) {
 			throw new IllegalArgumentException("comparator muts not be null");
 		}
@@ -265,14 +357,17 @@ public class BTree implements Closeable {
 		File allocFile = new File(dataDir, filenamePrefix + ".alloc");
 		allocatedNodesList = new AllocatedNodesList(allocFile, this, forceSync);
 
+		boolean compressedFormat;
+		boolean updateFileHeader = false;
+
 		if (nioFile.size() == 0L) {
 			// Empty file, initialize it with the specified parameters
 			this.blockSize = blockSize;
 			this.valueSize = valueSize;
 			this.rootNodeID = 0;
 			this.height = 0;
-
-			writeFileHeader();
+			compressedFormat = compressed;
+			updateFileHeader = true;
 
 			// sync();
 		} else {
@@ -290,12 +385,13 @@ public class BTree implements Closeable {
 			this.rootNodeID = buf.getInt();
 
 			if (Arrays.equals(MAGIC_NUMBER, magicNumber)) {
-				if (version > FILE_FORMAT_VERSION) {
+				if (version > COMPRESSED_FILE_FORMAT_VERSION) {
 					throw new IOException("Unable to read BTree file " + file + "; it uses a newer file format");
-				} else if (version != FILE_FORMAT_VERSION) {
+				} else if (version != FILE_FORMAT_VERSION && version != COMPRESSED_FILE_FORMAT_VERSION) {
 					throw new IOException(
 							"Unable to read BTree file " + file + "; invalid file format version: " + version);
 				}
+				compressedFormat = version == COMPRESSED_FILE_FORMAT_VERSION;
 			} else if (Arrays.equals(OLD_MAGIC_NUMBER, magicNumber)) {
 				if (version != 1) {
 					throw new IOException(
@@ -303,7 +399,8 @@ public class BTree implements Closeable {
 				}
 				// Write new magic number to file
 				logger.info("Updating file header for btree file '{}'", file.getAbsolutePath());
-				writeFileHeader();
+				compressedFormat = false;
+				updateFileHeader = true;
 			} else {
 				throw new IOException("File doesn't contain (compatible) BTree data: " + file);
 			}
@@ -315,12 +412,21 @@ public class BTree implements Closeable {
 			}
 		}
 
+		mappedReader = memoryMapped ? new MappedFileReader(nioFile) : null;
+
 		// Calculate derived properties
 		slotSize = 4 + this.valueSize;
 		branchFactor = 1 + (this.blockSize - 8) / slotSize;
 		// bf=30 --> mvc=14; bf=29 --> mvc=14
 		minValueCount = (branchFactor - 1) / 2;
 		nodeSize = 8 + (branchFactor - 1) * slotSize;
+		leafCodec = compressedFormat ? new LeafNodeCodec(this.valueSize) : null;
+		leafCapacity = this.blockSize - 8;
+		minLeafSize = leafCapacity / 4;
+
+		if (updateFileHeader) {
+			writeFileHeader();
+		}
 
 		// System.out.println("blockSize=" + this.blockSize);
 		// System.out.println("valueSize=" + this.valueSize);
@@ -341,6 +447,13 @@ public class BTree implements Closeable {
 		return nioFile.getFile();
 	}
 
+	/**
+	 * Checks whether this BTree stores its leaf nodes in compressed form.
+	 */
+	public boolean isCompressed() {
+		return leafCodec != null;
+	}
+
 	/**
 	 * Closes the BTree and then deletes its data files.
 	 * 
@@ -386,9 +499,15 @@ public class BTree implements Closeable {
 					nodeCache.clear();
 				} finally {
 					try {
-						nioFile.close();
+						if (mappedReader != null) {
+							mappedReader.close();
+						}
 					} finally {
-						allocatedNodesList.close(syncChanges);
+						try {
+							nioFile.close();
+						} finally {
+							allocatedNodesList.close(syncChanges);
+						}
 					}
 				}
 			}
@@ -479,7 +598,18 @@ public class BTree implements Closeable {
 	 * searchMask has been applied to the value.
 	 */
 	public RecordIterator iterateValues(byte[] searchKey, byte[] searchMask) {
-		return new RangeIterator(this, searchKey, searchMask, null, null);
+		return iterateValues(searchKey, searchMask, false);
+	}
+
+	/**
+	 * Returns an iterator that iterates over all values and returns the values that match the supplied searchKey after
+	 * searchMask has been applied to the value.
+	 * 
+	 * @param readOnly Flag indicating whether a read-only iterator should be returned, see
+	 *                 {@link #iterateRangedValues(byte[], byte[], byte[], byte[], boolean)}.
+	 */
+	public RecordIterator iterateValues(byte[] searchKey, byte[] searchMask, boolean readOnly) {
+		return iterateRangedValues(searchKey, searchMask, null, null, readOnly);
 	}
 
 	/**
@@ -487,6 +617,25 @@ public class BTree implements Closeable {
 	 * values that match the supplied searchKey after searchMask has been applied to the value.
 	 */
 	public RecordIterator iterateRangedValues(byte[] searchKey, byte[] searchMask, byte[] minValue, byte[] maxValue) {
+		return iterateRangedValues(searchKey, searchMask, minValue, maxValue, false);
+	}
+
+	/**
+	 * Returns an iterator that iterates over all values between minValue and maxValue (inclusive) and returns the
+	 * values that match the supplied searchKey after searchMask has been applied to the value.
+	 * <p>
+	 * A read-only iterator does not support {@link RecordIterator#set(byte[])}. It doesn't keep any nodes in use and
+	 * doesn't register for changes to nodes; instead it reads nodes optimistically, without acquiring the lock of this
+	 * BTree, and starts over from the last value that it returned when a node turns out to have been modified
+	 * concurrently.
+	 * 
+	 * @param readOnly Flag indicating whether a read-only iterator should be returned.
+	 */
+	public RecordIterator iterateRangedValues(byte[] searchKey, byte[] searchMask, byte[] minValue, byte[] maxValue,
+			boolean readOnly) {
+		if (readOnly) {
+			return new OptimisticRangeIterator(this, searchKey, searchMask, minValue, maxValue);
+		}
 		return new RangeIterator(this, searchKey, searchMask, minValue, maxValue);
 	}
 
@@ -734,6 +883,7 @@ public class BTree implements Closeable {
 
 			return insertResult.oldValue;
 		} finally {
+			endModifications();
 			btreeLock.writeLock().unlock();
 		}
 	}
@@ -751,8 +901,13 @@ public class BTree implements Closeable {
 
 			// Do not replace the value if it's identical to the old
 			// value to prevent possibly unnecessary disk writes
-			if (!Arrays.equals(value, insertResult.oldValue)) {
-				node.setValue(valueIdx, value);
+			if (!Arrays.equals(value, insertResult.oldValue) && !node.replaceValue(valueIdx, value)) {
+				// The new value takes more room in a compressed leaf node
+				// than is left, remove the old value and insert the new one
+				byte[] oldValue = insertResult.oldValue;
+				node.removeValueRight(valueIdx);
+				insertResult = insertInNode(value, nodeID, valueIdx, node);
+				insertResult.oldValue = oldValue;
 			}
 		} else {
 			// valueIdx references the first value that is larger than the key
@@ -860,6 +1015,7 @@ public class BTree implements Closeable {
 
 			return result;
 		} finally {
+			endModifications();
 			btreeLock.writeLock().unlock();
 		}
 	}
@@ -937,13 +1093,13 @@ public class BTree implements Closeable {
 		}
 	}
 
-	private void balanceChildNode(Node parentNode, Node childNode, int childIdx) throws IOException {
-		if (childNode.getValueCount() < minValueCount) {
+	void balanceChildNode(Node parentNode, Node childNode, int childIdx) throws IOException {
+		if (childNode.isUnderflow()) {
 			// Child node contains too few values, try to borrow one from its right
 			// sibling
 			Node rightSibling = (childIdx < parentNode.getValueCount()) ? parentNode.getChildNode(childIdx + 1) : null;
 
-			if (rightSibling != null && rightSibling.getValueCount() > minValueCount) {
+			if (rightSibling != null && rightSibling.canLendValue()) {
 				// Right sibling has enough values to give one up
 				parentNode.rotateLeft(childIdx, childNode, rightSibling);
 			} else {
@@ -951,7 +1107,7 @@ public class BTree implements Closeable {
 				// left sibling
 				Node leftSibling = (childIdx > 0) ? parentNode.getChildNode(childIdx - 1) : null;
 
-				if (leftSibling != null && leftSibling.getValueCount() > minValueCount) {
+				if (leftSibling != null && leftSibling.canLendValue()) {
 					// Left sibling has enough values to give one up
 					parentNode.rotateRight(childIdx, leftSibling, childNode);
 				} else {
@@ -975,6 +1131,79 @@ public class BTree implements Closeable {
 		}
 	}
 
+	/**
+	 * Checks whether this B-Tree contains any values.
+	 */
+	public boolean isEmpty() {
+		return rootNodeID == 0;
+	}
+
+	/**
+	 * Loads the supplied values into this B-Tree, which must be empty. Instead of inserting the values one by one, the
+	 * tree is built bottom-up with nodes that are filled as much as possible, resulting in fewer nodes and a better
+	 * clustered file than repeated calls to {@link #insert(byte[])}.
+	 * 
+	 * @param values     An iterator over the values to load, which must be sorted in ascending order according to
+	 *                   this B-Tree's {@link RecordComparator} and must not contain duplicates.
+	 * @param valueCount The exact number of values that <tt>values</tt> will return.
+	 * @throws IOException              If an I/O error occurred, or if the number of values does not match
+	 *                                  <tt>valueCount</tt>.
+	 * @throws IllegalStateException    If this B-Tree is not empty.
+	 * @throws IllegalArgumentException If the values are not sorted or contain duplicates.
+	 */
+	public void bulkLoad(RecordIterator values, long valueCount) throws IOException {
+		btreeLock.writeLock().lock();
+		try {
+			if (!isEmpty()) {
+				throw new IllegalStateException("Bulk loading requires an empty B-Tree: " + getFile());
+			}
+
+			if (valueCount <= 0) {
+				if (values.next() != null) {
+					throw new IOException("More values supplied than announced for " + getFile());
+				}
+				return;
+			}
+
+			BulkLoader loader = new BulkLoader(this);
+			boolean success = false;
+			bulkLoading = true;
+			try {
+				long loadedCount = 0;
+				byte[] previous = null;
+				byte[] value;
+				while ((value = values.next()) != null) {
+					if (previous != null && comparator.compareBTreeValues(previous, value, 0, valueSize) >= 0) {
+						throw new IllegalArgumentException("Values are not sorted or contain duplicates: " + getFile());
+					}
+					if (++loadedCount > valueCount) {
+						throw new IOException("More values supplied than announced for " + getFile());
+					}
+					loader.add(value);
+					previous = value;
+				}
+
+				if (loadedCount < valueCount) {
+					throw new IOException("Fewer values supplied than announced for " + getFile());
+				}
+
+				rootNodeID = loader.finish();
+				height = loader.getHeight();
+				writeFileHeader();
+				success = true;
+			} finally {
+				bulkLoading = false;
+				if (!success) {
+					// the tree was empty, discard all nodes that were created
+					loader.abort();
+					clear();
+				}
+			}
+		} finally {
+			btreeLock.writeLock().unlock();
+		}
+	}
+
 	/**
 	 * Removes all values from the B-Tree.
 	 * 
@@ -984,7 +1213,11 @@ public class BTree implements Closeable {
 		btreeLock.writeLock().lock();
 		try {
 			nodeCache.clear();
-			nioFile.truncate(HEADER_LENGTH);
+			if (mappedReader != null) {
+				mappedReader.truncate(HEADER_LENGTH);
+			} else {
+				nioFile.truncate(HEADER_LENGTH);
+			}
 
 			if (rootNodeID != 0) {
 				rootNodeID = 0;
@@ -997,7 +1230,7 @@ public class BTree implements Closeable {
 		}
 	}
 
-	private Node createNewNode() throws IOException {
+	Node createNewNode() throws IOException {
 		int newNodeID = allocatedNodesList.allocateNode();
 
 		Node node = new Node(newNodeID, this);
@@ -1008,6 +1241,47 @@ public class BTree implements Closeable {
 		return node;
 	}
 
+	/**
+	 * Gets the node with the specified ID if it is present in the node cache, without using it.
+	 * 
+	 * @return The cached node, or <tt>null</tt> if the node is not in the cache.
+	 */
+	Node getCachedNode(int id) {
+		return nodeCache.get(id);
+	}
+
+	int getRootNodeID() {
+		return rootNodeID;
+	}
+
+	/**
+	 * Registers a node that is about to be modified by the running B-tree operation.
+	 * 
+	 * @return <tt>true</tt> if the node should be locked until {@link #endModifications()} is called.
+	 */
+	boolean registerModifiedNode(Node node) {
+		if (bulkLoading) {
+			return false;
+		}
+
+		synchronized (modifiedNodes) {
+			modifiedNodes.add(node);
+		}
+		return true;
+	}
+
+	/**
+	 * Unlocks the nodes that have been modified by the B-tree operation that has just completed.
+	 */
+	void endModifications() {
+		synchronized (modifiedNodes) {
+			for (Node node : modifiedNodes) {
+				node.endModification();
+			}
+			modifiedNodes.clear();
+		}
+	}
+
 	Node readRootNode() throws IOException {
 		if (rootNodeID > 0) {
 			return readNode(rootNodeID);
@@ -1034,18 +1308,33 @@ public class BTree implements Closeable {
 
 				int maxNodeID = allocatedNodesList.getMaxNodeID();
 				if (node.getID() > maxNodeID) {
-					// Shrink file
-					nioFile.truncate(nodeID2offset(maxNodeID) + nodeSize);
+					// Shrink file, keeping the entire last block for compressed leaf nodes
+					long fileSize = nodeID2offset(maxNodeID) + (leafCodec != null ? blockSize : nodeSize);
+					if (mappedReader != null) {
+						mappedReader.truncate(fileSize);
+					} else {
+						nioFile.truncate(fileSize);
+					}
 				}
 			}
 		} else
 			nodeCache.release(node, forceSync);
 	}
 
+	/**
+	 * Reads the data of a node from the BTree file, using the memory mapping of the file if enabled.
+	 */
+	int readNodeData(ByteBuffer buf, long offset) throws IOException {
+		if (mappedReader != null) {
+			return mappedReader.read(buf, offset);
+		}
+		return nioFile.read(buf, offset);
+	}
+
 	private void writeFileHeader() throws IOException {
 		ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
 		buf.put(MAGIC_NUMBER);
-		buf.put(FILE_FORMAT_VERSION);
+		buf.put(leafCodec != null ? COMPRESSED_FILE_FORMAT_VERSION : FILE_FORMAT_VERSION);
 		buf.putInt(blockSize);
 		buf.putInt(valueSize);
 		buf.putInt(rootNodeID);
@@ -1075,39 +1364,35 @@ public class BTree implements Closeable {
 		out.println("branch factor   = " + branchFactor);
 		out.println("min value count = " + minValueCount);
 		out.println("node size       = " + nodeSize);
+		out.println("compressed      = " + isCompressed());
 		out.println();
 
 		int nodeCount = 0;
 		int valueCount = 0;
 
-		ByteBuffer buf = ByteBuffer.allocate(nodeSize);
 		for (long offset = blockSize; offset < nioFile.size(); offset += blockSize) {
-			nioFile.read(buf, offset);
-			buf.rewind();
-
+			// Read the node without caching it, decoding compressed leaf nodes
 			int nodeID = offset2nodeID(offset);
-			int count = buf.getInt();
+			Node node = new Node(nodeID, this);
+			node.read();
+
+			int count = node.getValueCount();
 			nodeCount++;
 			valueCount += count;
 			out.print("node " + nodeID + ": ");
 			out.print("count=" + count + " ");
 
-			byte[] value = new byte[valueSize];
-
 			for (int i = 0; i < count; i++) {
 				// node ID
-				out.print(buf.getInt());
+				out.print(node.getChildNodeID(i));
 
 				// value
-				buf.get(value);
-				out.print("[" + ByteArrayUtil.toHexString(value) + "]");
+				out.print("[" + ByteArrayUtil.toHexString(node.getValue(i)) + "]");
 				// out.print("["+new String(value)+"]");
 			}
 
 			// last node ID
-			out.println(buf.getInt());
-
-			buf.clear();
+			out.println(node.getChildNodeID(count));
 		}
 		out.println("#nodes          = " + nodeCount);
 		out.println("#values         = " + valueCount);
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the nodes of an empty {@link BTree} bottom-up from a sorted stream of values. Every node is filled until it
+ * is full, which for compressed leaf nodes depends on the encoded size of its values rather than on their number.
+ * Only the nodes on the right edge of the tree may contain too few values once all values have been added; these are
+ * rebalanced with their left siblings when the tree is finished.
+ * <p>
+ * Values are appended to the current leaf node until it is full. The value following a completed leaf is the
+ * separator between that leaf and the next one and is appended to the first ancestor that still expects more child
+ * nodes.
+ */
+class BulkLoader {
+
+	private final BTree tree;
+
+	/**
+	 * The node that is currently being filled on each level, level <tt>0</tt> being the leaf level. A <tt>null</tt>
+	 * entry indicates that the last node on that level has been completed. The node on the highest level is never
+	 * completed.
+	 */
+	private final List<Node> openNodes = new ArrayList<>();
+
+	/**
+	 * Flag indicating that the next value is the separator between the last completed leaf and the next one.
+	 */
+	private boolean expectSeparator = false;
+
+	/**
+	 * Flag indicating that the last value was added as a separator, i.e. that the leaf node following it has not
+	 * been created yet.
+	 */
+	private boolean separatorPending = false;
+
+	/**
+	 * The height of the finished tree.
+	 */
+	private int height = 0;
+
+	public BulkLoader(BTree tree) {
+		this.tree = tree;
+	}
+
+	/**
+	 * Gets the height of the finished tree.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Appends the next value to the tree. Values must be supplied in ascending order.
+	 */
+	public void add(byte[] value) throws IOException {
+		if (expectSeparator) {
+			expectSeparator = false;
+			separatorPending = true;
+			addSeparator(1, value);
+			return;
+		}
+
+		separatorPending = false;
+
+		Node leaf = getOpenNode(0);
+		leaf.insertValueNodeIDPair(leaf.getValueCount(), value, 0);
+
+		if (leaf.isFull()) {
+			closeNode(0);
+			expectSeparator = true;
+		}
+	}
+
+	/**
+	 * Links the open nodes on the right edge of the tree, rebalances them with their left siblings and returns the
+	 * ID of the root node.
+	 */
+	public int finish() throws IOException {
+		if (openNodes.isEmpty()) {
+			throw new IOException("No values supplied for " + tree.getFile());
+		}
+
+		if (separatorPending) {
+			// The leaf to the right of the last value is filled from its left sibling while rebalancing
+			getOpenNode(0);
+		}
+
+		// Collect the right edge of the tree, connecting the nodes that are still open
+		List<Node> edge = new ArrayList<>();
+		for (int level = 0; level < openNodes.size(); level++) {
+			Node node = openNodes.get(level);
+
+			if (!edge.isEmpty()) {
+				if (node == null) {
+					node = getOpenNode(level);
+				}
+				node.setChildNodeID(node.getValueCount(), edge.get(0).getID());
+			}
+
+			if (node != null) {
+				edge.add(0, node);
+			}
+		}
+		openNodes.clear();
+
+		// Remove a root node that only refers to a single child node
+		while (edge.size() > 1 && edge.get(0).isEmpty()) {
+			Node oldRoot = edge.remove(0);
+			oldRoot.setChildNodeID(0, 0);
+			oldRoot.release();
+		}
+
+		try {
+			// Rebalance top-down, so that the parent of each node on the edge has room for its siblings
+			for (int i = 1; i < edge.size(); i++) {
+				Node parentNode = edge.get(i - 1);
+				Node childNode = edge.get(i);
+
+				while (childNode.isUnderflow()) {
+					int childIdx = parentNode.getValueCount();
+					tree.balanceChildNode(parentNode, childNode, childIdx);
+
+					if (parentNode.getChildNodeID(parentNode.getValueCount()) != childNode.getID()) {
+						// Child node was merged with its left sibling
+						edge.set(i, parentNode.getChildNode(parentNode.getValueCount()));
+						childNode.release();
+						break;
+					}
+				}
+			}
+
+			height = edge.size();
+			return edge.get(0).getID();
+		} finally {
+			for (Node node : edge) {
+				node.release();
+			}
+		}
+	}
+
+	/**
+	 * Releases any nodes that are still open, used when loading is aborted.
+	 */
+	public void abort() throws IOException {
+		for (Node node : openNodes) {
+			if (node != null) {
+				node.release();
+			}
+		}
+		openNodes.clear();
+	}
+
+	private void addSeparator(int level, byte[] value) throws IOException {
+		Node node = openNodes.get(level);
+		if (node != null) {
+			// the child node ID to the right of the value is set when the next child node is completed
+			node.insertValueNodeIDPair(node.getValueCount(), value, 0);
+		} else {
+			// the open node on this level received all its child nodes, the value separates it from its next sibling
+			addSeparator(level + 1, value);
+		}
+	}
+
+	private void addChild(int level, int childNodeID) throws IOException {
+		Node node = getOpenNode(level);
+		node.setChildNodeID(node.getValueCount(), childNodeID);
+
+		if (node.isFull()) {
+			closeNode(level);
+		}
+	}
+
+	private void closeNode(int level) throws IOException {
+		Node node = openNodes.set(level, null);
+
+		int nodeID = node.getID();
+		node.release();
+
+		addChild(level + 1, nodeID);
+	}
+
+	private Node getOpenNode(int level) throws IOException {
+		while (openNodes.size() <= level) {
+			openNodes.add(null);
+		}
+
+		Node node = openNodes.get(level);
+		if (node == null) {
+			node = tree.createNewNode();
+			openNodes.set(level, node);
+		}
+		return node;
+	}
+}
@@ -42,6 +42,12 @@ class ConcurrentNodeCache extends ConcurrentCache<Integer, Node> {
 		cache.put(node.getID(), node);
 	}
 
+	@Override
+	public void clear() {
+		cache.forEachValue(Long.MAX_VALUE, Node::discard);
+		super.clear();
+	}
+
 	public Node readAndUse(int id) {
 		return cache.compute(id, (k, v) -> {
 			Node node = v == null ? reader.apply(k) : v;
@@ -56,6 +62,7 @@ class ConcurrentNodeCache extends ConcurrentCache<Integer, Node> {
 
 			if (v.getUsageCount() == 0 && v.isEmpty() && v.isLeaf()) {
 				writeNode.accept(v);
+				v.discard();
 				return null;
 			} else
 				return v;
@@ -79,7 +86,13 @@ class ConcurrentNodeCache extends ConcurrentCache<Integer, Node> {
 		if (node.getUsageCount() > 0)
 			return false;
 
+		// Keep nodes that are locked by a running B-tree operation, optimistic readers must not be able to load their
+		// new state from disk before the operation has completed
+		if (node.isBeingModified())
+			return false;
+
 		writeNode.accept(node);
+		node.discard();
 
 		return true;
 	}
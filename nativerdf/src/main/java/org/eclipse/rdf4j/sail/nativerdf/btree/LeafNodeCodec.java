@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+
+/**
+ * Encodes the values of leaf nodes relative to their predecessor in the node. A value is treated as a sequence of
+ * 4-byte integer fields followed by 0-3 remaining bytes. Sorted values typically share most of their fields with the
+ * previous value and only differ by a small amount in the remaining ones, so each value is stored as:
+ * <ul>
+ * <li>a bit mask with one bit per field, indicating which fields differ from the previous value,
+ * <li>for each differing field, the difference with the previous value as a zigzag-encoded variable-length integer,
+ * <li>the remaining bytes, unencoded.
+ * </ul>
+ * The first value of a node is encoded relative to a value consisting of zeros only. Note that the encoded length of
+ * a value that is removed from a node is always at least as large as the growth of the encoded length of its
+ * successor, i.e. removing a value from a node never increases the node's encoded size.
+ */
+class LeafNodeCodec {
+
+	/**
+	 * The number of 4-byte integer fields in a value.
+	 */
+	private final int fieldCount;
+
+	/**
+	 * The number of bytes following the last integer field.
+	 */
+	private final int tailLength;
+
+	/**
+	 * The length of the bit mask that indicates which fields have been stored.
+	 */
+	private final int maskLength;
+
+	/**
+	 * The maximum number of bytes needed to encode a value.
+	 */
+	final int maxEncodedLength;
+
+	public LeafNodeCodec(int valueSize) {
+		fieldCount = valueSize / 4;
+		tailLength = valueSize % 4;
+		maskLength = (fieldCount + 7) / 8;
+		maxEncodedLength = getMaxEncodedLength(valueSize);
+	}
+
+	/**
+	 * Gets the maximum number of bytes needed to encode a value of the specified size.
+	 */
+	static int getMaxEncodedLength(int valueSize) {
+		int fieldCount = valueSize / 4;
+		return (fieldCount + 7) / 8 + fieldCount * 5 + valueSize % 4;
+	}
+
+	/**
+	 * Gets the number of bytes needed to encode the value at <tt>offset</tt> in <tt>data</tt>.
+	 *
+	 * @param prevOffset The offset of the previous value in <tt>data</tt>, or a negative number if the value is the
+	 *                   first value of a node.
+	 */
+	public int getEncodedLength(byte[] data, int prevOffset, int offset) {
+		int length = maskLength + tailLength;
+
+		for (int i = 0; i < fieldCount; i++) {
+			int delta = getField(data, offset, i) - getField(data, prevOffset, i);
+			if (delta != 0) {
+				length += getVarIntLength(zigZag(delta));
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * Encodes the value at <tt>offset</tt> in <tt>data</tt> and stores it in <tt>dest</tt>.
+	 *
+	 * @param prevOffset The offset of the previous value in <tt>data</tt>, or a negative number if the value is the
+	 *                   first value of a node.
+	 * @return The offset in <tt>dest</tt> following the encoded value.
+	 */
+	public int encode(byte[] data, int prevOffset, int offset, byte[] dest, int destOffset) {
+		int maskOffset = destOffset;
+		int pos = destOffset + maskLength;
+
+		for (int i = 0; i < maskLength; i++) {
+			dest[maskOffset + i] = 0;
+		}
+
+		for (int i = 0; i < fieldCount; i++) {
+			int delta = getField(data, offset, i) - getField(data, prevOffset, i);
+			if (delta != 0) {
+				dest[maskOffset + (i >>> 3)] |= 1 << (i & 7);
+				pos = putVarInt(zigZag(delta), dest, pos);
+			}
+		}
+
+		System.arraycopy(data, offset + 4 * fieldCount, dest, pos, tailLength);
+		return pos + tailLength;
+	}
+
+	/**
+	 * Decodes a value from <tt>src</tt> and stores it at <tt>offset</tt> in <tt>data</tt>.
+	 *
+	 * @param prevOffset The offset of the previous, already decoded value in <tt>data</tt>, or a negative number if
+	 *                   the value is the first value of a node.
+	 * @return The offset in <tt>src</tt> following the encoded value.
+	 */
+	public int decode(byte[] src, int srcOffset, byte[] data, int prevOffset, int offset) {
+		int maskOffset = srcOffset;
+		int pos = srcOffset + maskLength;
+
+		for (int i = 0; i < fieldCount; i++) {
+			int field = getField(data, prevOffset, i);
+
+			if ((src[maskOffset + (i >>> 3)] & (1 << (i & 7))) != 0) {
+				int zigZag = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = src[pos++];
+					zigZag |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+
+				field += (zigZag >>> 1) ^ -(zigZag & 1);
+			}
+
+			ByteArrayUtil.putInt(field, data, offset + 4 * i);
+		}
+
+		System.arraycopy(src, pos, data, offset + 4 * fieldCount, tailLength);
+		return pos + tailLength;
+	}
+
+	private static int getField(byte[] data, int offset, int fieldIdx) {
+		return offset < 0 ? 0 : ByteArrayUtil.getInt(data, offset + 4 * fieldIdx);
+	}
+
+	private static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int getVarIntLength(int value) {
+		if ((value >>> 7) == 0) {
+			return 1;
+		} else if ((value >>> 14) == 0) {
+			return 2;
+		} else if ((value >>> 21) == 0) {
+			return 3;
+		} else if ((value >>> 28) == 0) {
+			return 4;
+		}
+		return 5;
+	}
+
+	private static int putVarInt(int value, byte[] dest, int pos) {
+		while ((value & ~0x7F) != 0) {
+			dest[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		dest[pos++] = (byte) value;
+		return pos;
+	}
+}
@@ -13,6 +13,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Function;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
@@ -25,11 +26,17 @@ class Node {
 	private final BTree tree;
 
 	/** This node's data. */
-	private final byte[] data;
+	private byte[] data;
 
 	/** The number of values containined in this node. */
 	private int valueCount;
 
+	/**
+	 * The number of bytes needed to store this node's values in compressed form, only maintained for B-trees with
+	 * compressed leaf nodes.
+	 */
+	private int encodedSize;
+
 	/** The number of objects currently 'using' this node. */
 	private final AtomicInteger usageCount = new AtomicInteger(0);
 
@@ -39,6 +46,21 @@ class Node {
 	/** Registered listeners that want to be notified of changes to the node. */
 	private final ConcurrentLinkedDeque<NodeListener> listeners = new ConcurrentLinkedDeque<>();
 
+	/**
+	 * Version stamp of this node's data, used by readers that access the node without using it. The lock is held in
+	 * write mode by a B-tree operation that modifies the node until the operation has completed.
+	 */
+	private final StampedLock lock = new StampedLock();
+
+	/** The stamp of the write lock, <tt>0</tt> if the node is not being modified. */
+	private long writeStamp;
+
+	/**
+	 * Flag indicating that this node has been removed from the node cache. Any later changes to the node's data are
+	 * applied to a new Node object.
+	 */
+	private volatile boolean discarded;
+
 	/**
 	 * Creates a new Node object with the specified ID.
 	 * 
@@ -92,6 +114,58 @@ class Node {
 		return dataChanged;
 	}
 
+	/**
+	 * Gets a stamp for reading this node without using it. Data that has been read from the node is only consistent
+	 * if {@link #validate(long)} succeeds for the stamp afterwards.
+	 * 
+	 * @return A non-zero stamp, or <tt>0</tt> if the node is currently being modified or has been discarded.
+	 */
+	public long getOptimisticStamp() {
+		long stamp = lock.tryOptimisticRead();
+		return discarded ? 0L : stamp;
+	}
+
+	/**
+	 * Checks that the node has not been modified or discarded since the specified stamp was obtained.
+	 */
+	public boolean validate(long stamp) {
+		return stamp != 0L && lock.validate(stamp) && !discarded;
+	}
+
+	/**
+	 * Checks whether the node is being modified by a B-tree operation that hasn't completed yet.
+	 */
+	public boolean isBeingModified() {
+		return lock.isWriteLocked();
+	}
+
+	/**
+	 * Marks this node as removed from the node cache, invalidating all stamps for it.
+	 */
+	public void discard() {
+		discarded = true;
+	}
+
+	/**
+	 * Called before each change to the node's data. The first change in a B-tree operation locks the node, so that
+	 * readers holding a stamp for it detect the change.
+	 */
+	private void startModification() {
+		if (writeStamp == 0L && tree.registerModifiedNode(this)) {
+			writeStamp = lock.writeLock();
+		}
+	}
+
+	/**
+	 * Unlocks the node when the B-tree operation that modified it has completed.
+	 */
+	void endModification() {
+		if (writeStamp != 0L) {
+			lock.unlockWrite(writeStamp);
+			writeStamp = 0L;
+		}
+	}
+
 	public int getValueCount() {
 		return valueCount;
 	}
@@ -114,9 +188,42 @@ class Node {
 	}
 
 	public boolean isFull() {
+		if (isCompressedLeaf()) {
+			// Leave room for a new value and for the growth of the value that will follow it
+			return encodedSize + 2 * tree.leafCodec.maxEncodedLength > tree.leafCapacity;
+		}
 		return valueCount == tree.branchFactor - 1;
 	}
 
+	/**
+	 * Checks if this node contains too few values and should be rebalanced with one of its siblings. This does not
+	 * apply to the root node.
+	 */
+	public boolean isUnderflow() {
+		if (isCompressedLeaf()) {
+			return encodedSize < tree.minLeafSize;
+		}
+		return valueCount < tree.minValueCount;
+	}
+
+	/**
+	 * Checks if this node can give up one of its values to a sibling without becoming underflowed itself.
+	 */
+	public boolean canLendValue() {
+		if (isCompressedLeaf()) {
+			// Removing a value decreases the encoded size by at most two encoded values
+			return valueCount > 1 && encodedSize - 2 * tree.leafCodec.maxEncodedLength >= tree.minLeafSize;
+		}
+		return valueCount > tree.minValueCount;
+	}
+
+	/**
+	 * Checks whether this is a leaf node that is stored in compressed form.
+	 */
+	private boolean isCompressedLeaf() {
+		return tree.leafCodec != null && isLeaf();
+	}
+
 	public byte[] getValue(int valueIdx) {
 		assert valueIdx >= 0 : "valueIdx must be positive, is: " + valueIdx;
 		assert valueIdx < valueCount : "valueIdx out of range (" + valueIdx + " >= " + valueCount + ")";
@@ -129,8 +236,31 @@ class Node {
 		assert valueIdx >= 0 : "valueIdx must be positive, is: " + valueIdx;
 		assert valueIdx < valueCount : "valueIdx out of range (" + valueIdx + " >= " + valueCount + ")";
 
+		startModification();
+
+		int oldSize = getEncodedSize(valueIdx, valueIdx + 2);
+
 		ByteArrayUtil.put(value, data, valueIdx2offset(valueIdx));
 		dataChanged = true;
+
+		encodedSize += getEncodedSize(valueIdx, valueIdx + 2) - oldSize;
+	}
+
+	/**
+	 * Replaces the value at the specified index, unless this is a compressed leaf node that is no longer able to store
+	 * its values after the replacement.
+	 *
+	 * @return <tt>true</tt> if the value was replaced, <tt>false</tt> otherwise.
+	 */
+	public boolean replaceValue(int valueIdx, byte[] value) {
+		byte[] oldValue = getValue(valueIdx);
+		setValue(valueIdx, value);
+
+		if (isCompressedLeaf() && encodedSize > tree.leafCapacity) {
+			setValue(valueIdx, oldValue);
+			return false;
+		}
+		return true;
 	}
 
 	/**
@@ -144,7 +274,10 @@ class Node {
 		assert valueIdx >= 0 : "valueIdx must be positive, is: " + valueIdx;
 		assert valueIdx < valueCount : "valueIdx out of range (" + valueIdx + " >= " + valueCount + ")";
 
+		startModification();
+
 		byte[] value = getValue(valueIdx);
+		int oldSize = getEncodedSize(valueIdx, valueIdx + 2);
 
 		int endOffset = valueIdx2offset(valueCount);
 
@@ -158,6 +291,8 @@ class Node {
 
 		setValueCount(--valueCount);
 
+		encodedSize += getEncodedSize(valueIdx, valueIdx + 1) - oldSize;
+
 		dataChanged = true;
 
 		notifyValueRemoved(valueIdx);
@@ -176,7 +311,10 @@ class Node {
 		assert valueIdx >= 0 : "valueIdx must be positive, is: " + valueIdx;
 		assert valueIdx < valueCount : "valueIdx out of range (" + valueIdx + " >= " + valueCount + ")";
 
+		startModification();
+
 		byte[] value = getValue(valueIdx);
+		int oldSize = getEncodedSize(valueIdx, valueIdx + 2);
 
 		int endOffset = valueIdx2offset(valueCount);
 
@@ -188,6 +326,8 @@ class Node {
 
 		setValueCount(--valueCount);
 
+		encodedSize += getEncodedSize(valueIdx, valueIdx + 1) - oldSize;
+
 		dataChanged = true;
 
 		notifyValueRemoved(valueIdx);
@@ -207,6 +347,8 @@ class Node {
 		assert nodeIdx <= valueCount : "nodeIdx out of range (" + nodeIdx + " > " + valueCount + ")";
 		assert nodeID >= 0 : "nodeID must not be negative, is: " + nodeID;
 
+		startModification();
+
 		ByteArrayUtil.putInt(nodeID, data, nodeIdx2offset(nodeIdx));
 		dataChanged = true;
 	}
@@ -253,7 +395,12 @@ class Node {
 		assert value != null : "value must not be null";
 		assert nodeID >= 0 : "nodeID must not be negative, is: " + nodeID;
 
+		startModification();
+
+		ensureCapacity(valueCount + 1);
+
 		int offset = valueIdx2offset(valueIdx);
+		int oldSize = getEncodedSize(valueIdx, valueIdx + 1);
 
 		if (valueIdx < valueCount) {
 			// Shift values right of <offset> to the right
@@ -267,6 +414,8 @@ class Node {
 		// Raise the value count
 		setValueCount(++valueCount);
 
+		encodedSize += getEncodedSize(valueIdx, valueIdx + 2) - oldSize;
+
 		notifyValueAdded(valueIdx);
 
 		dataChanged = true;
@@ -278,7 +427,12 @@ class Node {
 		assert nodeID >= 0 : "nodeID must not be negative, is: " + nodeID;
 		assert value != null : "value must not be null";
 
+		startModification();
+
+		ensureCapacity(valueCount + 1);
+
 		int offset = nodeIdx2offset(nodeIdx);
+		int oldSize = getEncodedSize(nodeIdx, nodeIdx + 1);
 
 		// Shift values right of <offset> to the right
 		shiftData(offset, valueIdx2offset(valueCount), tree.slotSize);
@@ -290,6 +444,8 @@ class Node {
 		// Raise the value count
 		setValueCount(++valueCount);
 
+		encodedSize += getEncodedSize(nodeIdx, nodeIdx + 2) - oldSize;
+
 		notifyValueAdded(nodeIdx);
 
 		dataChanged = true;
@@ -307,32 +463,38 @@ class Node {
 		// can be done because data got one spare slot when it was allocated.
 		insertValueNodeIDPair(newValueIdx, newValue, newNodeID);
 
-		assert valueCount == tree.branchFactor : "Node contains " + valueCount + " values, expected "
-				+ tree.branchFactor;
+		assert isCompressedLeaf() || valueCount == tree.branchFactor : "Node contains " + valueCount
+				+ " values, expected " + tree.branchFactor;
 
-		// Node now contains exactly [branchFactor] values. The median
-		// value at index [branchFactor/2] is moved to the parent
-		// node, the values left of the median stay in this node, the
-		// values right of the median are moved to the new node.
-		int medianIdx = tree.branchFactor / 2;
+		// Node now contains one value more than it can store. The median
+		// value is moved to the parent node, the values left of the median
+		// stay in this node, the values right of the median are moved to
+		// the new node.
+		int medianIdx = getMedianIdx();
 		int medianOffset = valueIdx2offset(medianIdx);
 		int splitOffset = medianOffset + tree.valueSize;
+		int endOffset = valueIdx2offset(valueCount);
+		int newValueCount = valueCount - medianIdx - 1;
 
-		// Move all data (including the spare slot) to the right of
-		// <splitOffset> to the new node
-		System.arraycopy(data, splitOffset, newNode.data, 4, data.length - splitOffset);
+		// Move all data to the right of <splitOffset> to the new node
+		newNode.startModification();
+		newNode.ensureCapacity(newValueCount);
+		System.arraycopy(data, splitOffset, newNode.data, 4, endOffset - splitOffset);
 
 		// Get the median value
 		byte[] medianValue = getValue(medianIdx);
 
 		// Clear the right half of the data in this node
-		clearData(medianOffset, data.length);
+		clearData(medianOffset, endOffset);
 
 		// Update the value counts
 		setValueCount(medianIdx);
-		newNode.setValueCount(tree.branchFactor - medianIdx - 1);
+		newNode.setValueCount(newValueCount);
 		newNode.dataChanged = true;
 
+		encodedSize = getEncodedSize(0, valueCount);
+		newNode.encodedSize = newNode.getEncodedSize(0, newNode.valueCount);
+
 		notifyNodeSplit(newNode, medianIdx);
 
 		// Return the median value; it should be inserted into the parent node
@@ -340,7 +502,7 @@ class Node {
 	}
 
 	public void mergeWithRightSibling(byte[] medianValue, Node rightSibling) throws IOException {
-		assert valueCount + rightSibling.getValueCount()
+		assert isCompressedLeaf() || valueCount + rightSibling.getValueCount()
 				+ 1 < tree.branchFactor : "Nodes contain too many values to be merged; left: " + valueCount
 						+ "; right: " + rightSibling.getValueCount();
 
@@ -350,15 +512,23 @@ class Node {
 		int rightIdx = valueCount;
 
 		// Append all values and node references from right sibling
+		ensureCapacity(valueCount + rightSibling.valueCount);
 		System.arraycopy(rightSibling.data, 4, data, nodeIdx2offset(rightIdx),
 				valueIdx2offset(rightSibling.valueCount) - 4);
 
 		setValueCount(valueCount + rightSibling.valueCount);
 
+		rightSibling.startModification();
 		rightSibling.clearData(4, valueIdx2offset(rightSibling.valueCount));
 		rightSibling.setValueCount(0);
 		rightSibling.dataChanged = true;
 
+		encodedSize = getEncodedSize(0, valueCount);
+		rightSibling.encodedSize = 0;
+
+		assert !isCompressedLeaf() || encodedSize <= tree.leafCapacity : "Merged node is too large: " + encodedSize
+				+ " bytes";
+
 		rightSibling.notifyNodeMerged(this, rightIdx);
 	}
 
@@ -444,19 +614,60 @@ class Node {
 	}
 
 	public void read() throws IOException {
+		if (tree.leafCodec != null) {
+			readCompressed();
+			return;
+		}
+
 		ByteBuffer buf = ByteBuffer.wrap(data);
 
 		// Don't fill the spare slot in data:
 		buf.limit(tree.nodeSize);
 
-		int bytesRead = tree.nioFile.read(buf, tree.nodeID2offset(id));
+		int bytesRead = tree.readNodeData(buf, tree.nodeID2offset(id));
 		assert bytesRead == tree.nodeSize : "Read operation didn't read the entire node (" + bytesRead + " of "
 				+ tree.nodeSize + " bytes)";
 
 		valueCount = ByteArrayUtil.getInt(data, 0);
 	}
 
+	/**
+	 * Reads a node of a B-tree with compressed leaf nodes. Inner nodes are stored in the same format as in
+	 * uncompressed B-trees; leaf nodes, recognized by their first child node ID being <tt>0</tt>, store the value count
+	 * and this node ID followed by the encoded values.
+	 */
+	private void readCompressed() throws IOException {
+		byte[] block = new byte[tree.blockSize];
+
+		// A compressed leaf node at the end of the file may be shorter than a block
+		tree.readNodeData(ByteBuffer.wrap(block), tree.nodeID2offset(id));
+
+		int count = ByteArrayUtil.getInt(block, 0);
+
+		if (ByteArrayUtil.getInt(block, 4) != 0) {
+			System.arraycopy(block, 0, data, 0, tree.nodeSize);
+			valueCount = count;
+			encodedSize = getEncodedSize(0, valueCount);
+		} else {
+			ensureCapacity(count);
+
+			int pos = 8;
+			for (int i = 0; i < count; i++) {
+				pos = tree.leafCodec.decode(block, pos, data, i > 0 ? valueIdx2offset(i - 1) : -1,
+						valueIdx2offset(i));
+			}
+
+			setValueCount(count);
+			encodedSize = pos - 8;
+		}
+	}
+
 	public void write() throws IOException {
+		if (isCompressedLeaf()) {
+			writeCompressed();
+			return;
+		}
+
 		ByteBuffer buf = ByteBuffer.wrap(data);
 
 		// Don't write the spare slot in data to the file:
@@ -469,6 +680,74 @@ class Node {
 		dataChanged = false;
 	}
 
+	private void writeCompressed() throws IOException {
+		byte[] block = new byte[8 + encodedSize];
+		ByteArrayUtil.putInt(valueCount, block, 0);
+
+		int pos = 8;
+		for (int i = 0; i < valueCount; i++) {
+			pos = tree.leafCodec.encode(data, i > 0 ? valueIdx2offset(i - 1) : -1, valueIdx2offset(i), block, pos);
+		}
+		assert pos == block.length : "Encoded node size (" + pos + ") differs from expected size (" + block.length
+				+ ")";
+
+		if (block.length > tree.blockSize) {
+			throw new IOException("Compressed node " + id + " doesn't fit in a block in " + tree.getFile());
+		}
+
+		int bytesWritten = tree.nioFile.write(ByteBuffer.wrap(block), tree.nodeID2offset(id));
+		assert bytesWritten == block.length : "Write operation didn't write the entire node (" + bytesWritten + " of "
+				+ block.length + " bytes)";
+
+		dataChanged = false;
+	}
+
+	/**
+	 * Gets the index of the value that is moved to the parent node when this node is split. For compressed leaf nodes,
+	 * this is the value that divides the encoded values in two halves of about the same size.
+	 */
+	private int getMedianIdx() {
+		if (!isCompressedLeaf()) {
+			return valueCount / 2;
+		}
+
+		int size = 0;
+		int medianIdx = 0;
+		while (medianIdx < valueCount - 2 && size < encodedSize / 2) {
+			size += getEncodedSize(medianIdx, medianIdx + 1);
+			medianIdx++;
+		}
+		return Math.max(medianIdx, 1);
+	}
+
+	/**
+	 * Gets the number of bytes needed to store the values between <tt>fromIdx</tt> (inclusive) and <tt>toIdx</tt>
+	 * (exclusive, capped to the value count) in compressed form. Returns <tt>0</tt> for B-trees without compressed
+	 * leaf nodes.
+	 */
+	private int getEncodedSize(int fromIdx, int toIdx) {
+		if (tree.leafCodec == null) {
+			return 0;
+		}
+
+		int size = 0;
+		for (int i = fromIdx; i < toIdx && i < valueCount; i++) {
+			size += tree.leafCodec.getEncodedLength(data, i > 0 ? valueIdx2offset(i - 1) : -1, valueIdx2offset(i));
+		}
+		return size;
+	}
+
+	/**
+	 * Makes sure that data can store the specified number of values. The data of a node is initially large enough to
+	 * store all values of an uncompressed node plus one spare slot, only compressed leaf nodes may need more room.
+	 */
+	private void ensureCapacity(int valueCount) {
+		int requiredLength = valueIdx2offset(valueCount);
+		if (requiredLength > data.length) {
+			data = Arrays.copyOf(data, Math.max(requiredLength, data.length * 2));
+		}
+	}
+
 	/**
 	 * Shifts the data between <tt>startOffset</tt> (inclusive) and <tt>endOffset</tt> (exclusive) <tt>shift</tt>
 	 * positions to the right. Negative shift values can be used to shift data to the left.
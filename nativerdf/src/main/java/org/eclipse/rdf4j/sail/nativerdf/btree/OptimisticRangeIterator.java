@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+
+/**
+ * A read-only {@link RecordIterator} that reads nodes without using them or registering as a {@link NodeListener}.
+ * <p>
+ * The iterator descends from the root node to the leaf node that contains the values following the last value that it
+ * returned, copies these values together with the next value from the leaf's ancestors and validates the stamps of all
+ * nodes on the path afterwards. When a node is modified concurrently, the descent is retried; the buffered values are
+ * discarded and the iterator descends again as soon as one of the nodes on the path has changed. After a number of
+ * failed attempts, or when a node is not present in the node cache, the descent is done while holding the read lock
+ * of the BTree.
+ */
+class OptimisticRangeIterator implements RecordIterator {
+
+	/**
+	 * The number of times a descent is attempted without locking before falling back to holding the read lock.
+	 */
+	private static final int MAX_OPTIMISTIC_ATTEMPTS = 4;
+
+	private static final int SUCCESS = 0;
+
+	private static final int CONFLICT = 1;
+
+	private static final int NOT_CACHED = 2;
+
+	private final BTree tree;
+
+	private final byte[] searchKey;
+
+	private final byte[] searchMask;
+
+	private final byte[] minValue;
+
+	private final byte[] maxValue;
+
+	/**
+	 * The values that follow {@link #lastValue}, in ascending order.
+	 */
+	private final List<byte[]> values = new ArrayList<>();
+
+	private int valueIdx;
+
+	/**
+	 * The nodes from which the buffered values have been read, with their stamps.
+	 */
+	private Node[] pathNodes = new Node[8];
+
+	private long[] pathStamps = new long[8];
+
+	private int pathLength;
+
+	/**
+	 * The last value that has been read from the buffer, <tt>null</tt> if no value has been read yet.
+	 */
+	private byte[] lastValue;
+
+	private boolean closed;
+
+	public OptimisticRangeIterator(BTree tree, byte[] searchKey, byte[] searchMask, byte[] minValue,
+			byte[] maxValue) {
+		this.tree = tree;
+		this.searchKey = searchKey;
+		this.searchMask = searchMask;
+		this.minValue = minValue;
+		this.maxValue = maxValue;
+	}
+
+	@Override
+	public byte[] next() throws IOException {
+		while (!closed) {
+			if (valueIdx == values.size() || !isPathValid()) {
+				fetch();
+
+				if (values.isEmpty()) {
+					// No more values
+					close();
+					break;
+				}
+			}
+
+			byte[] value = values.get(valueIdx++);
+			lastValue = value;
+
+			if (maxValue != null && tree.comparator.compareBTreeValues(maxValue, value, 0, value.length) < 0) {
+				// Reached maximum value, stop iterating
+				close();
+				break;
+			} else if (searchKey == null || ByteArrayUtil.matchesPattern(value, searchMask, searchKey)) {
+				// Matching value found
+				return value;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void set(byte[] value) {
+		throw new UnsupportedOperationException("Read-only iterator");
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		values.clear();
+		valueIdx = 0;
+		clearPath();
+	}
+
+	/**
+	 * Fills the buffer with the values following {@link #lastValue}, leaving it empty if there are no such values.
+	 */
+	private void fetch() throws IOException {
+		for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+			int result = descend(false);
+
+			if (result == SUCCESS) {
+				return;
+			} else if (result == NOT_CACHED) {
+				break;
+			}
+		}
+
+		tree.btreeLock.readLock().lock();
+		try {
+			descend(true);
+		} finally {
+			tree.btreeLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Descends to the leaf node that contains the values following {@link #lastValue}, or the first value that is equal
+	 * to or larger than {@link #minValue} if no value has been read yet.
+	 *
+	 * @param locked Flag indicating that the read lock of the BTree is held. Nodes are then read through the node cache
+	 *               and used while they are being accessed.
+	 */
+	private int descend(boolean locked) throws IOException {
+		values.clear();
+		valueIdx = 0;
+		clearPath();
+
+		byte[] key = lastValue != null ? lastValue : minValue;
+		boolean inclusive = lastValue == null;
+
+		// The node containing the smallest value in the ancestors that is larger than the key
+		Node successorNode = null;
+		int successorIdx = -1;
+		boolean foundMinimum = false;
+
+		int rootNodeID = tree.getRootNodeID();
+		int nodeID = rootNodeID;
+
+		try {
+			while (nodeID != 0) {
+				Node node = locked ? tree.readNode(nodeID) : tree.getCachedNode(nodeID);
+				if (node == null) {
+					return NOT_CACHED;
+				}
+
+				long stamp = node.getOptimisticStamp();
+				addToPath(node, stamp);
+
+				// Verify that the parent node was not modified before the stamp of the child node was obtained, the
+				// child node might not belong to the path anymore otherwise
+				if (!locked && (stamp == 0L || pathLength > 1 && !isValid(pathLength - 2))) {
+					return CONFLICT;
+				}
+
+				int valueCount = node.getValueCount();
+				int idx = 0;
+
+				if (key != null) {
+					idx = node.search(key);
+
+					if (idx >= 0) {
+						if (!inclusive) {
+							idx++;
+						} else if (!node.isLeaf()) {
+							// Found the minimum value, the values following it are fetched on the next descent
+							values.add(node.getValue(idx));
+							foundMinimum = true;
+							break;
+						}
+					} else {
+						idx = -idx - 1;
+					}
+				}
+
+				if (node.isLeaf()) {
+					for (int i = idx; i < valueCount; i++) {
+						values.add(node.getValue(i));
+					}
+					break;
+				}
+
+				if (idx < valueCount) {
+					successorNode = node;
+					successorIdx = idx;
+				}
+
+				nodeID = node.getChildNodeID(idx);
+			}
+
+			if (!foundMinimum && successorNode != null) {
+				values.add(successorNode.getValue(successorIdx));
+			}
+
+			if (!locked && (!isPathValid() || tree.getRootNodeID() != rootNodeID)) {
+				return CONFLICT;
+			}
+		} catch (RuntimeException | AssertionError e) {
+			// Inconsistent data can be read from nodes that are being modified concurrently
+			if (locked || isPathValid()) {
+				throw e;
+			}
+			return CONFLICT;
+		} finally {
+			if (locked) {
+				for (int i = 0; i < pathLength; i++) {
+					pathNodes[i].release();
+				}
+			}
+		}
+
+		return SUCCESS;
+	}
+
+	/**
+	 * Checks that none of the nodes from which the buffered values have been read has changed since.
+	 */
+	private boolean isPathValid() {
+		for (int i = 0; i < pathLength; i++) {
+			if (!isValid(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isValid(int pathIdx) {
+		return pathNodes[pathIdx].validate(pathStamps[pathIdx]);
+	}
+
+	private void addToPath(Node node, long stamp) {
+		if (pathLength == pathNodes.length) {
+			pathNodes = Arrays.copyOf(pathNodes, pathLength * 2);
+			pathStamps = Arrays.copyOf(pathStamps, pathLength * 2);
+		}
+		pathNodes[pathLength] = node;
+		pathStamps[pathLength] = stamp;
+		pathLength++;
+	}
+
+	private void clearPath() {
+		Arrays.fill(pathNodes, 0, pathLength, null);
+		pathLength = 0;
+	}
+}
@@ -159,6 +159,7 @@ class RangeIterator implements RecordIterator, NodeListener {
 
 			nextCurrentNode.setValue(currentIdx - 1, value);
 		} finally {
+			tree.endModifications();
 			tree.btreeLock.readLock().unlock();
 		}
 	}
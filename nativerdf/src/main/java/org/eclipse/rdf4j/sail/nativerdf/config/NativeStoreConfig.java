@@ -8,9 +8,13 @@
 package org.eclipse.rdf4j.sail.nativerdf.config;
 
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.FORCE_SYNC;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.GROUP_COMMIT;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.LAZY_VALUES;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.MEMORY_MAPPED;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE_CACHE_SIZE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE_ID_CACHE_SIZE;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.PARALLEL_COMMIT;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.TRIPLE_INDEXES;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_CACHE_SIZE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_ID_CACHE_SIZE;
@@ -37,6 +41,14 @@ public class NativeStoreConfig extends BaseSailConfig {
 
 	private boolean forceSync = false;
 
+	private boolean parallelCommit = false;
+
+	private boolean memoryMapped = false;
+
+	private boolean lazyValues = false;
+
+	private boolean groupCommit = false;
+
 	private int valueCacheSize = -1;
 
 	private int valueIDCacheSize = -1;
@@ -83,6 +95,38 @@ public class NativeStoreConfig extends BaseSailConfig {
 		this.forceSync = forceSync;
 	}
 
+	public boolean getParallelCommit() {
+		return parallelCommit;
+	}
+
+	public void setParallelCommit(boolean parallelCommit) {
+		this.parallelCommit = parallelCommit;
+	}
+
+	public boolean getMemoryMapped() {
+		return memoryMapped;
+	}
+
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public boolean getLazyValues() {
+		return lazyValues;
+	}
+
+	public void setLazyValues(boolean lazyValues) {
+		this.lazyValues = lazyValues;
+	}
+
+	public boolean getGroupCommit() {
+		return groupCommit;
+	}
+
+	public void setGroupCommit(boolean groupCommit) {
+		this.groupCommit = groupCommit;
+	}
+
 	public int getValueCacheSize() {
 		return valueCacheSize;
 	}
@@ -127,6 +171,18 @@ public class NativeStoreConfig extends BaseSailConfig {
 		if (forceSync) {
 			m.add(implNode, FORCE_SYNC, vf.createLiteral(forceSync));
 		}
+		if (parallelCommit) {
+			m.add(implNode, PARALLEL_COMMIT, vf.createLiteral(parallelCommit));
+		}
+		if (memoryMapped) {
+			m.add(implNode, MEMORY_MAPPED, vf.createLiteral(memoryMapped));
+		}
+		if (lazyValues) {
+			m.add(implNode, LAZY_VALUES, vf.createLiteral(lazyValues));
+		}
+		if (groupCommit) {
+			m.add(implNode, GROUP_COMMIT, vf.createLiteral(groupCommit));
+		}
 		if (valueCacheSize >= 0) {
 			m.add(implNode, VALUE_CACHE_SIZE, vf.createLiteral(valueCacheSize));
 		}
@@ -159,6 +215,38 @@ public class NativeStoreConfig extends BaseSailConfig {
 							"Boolean value required for " + FORCE_SYNC + " property, found " + lit);
 				}
 			});
+			Models.objectLiteral(m.filter(implNode, PARALLEL_COMMIT, null)).ifPresent(lit -> {
+				try {
+					setParallelCommit(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + PARALLEL_COMMIT + " property, found " + lit);
+				}
+			});
+			Models.objectLiteral(m.filter(implNode, MEMORY_MAPPED, null)).ifPresent(lit -> {
+				try {
+					setMemoryMapped(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + MEMORY_MAPPED + " property, found " + lit);
+				}
+			});
+			Models.objectLiteral(m.filter(implNode, LAZY_VALUES, null)).ifPresent(lit -> {
+				try {
+					setLazyValues(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + LAZY_VALUES + " property, found " + lit);
+				}
+			});
+			Models.objectLiteral(m.filter(implNode, GROUP_COMMIT, null)).ifPresent(lit -> {
+				try {
+					setGroupCommit(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + GROUP_COMMIT + " property, found " + lit);
+				}
+			});
 
 			Models.objectLiteral(m.filter(implNode, VALUE_CACHE_SIZE, null)).ifPresent(lit -> {
 				try {
@@ -54,6 +54,10 @@ public class NativeStoreFactory implements SailFactory {
 
 			nativeStore.setTripleIndexes(nativeConfig.getTripleIndexes());
 			nativeStore.setForceSync(nativeConfig.getForceSync());
+			nativeStore.setParallelCommit(nativeConfig.getParallelCommit());
+			nativeStore.setMemoryMapped(nativeConfig.getMemoryMapped());
+			nativeStore.setLazyValues(nativeConfig.getLazyValues());
+			nativeStore.setGroupCommit(nativeConfig.getGroupCommit());
 
 			if (nativeConfig.getValueCacheSize() >= 0) {
 				nativeStore.setValueCacheSize(nativeConfig.getValueCacheSize());
@@ -29,6 +29,18 @@ public class NativeStoreSchema {
 	/** <tt>http://www.openrdf.org/config/sail/native#forceSync</tt> */
 	public final static IRI FORCE_SYNC;
 
+	/** <tt>http://www.openrdf.org/config/sail/native#parallelCommit</tt> */
+	public final static IRI PARALLEL_COMMIT;
+
+	/** <tt>http://www.openrdf.org/config/sail/native#memoryMapped</tt> */
+	public final static IRI MEMORY_MAPPED;
+
+	/** <tt>http://www.openrdf.org/config/sail/native#lazyValues</tt> */
+	public final static IRI LAZY_VALUES;
+
+	/** <tt>http://www.openrdf.org/config/sail/native#groupCommit</tt> */
+	public final static IRI GROUP_COMMIT;
+
 	/** <tt>http://www.openrdf.org/config/sail/native#valueCacheSize</tt> */
 	public final static IRI VALUE_CACHE_SIZE;
 
@@ -45,6 +57,10 @@ public class NativeStoreSchema {
 		ValueFactory factory = SimpleValueFactory.getInstance();
 		TRIPLE_INDEXES = factory.createIRI(NAMESPACE, "tripleIndexes");
 		FORCE_SYNC = factory.createIRI(NAMESPACE, "forceSync");
+		PARALLEL_COMMIT = factory.createIRI(NAMESPACE, "parallelCommit");
+		MEMORY_MAPPED = factory.createIRI(NAMESPACE, "memoryMapped");
+		LAZY_VALUES = factory.createIRI(NAMESPACE, "lazyValues");
+		GROUP_COMMIT = factory.createIRI(NAMESPACE, "groupCommit");
 		VALUE_CACHE_SIZE = factory.createIRI(NAMESPACE, "valueCacheSize");
 		VALUE_ID_CACHE_SIZE = factory.createIRI(NAMESPACE, "valueIDCacheSize");
 		NAMESPACE_CACHE_SIZE = factory.createIRI(NAMESPACE, "namespaceCacheSize");
@@ -14,7 +14,9 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
 
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.common.io.NioFile;
+import org.eclipse.rdf4j.sail.nativerdf.MappedFileReader;
 
 /**
  * Class supplying access to a data file. A data file stores data sequentially. Each entry starts with the entry's
@@ -47,6 +49,11 @@ public class DataFile implements Closeable {
 
 	private final NioFile nioFile;
 
+	/**
+	 * Reader used to read data from a memory mapping of the file, <tt>null</tt> if memory mapping is disabled.
+	 */
+	private final MappedFileReader mappedReader;
+
 	private final boolean forceSync;
 
 	/*--------------*
@@ -58,6 +65,17 @@ public class DataFile implements Closeable {
 	}
 
 	public DataFile(File file, boolean forceSync) throws IOException {
+		this(file, forceSync, false);
+	}
+
+	/**
+	 * Creates a new DataFile.
+	 * 
+	 * @param file         The file to store the data in.
+	 * @param forceSync    Flag indicating whether updates should be synced to disk forcefully.
+	 * @param memoryMapped Flag indicating whether data should be read from a memory mapping of the file.
+	 */
+	public DataFile(File file, boolean forceSync, boolean memoryMapped) throws IOException {
 		this.nioFile = new NioFile(file);
 		this.forceSync = forceSync;
 
@@ -85,6 +103,8 @@ public class DataFile implements Closeable {
 					throw new IOException("Unable to read data file; invalid file format version: " + version);
 				}
 			}
+
+			this.mappedReader = memoryMapped ? new MappedFileReader(nioFile) : null;
 		} catch (IOException e) {
 			this.nioFile.close();
 			throw e;
@@ -131,6 +151,11 @@ public class DataFile implements Closeable {
 	public byte[] getData(long offset) throws IOException {
 		assert offset > 0 : "offset must be larger than 0, is: " + offset;
 
+		if (mappedReader != null) {
+			int dataLength = mappedReader.readInt(offset);
+			return mappedReader.readBytes(offset + 4L, dataLength);
+		}
+
 		// TODO: maybe get more data in one go is more efficient?
 		int dataLength = nioFile.readInt(offset);
 
@@ -141,13 +166,33 @@ public class DataFile implements Closeable {
 		return data;
 	}
 
+	/**
+	 * Gets the first byte of the data that is stored at the specified offset, without reading the rest of the data.
+	 * 
+	 * @param offset An offset in the data file, must be larger than 0.
+	 * @return The first byte of the data as an unsigned value, or <tt>-1</tt> if the data is empty.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public int getFirstByte(long offset) throws IOException {
+		assert offset > 0 : "offset must be larger than 0, is: " + offset;
+
+		byte[] data = mappedReader != null ? mappedReader.readBytes(offset, 5) : nioFile.readBytes(offset, 5);
+		int dataLength = ByteArrayUtil.getInt(data, 0);
+
+		return dataLength > 0 ? data[4] & 0xFF : -1;
+	}
+
 	/**
 	 * Discards all stored data.
 	 * 
 	 * @throws IOException If an I/O error occurred.
 	 */
 	public void clear() throws IOException {
-		nioFile.truncate(HEADER_LENGTH);
+		if (mappedReader != null) {
+			mappedReader.truncate(HEADER_LENGTH);
+		} else {
+			nioFile.truncate(HEADER_LENGTH);
+		}
 	}
 
 	/**
@@ -166,7 +211,13 @@ public class DataFile implements Closeable {
 	 */
 	@Override
 	public void close() throws IOException {
-		nioFile.close();
+		try {
+			if (mappedReader != null) {
+				mappedReader.close();
+			}
+		} finally {
+			nioFile.close();
+		}
 	}
 
 	/**
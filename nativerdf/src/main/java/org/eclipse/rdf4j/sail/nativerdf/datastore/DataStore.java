@@ -11,6 +11,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.zip.CRC32;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
@@ -46,9 +47,13 @@ public class DataStore implements Closeable {
 	}
 
 	public DataStore(File dataDir, String filePrefix, boolean forceSync) throws IOException {
-		dataFile = new DataFile(new File(dataDir, filePrefix + ".dat"), forceSync);
-		idFile = new IDFile(new File(dataDir, filePrefix + ".id"), forceSync);
-		hashFile = new HashFile(new File(dataDir, filePrefix + ".hash"), forceSync);
+		this(dataDir, filePrefix, forceSync, false);
+	}
+
+	public DataStore(File dataDir, String filePrefix, boolean forceSync, boolean memoryMapped) throws IOException {
+		dataFile = new DataFile(new File(dataDir, filePrefix + ".dat"), forceSync, memoryMapped);
+		idFile = new IDFile(new File(dataDir, filePrefix + ".id"), forceSync, memoryMapped);
+		hashFile = new HashFile(new File(dataDir, filePrefix + ".hash"), forceSync, memoryMapped);
 	}
 
 	/*---------*
@@ -107,6 +112,119 @@ public class DataStore implements Closeable {
 		return id;
 	}
 
+	/**
+	 * Gets the first byte of the value for the specified ID, without reading the rest of the value.
+	 * 
+	 * @param id A value ID, should be larger than 0.
+	 * @return The first byte of the value as an unsigned value, or <tt>-1</tt> if no such value could be found or if
+	 *         the value is empty.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public int getFirstByte(int id) throws IOException {
+		assert id > 0 : "id must be larger than 0, is: " + id;
+
+		long offset = idFile.getOffset(id);
+
+		if (offset != 0L) {
+			return dataFile.getFirstByte(offset);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets the values for the specified IDs. The offsets of the IDs are looked up in order of the IDs and the values
+	 * are read in order of their offsets in the data file, which turns the random reads of many individual
+	 * {@link #getData(int)} calls into mostly sequential reads.
+	 * 
+	 * @param ids Value IDs, should be larger than 0.
+	 * @return The values for the IDs, in the order of the supplied IDs. Entries for IDs for which no value could be
+	 *         found are <tt>null</tt>.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public byte[][] getData(int[] ids) throws IOException {
+		long[] offsets = new long[ids.length];
+		for (int i : sortedIndexes(ids.length, (i1, i2) -> Integer.compare(ids[i1], ids[i2]))) {
+			assert ids[i] > 0 : "id must be larger than 0, is: " + ids[i];
+			offsets[i] = idFile.getOffset(ids[i]);
+		}
+
+		byte[][] result = new byte[ids.length][];
+		int previous = -1;
+		for (int i : sortedIndexes(ids.length, (i1, i2) -> Long.compare(offsets[i1], offsets[i2]))) {
+			if (offsets[i] == 0L) {
+				continue;
+			} else if (previous >= 0 && offsets[previous] == offsets[i]) {
+				// ID was requested several times
+				result[i] = result[previous];
+			} else {
+				result[i] = dataFile.getData(offsets[i]);
+			}
+			previous = i;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the IDs for the specified values. The hash buckets are searched in the order in which they are stored and
+	 * the candidate values are read in order of their offsets in the data file, which turns the random reads of many
+	 * individual {@link #getID(byte[])} calls into mostly sequential reads.
+	 * 
+	 * @param queryData The values to get the IDs for, must not contain <tt>null</tt> entries.
+	 * @return The IDs for the specified values, in the order of the supplied values. Entries for values for which no
+	 *         ID could be found are <tt>-1</tt>.
+	 * @exception IOException If an I/O error occurred.
+	 */
+	public int[] getIDs(byte[][] queryData) throws IOException {
+		int[] hashes = new int[queryData.length];
+		int[] bucketNumbers = new int[queryData.length];
+		for (int i = 0; i < queryData.length; i++) {
+			assert queryData[i] != null : "queryData must not contain null entries";
+			hashes[i] = getDataHash(queryData[i]);
+			bucketNumbers[i] = hashFile.getBucketNumber(hashes[i]);
+		}
+
+		// Collect the IDs with matching hash codes, there typically is only one for each value
+		int[] candidateIDs = new int[queryData.length];
+		int[] candidateQueries = new int[queryData.length];
+		int candidateCount = 0;
+
+		int[] bucketOrder = sortedIndexes(queryData.length,
+				(i1, i2) -> Integer.compare(bucketNumbers[i1], bucketNumbers[i2]));
+		for (int i : bucketOrder) {
+			HashFile.IDIterator iter = hashFile.getIDIterator(hashes[i]);
+			try {
+				int id;
+				while ((id = iter.next()) >= 0) {
+					if (candidateCount == candidateIDs.length) {
+						candidateIDs = Arrays.copyOf(candidateIDs, candidateCount * 2);
+						candidateQueries = Arrays.copyOf(candidateQueries, candidateCount * 2);
+					}
+					candidateIDs[candidateCount] = id;
+					candidateQueries[candidateCount] = i;
+					candidateCount++;
+				}
+			} finally {
+				iter.close();
+			}
+		}
+
+		byte[][] candidateData = getData(Arrays.copyOf(candidateIDs, candidateCount));
+
+		int[] result = new int[queryData.length];
+		Arrays.fill(result, -1);
+		for (int c = 0; c < candidateCount; c++) {
+			int i = candidateQueries[c];
+			if (result[i] == -1 && Arrays.equals(queryData[i], candidateData[c])) {
+				// Matching data found
+				result[i] = candidateIDs[c];
+			}
+		}
+
+		return result;
+	}
+
 	/**
 	 * Returns the maximum value-ID that is in use.
 	 * 
@@ -202,6 +320,23 @@ public class DataStore implements Closeable {
 		}
 	}
 
+	/**
+	 * Returns the indexes <tt>0</tt> to <tt>size - 1</tt>, sorted using the supplied comparator.
+	 */
+	private static int[] sortedIndexes(int size, Comparator<Integer> comparator) {
+		Integer[] indexes = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			indexes[i] = i;
+		}
+		Arrays.sort(indexes, comparator);
+
+		int[] result = new int[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = indexes[i];
+		}
+		return result;
+	}
+
 	/*--------------------*
 	 * Test/debug methods *
 	 *--------------------*/
@@ -17,6 +17,7 @@ import java.util.Arrays;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.rdf4j.common.io.NioFile;
+import org.eclipse.rdf4j.sail.nativerdf.MappedFileReader;
 
 /**
  * Class supplying access to a hash file.
@@ -59,6 +60,12 @@ public class HashFile implements Closeable {
 
 	private final NioFile nioFile;
 
+	/**
+	 * Reader used to read buckets from a memory mapping of the file when looking up IDs, <tt>null</tt> if memory
+	 * mapping is disabled.
+	 */
+	private final MappedFileReader mappedReader;
+
 	private final boolean forceSync;
 
 	// The number of (non-overflow) buckets in the hash file
@@ -91,6 +98,18 @@ public class HashFile implements Closeable {
 	}
 
 	public HashFile(File file, boolean forceSync) throws IOException {
+		this(file, forceSync, false);
+	}
+
+	/**
+	 * Creates a new HashFile.
+	 * 
+	 * @param file         The file to store the hash table in.
+	 * @param forceSync    Flag indicating whether updates should be synced to disk forcefully.
+	 * @param memoryMapped Flag indicating whether buckets should be read from a memory mapping of the file when
+	 *                     looking up IDs.
+	 */
+	public HashFile(File file, boolean forceSync, boolean memoryMapped) throws IOException {
 		this.nioFile = new NioFile(file);
 		this.forceSync = forceSync;
 
@@ -136,6 +155,8 @@ public class HashFile implements Closeable {
 
 				recordSize = ITEM_SIZE * bucketSize + 4;
 			}
+
+			this.mappedReader = memoryMapped ? new MappedFileReader(nioFile) : null;
 		} catch (IOException e) {
 			this.nioFile.close();
 			throw e;
@@ -161,6 +182,19 @@ public class HashFile implements Closeable {
 		return new IDIterator(hash);
 	}
 
+	/**
+	 * Gets the number of the bucket in which IDs with the specified hash code are stored. Buckets are stored in order
+	 * of their numbers, so looking up hash codes in order of their bucket numbers results in sequential reads. Note
+	 * that the bucket numbers change when the hash table grows.
+	 */
+	public int getBucketNumber(int hash) {
+		int bucketNo = hash % bucketCount;
+		if (bucketNo < 0) {
+			bucketNo += bucketCount;
+		}
+		return bucketNo;
+	}
+
 	/**
 	 * Stores ID under the specified hash code in this hash file.
 	 */
@@ -226,7 +260,11 @@ public class HashFile implements Closeable {
 		structureLock.writeLock().lock();
 		try {
 			// Truncate the file to remove any overflow buffers
-			nioFile.truncate(HEADER_LENGTH + (long) bucketCount * recordSize);
+			if (mappedReader != null) {
+				mappedReader.truncate(HEADER_LENGTH + (long) bucketCount * recordSize);
+			} else {
+				nioFile.truncate(HEADER_LENGTH + (long) bucketCount * recordSize);
+			}
 
 			// Overwrite normal buckets with empty ones
 			writeEmptyBuckets(HEADER_LENGTH, bucketCount);
@@ -256,7 +294,13 @@ public class HashFile implements Closeable {
 
 	@Override
 	public void close() throws IOException {
-		nioFile.close();
+		try {
+			if (mappedReader != null) {
+				mappedReader.close();
+			}
+		} finally {
+			nioFile.close();
+		}
 	}
 
 	/*-----------------*
@@ -298,11 +342,7 @@ public class HashFile implements Closeable {
 	 * Returns the offset of the bucket for the specified hash code.
 	 */
 	private long getBucketOffset(int hash) {
-		int bucketNo = hash % bucketCount;
-		if (bucketNo < 0) {
-			bucketNo += bucketCount;
-		}
-		return HEADER_LENGTH + (long) bucketNo * recordSize;
+		return HEADER_LENGTH + (long) getBucketNumber(hash) * recordSize;
 	}
 
 	/**
@@ -330,6 +370,14 @@ public class HashFile implements Closeable {
 		}
 	}
 
+	private void readBucket(ByteBuffer bucket, long bucketOffset) throws IOException {
+		if (mappedReader != null) {
+			mappedReader.read(bucket, bucketOffset);
+		} else {
+			nioFile.read(bucket, bucketOffset);
+		}
+	}
+
 	private int findEmptySlotInBucket(ByteBuffer bucket) {
 		for (int slotNo = 0; slotNo < bucketSize; slotNo++) {
 			// Check for offsets that are equal to 0
@@ -361,7 +409,11 @@ public class HashFile implements Closeable {
 			writeEmptyBuckets(oldTableSize, bucketCount);
 			bucketCount *= 2;
 			// Discard any remaining overflow buffers
-			nioFile.truncate(newTableSize);
+			if (mappedReader != null) {
+				mappedReader.truncate(newTableSize);
+			} else {
+				nioFile.truncate(newTableSize);
+			}
 			ByteBuffer bucket = ByteBuffer.allocate(recordSize);
 			ByteBuffer newBucket = ByteBuffer.allocate(recordSize);
 			// Rehash items in non-overflow buckets, half of these will move to a
@@ -470,7 +522,7 @@ public class HashFile implements Closeable {
 			try {
 				// Read initial bucket
 				long bucketOffset = getBucketOffset(hash);
-				nioFile.read(bucketBuffer, bucketOffset);
+				readBucket(bucketBuffer, bucketOffset);
 
 				slotNo = -1;
 			} catch (IOException e) {
@@ -511,7 +563,7 @@ public class HashFile implements Closeable {
 					// Continue with overflow bucket
 					bucketBuffer.clear();
 					long bucketOffset = getOverflowBucketOffset(overflowID);
-					nioFile.read(bucketBuffer, bucketOffset);
+					readBucket(bucketBuffer, bucketOffset);
 					slotNo = -1;
 				}
 			}
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import org.eclipse.rdf4j.common.io.NioFile;
+import org.eclipse.rdf4j.sail.nativerdf.MappedFileReader;
 
 /**
  * Class supplying access to an ID file. An ID file maps IDs (integers &gt;= 1) to file pointers (long integers). There
@@ -52,6 +53,11 @@ public class IDFile implements Closeable {
 
 	private final NioFile nioFile;
 
+	/**
+	 * Reader used to read offsets from a memory mapping of the file, <tt>null</tt> if memory mapping is disabled.
+	 */
+	private final MappedFileReader mappedReader;
+
 	private final boolean forceSync;
 
 	/*--------------*
@@ -63,6 +69,17 @@ public class IDFile implements Closeable {
 	}
 
 	public IDFile(File file, boolean forceSync) throws IOException {
+		this(file, forceSync, false);
+	}
+
+	/**
+	 * Creates a new IDFile.
+	 * 
+	 * @param file         The file to store the IDs in.
+	 * @param forceSync    Flag indicating whether updates should be synced to disk forcefully.
+	 * @param memoryMapped Flag indicating whether offsets should be read from a memory mapping of the file.
+	 */
+	public IDFile(File file, boolean forceSync, boolean memoryMapped) throws IOException {
 		this.nioFile = new NioFile(file);
 		this.forceSync = forceSync;
 
@@ -89,6 +106,8 @@ public class IDFile implements Closeable {
 					throw new IOException("Unable to read ID file; invalid file format version: " + version);
 				}
 			}
+
+			this.mappedReader = memoryMapped ? new MappedFileReader(nioFile) : null;
 		} catch (IOException e) {
 			this.nioFile.close();
 			throw e;
@@ -141,6 +160,9 @@ public class IDFile implements Closeable {
 	 */
 	public long getOffset(int id) throws IOException {
 		assert id > 0 : "id must be larger than 0, is: " + id;
+		if (mappedReader != null) {
+			return mappedReader.readLong(ITEM_SIZE * id);
+		}
 		return nioFile.readLong(ITEM_SIZE * id);
 	}
 
@@ -150,7 +172,11 @@ public class IDFile implements Closeable {
 	 * @throws IOException If an I/O error occurred.
 	 */
 	public void clear() throws IOException {
-		nioFile.truncate(HEADER_LENGTH);
+		if (mappedReader != null) {
+			mappedReader.truncate(HEADER_LENGTH);
+		} else {
+			nioFile.truncate(HEADER_LENGTH);
+		}
 	}
 
 	/**
@@ -169,6 +195,12 @@ public class IDFile implements Closeable {
 	 */
 	@Override
 	public void close() throws IOException {
-		nioFile.close();
+		try {
+			if (mappedReader != null) {
+				mappedReader.close();
+			}
+		} finally {
+			nioFile.close();
+		}
 	}
 }
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.model;
+
+import java.io.ObjectStreamException;
+
+import org.eclipse.rdf4j.sail.nativerdf.ValueStoreRevision;
+
+/**
+ * A {@link NativeBNode} of which only the internal ID is known initially. The node ID is loaded from the value store
+ * when it is first needed. Comparing it to other values of the same value store revision with a known ID does not
+ * require the node ID to be loaded.
+ */
+public class LazyNativeBNode extends NativeBNode {
+
+	private static final long serialVersionUID = -1634985742213479513L;
+
+	/**
+	 * The revision of the value store that the internal ID was obtained from.
+	 */
+	private final ValueStoreRevision idRevision;
+
+	private volatile boolean initialized = false;
+
+	public LazyNativeBNode(ValueStoreRevision revision, int internalID) {
+		super(revision, internalID);
+		this.idRevision = revision;
+	}
+
+	private void init() {
+		if (!initialized) {
+			synchronized (this) {
+				if (!initialized) {
+					NativeValue value = idRevision.getValueStore().getValue(getInternalID(), idRevision);
+					setID(value.stringValue());
+					initialized = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the value before it is serialized, as the value store is not available after deserialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		init();
+		return this;
+	}
+
+	@Override
+	public String getID() {
+		init();
+		return super.getID();
+	}
+
+	@Override
+	public String toString() {
+		init();
+		return super.toString();
+	}
+
+	@Override
+	public String stringValue() {
+		init();
+		return super.stringValue();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!NativeValues.isComparableByID(this, o)) {
+			init();
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		init();
+		return super.hashCode();
+	}
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.model;
+
+import java.io.ObjectStreamException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Optional;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.sail.nativerdf.ValueStoreRevision;
+
+/**
+ * A {@link NativeLiteral} of which only the internal ID is known initially. The label, language and datatype are
+ * loaded from the value store when they are first needed. Comparing it to other values of the same value store
+ * revision with a known ID does not require the literal to be loaded.
+ */
+public class LazyNativeLiteral extends NativeLiteral {
+
+	private static final long serialVersionUID = -5433826498413932542L;
+
+	/**
+	 * The revision of the value store that the internal ID was obtained from.
+	 */
+	private final ValueStoreRevision idRevision;
+
+	private volatile boolean initialized = false;
+
+	public LazyNativeLiteral(ValueStoreRevision revision, int internalID) {
+		super(revision, internalID);
+		this.idRevision = revision;
+	}
+
+	private void init() {
+		if (!initialized) {
+			synchronized (this) {
+				if (!initialized) {
+					Literal value = (Literal) idRevision.getValueStore().getValue(getInternalID(), idRevision);
+					setLabel(value.getLabel());
+					if (value.getLanguage().isPresent()) {
+						setLanguage(value.getLanguage().get());
+					}
+					setDatatype(value.getDatatype());
+					initialized = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the value before it is serialized, as the value store is not available after deserialization.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		init();
+		return this;
+	}
+
+	@Override
+	public String getLabel() {
+		init();
+		return super.getLabel();
+	}
+
+	@Override
+	public Optional<String> getLanguage() {
+		init();
+		return super.getLanguage();
+	}
+
+	@Override
+	public IRI getDatatype() {
+		init();
+		return super.getDatatype();
+	}
+
+	@Override
+	public String toString() {
+		init();
+		return super.toString();
+	}
+
+	@Override
+	public String stringValue() {
+		init();
+		return super.stringValue();
+	}
+
+	@Override
+	public boolean booleanValue() {
+		init();
+		return super.booleanValue();
+	}
+
+	@Override
+	public byte byteValue() {
+		init();
+		return super.byteValue();
+	}
+
+	@Override
+	public short shortValue() {
+		init();
+		return super.shortValue();
+	}
+
+	@Override
+	public int intValue() {
+		init();
+		return super.intValue();
+	}
+
+	@Override
+	public long longValue() {
+		init();
+		return super.longValue();
+	}
+
+	@Override
+	public BigInteger integerValue() {
+		init();
+		return super.integerValue();
+	}
+
+	@Override
+	public BigDecimal decimalValue() {
+		init();
+		return super.decimalValue();
+	}
+
+	@Override
+	public float floatValue() {
+		init();
+		return super.floatValue();
+	}
+
+	@Override
+	public double doubleValue() {
+		init();
+		return super.doubleValue();
+	}
+
+	@Override
+	public XMLGregorianCalendar calendarValue() {
+		init();
+		return super.calendarValue();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!NativeValues.isComparableByID(this, o)) {
+			init();
+		}
+		return super.equals(o);
+	}
+
+	@Override
+	public int hashCode() {
+		init();
+		return super.hashCode();
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.model;
+
+/**
+ * Utility methods for {@link NativeValue} objects.
+ */
+class NativeValues {
+
+	private NativeValues() {
+	}
+
+	/**
+	 * Checks whether two values can be compared by their internal IDs, i.e. whether both are {@link NativeValue}s with
+	 * a known internal ID from the same value store revision.
+	 */
+	static boolean isComparableByID(NativeValue value, Object o) {
+		if (value.getInternalID() == NativeValue.UNKNOWN_ID || !(o instanceof NativeValue)) {
+			return false;
+		}
+
+		NativeValue other = (NativeValue) o;
+		return other.getInternalID() != NativeValue.UNKNOWN_ID
+				&& value.getValueStoreRevision().equals(other.getValueStoreRevision());
+	}
+}
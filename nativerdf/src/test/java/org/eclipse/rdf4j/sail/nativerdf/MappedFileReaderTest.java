@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.common.io.NioFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileReaderTest {
+
+	private File dir;
+
+	private NioFile nioFile;
+
+	private MappedFileReader reader;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = FileUtil.createTempDir("mappedfile");
+		nioFile = new NioFile(new File(dir, "test.dat"));
+		// use tiny segments to test reads that cross segment boundaries
+		reader = new MappedFileReader(nioFile, 100);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		reader.close();
+		nioFile.close();
+		FileUtil.deleteDir(dir);
+	}
+
+	@Test
+	public void testReadAcrossSegments() throws Exception {
+		byte[] data = new byte[1000];
+		new Random(42).nextBytes(data);
+		nioFile.writeBytes(data, 0);
+
+		for (int offset = 0; offset < 990; offset += 7) {
+			assertArrayEquals(Arrays.copyOfRange(data, offset, offset + 10), reader.readBytes(offset, 10));
+			assertEquals(nioFile.readLong(offset), reader.readLong(offset));
+			assertEquals(nioFile.readInt(offset), reader.readInt(offset));
+		}
+	}
+
+	@Test
+	public void testGrowAndTruncate() throws Exception {
+		nioFile.writeLong(1L, 0);
+		assertEquals(1L, reader.readLong(0));
+
+		// appended and overwritten data is visible
+		nioFile.writeLong(2L, 500);
+		nioFile.writeLong(3L, 0);
+		assertEquals(2L, reader.readLong(500));
+		assertEquals(3L, reader.readLong(0));
+
+		reader.truncate(8);
+		assertEquals(8, nioFile.size());
+		nioFile.writeLong(4L, 8);
+		assertEquals(3L, reader.readLong(0));
+		assertEquals(4L, reader.readLong(8));
+	}
+
+	@Test
+	public void testTruncateDuringConcurrentReads() throws Exception {
+		byte[] data = new byte[1000];
+		Arrays.fill(data, (byte) 1);
+		nioFile.writeBytes(data, 0);
+
+		AtomicBoolean done = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> readers = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				readers.add(executor.submit(() -> {
+					ByteBuffer buf = ByteBuffer.allocate(8);
+					while (!done.get()) {
+						buf.clear();
+						// reads beyond the end of the file must not go through a stale mapping
+						reader.read(buf, 900);
+						assertEquals(1L, reader.readBytes(0, 1)[0]);
+					}
+					return null;
+				}));
+			}
+
+			for (int i = 0; i < 200; i++) {
+				reader.truncate(8);
+				nioFile.writeBytes(data, 0);
+			}
+			done.set(true);
+
+			for (Future<?> future : readers) {
+				future.get();
+			}
+		} finally {
+			done.set(true);
+			executor.shutdownNow();
+		}
+	}
+}
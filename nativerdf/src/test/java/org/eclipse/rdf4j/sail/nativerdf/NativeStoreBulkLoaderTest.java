@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.util.Models;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.nativerdf.TxnStatusFile.TxnStatus;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativeStoreBulkLoaderTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testLoadAndQuery() throws Exception {
+		File dataDir = tempFolder.newFolder("nativestore");
+		Model expected = createStatements(1000);
+
+		try (NativeStoreBulkLoader loader = new NativeStoreBulkLoader(dataDir, "spoc,posc")) {
+			loader.setNamespace("ex", EX_NS);
+			for (Statement st : expected) {
+				loader.add(st);
+			}
+			// duplicates are ignored
+			loader.add(expected.iterator().next());
+			assertEquals(expected.size(), loader.finish());
+		}
+
+		Repository repo = new SailRepository(new NativeStore(dataDir, "spoc,posc"));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertEquals(expected.size(), conn.size());
+			assertEquals(EX_NS, conn.getNamespace("ex"));
+
+			Model actual = QueryResults.asModel(conn.getStatements(null, null, null, false));
+			assertTrue(Models.isomorphic(expected, actual));
+
+			// look up the statements through the posc index
+			List<BindingSet> result = QueryResults.asList(conn
+					.prepareTupleQuery("SELECT ?s WHERE { ?s a <" + EX_NS + "Class3> . ?s <" + RDFS.LABEL + "> ?l }")
+					.evaluate());
+			assertEquals(100, result.size());
+
+			// the loaded statements can be updated like any other statements
+			conn.remove(iri("instance0"), null, null);
+			conn.add(iri("instance0"), RDFS.LABEL, vf.createLiteral("updated"));
+			assertEquals(expected.size() - 1, conn.size());
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	@Test
+	public void testRecoverFromInterruptedLoad() throws Exception {
+		File dataDir = tempFolder.newFolder("nativestore");
+
+		try (NativeStoreBulkLoader loader = new NativeStoreBulkLoader(dataDir, "spoc,posc")) {
+			for (Statement st : createStatements(1000)) {
+				loader.add(st);
+			}
+			loader.finish();
+		}
+
+		// simulate a crash after the indexes have been written, but before the bulk load was completed
+		TxnStatusFile txnStatusFile = new TxnStatusFile(dataDir);
+		try {
+			txnStatusFile.setTxnStatus(TxnStatus.BULK_LOADING);
+		} finally {
+			txnStatusFile.close();
+		}
+		// statistics are only stored when the store is closed properly
+		new File(dataDir, TripleStatistics.FILE_NAME).delete();
+
+		Repository repo = new SailRepository(new NativeStore(dataDir, "spoc,posc"));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertEquals(0, conn.size());
+		} finally {
+			repo.shutDown();
+		}
+
+		// the store is empty again, so it can be bulk loaded once more
+		Model expected = createStatements(10);
+		try (NativeStoreBulkLoader loader = new NativeStoreBulkLoader(dataDir, "spoc,posc")) {
+			for (Statement st : expected) {
+				loader.add(st);
+			}
+			loader.finish();
+		}
+
+		repo = new SailRepository(new NativeStore(dataDir, "spoc,posc"));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			Model actual = QueryResults.asModel(conn.getStatements(null, null, null, false));
+			assertTrue(Models.isomorphic(expected, actual));
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	@Test
+	public void testCloseWithoutFinish() throws Exception {
+		File dataDir = tempFolder.newFolder("nativestore");
+
+		try (NativeStoreBulkLoader loader = new NativeStoreBulkLoader(dataDir, "spoc,posc")) {
+			for (Statement st : createStatements(100)) {
+				loader.add(st);
+			}
+		}
+
+		Repository repo = new SailRepository(new NativeStore(dataDir, "spoc,posc"));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertEquals(0, conn.size());
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	/**
+	 * Creates a type and a label statement for the specified number of instances of ten classes. The label statements
+	 * are added to a named graph.
+	 */
+	private Model createStatements(int instanceCount) {
+		Model model = new LinkedHashModel();
+		IRI graph = iri("graph");
+		for (int i = 0; i < instanceCount; i++) {
+			IRI instance = iri("instance" + i);
+			model.add(instance, RDF.TYPE, iri("Class" + (i % 10)));
+			model.add(instance, RDFS.LABEL, vf.createLiteral("Instance " + i), graph);
+		}
+		return model;
+	}
+
+	private IRI iri(String localName) {
+		return vf.createIRI(EX_NS, localName);
+	}
+}
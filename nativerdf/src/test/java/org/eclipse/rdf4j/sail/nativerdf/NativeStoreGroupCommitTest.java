@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.eclipse.rdf4j.sail.base.SailSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativeStoreGroupCommitTest {
+
+	private static final int THREAD_COUNT = 8;
+
+	private static final int TRANSACTION_COUNT = 25;
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testConcurrentCommits() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+		Repository repo = createRepository(dataDir);
+
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREAD_COUNT; t++) {
+			int thread = t;
+			threads.add(new Thread(() -> {
+				try (RepositoryConnection conn = repo.getConnection()) {
+					for (int i = 0; i < TRANSACTION_COUNT; i++) {
+						IRI subj = vf.createIRI("http://example.org/", "thread" + thread + "-" + i);
+						conn.begin();
+						conn.add(subj, RDFS.LABEL, vf.createLiteral(i));
+						conn.commit();
+
+						// the commit has completed, so the statement is visible to other connections
+						try (RepositoryConnection other = repo.getConnection()) {
+							assertTrue(other.hasStatement(subj, RDFS.LABEL, null, false));
+						}
+					}
+				} catch (Throwable e) {
+					error.compareAndSet(null, e);
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (error.get() != null) {
+			throw new AssertionError(error.get());
+		}
+
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertEquals(THREAD_COUNT * TRANSACTION_COUNT, conn.size());
+		}
+		// concurrent transactions have been committed together
+		NativeSailStore sailStore = ((NativeStore) ((SailRepository) repo).getSail()).getNativeSailStore();
+		assertTrue(sailStore.getCommitCount() < THREAD_COUNT * TRANSACTION_COUNT);
+		repo.shutDown();
+
+		// all commits have been applied to the files
+		repo = createRepository(dataDir);
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertEquals(THREAD_COUNT * TRANSACTION_COUNT, conn.size());
+		}
+		repo.shutDown();
+	}
+
+	@Test
+	public void testCommitWaitsForFlushingTransaction() throws Exception {
+		NativeSailStore store = new NativeSailStore(tempFolder.newFolder("store"), "spoc,posc");
+		try {
+			SailSource source = store.getExplicitSailSource();
+			CountDownLatch halfWritten = new CountDownLatch(1);
+			CountDownLatch resume = new CountDownLatch(1);
+			AtomicReference<Throwable> error = new AtomicReference<>();
+
+			// a transaction that writes its changes in two halves
+			Thread writer = new Thread(() -> {
+				try {
+					store.startGroupCommit();
+					try (SailSink sink = source.sink(IsolationLevels.NONE)) {
+						for (int i = 0; i < 10; i++) {
+							if (i == 5) {
+								halfWritten.countDown();
+								resume.await();
+							}
+							sink.approve(vf.createIRI("http://example.org/", "writer" + i), RDFS.LABEL,
+									vf.createLiteral(i), null);
+						}
+						sink.flush();
+					} finally {
+						store.finishGroupCommit();
+					}
+				} catch (Throwable e) {
+					error.compareAndSet(null, e);
+				}
+			});
+			writer.start();
+
+			store.startGroupCommit();
+			try (SailSink sink = source.sink(IsolationLevels.NONE)) {
+				sink.approve(vf.createIRI("http://example.org/", "other"), RDFS.LABEL, vf.createLiteral("other"),
+						null);
+				sink.flush();
+			}
+			halfWritten.await();
+
+			Thread committer = new Thread(() -> {
+				try {
+					store.finishGroupCommit();
+				} catch (Throwable e) {
+					error.compareAndSet(null, e);
+				}
+			});
+			committer.start();
+			committer.join(500);
+
+			// the commit waits until the other transaction has been written completely
+			assertTrue(committer.isAlive());
+			assertEquals(0, countCommittedStatements(source));
+
+			resume.countDown();
+			committer.join();
+			writer.join();
+			if (error.get() != null) {
+				throw new AssertionError(error.get());
+			}
+
+			assertEquals(11, countCommittedStatements(source));
+			// both transactions have been committed together
+			assertEquals(1, store.getCommitCount());
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testRemoveInGroupCommit() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+		Repository repo = createRepository(dataDir);
+		try (RepositoryConnection conn = repo.getConnection()) {
+			IRI subj = vf.createIRI("http://example.org/subj");
+			conn.add(subj, RDFS.LABEL, vf.createLiteral("label"));
+			assertEquals(1, conn.size());
+
+			conn.remove(subj, RDFS.LABEL, null);
+			assertEquals(0, conn.size());
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	private int countCommittedStatements(SailSource source) throws SailException {
+		int count = 0;
+		try (SailDataset dataset = source.dataset(IsolationLevels.NONE);
+				CloseableIteration<? extends Statement, SailException> iter = dataset.getStatements(null,
+						RDFS.LABEL, null)) {
+			while (iter.hasNext()) {
+				iter.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private Repository createRepository(File dataDir) {
+		NativeStore sail = new NativeStore(dataDir, "spoc,posc");
+		sail.setForceSync(true);
+		sail.setGroupCommit(true);
+		Repository repo = new SailRepository(sail);
+		repo.init();
+		return repo;
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.nativerdf.model.LazyNativeIRI;
+import org.eclipse.rdf4j.sail.nativerdf.model.LazyNativeLiteral;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativeStoreLazyValuesTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private Repository repo;
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Before
+	public void before() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+		NativeStore sail = new NativeStore(dataDir, "spoc,posc");
+		sail.setLazyValues(true);
+		// a tiny value cache, so that most values are returned lazily
+		sail.setValueCacheSize(1);
+		repo = new SailRepository(sail);
+		repo.init();
+
+		try (RepositoryConnection conn = repo.getConnection()) {
+			for (int i = 0; i < 100; i++) {
+				IRI person = vf.createIRI("http://example.org/person" + i);
+				BNode friend = vf.createBNode("friend" + i);
+				conn.add(person, RDF.TYPE, FOAF.PERSON);
+				conn.add(person, FOAF.KNOWS, friend);
+				conn.add(friend, FOAF.NAME, vf.createLiteral("Friend " + i, "en"));
+				conn.add(friend, FOAF.AGE, vf.createLiteral(i));
+			}
+		}
+	}
+
+	@After
+	public void after() throws Exception {
+		repo.shutDown();
+	}
+
+	@Test
+	public void testGetStatements() throws Exception {
+		IRI person = vf.createIRI("http://example.org/person42");
+
+		try (RepositoryConnection conn = repo.getConnection()) {
+			List<Statement> statements = QueryResults.asList(conn.getStatements(person, null, null));
+			assertEquals(2, statements.size());
+
+			for (Statement st : statements) {
+				assertEquals(person, st.getSubject());
+				assertEquals(st.getSubject(), person);
+				assertEquals(person.hashCode(), st.getSubject().hashCode());
+			}
+
+			Statement knows = QueryResults.asList(conn.getStatements(person, FOAF.KNOWS, null)).get(0);
+			assertTrue(knows.getObject() instanceof BNode);
+			assertEquals("friend42", ((BNode) knows.getObject()).getID());
+		}
+	}
+
+	@Test
+	public void testJoin() throws Exception {
+		String query = "PREFIX foaf: <" + FOAF.NAMESPACE + ">\n"
+				+ "SELECT ?name ?age WHERE { ?p a foaf:Person ; foaf:knows ?f . ?f foaf:name ?name ; foaf:age ?age }";
+
+		try (RepositoryConnection conn = repo.getConnection()) {
+			Set<Value> names = new HashSet<>();
+			for (BindingSet bs : QueryResults.asList(conn.prepareTupleQuery(query).evaluate())) {
+				Literal name = (Literal) bs.getValue("name");
+				Literal age = (Literal) bs.getValue("age");
+				assertEquals("en", name.getLanguage().get());
+				assertEquals("Friend " + age.intValue(), name.getLabel());
+				names.add(name);
+			}
+			assertEquals(100, names.size());
+			assertTrue(names.contains(vf.createLiteral("Friend 7", "en")));
+		}
+	}
+
+	@Test
+	public void testLazyValueEquality() throws Exception {
+		try (RepositoryConnection conn = repo.getConnection()) {
+			List<Statement> statements = QueryResults.asList(conn.getStatements(null, RDF.TYPE, FOAF.PERSON));
+			assertEquals(100, statements.size());
+
+			Set<Value> subjects = new HashSet<>();
+			for (Statement st : statements) {
+				subjects.add(st.getSubject());
+			}
+			assertEquals(100, subjects.size());
+			assertTrue(subjects.contains(vf.createIRI("http://example.org/person0")));
+			assertTrue(statements.stream().anyMatch(st -> st.getSubject() instanceof LazyNativeIRI));
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		try (RepositoryConnection conn = repo.getConnection()) {
+			List<Value> values = new ArrayList<>();
+			for (Statement st : QueryResults.asList(conn.getStatements(null, null, null))) {
+				values.add(st.getSubject());
+				values.add(st.getObject());
+			}
+			assertTrue(values.stream().anyMatch(value -> value instanceof LazyNativeLiteral));
+
+			// the values are serialized before they have been loaded
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(values);
+			}
+
+			List<?> deserialized;
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				deserialized = (List<?>) in.readObject();
+			}
+			assertEquals(values, deserialized);
+			assertTrue(deserialized.contains(vf.createLiteral("Friend 7", "en")));
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.eclipse.rdf4j.sail.base.SailSource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativeStoreSortedStatementsTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final IRI p = vf.createIRI(EX_NS, "p");
+
+	private final IRI q = vf.createIRI(EX_NS, "q");
+
+	@Test
+	public void testMergeJoinWithPendingChanges() throws Exception {
+		File dataDir = tempFolder.newFolder("nativestore");
+		Repository repo = new SailRepository(new NativeStore(dataDir, "spoc,posc"));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			conn.add(iri("a"), p, iri("x"));
+			conn.add(iri("b"), q, iri("x"));
+			conn.add(iri("g"), p, iri("y"));
+			conn.add(iri("h"), q, iri("y"));
+
+			conn.begin();
+			// values that are not stored yet
+			conn.add(iri("c"), p, iri("new1"));
+			conn.add(iri("d"), q, iri("new1"));
+			conn.add(iri("e"), p, iri("new2"));
+			conn.add(iri("f"), q, iri("new3"));
+			conn.remove(iri("g"), p, iri("y"));
+
+			String query = "SELECT ?s1 ?s2 WHERE { ?s1 <" + p + "> ?o . ?s2 <" + q + "> ?o }";
+			Set<String> results = new HashSet<>();
+			for (BindingSet bs : QueryResults.asList(conn.prepareTupleQuery(query).evaluate())) {
+				results.add(((IRI) bs.getValue("s1")).getLocalName() + ((IRI) bs.getValue("s2")).getLocalName());
+			}
+			conn.rollback();
+
+			Set<String> expected = new HashSet<>();
+			expected.add("ab");
+			expected.add("cd");
+			assertEquals(expected, results);
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	@Test
+	public void testUnsupportedOrderIsSorted() throws Exception {
+		File dataDir = tempFolder.newFolder("nativestore");
+		NativeSailStore store = new NativeSailStore(dataDir, "spoc,posc");
+		try {
+			SailSource source = store.getExplicitSailSource();
+			try (SailSink sink = source.sink(IsolationLevels.NONE)) {
+				for (int i = 5; i > 0; i--) {
+					sink.approve(iri("s" + i), p, iri("o" + i), null);
+				}
+				sink.flush();
+			}
+			source.flush();
+
+			try (SailDataset dataset = source.dataset(IsolationLevels.NONE)) {
+				// neither spoc nor posc returns the statements with a bound predicate sorted on their subject
+				assertTrue(dataset.getSupportedOrders(null, p, null).isEmpty());
+
+				List<Value> subjects = new ArrayList<>();
+				try (CloseableIteration<? extends Statement, SailException> iter = dataset
+						.getStatements(StatementOrder.SUBJECT, null, p, null)) {
+					while (iter.hasNext()) {
+						subjects.add(iter.next().getSubject());
+					}
+				}
+				assertEquals(5, subjects.size());
+
+				Comparator<Value> comparator = dataset.getComparator();
+				for (int i = 1; i < subjects.size(); i++) {
+					assertTrue(comparator.compare(subjects.get(i - 1), subjects.get(i)) < 0);
+				}
+
+				// values that are not stored are ordered after the stored values and are not equal to each other
+				assertTrue(comparator.compare(subjects.get(0), iri("unknown1")) < 0);
+				assertTrue(comparator.compare(iri("unknown1"), iri("unknown2")) != 0);
+				assertEquals(0, comparator.compare(iri("unknown1"), iri("unknown1")));
+			}
+		} finally {
+			store.close();
+		}
+	}
+
+	private IRI iri(String localName) {
+		return vf.createIRI(EX_NS, localName);
+	}
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TripleStatisticsTest {
+
+	private static final int TYPE = 1;
+
+	private static final int NAME = 2;
+
+	private static final int KNOWS = 3;
+
+	private static final int EMAIL = 4;
+
+	private static final int PERSON = 100;
+
+	private static final int DOCUMENT = 101;
+
+	private File dataDir;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = FileUtil.createTempDir("nativestore");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtil.deleteDir(dataDir);
+		dataDir = null;
+	}
+
+	@Test
+	public void testBuild() throws Exception {
+		TripleStatistics statistics = build(true);
+
+		assertEquals(5000, statistics.getTripleCount());
+		assertEquals(1000, statistics.getPredicateCount(TYPE));
+		assertEquals(2000, statistics.getPredicateCount(KNOWS));
+		assertEquals(0, statistics.getPredicateCount(99));
+
+		assertEquals(1000, statistics.getDistinctSubjectCount(TYPE), 0.0);
+		assertEquals(2, statistics.getDistinctObjectCount(TYPE), 0.0);
+		assertEquals(500, statistics.getDistinctSubjectCount(KNOWS), 0.0);
+		assertEquals(1500, statistics.getDistinctObjectCount(NAME), 1500 * 0.15);
+
+		// all objects of the type predicate are known
+		assertEquals(500, statistics.getObjectCount(TYPE, PERSON));
+		assertEquals(0, statistics.getObjectCount(TYPE, 102));
+		assertEquals(-1, statistics.getObjectCount(NAME, 5000));
+
+		// only persons have acquaintances and e-mail addresses
+		assertEquals(4, statistics.getSubjectFanout(new int[] { KNOWS }, KNOWS), 0.0);
+		assertEquals(1, statistics.getSubjectFanout(new int[] { KNOWS }, EMAIL), 0.0);
+		assertEquals(1, statistics.getSubjectFanout(new int[] { EMAIL }, NAME), 0.0);
+		assertEquals(0, statistics.getSubjectFanout(new int[] { TYPE, NAME, EMAIL }, 99), 0.0);
+		assertEquals(-1, statistics.getSubjectFanout(new int[] { 99 }, NAME), 0.0);
+	}
+
+	@Test
+	public void testBuildWithoutSubjectOrder() throws Exception {
+		TripleStatistics statistics = build(false);
+
+		assertEquals(1000, statistics.getPredicateCount(TYPE));
+		assertEquals(1000, statistics.getDistinctSubjectCount(TYPE), 1000 * 0.15);
+		assertEquals(500, statistics.getDistinctSubjectCount(KNOWS), 500 * 0.15);
+		assertEquals(-1, statistics.getSubjectFanout(new int[] { KNOWS }, EMAIL), 0.0);
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		TripleStatistics statistics = build(true);
+
+		statistics.update(triple(2000, TYPE, PERSON), true);
+		statistics.update(triple(2001, TYPE, 102), true);
+		statistics.update(triple(1, NAME, 1), false);
+		statistics.update(triple(2000, 99, 1), true);
+
+		assertEquals(5002, statistics.getTripleCount());
+		assertEquals(1002, statistics.getPredicateCount(TYPE));
+		assertEquals(501, statistics.getObjectCount(TYPE, PERSON));
+		assertEquals(1, statistics.getObjectCount(TYPE, 102));
+		assertEquals(1499, statistics.getPredicateCount(NAME));
+		assertEquals(1, statistics.getPredicateCount(99));
+
+		// the scanned number of distinct values is scaled to the number of triples
+		assertEquals(1002, statistics.getDistinctSubjectCount(TYPE), 0.0);
+		assertFalse(statistics.isRescanRequired());
+
+		for (int i = 0; i < 10_000; i++) {
+			statistics.update(triple(3000 + i, TYPE, PERSON), true);
+		}
+		assertTrue(statistics.isRescanRequired());
+	}
+
+	@Test
+	public void testStoreAndLoad() throws Exception {
+		TripleStatistics statistics = build(true);
+		statistics.update(triple(2000, TYPE, PERSON), true);
+
+		File file = new File(dataDir, TripleStatistics.FILE_NAME);
+		statistics.store(file);
+		TripleStatistics loaded = TripleStatistics.load(file);
+
+		assertEquals(5001, loaded.getTripleCount());
+		assertEquals(1001, loaded.getPredicateCount(TYPE));
+		assertEquals(501, loaded.getObjectCount(TYPE, PERSON));
+		assertEquals(statistics.getDistinctObjectCount(NAME), loaded.getDistinctObjectCount(NAME), 0.0);
+		assertEquals(4, loaded.getSubjectFanout(new int[] { KNOWS }, KNOWS), 0.0);
+	}
+
+	@Test
+	public void testTripleStore() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			tripleStore.startTransaction();
+			for (int subj = 1; subj <= 100; subj++) {
+				tripleStore.storeTriple(subj, TYPE, PERSON, 0);
+				tripleStore.storeTriple(subj, NAME, 1000 + subj, 0);
+			}
+			tripleStore.commit();
+
+			tripleStore.startTransaction();
+			tripleStore.removeTriples(-1, NAME, -1, 0);
+			tripleStore.storeTriple(1, NAME, 1001, 0);
+			tripleStore.commit();
+
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, KNOWS, 2, 0);
+			tripleStore.rollback();
+
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(101, statistics.getTripleCount());
+			assertEquals(100, statistics.getObjectCount(TYPE, PERSON));
+			assertEquals(1, statistics.getPredicateCount(NAME));
+			assertEquals(0, statistics.getPredicateCount(KNOWS));
+		} finally {
+			tripleStore.close();
+		}
+
+		// the statistics are stored while the store is closed
+		File statisticsFile = new File(dataDir, TripleStatistics.FILE_NAME);
+		assertTrue(statisticsFile.exists());
+
+		tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			assertFalse(statisticsFile.exists());
+			assertEquals(101, tripleStore.getStatistics().getTripleCount());
+
+			tripleStore.clear();
+			assertEquals(0, tripleStore.getStatistics().getTripleCount());
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testTripleStoreScan() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "posc,spoc");
+		try {
+			tripleStore.startTransaction();
+			for (int subj = 1; subj <= 100; subj++) {
+				tripleStore.storeTriple(subj, TYPE, PERSON, 0);
+				tripleStore.storeTriple(subj, KNOWS, subj + 1, 0);
+			}
+			tripleStore.commit();
+		} finally {
+			tripleStore.close();
+		}
+
+		// the statistics are collected in the background if the file is missing
+		new File(dataDir, TripleStatistics.FILE_NAME).delete();
+		tripleStore = new TripleStore(dataDir, "posc,spoc");
+		try {
+			TripleStatistics statistics = null;
+			for (int i = 0; i < 500 && statistics == null; i++) {
+				Thread.sleep(10);
+				statistics = tripleStore.getStatistics();
+			}
+			assertNotNull(statistics);
+
+			assertEquals(200, statistics.getTripleCount());
+			assertEquals(100, statistics.getDistinctSubjectCount(KNOWS), 0.0);
+			assertEquals(1, statistics.getSubjectFanout(new int[] { TYPE }, KNOWS), 0.0);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	/**
+	 * Builds statistics for 500 persons with a name, an e-mail address and four acquaintances, and 500 documents with
+	 * two names each.
+	 */
+	private static TripleStatistics build(boolean subjectOrder) {
+		TripleStatistics.Builder builder = new TripleStatistics.Builder(subjectOrder);
+		for (int subj = 1; subj <= 1000; subj++) {
+			boolean person = subj <= 500;
+			builder.add(triple(subj, TYPE, person ? PERSON : DOCUMENT));
+			builder.add(triple(subj, NAME, 1000 + subj));
+			if (person) {
+				builder.add(triple(subj, EMAIL, 3000 + subj));
+				for (int i = 1; i <= 4; i++) {
+					builder.add(triple(subj, KNOWS, (subj + i) % 500 + 1));
+				}
+			} else {
+				builder.add(triple(subj, NAME, 2000 + subj));
+			}
+		}
+		return builder.build();
+	}
+
+	private static byte[] triple(int subj, int pred, int obj) {
+		byte[] data = new byte[TripleStore.RECORD_LENGTH];
+		ByteArrayUtil.putInt(subj, data, TripleStore.SUBJ_IDX);
+		ByteArrayUtil.putInt(pred, data, TripleStore.PRED_IDX);
+		ByteArrayUtil.putInt(obj, data, TripleStore.OBJ_IDX);
+		data[TripleStore.FLAG_IDX] = TripleStore.EXPLICIT_FLAG;
+		return data;
+	}
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TripleStoreIndexBuildTest {
+
+	private static final int TRIPLE_COUNT = 20_000;
+
+	private static final int OBJECT_COUNT = 50;
+
+	private File dataDir;
+
+	private TripleStore tripleStore;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = FileUtil.createTempDir("nativestore");
+		tripleStore = new TripleStore(dataDir, "spoc,posc");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		tripleStore.close();
+		FileUtil.deleteDir(dataDir);
+		dataDir = null;
+	}
+
+	@Test
+	public void testAddIndex() throws Exception {
+		Set<String> triples = new HashSet<>();
+		tripleStore.startTransaction();
+		for (int i = 1; i <= TRIPLE_COUNT; i++) {
+			tripleStore.storeTriple(i, 1, 1 + i % OBJECT_COUNT, 0);
+			triples.add(i + " " + (1 + i % OBJECT_COUNT));
+		}
+		tripleStore.commit();
+
+		tripleStore.addIndex("opsc").get();
+
+		assertEquals(Arrays.asList("spoc", "posc", "opsc"), tripleStore.getIndexFieldSeqs());
+		assertTriples(triples);
+
+		// the index is used after a restart
+		tripleStore.close();
+		tripleStore = new TripleStore(dataDir, null);
+		assertEquals(new HashSet<>(Arrays.asList("spoc", "posc", "opsc")),
+				new HashSet<>(tripleStore.getIndexFieldSeqs()));
+		assertTriples(triples);
+	}
+
+	@Test
+	public void testAddIndexToEmptyStore() throws Exception {
+		tripleStore.addIndex("opsc").get();
+
+		tripleStore.startTransaction();
+		tripleStore.storeTriple(1, 2, 3, 0);
+		tripleStore.commit();
+
+		assertTriples(new HashSet<>(Arrays.asList("1 3")));
+	}
+
+	@Test
+	public void testUpdatesDuringBuild() throws Exception {
+		Set<String> triples = new HashSet<>();
+		tripleStore.startTransaction();
+		for (int i = 1; i <= TRIPLE_COUNT; i++) {
+			tripleStore.storeTriple(i, 1, 1 + i % OBJECT_COUNT, 0);
+			triples.add(i + " " + (1 + i % OBJECT_COUNT));
+		}
+		tripleStore.commit();
+
+		Future<Void> build = tripleStore.addIndex("opsc");
+
+		// add and remove triples until the index has been built, and for some more transactions afterwards
+		Random random = new Random(43);
+		int remainingTransactions = 20;
+		while (remainingTransactions > 0) {
+			if (build.isDone()) {
+				remainingTransactions--;
+			}
+
+			Set<String> txnTriples = new HashSet<>(triples);
+			tripleStore.startTransaction();
+			for (int i = 0; i < 10; i++) {
+				int subj = 1 + random.nextInt(TRIPLE_COUNT * 2);
+				int obj = 1 + random.nextInt(OBJECT_COUNT);
+				if (random.nextBoolean()) {
+					tripleStore.storeTriple(subj, 1, obj, 0);
+					txnTriples.add(subj + " " + obj);
+				} else {
+					tripleStore.removeTriples(subj, 1, -1, 0);
+					for (int o = 1; o <= OBJECT_COUNT; o++) {
+						txnTriples.remove(subj + " " + o);
+					}
+				}
+			}
+			if (random.nextInt(5) == 0) {
+				tripleStore.rollback();
+			} else {
+				tripleStore.commit();
+				triples = txnTriples;
+			}
+		}
+		build.get();
+
+		assertTriples(triples);
+	}
+
+	@Test
+	public void testRemoveIndex() throws Exception {
+		tripleStore.startTransaction();
+		tripleStore.storeTriple(1, 2, 3, 0);
+		tripleStore.commit();
+
+		tripleStore.removeIndex("posc");
+		assertEquals(Arrays.asList("spoc"), tripleStore.getIndexFieldSeqs());
+
+		try (RecordIterator iter = tripleStore.getTriples(-1, 2, -1, -1)) {
+			assertEquals(1, ByteArrayUtil.getInt(iter.next(), TripleStore.SUBJ_IDX));
+		}
+
+		// the files are deleted when the store is closed
+		assertTrue(new File(dataDir, "triples-posc.dat").exists());
+		tripleStore.close();
+		assertFalse(new File(dataDir, "triples-posc.dat").exists());
+
+		tripleStore = new TripleStore(dataDir, null);
+		assertEquals(Arrays.asList("spoc"), tripleStore.getIndexFieldSeqs());
+	}
+
+	@Test
+	public void testReAddRemovedIndex() throws Exception {
+		tripleStore.startTransaction();
+		tripleStore.storeTriple(1, 2, 3, 0);
+		tripleStore.commit();
+
+		tripleStore.removeIndex("posc");
+		try {
+			tripleStore.addIndex("posc");
+			fail("the files of the removed index are still in use");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(Arrays.asList("spoc"), tripleStore.getIndexFieldSeqs());
+
+		tripleStore.close();
+		tripleStore = new TripleStore(dataDir, null);
+		tripleStore.addIndex("posc").get();
+
+		// the index is not deleted along with the removed one
+		tripleStore.close();
+		assertTrue(new File(dataDir, "triples-posc.dat").exists());
+
+		tripleStore = new TripleStore(dataDir, null);
+		assertEquals(new HashSet<>(Arrays.asList("spoc", "posc")), new HashSet<>(tripleStore.getIndexFieldSeqs()));
+		try (RecordIterator iter = tripleStore.getTriples(-1, 2, -1, -1)) {
+			assertEquals(1, ByteArrayUtil.getInt(iter.next(), TripleStore.SUBJ_IDX));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRemoveLastIndex() throws Exception {
+		tripleStore.removeIndex("posc");
+		tripleStore.removeIndex("spoc");
+	}
+
+	@Test
+	public void testCloseDuringBuild() throws Exception {
+		tripleStore.startTransaction();
+		for (int i = 1; i <= TRIPLE_COUNT; i++) {
+			tripleStore.storeTriple(i, 1, 1 + i % OBJECT_COUNT, 0);
+		}
+		tripleStore.commit();
+
+		tripleStore.addIndex("opsc");
+		tripleStore.close();
+		assertFalse(new File(dataDir, "triples-opsc.dat").exists());
+
+		tripleStore = new TripleStore(dataDir, null);
+		assertEquals(new HashSet<>(Arrays.asList("spoc", "posc")), new HashSet<>(tripleStore.getIndexFieldSeqs()));
+	}
+
+	/**
+	 * Verifies the triples with predicate <tt>1</tt> using patterns that are answered by the opsc index.
+	 */
+	private void assertTriples(Set<String> expected) throws Exception {
+		Set<String> actual = new HashSet<>();
+		for (int obj = 1; obj <= OBJECT_COUNT; obj++) {
+			try (RecordIterator iter = tripleStore.getTriples(-1, -1, obj, -1)) {
+				byte[] data;
+				while ((data = iter.next()) != null) {
+					assertEquals(obj, ByteArrayUtil.getInt(data, TripleStore.OBJ_IDX));
+					actual.add(ByteArrayUtil.getInt(data, TripleStore.SUBJ_IDX) + " " + obj);
+				}
+			}
+		}
+		assertEquals(expected, actual);
+	}
+}
@@ -91,4 +91,44 @@ public class TripleStoreRecoveryTest {
 		}
 	}
 
+	@Test
+	public void testParallelCommitRecovery() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc,opsc", false, true);
+		try {
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, 2, 3, 4);
+			tripleStore.storeTriple(5, 6, 7, 8);
+			// forget to commit or rollback
+		} finally {
+			tripleStore.close();
+		}
+
+		// Pretend that commit was called
+		TxnStatusFile txnStatusFile = new TxnStatusFile(dataDir);
+		try {
+			txnStatusFile.setTxnStatus(TxnStatus.COMMITTING);
+		} finally {
+			txnStatusFile.close();
+		}
+
+		// Try to restore from the uncompleted transaction, each index should be committed
+		tripleStore = new TripleStore(dataDir, "spoc,posc,opsc", false, true);
+		try {
+			try (RecordIterator iter = tripleStore.getTriples(1, -1, -1, -1)) {
+				assertNotNull(iter.next());
+				assertNull(iter.next());
+			}
+			try (RecordIterator iter = tripleStore.getTriples(-1, 6, -1, -1)) {
+				assertNotNull(iter.next());
+				assertNull(iter.next());
+			}
+			try (RecordIterator iter = tripleStore.getTriples(-1, -1, 3, -1)) {
+				assertNotNull(iter.next());
+				assertNull(iter.next());
+			}
+		} finally {
+			tripleStore.close();
+		}
+	}
+
 }
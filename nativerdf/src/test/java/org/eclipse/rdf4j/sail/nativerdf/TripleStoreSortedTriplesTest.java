@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TripleStoreSortedTriplesTest {
+
+	private File dataDir;
+
+	private TripleStore tripleStore;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = FileUtil.createTempDir("nativestore");
+		tripleStore = new TripleStore(dataDir, "spoc,posc");
+
+		tripleStore.startTransaction();
+		tripleStore.storeTriple(3, 1, 10, 0);
+		tripleStore.storeTriple(1, 1, 30, 0);
+		tripleStore.storeTriple(2, 1, 20, 0);
+		tripleStore.storeTriple(4, 2, 5, 0);
+		tripleStore.storeTriple(5, 1, 40, 0, false);
+		tripleStore.commit();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		tripleStore.close();
+		FileUtil.deleteDir(dataDir);
+		dataDir = null;
+	}
+
+	@Test
+	public void testSortedOnFieldAfterBoundFields() throws Exception {
+		// the posc index returns the triples with predicate 1 sorted on their object
+		assertTrue(tripleStore.isSortable('o', -1, 1, -1, -1));
+		try (RecordIterator iter = tripleStore.getTriplesSortedBy('o', -1, 1, -1, -1, true)) {
+			assertEquals(Arrays.asList(10, 20, 30), getValues(iter, TripleStore.OBJ_IDX));
+		}
+		try (RecordIterator iter = tripleStore.getTriplesSortedBy('o', -1, 1, -1, -1, false)) {
+			assertEquals(Arrays.asList(40), getValues(iter, TripleStore.OBJ_IDX));
+		}
+
+		// without bound fields, the spoc index returns all triples sorted on their subject
+		try (RecordIterator iter = tripleStore.getTriplesSortedBy('s', -1, -1, -1, -1, true)) {
+			assertEquals(Arrays.asList(1, 2, 3, 4), getValues(iter, TripleStore.SUBJ_IDX));
+		}
+	}
+
+	@Test
+	public void testUnsortableField() throws Exception {
+		// neither index has the predicate before the subject
+		assertFalse(tripleStore.isSortable('s', -1, 1, -1, -1));
+		assertNull(tripleStore.getTriplesSortedBy('s', -1, 1, -1, -1, true));
+
+		tripleStore.close();
+		tripleStore = new TripleStore(dataDir, "spoc,posc,psoc");
+
+		assertTrue(tripleStore.isSortable('s', -1, 1, -1, -1));
+		try (RecordIterator iter = tripleStore.getTriplesSortedBy('s', -1, 1, -1, -1, true)) {
+			assertEquals(Arrays.asList(1, 2, 3), getValues(iter, TripleStore.SUBJ_IDX));
+		}
+	}
+
+	private static List<Integer> getValues(RecordIterator iter, int fieldIdx) throws Exception {
+		List<Integer> values = new ArrayList<>();
+		byte[] data;
+		while ((data = iter.next()) != null) {
+			values.add(ByteArrayUtil.getInt(data, fieldIdx));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.sail.nativerdf.btree.BTree;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TripleStoreUpgradeTest {
+
+	private File dataDir;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = FileUtil.createTempDir("nativestore");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtil.deleteDir(dataDir);
+		dataDir = null;
+	}
+
+	@Test
+	public void testCompressVersion10Index() throws Exception {
+		// Create a version 10 store with an uncompressed spoc index; the default record order matches the spoc order
+		try (BTree btree = new BTree(dataDir, "triples-spoc", 2048, TripleStore.RECORD_LENGTH)) {
+			for (int i = 1; i <= 5000; i++) {
+				byte[] record = new byte[TripleStore.RECORD_LENGTH];
+				ByteArrayUtil.putInt(1 + i / 100, record, TripleStore.SUBJ_IDX);
+				ByteArrayUtil.putInt(2, record, TripleStore.PRED_IDX);
+				ByteArrayUtil.putInt(i, record, TripleStore.OBJ_IDX);
+				record[16] = TripleStore.EXPLICIT_FLAG;
+				btree.insert(record);
+			}
+		}
+
+		Properties properties = new Properties();
+		properties.setProperty("version", "10");
+		properties.setProperty("triple-indexes", "spoc");
+		try (OutputStream out = new FileOutputStream(new File(dataDir, "triples.prop"))) {
+			properties.store(out, null);
+		}
+
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			try (RecordIterator iter = tripleStore.getTriples(-1, -1, -1, -1)) {
+				for (int i = 1; i <= 5000; i++) {
+					byte[] record = iter.next();
+					assertEquals(1 + i / 100, ByteArrayUtil.getInt(record, TripleStore.SUBJ_IDX));
+					assertEquals(i, ByteArrayUtil.getInt(record, TripleStore.OBJ_IDX));
+				}
+				assertNull(iter.next());
+			}
+		} finally {
+			tripleStore.close();
+		}
+
+		try (InputStream in = new FileInputStream(new File(dataDir, "triples.prop"))) {
+			properties.load(in);
+		}
+		assertEquals("11", properties.getProperty("version"));
+		assertFalse(new File(dataDir, "triples-spoc-compressed.dat").exists());
+		assertFalse(new File(dataDir, "triples-spoc-compressed.alloc").exists());
+
+		try (BTree btree = new BTree(dataDir, "triples-spoc", 2048, TripleStore.RECORD_LENGTH)) {
+			assertTrue(btree.isCompressed());
+		}
+	}
+}
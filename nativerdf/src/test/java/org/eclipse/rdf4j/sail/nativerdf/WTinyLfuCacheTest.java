@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WTinyLfuCacheTest {
+
+	@Test
+	public void testGetAndPut() {
+		WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(10_000, (key, value) -> 100);
+
+		assertNull(cache.get(1));
+		cache.put(1, "one");
+		assertEquals("one", cache.get(1));
+
+		WTinyLfuCache.Stats stats = cache.getStats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(1, stats.getMissCount());
+		assertEquals(1, stats.getSize());
+		assertEquals(100, stats.getWeight());
+
+		cache.clear();
+		assertNull(cache.get(1));
+		assertEquals(0, cache.getStats().getWeight());
+	}
+
+	@Test
+	public void testWeightBound() {
+		WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(10_000, (key, value) -> 50 + value.length());
+
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, new String(new char[i % 200]));
+			assertTrue(cache.getStats().getWeight() <= 10_000);
+		}
+		assertTrue(cache.getStats().getEvictionCount() > 0);
+	}
+
+	@Test
+	public void testScanResistance() {
+		WTinyLfuCache<Integer, String> cache = new WTinyLfuCache<>(100 * 100, (key, value) -> 100);
+
+		// a small set of frequently used entries
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 50; i++) {
+				if (cache.get(i) == null) {
+					cache.put(i, "hot");
+				}
+			}
+		}
+
+		// a scan over many entries that are used only once, while the hot entries are still being used; an LRU cache
+		// would evict the hot entries as each of them is only used once every 500 scanned entries
+		for (int i = 0; i < 10_000; i++) {
+			cache.put(1000 + i, "cold");
+			if (i % 10 == 0) {
+				int hot = (i / 10) % 50;
+				if (cache.get(hot) == null) {
+					cache.put(hot, "hot");
+				}
+			}
+		}
+
+		for (int i = 0; i < 50; i++) {
+			assertNotNull("hot entry " + i + " was evicted by scan", cache.get(i));
+		}
+	}
+}
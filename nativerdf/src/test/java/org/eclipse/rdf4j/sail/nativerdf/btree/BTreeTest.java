@@ -7,9 +7,14 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.nativerdf.btree;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import org.eclipse.rdf4j.common.io.FileUtil;
@@ -141,6 +146,52 @@ public class BTreeTest {
 		btree.clear();
 	}
 
+	@Test
+	public void testBulkLoad() throws Exception {
+		btree.bulkLoad(iterate(TEST_VALUES), TEST_VALUES.size());
+		assertFalse(btree.isEmpty());
+
+		try (RecordIterator iter = btree.iterateAll()) {
+			for (byte[] value : TEST_VALUES) {
+				assertArrayEquals(value, iter.next());
+			}
+			assertNull(iter.next());
+		}
+
+		// the bulk loaded tree must support regular updates
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			btree.remove(value);
+		}
+		assertNull(btree.get(TEST_VALUES.get(0)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadUnsorted() throws Exception {
+		List<byte[]> values = new ArrayList<>(TEST_VALUES);
+		Collections.reverse(values);
+		btree.bulkLoad(iterate(values), values.size());
+	}
+
+	private static RecordIterator iterate(List<byte[]> values) {
+		Iterator<byte[]> iter = values.iterator();
+		return new RecordIterator() {
+
+			@Override
+			public byte[] next() {
+				return iter.hasNext() ? iter.next() : null;
+			}
+
+			@Override
+			public void set(byte[] record) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
 	/*
 	 * Test for SES-527 public void testRootNodeSplit() throws Exception { // Fill the root node for (int i = 0; i < 15;
 	 * i++) { btree.insert(TEST_VALUES.get(i)); } // Fire up an iterator RecordIterator iter = btree.iterateAll();
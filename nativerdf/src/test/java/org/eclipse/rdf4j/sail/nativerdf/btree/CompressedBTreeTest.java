@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressedBTreeTest {
+
+	private static final int VALUE_SIZE = 17;
+
+	private static List<byte[]> TEST_VALUES = new ArrayList<>();
+
+	private static List<byte[]> RANDOMIZED_TEST_VALUES = new ArrayList<>();
+
+	static {
+		// values resembling the records of a triple index: long runs of values that share their first fields
+		Random random = new Random(43);
+		int subj = 1;
+		int pred = 1;
+		int obj = 1;
+		for (int i = 0; i < 10_000; i++) {
+			if (random.nextInt(10) == 0) {
+				subj += 1 + random.nextInt(5);
+				pred = 1;
+			} else if (random.nextInt(4) == 0) {
+				pred += 1 + random.nextInt(3);
+			}
+			obj += 1 + random.nextInt(1000);
+
+			byte[] value = new byte[VALUE_SIZE];
+			ByteArrayUtil.putInt(subj, value, 0);
+			ByteArrayUtil.putInt(pred, value, 4);
+			ByteArrayUtil.putInt(obj, value, 8);
+			ByteArrayUtil.putInt(random.nextInt(3), value, 12);
+			value[16] = (byte) random.nextInt(4);
+			TEST_VALUES.add(value);
+		}
+
+		RANDOMIZED_TEST_VALUES.addAll(TEST_VALUES);
+		Collections.shuffle(RANDOMIZED_TEST_VALUES, random);
+	}
+
+	private File dir;
+
+	private BTree btree;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = FileUtil.createTempDir("btree");
+		btree = createBTree("test", true);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		btree.delete();
+		FileUtil.deleteDir(dir);
+	}
+
+	@Test
+	public void testAddRandomAndRemove() throws Exception {
+		assertTrue(btree.isCompressed());
+
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			btree.insert(value);
+		}
+		btree.sync();
+		assertValues(TEST_VALUES);
+
+		List<byte[]> remaining = new ArrayList<>();
+		for (int i = 0; i < TEST_VALUES.size(); i++) {
+			if (i % 3 == 0) {
+				btree.remove(TEST_VALUES.get(i));
+			} else {
+				remaining.add(TEST_VALUES.get(i));
+			}
+		}
+		btree.sync();
+		assertValues(remaining);
+
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			btree.remove(value);
+		}
+		assertTrue(btree.isEmpty());
+	}
+
+	@Test
+	public void testReplaceValue() throws Exception {
+		// compare the first three fields only, so that values with a different fourth field replace each other
+		btree.delete();
+		btree = new BTree(dir, "test", 2048, VALUE_SIZE, (key, data, offset, length) -> ByteArrayUtil
+				.compareRegion(key, 0, data, offset, 12), false, false, true);
+
+		for (byte[] value : TEST_VALUES) {
+			btree.insert(value);
+		}
+
+		// the new values take more room than the old ones
+		Random random = new Random(43);
+		List<byte[]> updated = new ArrayList<>();
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			byte[] newValue = value.clone();
+			ByteArrayUtil.putInt(random.nextInt(), newValue, 12);
+			assertArrayEquals(value, btree.insert(newValue));
+		}
+		for (byte[] value : TEST_VALUES) {
+			updated.add(btree.get(value));
+			assertFalse(Arrays.equals(value, updated.get(updated.size() - 1)));
+		}
+		btree.sync();
+		assertValues(updated);
+	}
+
+	@Test
+	public void testReopen() throws Exception {
+		btree.bulkLoad(iterate(TEST_VALUES), TEST_VALUES.size());
+		btree.close();
+
+		// the compression setting of an existing file is ignored
+		btree = createBTree("test", false);
+		assertTrue(btree.isCompressed());
+		assertValues(TEST_VALUES);
+	}
+
+	@Test
+	public void testBulkLoad() throws Exception {
+		for (int valueCount : new int[] { 1, 50, 400, 1000, TEST_VALUES.size() }) {
+			List<byte[]> values = TEST_VALUES.subList(0, valueCount);
+			btree.clear();
+			btree.bulkLoad(iterate(values), values.size());
+			assertValues(values);
+
+			// the bulk loaded tree must support regular updates
+			for (byte[] value : values) {
+				btree.remove(value);
+			}
+			assertTrue(btree.isEmpty());
+		}
+	}
+
+	@Test
+	public void testFileSize() throws Exception {
+		BTree uncompressed = createBTree("uncompressed", false);
+		try {
+			assertFalse(uncompressed.isCompressed());
+
+			btree.bulkLoad(iterate(TEST_VALUES), TEST_VALUES.size());
+			uncompressed.bulkLoad(iterate(TEST_VALUES), TEST_VALUES.size());
+			btree.sync();
+			uncompressed.sync();
+
+			long compressedSize = btree.getFile().length();
+			long uncompressedSize = uncompressed.getFile().length();
+			assertTrue("compressed: " + compressedSize + ", uncompressed: " + uncompressedSize,
+					compressedSize * 3 < uncompressedSize);
+		} finally {
+			uncompressed.delete();
+		}
+	}
+
+	private BTree createBTree(String filenamePrefix, boolean compressed) throws Exception {
+		return new BTree(dir, filenamePrefix, 2048, VALUE_SIZE, new DefaultRecordComparator(), false, false,
+				compressed);
+	}
+
+	private void assertValues(List<byte[]> expected) throws Exception {
+		try (RecordIterator iter = btree.iterateAll()) {
+			for (byte[] value : expected) {
+				assertArrayEquals(value, iter.next());
+			}
+			assertNull(iter.next());
+		}
+	}
+
+	private static RecordIterator iterate(List<byte[]> values) {
+		Iterator<byte[]> iter = values.iterator();
+		return new RecordIterator() {
+
+			@Override
+			public byte[] next() {
+				return iter.hasNext() ? iter.next() : null;
+			}
+
+			@Override
+			public void set(byte[] record) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OptimisticRangeIteratorTest {
+
+	private static final int VALUE_COUNT = 5000;
+
+	private File dir;
+
+	private BTree btree;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = FileUtil.createTempDir("btree");
+		btree = new BTree(dir, "test", 512, 8);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		btree.delete();
+		FileUtil.deleteDir(dir);
+	}
+
+	@Test
+	public void testIterate() throws Exception {
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			btree.insert(value(2 * i, i % 3));
+		}
+
+		assertSameValues(null, null, null, null);
+		assertSameValues(null, null, value(1000, 0), value(3001, 0));
+		assertSameValues(null, null, value(1000, 1), null);
+		assertSameValues(value(0, 1), new byte[] { 0, 0, 0, 0, -1, -1, -1, -1 }, null, null);
+		assertSameValues(value(0, 2), new byte[] { 0, 0, 0, 0, -1, -1, -1, -1 }, value(5000, 0), value(6000, 0));
+	}
+
+	@Test
+	public void testIterateCompressed() throws Exception {
+		btree.delete();
+		btree = new BTree(dir, "test", 512, 8, new DefaultRecordComparator(), false, false, true);
+		testIterate();
+	}
+
+	@Test
+	public void testIterateEmpty() throws Exception {
+		try (RecordIterator iter = btree.iterateValues(null, null, true)) {
+			assertNull(iter.next());
+		}
+	}
+
+	@Test
+	public void testModificationsBetweenCalls() throws Exception {
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			btree.insert(value(2 * i, 0));
+		}
+
+		try (RecordIterator iter = btree.iterateValues(null, null, true)) {
+			for (int i = 0; i < VALUE_COUNT; i++) {
+				assertArrayEquals(value(2 * i, 0), iter.next());
+
+				// values before the current position are not returned, values after it are
+				if (i > 0) {
+					btree.insert(value(2 * i - 1, 0));
+				}
+				btree.insert(value(2 * i + 1, 0));
+				btree.remove(value(2 * i + 1, 0));
+				if (i % 2 == 0 && i < VALUE_COUNT - 1) {
+					btree.insert(value(2 * i + 1, 0));
+					assertArrayEquals(value(2 * i + 1, 0), iter.next());
+				}
+			}
+			assertNull(iter.next());
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSet() throws Exception {
+		btree.insert(value(1, 0));
+
+		try (RecordIterator iter = btree.iterateValues(null, null, true)) {
+			iter.set(iter.next());
+		}
+	}
+
+	@Test
+	public void testConcurrentWriter() throws Exception {
+		// even values are never modified, odd values are added and removed concurrently
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			btree.insert(value(2 * i, 0));
+		}
+
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicReference<Throwable> error = new AtomicReference<>();
+
+		Thread writer = new Thread(() -> {
+			Random random = new Random(43);
+			try {
+				while (!stop.get()) {
+					int odd = 2 * random.nextInt(VALUE_COUNT) + 1;
+					if (random.nextBoolean()) {
+						btree.insert(value(odd, 0));
+					} else {
+						btree.remove(value(odd, 0));
+					}
+				}
+			} catch (Throwable e) {
+				error.compareAndSet(null, e);
+			}
+		});
+
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			readers.add(new Thread(() -> {
+				try {
+					for (int run = 0; run < 20; run++) {
+						int evenCount = 0;
+						int previous = -1;
+						try (RecordIterator iter = btree.iterateValues(null, null, true)) {
+							byte[] value;
+							while ((value = iter.next()) != null) {
+								int current = ByteArrayUtil.getInt(value, 0);
+								assertTrue("Values out of order: " + previous + ", " + current, current > previous);
+								if (current % 2 == 0) {
+									assertEquals(2 * evenCount, current);
+									evenCount++;
+								}
+								previous = current;
+							}
+						}
+						assertEquals(VALUE_COUNT, evenCount);
+					}
+				} catch (Throwable e) {
+					error.compareAndSet(null, e);
+				}
+			}));
+		}
+
+		writer.start();
+		for (Thread reader : readers) {
+			reader.start();
+		}
+		for (Thread reader : readers) {
+			reader.join();
+		}
+		stop.set(true);
+		writer.join();
+
+		if (error.get() != null) {
+			throw new AssertionError(error.get());
+		}
+	}
+
+	private void assertSameValues(byte[] searchKey, byte[] searchMask, byte[] minValue, byte[] maxValue)
+			throws Exception {
+		List<byte[]> expected = new ArrayList<>();
+		try (RecordIterator iter = btree.iterateRangedValues(searchKey, searchMask, minValue, maxValue)) {
+			byte[] value;
+			while ((value = iter.next()) != null) {
+				expected.add(value);
+			}
+		}
+		assertTrue(!expected.isEmpty());
+
+		try (RecordIterator iter = btree.iterateRangedValues(searchKey, searchMask, minValue, maxValue, true)) {
+			for (byte[] value : expected) {
+				assertArrayEquals(value, iter.next());
+			}
+			assertNull(iter.next());
+		}
+	}
+
+	private static byte[] value(int key, int data) {
+		byte[] value = new byte[8];
+		ByteArrayUtil.putInt(key, value, 0);
+		ByteArrayUtil.putInt(data, value, 4);
+		return value;
+	}
+}
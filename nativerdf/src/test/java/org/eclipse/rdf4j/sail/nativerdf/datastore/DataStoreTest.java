@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.datastore;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DataStoreTest {
+
+	private File dir;
+
+	private DataStore dataStore;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = FileUtil.createTempDir("datastore");
+		dataStore = new DataStore(dir, "values");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		dataStore.close();
+		FileUtil.deleteDir(dir);
+	}
+
+	@Test
+	public void testGetIDs() throws Exception {
+		// enough values to grow the hash table
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i + 1, dataStore.storeData(data("value" + i)));
+		}
+
+		byte[][] queryData = new byte[][] { data("value500"), data("unknown"), data("value0"), data("value500") };
+		assertArrayEquals(new int[] { 501, -1, 1, 501 }, dataStore.getIDs(queryData));
+		assertEquals(0, dataStore.getIDs(new byte[0][]).length);
+	}
+
+	@Test
+	public void testGetData() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			dataStore.storeData(data("value" + i));
+		}
+
+		byte[][] result = dataStore.getData(new int[] { 1000, 1, 2000, 1000 });
+		assertArrayEquals(data("value999"), result[0]);
+		assertArrayEquals(data("value0"), result[1]);
+		assertNull(result[2]);
+		assertArrayEquals(data("value999"), result[3]);
+		assertEquals(0, dataStore.getData(new int[0]).length);
+	}
+
+	private static byte[] data(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+}
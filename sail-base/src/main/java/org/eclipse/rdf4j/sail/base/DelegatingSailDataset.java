@@ -7,12 +7,17 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.base;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Namespace;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -63,4 +68,27 @@ abstract class DelegatingSailDataset implements SailDataset {
 			Resource... contexts) throws SailException {
 		return delegate.getStatements(subj, pred, obj, contexts);
 	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+			Resource... contexts) throws SailException {
+		return delegate.getStatementsBatch(patterns, contexts);
+	}
+
+	@Override
+	public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws SailException {
+		return delegate.getSupportedOrders(subj, pred, obj, contexts);
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order, Resource subj,
+			IRI pred, Value obj, Resource... contexts) throws SailException {
+		return delegate.getStatements(order, subj, pred, obj, contexts);
+	}
+
+	@Override
+	public Comparator<Value> getComparator() {
+		return delegate.getComparator();
+	}
 }
@@ -7,12 +7,15 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.base;
 
+import java.util.List;
+
 import org.eclipse.rdf4j.IsolationLevels;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -67,4 +70,23 @@ class ObservingSailDataset extends DelegatingSailDataset {
 		return super.getStatements(subj, pred, obj, contexts);
 	}
 
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+			Resource... contexts) throws SailException {
+		for (Value[] pattern : patterns) {
+			if ((pattern[0] == null || pattern[0] instanceof Resource)
+					&& (pattern[1] == null || pattern[1] instanceof IRI)) {
+				observer.observe((Resource) pattern[0], (IRI) pattern[1], pattern[2], contexts);
+			}
+		}
+		return super.getStatementsBatch(patterns, contexts);
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order, Resource subj,
+			IRI pred, Value obj, Resource... contexts) throws SailException {
+		observer.observe(subj, pred, obj, contexts);
+		return super.getStatements(order, subj, pred, obj, contexts);
+	}
+
 }
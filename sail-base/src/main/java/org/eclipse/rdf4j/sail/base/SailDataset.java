@@ -7,13 +7,25 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.base;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.rdf4j.IsolationLevels;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.DelayedIteration;
+import org.eclipse.rdf4j.common.iteration.Iteration;
+import org.eclipse.rdf4j.common.iteration.UnionIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Namespace;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -74,4 +86,96 @@ public interface SailDataset extends SailClosable {
 	CloseableIteration<? extends Statement, SailException> getStatements(Resource subj, IRI pred, Value obj,
 			Resource... contexts) throws SailException;
 
+	/**
+	 * Gets all statements that match at least one of the specified patterns. Each pattern is an array of a subject,
+	 * predicate and object, in that order, where <tt>null</tt> is a wildcard. Patterns with a subject that is not a
+	 * {@link Resource} or a predicate that is not an {@link IRI} do not match any statements. By default the patterns
+	 * are looked up one after the other; datasets that can look up a batch of patterns more efficiently override this.
+	 * 
+	 * @param patterns The subject, predicate and object of each pattern.
+	 * @param contexts The context(s) to get the statements from. Note that this parameter is a vararg and as such is
+	 *                 optional. If no contexts are supplied the method operates on all contexts.
+	 * @return An iterator over the relevant statements, in an arbitrary order. A statement that matches several
+	 *         patterns may be returned once for each of them.
+	 * @throws SailException If the triple source failed to get the statements.
+	 */
+	default CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+			Resource... contexts) throws SailException {
+		List<DelayedIteration<Statement, SailException>> iterList = new ArrayList<>(patterns.size());
+		for (Value[] pattern : patterns) {
+			if ((pattern[0] == null || pattern[0] instanceof Resource)
+					&& (pattern[1] == null || pattern[1] instanceof IRI)) {
+				iterList.add(new DelayedIteration<Statement, SailException>() {
+
+					@Override
+					protected Iteration<? extends Statement, ? extends SailException> createIteration()
+							throws SailException {
+						return getStatements((Resource) pattern[0], (IRI) pattern[1], pattern[2], contexts);
+					}
+				});
+			}
+		}
+		return new UnionIteration<>(iterList);
+	}
+
+	/**
+	 * Gets the orders in which the statements that match the specified pattern can be returned by
+	 * {@link #getStatements(StatementOrder, Resource, IRI, Value, Resource...)} without sorting them first. By default
+	 * no order is supported.
+	 * 
+	 * @param subj     A Resource specifying the subject, or <tt>null</tt> for a wildcard.
+	 * @param pred     A IRI specifying the predicate, or <tt>null</tt> for a wildcard.
+	 * @param obj      A Value specifying the object, or <tt>null</tt> for a wildcard.
+	 * @param contexts The context(s) to get the statements from.
+	 * @return The supported orders, which is an empty set if the statements can not be returned in any order.
+	 * @throws SailException If this object encountered an error or unexpected situation internally.
+	 */
+	default Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws SailException {
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Gets all statements that have a specific subject, predicate and/or object, sorted on the specified position in
+	 * the order of the {@link #getComparator() comparator} of this dataset. Statements are only read in that order for
+	 * the {@link #getSupportedOrders(Resource, IRI, Value, Resource...) supported orders} of the pattern. For other
+	 * orders, and by default, the matching statements are read into memory and sorted, in the order of
+	 * {@link ValueComparator} if this dataset has no comparator.
+	 * 
+	 * @param order    The position to sort the statements on.
+	 * @param subj     A Resource specifying the subject, or <tt>null</tt> for a wildcard.
+	 * @param pred     A IRI specifying the predicate, or <tt>null</tt> for a wildcard.
+	 * @param obj      A Value specifying the object, or <tt>null</tt> for a wildcard.
+	 * @param contexts The context(s) to get the statements from. Note that this parameter is a vararg and as such is
+	 *                 optional. If no contexts are supplied the method operates on all contexts.
+	 * @return An iterator over the relevant statements.
+	 * @throws SailException If the triple source failed to get the statements.
+	 */
+	default CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order, Resource subj,
+			IRI pred, Value obj, Resource... contexts) throws SailException {
+		Comparator<Value> comparator = getComparator();
+		if (comparator == null) {
+			comparator = new ValueComparator();
+		}
+		List<Statement> statements = new ArrayList<>();
+		try (CloseableIteration<? extends Statement, SailException> iter = getStatements(subj, pred, obj,
+				contexts)) {
+			while (iter.hasNext()) {
+				statements.add(iter.next());
+			}
+		}
+		statements.sort(order.getStatementComparator(comparator));
+		return new CloseableIteratorIteration<>(statements.iterator());
+	}
+
+	/**
+	 * Gets the comparator that defines the order of the values in the statements that are returned by
+	 * {@link #getStatements(StatementOrder, Resource, IRI, Value, Resource...)}.
+	 * 
+	 * @return The comparator, or <tt>null</tt> if this dataset does not support sorted statements.
+	 */
+	default Comparator<Value> getComparator() {
+		return null;
+	}
+
 }
@@ -9,6 +9,7 @@ package org.eclipse.rdf4j.sail.base;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,8 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -248,6 +251,57 @@ class SailDatasetImpl implements SailDataset {
 	@Override
 	public CloseableIteration<? extends Statement, SailException> getStatements(Resource subj, IRI pred, Value obj,
 			Resource... contexts) throws SailException {
+		return getStatementsInOrder(null, subj, pred, obj, contexts);
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+			Resource... contexts) throws SailException {
+		if (changes.isStatementCleared() || changes.getDeprecatedContexts() != null) {
+			// the statements of the backing dataset are filtered per pattern
+			return SailDataset.super.getStatementsBatch(patterns, contexts);
+		}
+		CloseableIteration<? extends Statement, SailException> iter;
+		iter = derivedFrom.getStatementsBatch(patterns, contexts);
+		Model deprecated = changes.getDeprecated();
+		if (deprecated != null) {
+			iter = difference(iter, deprecated);
+		}
+		Model approved = changes.getApproved();
+		if (approved != null && !approved.isEmpty()) {
+			List<Statement> included = new ArrayList<>();
+			for (Value[] pattern : patterns) {
+				if ((pattern[0] == null || pattern[0] instanceof Resource)
+						&& (pattern[1] == null || pattern[1] instanceof IRI)) {
+					included.addAll(approved.filter((Resource) pattern[0], (IRI) pattern[1], pattern[2], contexts));
+				}
+			}
+			if (!included.isEmpty()) {
+				iter = new UnionIteration<>(new CloseableIteratorIteration<>(included.iterator()), iter);
+			}
+		}
+		return iter;
+	}
+
+	@Override
+	public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws SailException {
+		// the approved statements are sorted in memory and merged with the sorted statements of the backing dataset
+		return derivedFrom.getSupportedOrders(subj, pred, obj, contexts);
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order, Resource subj,
+			IRI pred, Value obj, Resource... contexts) throws SailException {
+		return getStatementsInOrder(order, subj, pred, obj, contexts);
+	}
+
+	/**
+	 * Gets the statements of the backing dataset that have not been deprecated and the approved statements, sorted on
+	 * the specified position if an order is given.
+	 */
+	private CloseableIteration<? extends Statement, SailException> getStatementsInOrder(StatementOrder order,
+			Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
 		Set<Resource> deprecatedContexts = changes.getDeprecatedContexts();
 		CloseableIteration<? extends Statement, SailException> iter;
 		if (changes.isStatementCleared()
@@ -258,9 +312,9 @@ class SailDatasetImpl implements SailDataset {
 		} else if (contexts.length > 0 && deprecatedContexts != null) {
 			List<Resource> remaining = new ArrayList<>(Arrays.asList(contexts));
 			remaining.removeAll(deprecatedContexts);
-			iter = derivedFrom.getStatements(subj, pred, obj, contexts);
+			iter = getDerivedStatements(order, subj, pred, obj, contexts);
 		} else {
-			iter = derivedFrom.getStatements(subj, pred, obj, contexts);
+			iter = getDerivedStatements(order, subj, pred, obj, contexts);
 		}
 		Model deprecated = changes.getDeprecated();
 		if (deprecated != null && iter != null) {
@@ -268,10 +322,9 @@ class SailDatasetImpl implements SailDataset {
 		}
 		Model approved = changes.getApproved();
 		if (approved != null && iter != null) {
-			return union(iter, approved.filter(subj, pred, obj, contexts));
+			return union(order, iter, approved.filter(subj, pred, obj, contexts));
 		} else if (approved != null) {
-			Iterator<Statement> i = approved.filter(subj, pred, obj, contexts).iterator();
-			return new CloseableIteratorIteration<>(i);
+			return sorted(order, approved.filter(subj, pred, obj, contexts));
 		} else if (iter != null) {
 			return iter;
 		} else {
@@ -279,6 +332,20 @@ class SailDatasetImpl implements SailDataset {
 		}
 	}
 
+	private CloseableIteration<? extends Statement, SailException> getDerivedStatements(StatementOrder order,
+			Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
+		if (order == null) {
+			return derivedFrom.getStatements(subj, pred, obj, contexts);
+		} else {
+			return derivedFrom.getStatements(order, subj, pred, obj, contexts);
+		}
+	}
+
+	@Override
+	public Comparator<Value> getComparator() {
+		return derivedFrom.getComparator();
+	}
+
 	private CloseableIteration<? extends Statement, SailException> difference(
 			CloseableIteration<? extends Statement, SailException> result, final Model excluded) {
 		if (excluded.isEmpty()) {
@@ -293,15 +360,37 @@ class SailDatasetImpl implements SailDataset {
 		};
 	}
 
-	private CloseableIteration<? extends Statement, SailException> union(
+	private CloseableIteration<? extends Statement, SailException> union(StatementOrder order,
 			CloseableIteration<? extends Statement, SailException> result, Model included) {
 		if (included.isEmpty()) {
 			return result;
 		}
-		final Iterator<Statement> iter = included.iterator();
-		CloseableIteration<Statement, SailException> incl;
-		incl = new CloseableIteratorIteration<>(iter);
-		return new UnionIteration<>(incl, result);
+		CloseableIteration<? extends Statement, SailException> incl = sorted(order, included);
+		if (order == null) {
+			return new UnionIteration<>(incl, result);
+		}
+		return new UnionSailDataset.SortedUnionIteration(order, getValueComparator(),
+				new CloseableIteration[] { incl, result });
+	}
+
+	/**
+	 * Gets an iteration over the specified statements, sorted on the specified position if an order is given.
+	 */
+	private CloseableIteration<? extends Statement, SailException> sorted(StatementOrder order, Model statements) {
+		if (order == null) {
+			return new CloseableIteratorIteration<>(statements.iterator());
+		}
+		List<Statement> list = new ArrayList<>(statements);
+		list.sort(order.getStatementComparator(getValueComparator()));
+		return new CloseableIteratorIteration<>(list.iterator());
+	}
+
+	/**
+	 * Gets the comparator in whose order the backing dataset returns sorted statements.
+	 */
+	private Comparator<Value> getValueComparator() {
+		Comparator<Value> comparator = derivedFrom.getComparator();
+		return comparator != null ? comparator : new ValueComparator();
 	}
 
 }
@@ -7,6 +7,10 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.base;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
 import org.eclipse.rdf4j.common.iteration.Iteration;
@@ -16,13 +20,16 @@ import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
-import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.BatchedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.OrderedTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
- * Implementation of the TripleSource interface using {@link SailDataset}
+ * Implementation of the TripleSource interface using {@link SailDataset}. Sorted statements are supported when the
+ * {@link SailDataset} supports them. Batches of patterns are passed on to the {@link SailDataset}.
  */
-class SailDatasetTripleSource implements TripleSource {
+class SailDatasetTripleSource implements OrderedTripleSource, BatchedTripleSource {
 
 	private final ValueFactory vf;
 
@@ -48,6 +55,41 @@ class SailDatasetTripleSource implements TripleSource {
 		}
 	}
 
+	@Override
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatementsBatch(
+			List<Value[]> patterns, Resource... contexts) throws QueryEvaluationException {
+		try {
+			return new Eval(dataset.getStatementsBatch(patterns, contexts));
+		} catch (SailException e) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+	@Override
+	public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws QueryEvaluationException {
+		try {
+			return dataset.getSupportedOrders(subj, pred, obj, contexts);
+		} catch (SailException e) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(StatementOrder order,
+			Resource subj, IRI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+		try {
+			return new Eval(dataset.getStatements(order, subj, pred, obj, contexts));
+		} catch (SailException e) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+	@Override
+	public Comparator<Value> getComparator() {
+		return dataset.getComparator();
+	}
+
 	@Override
 	public ValueFactory getValueFactory() {
 		return vf;
@@ -8,14 +8,21 @@
 package org.eclipse.rdf4j.sail.base;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
 import org.eclipse.rdf4j.common.iteration.UnionIteration;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Namespace;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.StatementOrder;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -93,9 +100,137 @@ class UnionSailDataset implements SailDataset {
 		return union(result);
 	}
 
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatementsBatch(List<Value[]> patterns,
+			Resource... contexts) throws SailException {
+		CloseableIteration<? extends Statement, SailException>[] result;
+		result = new CloseableIteration[datasets.length];
+		for (int i = 0; i < datasets.length; i++) {
+			result[i] = datasets[i].getStatementsBatch(patterns, contexts);
+		}
+		return union(result);
+	}
+
+	@Override
+	public Set<StatementOrder> getSupportedOrders(Resource subj, IRI pred, Value obj, Resource... contexts)
+			throws SailException {
+		if (getComparator() == null) {
+			return Collections.emptySet();
+		}
+		Set<StatementOrder> result = EnumSet.allOf(StatementOrder.class);
+		for (SailDataset dataset : datasets) {
+			result.retainAll(dataset.getSupportedOrders(subj, pred, obj, contexts));
+		}
+		return result;
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatements(StatementOrder order, Resource subj,
+			IRI pred, Value obj, Resource... contexts) throws SailException {
+		Comparator<Value> comparator = getComparator();
+		if (comparator == null) {
+			// the statements of the datasets are sorted differently and can not be merged
+			return SailDataset.super.getStatements(order, subj, pred, obj, contexts);
+		}
+		CloseableIteration<? extends Statement, SailException>[] result;
+		result = new CloseableIteration[datasets.length];
+		for (int i = 0; i < datasets.length; i++) {
+			result[i] = datasets[i].getStatements(order, subj, pred, obj, contexts);
+		}
+		return new SortedUnionIteration(order, comparator, result);
+	}
+
+	/**
+	 * Gets the comparator that all combined {@link SailDataset}s have in common.
+	 * 
+	 * @return The comparator, or <tt>null</tt> if the {@link SailDataset}s sort their statements differently.
+	 */
+	@Override
+	public Comparator<Value> getComparator() {
+		if (datasets.length == 0) {
+			return null;
+		}
+		Comparator<Value> comparator = datasets[0].getComparator();
+		for (SailDataset dataset : datasets) {
+			if (comparator == null || !comparator.equals(dataset.getComparator())) {
+				return null;
+			}
+		}
+		return comparator;
+	}
+
 	private <T> CloseableIteration<? extends T, SailException> union(
 			CloseableIteration<? extends T, SailException>[] items) {
 		return new UnionIteration<>(items);
 	}
 
+	/*----------------------------------*
+	 * Inner class SortedUnionIteration *
+	 *----------------------------------*/
+
+	/**
+	 * Merges statement iterations that are sorted on the same position into a single sorted iteration.
+	 */
+	static class SortedUnionIteration extends LookAheadIteration<Statement, SailException> {
+
+		private final Comparator<Statement> comparator;
+
+		private final CloseableIteration<? extends Statement, SailException>[] iters;
+
+		/**
+		 * The next statement of each iteration, or <tt>null</tt> if the iteration is exhausted.
+		 */
+		private Statement[] heads;
+
+		public SortedUnionIteration(StatementOrder order, Comparator<Value> comparator,
+				CloseableIteration<? extends Statement, SailException>[] iters) {
+			this.comparator = order.getStatementComparator(comparator);
+			this.iters = iters;
+		}
+
+		@Override
+		protected Statement getNextElement() throws SailException {
+			if (heads == null) {
+				heads = new Statement[iters.length];
+				for (int i = 0; i < iters.length; i++) {
+					heads[i] = iters[i].hasNext() ? iters[i].next() : null;
+				}
+			}
+
+			int min = -1;
+			for (int i = 0; i < heads.length; i++) {
+				if (heads[i] != null && (min < 0 || comparator.compare(heads[i], heads[min]) < 0)) {
+					min = i;
+				}
+			}
+
+			if (min < 0) {
+				return null;
+			}
+
+			Statement result = heads[min];
+			heads[min] = iters[min].hasNext() ? iters[min].next() : null;
+			return result;
+		}
+
+		@Override
+		protected void handleClose() throws SailException {
+			try {
+				super.handleClose();
+			} finally {
+				close(0);
+			}
+		}
+
+		private void close(int index) throws SailException {
+			if (index < iters.length) {
+				try {
+					iters[index].close();
+				} finally {
+					close(index + 1);
+				}
+			}
+		}
+	} // end inner class SortedUnionIteration
+
 }